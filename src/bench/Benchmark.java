@@ -0,0 +1,130 @@
+package bench;
+
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * The Benchmark class represents a single timed operation of the World
+ * generation pipeline that is parameterised by the size of a Grid.  Each trial
+ * of a Benchmark sets up its state once and then times repeated invocations of
+ * the operation, discarding a number of warmup invocations so that the JIT has
+ * a chance to compile the measured code.  Operations that modify their state
+ * (e.g., the stages of the generation pipeline that rewrite a Terrain) can be
+ * created with {@link #perInvocation} so that their state is restored before
+ * every invocation, outside of the timed region, like an invocation-level setup
+ * in JMH.
+ */
+public class Benchmark {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs a Benchmark with the given name and setup function.  The setup
+     * function accepts the number of rows and columns of a Grid and returns the
+     * operation to be timed; the value returned by the operation is consumed so
+     * that the computation cannot be eliminated by the JIT.
+     *
+     * @param name  The name of this Benchmark.
+     * @param setup The setup function of this Benchmark.
+     */
+    public Benchmark(String name, IntFunction<Supplier<Object>> setup) {
+        this.name = name;
+        this.setup = size -> {
+            Supplier<Object> operation = setup.apply(size);
+            return () -> operation;
+        };
+    }
+
+    /**
+     * Returns a Benchmark with the given name and setup function whose state is
+     * prepared before every invocation.  The setup function accepts the number
+     * of rows and columns of a Grid and returns a function that prepares the
+     * state of a single invocation and returns the operation to be timed; only
+     * the operation is included in the measured duration.
+     *
+     * @param name  The name of the Benchmark.
+     * @param setup The setup function of the Benchmark.
+     *
+     * @return The Benchmark.
+     */
+    public static Benchmark perInvocation(String name, IntFunction<Supplier<Supplier<Object>>> setup) {
+        Benchmark benchmark = new Benchmark(name, size -> null);
+        benchmark.setup = setup;
+        return benchmark;
+    }
+
+    /**
+     * Returns the name of this Benchmark.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Runs a trial of this Benchmark with the given Grid size.
+     *
+     * @param size       The number of rows and columns of the Grid.
+     * @param warmups    The number of untimed invocations of the operation.
+     * @param iterations The number of timed invocations of the operation.
+     *
+     * @return The duration of each timed invocation (in milliseconds).
+     */
+    public double[] measure(int size, int warmups, int iterations) {
+        Supplier<Supplier<Object>> invocation = this.setup.apply(size);
+        for (int i = 0; i < warmups; ++i) {
+            Benchmark.consume(invocation.get().get());
+        }
+
+        double[] times = new double[iterations];
+        for (int i = 0; i < iterations; ++i) {
+            Supplier<Object> operation = invocation.get();
+            long start = System.nanoTime();
+            Object result = operation.get();
+            times[i] = (System.nanoTime() - start)/1E6;
+            Benchmark.consume(result);
+        }
+        return times;
+    }
+
+    /**
+     * Returns a String representation of this Benchmark.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("Benchmark \"%s\"", this.name);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Accumulates the results of every timed operation.  Publishing the results
+     * through a volatile field prevents the JIT from treating them as dead code.
+     */
+    private static volatile int sink = 0;
+
+    /**
+     * The name of this Benchmark.
+     */
+    private String name;
+
+    /**
+     * The function that prepares the state of this Benchmark for a given Grid
+     * size; the function it returns prepares the operation of an invocation.
+     */
+    private IntFunction<Supplier<Supplier<Object>>> setup;
+
+    /**
+     * Consumes the given result of an operation.
+     *
+     * @param result The result to consume.
+     */
+    private static void consume(Object result) {
+        Benchmark.sink += result == null ? 0 : result.hashCode();
+    }
+}
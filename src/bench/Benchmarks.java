@@ -0,0 +1,343 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import bio.BioMap;
+import bio.BioMapFactory;
+import bio.Biome;
+import core.Config;
+import core.Logger;
+import env.Grid;
+import env.LocalMap;
+import env.Noiseform;
+import env.Terrain;
+import util.Parallel;
+import util.Perlin;
+import util.RNG;
+
+/**
+ * The Benchmarks class is the execution entry point for benchmarking the World
+ * generation pipeline.  Every Benchmark is run once for each Grid size and its
+ * mean, standard deviation, and minimum duration are reported in a table.
+ */
+public class Benchmarks {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a description of the command-line flags accepted by {@link #main}.
+     *
+     * @return The usage message.
+     */
+    public static String usage() {
+        return String.join(System.lineSeparator(),
+            "Usage: java bench.Benchmarks [flags]",
+            "    --sizes <int,...>       The numbers of rows and columns of the benchmarked Grids.",
+            "    --warmup <int>          The number of untimed invocations in each trial.",
+            "    --iterations <int>      The number of timed invocations in each trial.",
+            "    --filter <text>         Only runs the Benchmarks whose names contain the given text.",
+            "    --seed <long>           The seed of the RNG.",
+            "    --threads <int>         The number of threads that run the generation pipeline."
+        );
+    }
+
+    /**
+     * Execution entry point.  The command-line arguments are described by
+     * {@link #usage}.
+     *
+     * @param args Command-line arguments.
+     */
+    public static void main(String[] args) {
+        int[] sizes = {50, 100, 200};
+        int warmups = 3;
+        int iterations = 5;
+        String filter = "";
+        long seed = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                String flag = args[i];
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException(String.format("Missing value for flag \"%s\".", flag));
+                }
+                String value = args[i + 1];
+
+                try {
+                    switch (flag) {
+                        case "--sizes":
+                            String[] tokens = value.split(",");
+                            sizes = new int[tokens.length];
+                            for (int k = 0; k < tokens.length; ++k) {
+                                sizes[k] = Benchmarks.atLeast(flag, Integer.parseInt(tokens[k].trim()), 2);
+                            }
+                            break;
+                        case "--warmup":
+                            warmups = Benchmarks.atLeast(flag, Integer.parseInt(value), 0);
+                            break;
+                        case "--iterations":
+                            iterations = Benchmarks.atLeast(flag, Integer.parseInt(value), 1);
+                            break;
+                        case "--filter":
+                            filter = value;
+                            break;
+                        case "--seed":
+                            seed = Long.parseLong(value);
+                            break;
+                        case "--threads":
+                            threads = Benchmarks.atLeast(flag, Integer.parseInt(value), 1);
+                            break;
+                        default:
+                            throw new IllegalArgumentException(String.format("Unknown flag \"%s\".", flag));
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(String.format("Invalid value \"%s\" for flag \"%s\".", value, flag));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            Logger.error(e.getMessage());
+            Logger.flush();
+            System.out.println(Benchmarks.usage());
+            return;
+        }
+
+        List<Benchmark> benchmarks = new ArrayList<>();
+        for (Benchmark benchmark : Benchmarks.create()) {
+            if (benchmark.getName().contains(filter)) {
+                benchmarks.add(benchmark);
+            }
+        }
+        Parallel.setThreads(threads);
+        Logger.info("Running %d Benchmarks on %d threads with %d warmup and %d timed iterations per trial.", benchmarks.size(), threads, warmups, iterations);
+
+        // The generation pipeline logs its progress; silence it while the
+        // Benchmarks are running so that the results table remains readable
+        // and the cost of logging does not dominate the small trials.  The
+        // Logger writes asynchronously, so it must be flushed before the
+        // table is printed.
+        Logger.flush();
+        System.out.println(String.format("%-36s %6s %12s %12s %12s", "Benchmark", "Size", "Mean (ms)", "StdDev (ms)", "Min (ms)"));
+        for (Benchmark benchmark : benchmarks) {
+            for (int size : sizes) {
+                // Every trial begins from the same RNG state so that trials are
+                // comparable across runs.
+                RNG.setSeed(seed);
+
+                double[] times;
+                Logger.setLevel(Logger.Level.WARN);
+                try {
+                    times = benchmark.measure(size, warmups, iterations);
+                } finally {
+                    Logger.setLevel(Logger.Level.DEBUG);
+                }
+                Logger.flush();
+
+                double mean = 0;
+                double min = Double.POSITIVE_INFINITY;
+                for (double time : times) {
+                    mean += time/times.length;
+                    min = Math.min(min, time);
+                }
+                double variance = 0;
+                for (double time : times) {
+                    variance += (time - mean)*(time - mean)/Math.max(1, times.length - 1);
+                }
+                System.out.println(String.format("%-36s %6d %12.3f %12.3f %12.3f", benchmark.getName(), size, mean, Math.sqrt(variance), min));
+            }
+        }
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The minimum X- and Y-coordinate of the benchmarked Grids.
+     */
+    private static final float MIN = -0.8f;
+
+    /**
+     * The maximum X- and Y-coordinate of the benchmarked Grids.
+     */
+    private static final float MAX = 0.8f;
+
+    /**
+     * Returns the list of Benchmarks that cover the World generation pipeline.
+     *
+     * @return The Benchmarks.
+     */
+    private static List<Benchmark> create() {
+        Config config = new Config();
+        List<Benchmark> benchmarks = new ArrayList<>();
+
+        benchmarks.add(new Benchmark("Perlin.transform", size -> {
+            Perlin perlin = new Perlin(size, size, config.getMoistureGradients(), config.getMoistureGradients(), RNG.getSeed());
+            return () -> {
+                perlin.transform();
+                return perlin.get(size/2, size/2);
+            };
+        }));
+
+        for (BioMapFactory.Type type : BioMapFactory.Type.values()) {
+            String name = String.format("BioMapFactory.create(%s)", type);
+            benchmarks.add(new Benchmark(name, size -> () -> BioMapFactory.create(type, size, size, config)));
+        }
+
+        benchmarks.add(new Benchmark("LocalMap.<init>", size -> {
+            Grid grid = Benchmarks.createGrid(BioMapFactory.create(BioMapFactory.Type.LAND, size, size, config), config);
+            return () -> {
+                LocalMap locals = null;
+                for (int row = 0; row < size; ++row) {
+                    for (int col = 0; col < size; ++col) {
+                        locals = new LocalMap(grid, row, col, 0.05f);
+                    }
+                }
+                return locals;
+            };
+        }));
+
+        benchmarks.add(Benchmark.perInvocation("Noiseform.disturb", size -> {
+            Grid grid = Benchmarks.createGrid(BioMapFactory.create(BioMapFactory.Type.LAND, size, size, config), config);
+            Noiseform noiseform = Benchmarks.createNoiseform(grid, config, Noiseform.Smoothing.EXACT);
+            return Benchmarks.restore(grid, () -> {
+                noiseform.disturb();
+                return noiseform;
+            });
+        }));
+
+        for (Noiseform.Smoothing smoothing : Noiseform.Smoothing.values()) {
+            String name = String.format("Noiseform.alias(%s)", smoothing);
+            benchmarks.add(Benchmark.perInvocation(name, size -> {
+                Grid grid = Benchmarks.createGrid(BioMapFactory.create(BioMapFactory.Type.LAND, size, size, config), config);
+                Noiseform noiseform = Benchmarks.createNoiseform(grid, config, smoothing);
+                return Benchmarks.restore(grid, () -> {
+                    noiseform.alias();
+                    return noiseform;
+                });
+            }));
+        }
+
+        benchmarks.add(Benchmark.perInvocation("Noiseform.texture", size -> {
+            Grid grid = Benchmarks.createGrid(BioMapFactory.create(BioMapFactory.Type.LAND, size, size, config), config);
+            Noiseform noiseform = Benchmarks.createNoiseform(grid, config, Noiseform.Smoothing.EXACT);
+            return Benchmarks.restore(grid, () -> {
+                noiseform.texture();
+                return noiseform;
+            });
+        }));
+
+        benchmarks.add(Benchmark.perInvocation("Noiseform.ground", size -> {
+            Grid grid = Benchmarks.createGrid(BioMapFactory.create(BioMapFactory.Type.LAND, size, size, config), config);
+            Noiseform noiseform = Benchmarks.createNoiseform(grid, config, Noiseform.Smoothing.EXACT);
+            return Benchmarks.restore(grid, () -> {
+                noiseform.ground();
+                return noiseform;
+            });
+        }));
+
+        for (Biome biome : Biome.values()) {
+            String name = String.format("Biome.texturize(%s)", biome.getName());
+            benchmarks.add(Benchmark.perInvocation(name, size -> {
+                // A Grid that consists entirely of a single Biome isolates the
+                // cost of texturizing that Biome.
+                BioMap biomap = new BioMap(size, size);
+                biomap.setRect(0, 0, size - 1, size - 1, biome);
+                Grid grid = Benchmarks.createGrid(biomap, config);
+                float[] elevations = new float[size*size];
+                for (int index = 0; index < size*size; ++index) {
+                    elevations[index] = grid.getTerrain().getZ(index);
+                }
+                return Benchmarks.restore(grid, () -> {
+                    for (int row = 0; row < size; ++row) {
+                        for (int col = 0; col < size; ++col) {
+                            RNG.reseed(grid.getSeed(), row, col, RNG.Stream.TEXTURES);
+                            biome.texturize(grid, elevations, row, col, 1f);
+                        }
+                    }
+                    return grid;
+                });
+            }));
+        }
+
+        benchmarks.add(new Benchmark("Grid.update", size -> {
+            Grid grid = Benchmarks.createGrid(BioMapFactory.create(BioMapFactory.Type.WATER, size, size, config), config);
+            double[] time = {0};
+            return () -> {
+                // Advance the clock by one frame at 60 FPS.
+                time[0] += 1/60.0;
+                grid.update(time[0]);
+                return grid;
+            };
+        }));
+
+        return benchmarks;
+    }
+
+    /**
+     * Creates a Grid spanning the bounds of a World with the given BioMap.
+     *
+     * @param biomap The BioMap of the Grid.
+     * @param config The parameters used to generate the Grid.
+     *
+     * @return The Grid.
+     */
+    private static Grid createGrid(BioMap biomap, Config config) {
+        int size = biomap.getRows();
+        return new Grid("Benchmark", size, size, 0.06f, MIN, MIN, MAX, MAX, biomap, config);
+    }
+
+    /**
+     * Creates a Noiseform over the given Grid.
+     *
+     * @param grid      The Grid of the Noiseform.
+     * @param config    The parameters used to generate the Grid.
+     * @param smoothing The Smoothing method of the Noiseform.
+     *
+     * @return The Noiseform.
+     */
+    private static Noiseform createNoiseform(Grid grid, Config config, Noiseform.Smoothing smoothing) {
+        int cells = config.getNoiseCells();
+        return new Noiseform(grid, cells, cells, smoothing, config.getSmoothingRadius());
+    }
+
+    /**
+     * Returns a function that restores the Terrain of the given Grid to its
+     * current state and then returns the given operation.  Stages of the
+     * generation pipeline rewrite the Terrain of their Grid, so restoring it
+     * before every invocation times each invocation on the same input.
+     *
+     * @param grid      The Grid modified by the operation.
+     * @param operation The operation to be timed.
+     *
+     * @return The function that prepares an invocation of the operation.
+     */
+    private static Supplier<Supplier<Object>> restore(Grid grid, Supplier<Object> operation) {
+        Terrain terrain = grid.getTerrain();
+        Terrain initial = terrain.crop(grid.getColumns(), 0, 0, grid.getRows(), grid.getColumns());
+        return () -> {
+            terrain.copy(initial);
+            return operation;
+        };
+    }
+
+    /**
+     * Verifies that the given flag value is at least the specified minimum.
+     *
+     * @param flag    The name of the flag.
+     * @param value   The value of the flag.
+     * @param minimum The minimum value of the flag.
+     *
+     * @return The value of the flag.
+     *
+     * @throws IllegalArgumentException If the value is less than the minimum.
+     */
+    private static int atLeast(String flag, int value, int minimum) {
+        if (value < minimum) {
+            throw new IllegalArgumentException(String.format("Flag \"%s\" must be at least %d.", flag, minimum));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * The "bench" package contains a micro-benchmark harness for the stages of the
+ * World generation pipeline.
+ */
+package bench;
@@ -1,14 +1,14 @@
 package bio;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.function.Function;
 
+import core.Config;
 import core.Logger;
 import geo.Vertex;
+import util.Parallel;
 import util.Perlin;
 import util.RNG;
 
@@ -38,9 +38,24 @@ public class BioMapFactory {
      * @return The generated BioMap.
      */
     public static BioMap create(Type type, int rows, int cols) {
+        return BioMapFactory.create(type, rows, cols, new Config());
+    }
+
+    /**
+     * Creates the given type of BioMap with the specified number of rows and
+     * columns using the generation parameters of the given Config.
+     *
+     * @param type   The type of the BioMap.
+     * @param rows   The number of rows.
+     * @param cols   The number of columns.
+     * @param config The generation parameters.
+     * 
+     * @return The generated BioMap.
+     */
+    public static BioMap create(Type type, int rows, int cols, Config config) {
         switch (type) {
             case LAND:
-                return createLandMap(rows, cols);
+                return createLandMap(rows, cols, config);
             case WATER:
                 return createWaterMap(rows, cols);
             default:
@@ -49,6 +64,54 @@ public class BioMapFactory {
         }
     }
 
+    /**
+     * Returns the Biome matching the given moisture and elevation, both of
+     * which fall in the range [0, 1].  The returned Biome is computed according
+     * to the following table:
+     * 
+     *       1.00 +----------+----------+----------+----------+----------+----------+
+     *   E        |                  Mountain                 |        Alpine       |
+     *   l   0.60 |----------+----------+----------+----------+----------+----------|
+     *   e        |  Barren  |           Grasslands           |        Taiga        |
+     *   v   0.53 |----------+----------+----------+----------+----------+----------|
+     *   a        |  Barren  | Prairie  |      Grasslands     |      Deciduous      |
+     *   t   0.47 |----------+----------+----------+----------+----------+----------|
+     *   i        |  Desert  |  Barren  |            Prairie             | Tropical |
+     *   o   0.40 +----------+----------+----------+----------+----------+----------+
+     *   n        |                               Void                              |
+     *       0.00 +----------+----------+----------+----------+----------+----------+
+     *           0.0        0.4        0.47       0.5        0.53       0.6        1.0
+     *                                          Moisture
+     * 
+     * @param moisture  The moisture.
+     * @param elevation The elevation.
+     * 
+     * @return The associated Biome.
+     */
+    public static Biome getBiome(float moisture, float elevation) {
+        if (elevation > 0.6f) {
+            if (moisture < 0.53f) return Biome.MOUNTAIN;
+            else                  return Biome.ALPINE;
+        } else if (elevation > 0.53f) {
+            if      (moisture < 0.40f) return Biome.BARREN;
+            else if (moisture < 0.53f) return Biome.GRASSLANDS;
+            else                       return Biome.TAIGA;
+        } else if (elevation > 0.47f) {
+            if      (moisture < 0.40f) return Biome.BARREN;
+            else if (moisture < 0.47f) return Biome.PRAIRIE;
+            else if (moisture < 0.53f) return Biome.GRASSLANDS;
+            else                       return Biome.DECIDUOUS;
+        } else if (elevation > 0.4f) {
+            if (moisture < 0.4f)       return Biome.DESERT;
+            else if (moisture < 0.47f) return Biome.BARREN;
+            else if (moisture < 0.60f) return Biome.PRAIRIE;
+            else                       return Biome.TROPICAL;
+        } else {
+            return Biome.VOID;
+        }
+    }
+
+
     // Private members
     // ------------------------------------------------------------------------
 
@@ -56,43 +119,61 @@ public class BioMapFactory {
      * Creates a BioMap that represents the landscape of the World using the given
      * number of rows and columns.
      * 
-     * @param rows The number of rows.
-     * @param cols The number of columns.
+     * @param rows   The number of rows.
+     * @param cols   The number of columns.
+     * @param config The generation parameters.
      *
      * @return The landscape BioMap.
      */
-    private static BioMap createLandMap(int rows, int cols) {
+    private static BioMap createLandMap(int rows, int cols, Config config) {
         Logger.info("Creating a landscape BioMap with %d rows and %d columns.", rows, cols);
         BioMap biomap = new BioMap(rows, cols);
-        
+
+        // Every random decision in the BioMap is derived from this seed.
+        long seed = RNG.hash(RNG.getSeed(), Type.LAND.ordinal(), 0, RNG.Stream.BIOMAP);
+
         // Generate a moisture map using a Perlin noise distribution.
-        int moistRows = 5, moistCols = 5;
+        int moistRows = config.getMoistureGradients(), moistCols = config.getMoistureGradients();
         Logger.info(1, "Initializing the moisture map with %d rows and %d columns.", moistRows, moistCols);
-        Perlin moistMap = new Perlin(rows, cols, moistRows, moistCols);
+        Perlin moistMap = new Perlin(rows, cols, moistRows, moistCols, RNG.hash(seed, 0, 0, RNG.Stream.MOISTURE));
         moistMap.transform();
 
         // Generate an elevation map using a Perlin noise distribution.
-        int heightRows = 3, heightCols = 3;
+        int heightRows = config.getElevationGradients(), heightCols = config.getElevationGradients();
         Logger.info(1, "Initializing the elevation map with %d rows and %d columns.", heightRows, heightCols);
-        Perlin heightMap = new Perlin(rows, cols, heightRows, heightCols);
+        Perlin heightMap = new Perlin(rows, cols, heightRows, heightCols, RNG.hash(seed, 0, 0, RNG.Stream.ELEVATION));
         heightMap.transform();
 
         // Generate a list of BioRegions using the moisture and elevation maps.
-        int regions = 25;
+        int regions = config.getRegions();
         Logger.info(1, "Partitioning the BioMap into %d BioRegions:", regions);
-        List<BioRegion> bioRegions = BioMapFactory.createRegions(moistMap, heightMap, regions, rows, cols);
-
-        Map<Biome, Integer> biomeCounter = new TreeMap<>();
+        List<BioRegion> bioRegions = BioMapFactory.createRegions(moistMap, heightMap, regions, rows, cols, seed);
+        BioRegionTree regionTree = new BioRegionTree(bioRegions);
 
         // Apply the Biome of each BioRegion to their respective BioVertexes.
-        for (int row = 0; row < rows; ++row) {
-            for (int col = 0; col < cols; ++col) {
-                BioRegion region = closestRegion(bioRegions, row, col);
-                Biome biome = region.getBiome();
-                biomap.set(row, col, biome);
-
-                int counter = biomeCounter.getOrDefault(biome, 0) + 1;
-                biomeCounter.put(biome, counter);
+        // Each band counts its own Biomes and merges them once it is done.
+        int[] counters = new int[Biome.values().length];
+        Parallel.forEachBand(rows, cols, (first, last) -> {
+            int[] local = new int[counters.length];
+            for (int row = first; row < last; ++row) {
+                for (int col = 0; col < cols; ++col) {
+                    BioRegion region = regionTree.closest(col, row);
+                    Biome biome = region.getBiome();
+                    biomap.set(row, col, biome);
+                    ++local[biome.ordinal()];
+                }
+            }
+            synchronized (counters) {
+                for (int i = 0; i < counters.length; ++i) {
+                    counters[i] += local[i];
+                }
+            }
+        });
+
+        Map<Biome, Integer> biomeCounter = new TreeMap<>();
+        for (Biome biome : Biome.values()) {
+            if (counters[biome.ordinal()] > 0) {
+                biomeCounter.put(biome, counters[biome.ordinal()]);
             }
         }
 
@@ -109,54 +190,17 @@ public class BioMapFactory {
 
     /**
      * Returns the Biome matching the given row and column using the provided
-     * moisture and elevation maps.  The returned Biome is computed according to
-     * the following table:
-     * 
-     *       1.00 +----------+----------+----------+----------+----------+----------+
-     *   E        |                  Mountain                 |        Alpine       |
-     *   l   0.60 |----------+----------+----------+----------+----------+----------|
-     *   e        |  Barren  |           Grasslands           |        Taiga        |
-     *   v   0.53 |----------+----------+----------+----------+----------+----------|
-     *   a        |  Barren  | Prairie  |      Grasslands     |      Deciduous      |
-     *   t   0.47 |----------+----------+----------+----------+----------+----------|
-     *   i        |  Desert  |  Barren  |            Prairie             | Tropical |
-     *   o   0.40 +----------+----------+----------+----------+----------+----------+
-     *   n        |                               Void                              |
-     *       0.00 +----------+----------+----------+----------+----------+----------+
-     *           0.0        0.4        0.47       0.5        0.53       0.6        1.0
-     *                                          Moisture
-     * 
+     * moisture and elevation maps.
+     *
      * @param moistMap  The moisture map.
      * @param heightMap The elevation map.
      * @param row       The row in the BioMap.
      * @param col       The column in the BioMap.
-     * 
+     *
      * @return The associated Biome.
      */
     private static Biome getBiome(Perlin moistMap, Perlin heightMap, int row, int col) {
-        float moisture = moistMap.get(row, col);
-        float elevation = heightMap.get(row, col);
-
-        if (elevation > 0.6f) {
-            if (moisture < 0.53f) return Biome.MOUNTAIN;
-            else                  return Biome.ALPINE;
-        } else if (elevation > 0.53f) {
-            if      (moisture < 0.40f) return Biome.BARREN;
-            else if (moisture < 0.53f) return Biome.GRASSLANDS;
-            else                       return Biome.TAIGA;
-        } else if (elevation > 0.47f) {
-            if      (moisture < 0.40f) return Biome.BARREN;
-            else if (moisture < 0.47f) return Biome.PRAIRIE;
-            else if (moisture < 0.53f) return Biome.GRASSLANDS;
-            else                       return Biome.DECIDUOUS;
-        } else if (elevation > 0.4f) {
-            if (moisture < 0.4f)       return Biome.DESERT;
-            else if (moisture < 0.47f) return Biome.BARREN;
-            else if (moisture < 0.60f) return Biome.PRAIRIE;
-            else                       return Biome.TROPICAL;
-        } else {
-            return Biome.VOID;
-        }
+        return BioMapFactory.getBiome(moistMap.get(row, col), heightMap.get(row, col));
     }
 
     /**
@@ -175,21 +219,6 @@ public class BioMapFactory {
         return biomap;
     }
 
-    /**
-     * Returns the closet BioRegion to the given cell.
-     * 
-     * @param bioRegions The list of candidate BioRegions.
-     * @param row        The row of the cell.
-     * @param col        The column of the cell.
-     * 
-     * @return The closest BioRegion.
-     */
-    private static BioRegion closestRegion(List<BioRegion> bioRegions, int row, int col) {
-        Vertex cell = new Vertex(col, row, 0);
-        Function<BioRegion, Float> distance = region -> region.getCenter().distance(cell);
-        return bioRegions.stream().min(Comparator.comparing(distance)).get();
-    }
-
     /**
      * Returns a list of |numRegions| BioRegions using the given moisture and
      * height maps.  The centers of the BioRegions are randomly distributed
@@ -200,15 +229,16 @@ public class BioMapFactory {
      * @param numRegions The number of BioRegions to generate.
      * @param rows       The number of rows.
      * @param cols       The number of columns.
+     * @param seed       The seed of the BioMap.
      * 
      * @return The list of BioRegions.
      */
-    private static List<BioRegion> createRegions(Perlin moistMap, Perlin heightMap, int numRegions, int rows, int cols) {
+    private static List<BioRegion> createRegions(Perlin moistMap, Perlin heightMap, int numRegions, int rows, int cols, long seed) {
         List<BioRegion> regions = new ArrayList<>();
         for (int i = 0; i < numRegions; ++i) {
             // The center of the BioRegion can appear anywhere on the BioMap.
-            float x = RNG.random(0, cols - 1);
-            float y = RNG.random(0, rows - 1);
+            float x = (int) (cols*RNG.random(seed, i, 0, RNG.Stream.REGIONS));
+            float y = (int) (rows*RNG.random(seed, i, 1, RNG.Stream.REGIONS));
             Vertex center = new Vertex(x, y, 0);
 
             // The Biome associated with the BioRegion is determined by the
@@ -0,0 +1,188 @@
+package bio;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The BioRegionTree class is a 2D k-d tree over the centers of a set of
+ * BioRegions.  It answers nearest-BioRegion queries in logarithmic time and
+ * breaks ties in favour of the BioRegion that appears first in the original
+ * list, which matches a linear scan over that list.
+ */
+public class BioRegionTree {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs a BioRegionTree over the given BioRegions.
+     *
+     * @param regions The BioRegions to index.  This list must be non-empty.
+     */
+    public BioRegionTree(List<BioRegion> regions) {
+        if (regions.isEmpty()) {
+            throw new IllegalArgumentException("A BioRegionTree must contain at least one BioRegion.");
+        }
+
+        this.regions = regions.toArray(new BioRegion[0]);
+
+        int size = this.regions.length;
+        this.xs = new float[size];
+        this.ys = new float[size];
+        for (int i = 0; i < size; ++i) {
+            this.xs[i] = this.regions[i].getCenter().getX();
+            this.ys[i] = this.regions[i].getCenter().getY();
+        }
+
+        // The tree is stored implicitly: the median of each range [lo, hi) is
+        // located at (lo + hi)/2 and splits the range along the axis of its depth.
+        this.nodes = new int[size];
+        for (int i = 0; i < size; ++i) {
+            this.nodes[i] = i;
+        }
+        this.build(0, size, 0);
+    }
+
+    /**
+     * Returns the BioRegion whose center is closest to the given coordinate.
+     *
+     * @param x The X-coordinate.
+     * @param y The Y-coordinate.
+     *
+     * @return The closest BioRegion.
+     */
+    public BioRegion closest(float x, float y) {
+        // The search state is kept in local arrays to keep this method thread-safe.
+        int[] best = {-1};
+        float[] bestDist = {Float.POSITIVE_INFINITY};
+        this.search(0, this.nodes.length, 0, x, y, best, bestDist);
+        return this.regions[best[0]];
+    }
+
+    /**
+     * Returns the number of BioRegions in this BioRegionTree.
+     *
+     * @return The number of BioRegions.
+     */
+    public int size() {
+        return this.regions.length;
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The indexed BioRegions in their original order.
+     */
+    private BioRegion[] regions;
+
+    /**
+     * The X-coordinates of the BioRegion centers.
+     */
+    private float[] xs;
+
+    /**
+     * The Y-coordinates of the BioRegion centers.
+     */
+    private float[] ys;
+
+    /**
+     * The BioRegion indexes arranged as an implicit k-d tree.
+     */
+    private int[] nodes;
+
+    /**
+     * Arranges the given range of nodes into a k-d subtree.
+     *
+     * @param lo    The start of the range (inclusive).
+     * @param hi    The end of the range (exclusive).
+     * @param depth The depth of the subtree.
+     */
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+
+        // Sorting the range is simpler than a selection algorithm and only
+        // happens once per BioMap.
+        float[] keys = depth % 2 == 0 ? this.xs : this.ys;
+        Integer[] range = new Integer[hi - lo];
+        for (int i = lo; i < hi; ++i) {
+            range[i - lo] = this.nodes[i];
+        }
+        Arrays.sort(range, (a, b) -> Float.compare(keys[a], keys[b]));
+        for (int i = lo; i < hi; ++i) {
+            this.nodes[i] = range[i - lo];
+        }
+
+        int mid = (lo + hi)/2;
+        this.build(lo, mid, depth + 1);
+        this.build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Searches the given k-d subtree for a BioRegion that is closer to the
+     * given coordinate than the best BioRegion found so far.
+     *
+     * @param lo       The start of the subtree range (inclusive).
+     * @param hi       The end of the subtree range (exclusive).
+     * @param depth    The depth of the subtree.
+     * @param x        The X-coordinate.
+     * @param y        The Y-coordinate.
+     * @param best     The index of the best BioRegion found so far.
+     * @param bestDist The distance to the best BioRegion found so far.
+     */
+    private void search(int lo, int hi, int depth, float x, float y, int[] best, float[] bestDist) {
+        if (lo >= hi) {
+            return;
+        }
+
+        int mid = (lo + hi)/2;
+        int node = this.nodes[mid];
+
+        // Consider the BioRegion at the root of the subtree.  The distance is
+        // computed exactly like Vertex.distance() so that ties are resolved
+        // identically to a linear scan.
+        float dist = BioRegionTree.distance(this.xs[node], this.ys[node], x, y);
+        if (dist < bestDist[0] || (dist == bestDist[0] && node < best[0])) {
+            best[0] = node;
+            bestDist[0] = dist;
+        }
+
+        // Visit the side of the splitting plane containing the coordinate first.
+        float delta = depth % 2 == 0 ? x - this.xs[node] : y - this.ys[node];
+        boolean left = delta < 0;
+        if (left) {
+            this.search(lo, mid, depth + 1, x, y, best, bestDist);
+        } else {
+            this.search(mid + 1, hi, depth + 1, x, y, best, bestDist);
+        }
+
+        // The far side can only hold a closer (or tied) BioRegion if the
+        // splitting plane is within the best distance.
+        if (Math.abs(delta) <= bestDist[0]) {
+            if (left) {
+                this.search(mid + 1, hi, depth + 1, x, y, best, bestDist);
+            } else {
+                this.search(lo, mid, depth + 1, x, y, best, bestDist);
+            }
+        }
+    }
+
+    /**
+     * Returns the distance between the given coordinates.
+     *
+     * @param x1 The X-coordinate of the first point.
+     * @param y1 The Y-coordinate of the first point.
+     * @param x2 The X-coordinate of the second point.
+     * @param y2 The Y-coordinate of the second point.
+     *
+     * @return The distance.
+     */
+    private static float distance(float x1, float y1, float x2, float y2) {
+        float dx = x1 - x2;
+        float dy = y1 - y2;
+        return (float) Math.sqrt((double) dx*dx + (double) dy*dy);
+    }
+}
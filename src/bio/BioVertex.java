@@ -1,13 +1,17 @@
 package bio;
 
+import static org.lwjgl.opengl.GL11.*;
+
 import java.util.Arrays;
 
 import env.Colour;
+import env.Terrain;
 import geo.Vertex;
 import util.RNG;
 
 /**
- * The BioVertex class represents a Biome Vertex.
+ * The BioVertex class represents a Biome Vertex.  The state of a BioVertex is
+ * stored in a Terrain; a BioVertex is simply a view of one of its entries.
  */
 public class BioVertex extends Vertex {
 
@@ -29,7 +33,7 @@ public class BioVertex extends Vertex {
     }
 
     /**
-     * Constructs a BioVertex representing the given 3D coordinate.
+     * Constructs a standalone BioVertex representing the given 3D coordinate.
      *
      * @param biome The primary Biome associated with this BioVertex.
      * @param x     The X-coordinate of this BioVertex.
@@ -37,34 +41,42 @@ public class BioVertex extends Vertex {
      * @param z     The Z-coordinate of this BioVertex.
      */
     public BioVertex(Biome biome, float x, float y, float z) {
-        super(x, y, z);
-        this.biome = biome;
-
-        this.offset = new Vertex(0, 0, 0);
-
-        this.colour = new Colour(biome.getColour());
-        this.biomix = new Biomix();
-        this.biomix.add(biome, 1f);
+        this(new Terrain(1), 0);
+        this.terrain.reset(0, biome, x, y, z);
     }
 
     /**
-     * Constructs a BioVertex that is a copy of the given BioVertex.
+     * Constructs a standalone BioVertex that is a copy of the given BioVertex.
      *
      * @param biotex The BioVertex to copy.
      */
     public BioVertex(BioVertex biotex) {
-        this(biotex.biome, biotex.x, biotex.y, biotex.z);
+        this(biotex.getBiome(), biotex.getX(), biotex.getY(), biotex.getZ());
+    }
+
+    /**
+     * Constructs a BioVertex that views the entry at the given index of the
+     * specified Terrain.
+     *
+     * @param terrain The Terrain storing the state of this BioVertex.
+     * @param index   The index of this BioVertex in the Terrain.
+     */
+    public BioVertex(Terrain terrain, int index) {
+        super();
+        this.terrain = terrain;
+        this.index = index;
     }
 
     /**
      * Raises the elevation of this BioVertex by a value within the given range.
-     * 
+     *
      * @param minHeight The minimum height to raise this BioVertex.
      * @param maxHeight The maximum height to raise this BioVertex.
      */
     public void raise(float minHeight, float maxHeight) {
         float height = RNG.random(minHeight, maxHeight);
-        this.offset.translate(0, 0, height);
+        float offset = this.terrain.getOffset(this.index);
+        this.terrain.setOffset(this.index, offset + height);
     }
 
     /**
@@ -73,36 +85,80 @@ public class BioVertex extends Vertex {
      * @return The Biome.
      */
     public Biome getBiome() {
-        return this.biome;
+        return this.terrain.getBiome(this.index);
     }
 
     /**
-     * Returns the Biomix associated with this BioVertex.
+     * Returns the Biomix associated with this BioVertex.  Changes to the
+     * returned Biomix must be stored with {@link #setBiomix}.
      *
      * @return The Biomix.
      */
     public Biomix getBiomix() {
-        return this.biomix;
+        return this.terrain.getBiomix(this.index);
     }
 
     /**
-     * Returns the Colour of this BioVertex.
+     * Returns the Colour of this BioVertex.  Changes to the returned Colour
+     * must be stored with {@link #setColour}.
      *
      * @return The Colour.
      */
     public Colour getColour() {
-        return this.colour;
+        return this.terrain.getColour(this.index);
+    }
+
+    /**
+     * Returns the index of this BioVertex in its Terrain.
+     *
+     * @return The index.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Returns the vertical rendering offset of this BioVertex.
+     *
+     * @return The offset.
+     */
+    public float getOffset() {
+        return this.terrain.getOffset(this.index);
+    }
+
+    /**
+     * Returns the X-coordinate of this BioVertex.
+     *
+     * @return The X-coordinate.
+     */
+    public float getX() {
+        return this.terrain.getX(this.index);
+    }
+
+    /**
+     * Returns the Y-coordinate of this BioVertex.
+     *
+     * @return The Y-coordinate.
+     */
+    public float getY() {
+        return this.terrain.getY(this.index);
+    }
+
+    /**
+     * Returns the Z-coordinate of this BioVertex.
+     *
+     * @return The Z-coordinate.
+     */
+    public float getZ() {
+        return this.terrain.getZ(this.index);
     }
 
     /**
      * Adds this BioVertex to the GL buffer.  The position of this BioVertex
-     * will be offset prior to the call to glVertex() and then subsequently
-     * restored to its original position.
+     * is shifted by its vertical rendering offset.
      */
     public void glVertex() {
-        this.translate(this.offset.getX(), this.offset.getY(), this.offset.getZ());
-        super.glVertex();
-        this.translate(-this.offset.getX(), -this.offset.getY(), -this.offset.getZ());
+        glVertex3f(this.getX(), this.getY(), this.getZ() + this.getOffset());
     }
 
     /**
@@ -111,7 +167,7 @@ public class BioVertex extends Vertex {
      * @param biomix The new Biomix of this BioVertex.
      */
     public void setBiomix(Biomix biomix) {
-        this.biomix = biomix;
+        this.terrain.setBiomix(this.index, biomix);
     }
 
     /**
@@ -120,19 +176,55 @@ public class BioVertex extends Vertex {
      * @param colour The new Colour of this BioVertex.
      */
     public void setColour(Colour colour) {
-        this.colour = colour;
+        this.terrain.setColour(this.index, colour);
     }
 
     /**
-     * Sets the X-coordinate, Y-coordinate, and Z-coordinate offsets of this
-     * BioVertex.
-     * 
-     * @param x The offset of the X-coordinate.
-     * @param y The offset of the Y-coordinate.
-     * @param z The offset of the Z-coordinate.
+     * Sets the vertical rendering offset of this BioVertex.
+     *
+     * @param offset The new vertical offset.
      */
-    public void setOffset(float x, float y, float z) {
-        this.offset = new Vertex(x, y, z);
+    public void setOffset(float offset) {
+        this.terrain.setOffset(this.index, offset);
+    }
+
+    /**
+     * Sets the X-coordinate of this BioVertex to the specified value.
+     *
+     * @param x The new X-coordinate.
+     */
+    public void setX(float x) {
+        this.terrain.setX(this.index, x);
+    }
+
+    /**
+     * Sets the Y-coordinate of this BioVertex to the specified value.
+     *
+     * @param y The new Y-coordinate.
+     */
+    public void setY(float y) {
+        this.terrain.setY(this.index, y);
+    }
+
+    /**
+     * Sets the Z-coordinate of this BioVertex to the specified value.
+     *
+     * @param z The new Z-coordinate.
+     */
+    public void setZ(float z) {
+        this.terrain.setZ(this.index, z);
+    }
+
+    /**
+     * Changes the RGB components of the Colour of this BioVertex by a random
+     * value within the given range.
+     *
+     * @param magnitude The maximum magnitude of the change in the components.
+     */
+    public void shiftColour(float magnitude) {
+        Colour colour = this.getColour();
+        colour.shift(magnitude);
+        this.setColour(colour);
     }
 
     /**
@@ -151,7 +243,7 @@ public class BioVertex extends Vertex {
         double deltaX = density*Math.abs(this.getX() - refWave);
         // Calculate the difference as a periodic function of the difference along the X-axis.
         float deltaZ = (float) Math.cos(deltaX)*height;
-        this.z += deltaZ;
+        this.setZ(this.getZ() + deltaZ);
     }
 
     /**
@@ -160,7 +252,7 @@ public class BioVertex extends Vertex {
      * @return The String representation.
      */
     public String toString() {
-        return String.format("BioVertex (%.2f, %.2f, %.2f) with %s", this.x, this.y, this.z, this.colour);
+        return String.format("BioVertex (%.2f, %.2f, %.2f) with %s", this.getX(), this.getY(), this.getZ(), this.getColour());
     }
 
 
@@ -168,17 +260,12 @@ public class BioVertex extends Vertex {
     // -------------------------------------------------------------------------
 
     /**
-     * The original Biome of this BioVertex.
-     */
-    private Biome biome;
-
-    /**
-     * The Biome influences on this BioVertex.
+     * The Terrain storing the state of this BioVertex.
      */
-    private Biomix biomix;
+    private Terrain terrain;
 
     /**
-     * The rendering offset of this BioVertex.
+     * The index of this BioVertex in its Terrain.
      */
-    private Vertex offset;
-}
\ No newline at end of file
+    private int index;
+}
@@ -8,6 +8,7 @@ import env.Colour;
 import env.Grid;
 import geo.Triangle;
 import geo.Vector;
+import geo.Vertex;
 import util.Algebra;
 import util.RNG;
 
@@ -23,21 +24,23 @@ public enum Biome {
 
     ALPINE("Alpine", new Colour(), new Colour(), 15.0f) {
         @Override
-        public void texturize(Grid grid, int row, int col, float scalar) {
+        public void texturize(Grid grid, float[] elevations, int row, int col, float scalar) {
             BioVertex biotex = grid.getVertex(row, col);
 
-            // Derive the set of neighbouring BioVertexes.
+            // Derive the set of neighbouring BioVertexes.  Their elevations are
+            // read from before the texturing so that the result does not depend
+            // on the order in which the BioVertexes are texturized.
             int row1 = Math.max(0,                  row - 1);
             int row2 = Math.min(grid.getRows() - 1, row + 1);
             int col1 = Math.max(0,                  col - 1);
             int col2 = Math.min(grid.getRows() - 1, col + 1);
 
-            List<BioVertex> locals = new ArrayList<>();
+            List<Vertex> locals = new ArrayList<>();
             for (int r = row1; r <= row2; ++r) {
                 for (int c = col1; c <= col2; ++c) {
-                    BioVertex curtex = grid.getVertex(r, c);
-                    if (curtex != biotex) {
-                        locals.add(curtex);
+                    if (r != row || c != col) {
+                        BioVertex local = grid.getVertex(r, c);
+                        locals.add(new Vertex(local.getX(), local.getY(), elevations[grid.getIndex(r, c)]));
                     }
                 }
             }
@@ -51,7 +54,8 @@ public enum Biome {
 
             // Determine the normal of the BioVertex by creating a Triangle out
             // of the first two neighbouring BioVertexes.
-            Triangle triangle = new Triangle(biotex, locals.get(0), locals.get(1));
+            Vertex vertex = new Vertex(biotex.getX(), biotex.getY(), elevations[grid.getIndex(row, col)]);
+            Triangle triangle = new Triangle(vertex, locals.get(0), locals.get(1));
             Vector normal = triangle.getNormal();
 
             // Compute the angle between the normal of the BioVertex and the
@@ -78,9 +82,10 @@ public enum Biome {
             float luminance = A*angle*angle + C;
 
             // Combine the luminance with each hue of the BioVertex.
-            float r = Algebra.average(biotex.getColour().getRed(),   luminance, scalar);
-            float g = Algebra.average(biotex.getColour().getGreen(), luminance, scalar);
-            float b = Algebra.average(biotex.getColour().getBlue(),  luminance, scalar);
+            Colour hue = biotex.getColour();
+            float r = Algebra.average(hue.getRed(),   luminance, scalar);
+            float g = Algebra.average(hue.getGreen(), luminance, scalar);
+            float b = Algebra.average(hue.getBlue(),  luminance, scalar);
 
             // Apply the merged Colour to the BioVertex.
             Colour colour = new Colour(r, g, b);
@@ -147,7 +152,7 @@ public enum Biome {
     GRASSLANDS("Grasslands", new Colour(0.35f, 0.45f, 0), new Colour(), 0.75f) {
         @Override
         public void texturize(BioVertex biotex, float scalar) {
-            biotex.getColour().shift(0.01f*scalar);
+            biotex.shiftColour(0.01f*scalar);
 
             // Determine whether this BioVertex should represent tall grass.
             boolean threshold = scalar > 0.4f;
@@ -173,13 +178,13 @@ public enum Biome {
         public void texturize(BioVertex biotex, float scalar) {
             float range = 0.012f*scalar*biotex.getZ();
             biotex.shift(range);
-            biotex.getColour().shift(0.02f*scalar);
+            biotex.shiftColour(0.02f*scalar);
         }
     },
     PRAIRIE("Prairie", new Colour(0.55f, 0.50f, 0), new Colour(), 0.75f) {
         @Override
         public void texturize(BioVertex biotex, float scalar) {
-            biotex.getColour().shift(0.01f*scalar);
+            biotex.shiftColour(0.01f*scalar);
 
             // Determine whether this BioVertex should represent wheat.
             boolean threshold = scalar > 0.4f;
@@ -261,20 +266,35 @@ public enum Biome {
     WATER("Water", new Colour(0, 0.5f, 1, 0.96f), new Colour(1, 1, 1), 0.001f) {
         @Override
         public void texturize(BioVertex biotex, float scalar) {
-            biotex.getColour().shift(0.02f*scalar);
+            biotex.shiftColour(0.02f*scalar);
         }
 
         @Override
-        public void update(BioVertex biotex, double time, float scalar) {
-            // Apply an offset to the BioVertex to create the illusion of waves.
+        public boolean isAnimated() {
+            return true;
+        }
+
+        @Override
+        public void getWave(BioVertex biotex, float[] wave) {
             // The vertical displacement can be described by the equation:
-            //     dz = <Scalar>*<Height>*sin(<Speed>*<Time> + <Density>*<X>)
+            //     dz = <Height>*sin(<Speed>*<Time> + <Density>*<X>)
             float height = biotex.getZ()/4;
             float speed = 4;
             float density = 20;
 
-            float dz = (float) Math.sin(speed*time + density*biotex.getX())*height*scalar;
-            biotex.setOffset(0, 0, dz);
+            wave[0] = height;
+            wave[1] = speed;
+            wave[2] = density*biotex.getX();
+        }
+
+        @Override
+        public void update(BioVertex biotex, double time, float scalar) {
+            // Apply an offset to the BioVertex to create the illusion of waves.
+            float[] wave = new float[3];
+            this.getWave(biotex, wave);
+
+            float dz = (float) Math.sin(wave[1]*time + wave[2])*wave[0]*scalar;
+            biotex.setOffset(dz);
         }
     },
     VOID("Void", new Colour(0.2f, 0.2f, 0.2f), new Colour(), 0) {
@@ -290,6 +310,17 @@ public enum Biome {
     // Public members
     // -------------------------------------------------------------------------
 
+    /**
+     * Returns the Biome with the given ID.
+     *
+     * @param id The ID of the Biome.
+     *
+     * @return The Biome.
+     */
+    public static Biome fromID(int id) {
+        return Biome.BIOMES[id];
+    }
+
     /**
      * Returns the colour of this Biome.
      *
@@ -299,6 +330,15 @@ public enum Biome {
         return this.colour;
     }
 
+    /**
+     * Returns the compact ID of this Biome.
+     *
+     * @return The ID.
+     */
+    public byte getID() {
+        return (byte) this.ordinal();
+    }
+
     /**
      * Returns the name of this Biome.
      *
@@ -326,18 +366,31 @@ public enum Biome {
         return this.highlight;
     }
 
+    /**
+     * Returns true if this Biome changes the BioVertexes it is applied to over
+     * time.  Only animated Biomes implement {@link #update}.
+     *
+     * @return True if this Biome is animated.
+     */
+    public boolean isAnimated() {
+        return false;
+    }
+
     /**
      * Applies the texture representing this Biome to the BioVertex located at
      * the given row and column of the specified Grid.  The extent of the texturing
      * is controlled by the provided scalar which should fall within the range
-     * [0, 1].
+     * [0, 1].  Textures that depend on the neighbours of the BioVertex read
+     * their elevations from the given array rather than from the Grid, which
+     * may already contain the textures of some neighbours.
      *
-     * @param grid   The Grid containing the BioVertex.
-     * @param row    The row of the BioVertex.
-     * @param col    The column of the BioVertex.
-     * @param scalar The magnitude of the texturing.
+     * @param grid       The Grid containing the BioVertex.
+     * @param elevations The elevations of the Grid BioVertexes before texturing.
+     * @param row        The row of the BioVertex.
+     * @param col        The column of the BioVertex.
+     * @param scalar     The magnitude of the texturing.
      */
-    public void texturize(Grid grid, int row, int col, float scalar) {
+    public void texturize(Grid grid, float[] elevations, int row, int col, float scalar) {
         BioVertex biotex = grid.getVertex(row, col);
         this.texturize(biotex, scalar);
     }
@@ -367,6 +420,21 @@ public enum Biome {
         // Do nothing.
     }
 
+    /**
+     * Describes the wave that animates the given BioVertex.  At time t, the
+     * vertical offset of the BioVertex is amplitude*sin(speed*t + phase); the
+     * speed must be the same for every BioVertex of this Biome.  By default,
+     * the amplitude and speed of the wave are zero.
+     *
+     * @param biotex The BioVertex to describe.
+     * @param wave   The array that receives the amplitude, speed, and phase.
+     */
+    public void getWave(BioVertex biotex, float[] wave) {
+        wave[0] = 0;
+        wave[1] = 0;
+        wave[2] = 0;
+    }
+
     /**
      * Returns a String representation of this Biome.
      *
@@ -380,6 +448,11 @@ public enum Biome {
     // Private members
     // -------------------------------------------------------------------------
 
+    /**
+     * The Biomes indexed by their IDs.
+     */
+    private static final Biome[] BIOMES = Biome.values();
+
     /**
      * The colour of this Biome.
      */
@@ -1,7 +1,7 @@
 package bio;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -19,7 +19,7 @@ public class Biomix implements Iterable<Pair<Biome, Float>> {
      * Constructs an empty Biomix.
      */
     public Biomix() {
-        this.map = new HashMap<>();
+        this.map = new EnumMap<>(Biome.class);
     }
 
     /**
@@ -48,6 +48,15 @@ public class Biomix implements Iterable<Pair<Biome, Float>> {
         return (float) Math.pow(mult, 1.0/this.map.size());
     }
 
+    /**
+     * Returns the number of Biomes in this Biomix.
+     *
+     * @return The number of Biomes.
+     */
+    public int size() {
+        return this.map.size();
+    }
+
     @Override
     public Iterator<Pair<Biome, Float>> iterator() {
         ArrayList<Pair<Biome, Float>> biolist = new ArrayList<>();
@@ -78,7 +87,7 @@ public class Biomix implements Iterable<Pair<Biome, Float>> {
 
     /**
      * The list of Biomes associated with this Biomix along with their respective
-     * weights.
+     * weights.  The Biomes are ordered by their IDs.
      */
     private Map<Biome, Float> map;
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package check;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import bio.BioRegion;
+import bio.BioRegionTree;
+import bio.Biome;
+import geo.Vertex;
+import util.RNG;
+
+/**
+ * The BioRegionTreeCheck class checks that a {@link BioRegionTree} returns the
+ * same BioRegion as a linear scan over the BioRegions, which is how BioMap
+ * cells were assigned to BioRegions before the tree was introduced.
+ */
+public class BioRegionTreeCheck {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the Checks of the BioRegionTree class.
+     *
+     * @return The Checks.
+     */
+    public static List<Check> create() {
+        List<Check> checks = new ArrayList<>();
+
+        checks.add(new Check("BioRegionTree.closest(random)", () -> {
+            for (int count : new int[]{1, 2, 3, 7, 50, 400}) {
+                // The centers are snapped to cells like BioMapFactory does.
+                List<BioRegion> regions = BioRegionTreeCheck.createRegions(count, 64, 64);
+                BioRegionTreeCheck.compare(regions, 64, 64);
+            }
+        }));
+
+        checks.add(new Check("BioRegionTree.closest(duplicates)", () -> {
+            // Squeezing many BioRegions into a few distinct centers makes ties
+            // common; the tree must resolve them like the linear scan.
+            for (int count : new int[]{2, 16, 200}) {
+                List<BioRegion> regions = BioRegionTreeCheck.createRegions(count, 4, 4);
+                BioRegionTreeCheck.compare(regions, 16, 16);
+            }
+        }));
+
+        checks.add(new Check("BioRegionTree.<init>(empty)", () -> {
+            try {
+                new BioRegionTree(new ArrayList<>());
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+            Check.verify(false, "An empty BioRegionTree was constructed.");
+        }));
+
+        return checks;
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of random (non-cell) coordinates queried for each set of
+     * BioRegions.
+     */
+    private static final int RANDOM_QUERIES = 2000;
+
+    /**
+     * Creates the given number of BioRegions with random centers on a lattice
+     * with the given dimensions.
+     *
+     * @param count The number of BioRegions.
+     * @param rows  The number of rows in the lattice.
+     * @param cols  The number of columns in the lattice.
+     *
+     * @return The BioRegions.
+     */
+    private static List<BioRegion> createRegions(int count, int rows, int cols) {
+        Biome[] biomes = Biome.values();
+        List<BioRegion> regions = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            float x = RNG.random(0, cols - 1);
+            float y = RNG.random(0, rows - 1);
+            regions.add(new BioRegion(new Vertex(x, y, 0), biomes[i % biomes.length]));
+        }
+        return regions;
+    }
+
+    /**
+     * Verifies that a BioRegionTree over the given BioRegions agrees with a
+     * linear scan at every cell of a BioMap with the given dimensions and at a
+     * number of random coordinates around it.
+     *
+     * @param regions The BioRegions.
+     * @param rows    The number of rows in the BioMap.
+     * @param cols    The number of columns in the BioMap.
+     */
+    private static void compare(List<BioRegion> regions, int rows, int cols) {
+        BioRegionTree tree = new BioRegionTree(regions);
+        Check.verify(tree.size() == regions.size(), "The tree holds %d of %d BioRegions.", tree.size(), regions.size());
+
+        for (int row = 0; row < rows; ++row) {
+            for (int col = 0; col < cols; ++col) {
+                BioRegionTreeCheck.compare(regions, tree, col, row);
+            }
+        }
+        for (int i = 0; i < RANDOM_QUERIES; ++i) {
+            float x = RNG.random(-0.5f, cols + 0.5f);
+            float y = RNG.random(-0.5f, rows + 0.5f);
+            BioRegionTreeCheck.compare(regions, tree, x, y);
+        }
+    }
+
+    /**
+     * Verifies that the given BioRegionTree and a linear scan over the given
+     * BioRegions return the same BioRegion for the given coordinate.
+     *
+     * @param regions The BioRegions.
+     * @param tree    The BioRegionTree over the BioRegions.
+     * @param x       The X-coordinate.
+     * @param y       The Y-coordinate.
+     */
+    private static void compare(List<BioRegion> regions, BioRegionTree tree, float x, float y) {
+        // The linear scan keeps the first of several equally close BioRegions.
+        Vertex cell = new Vertex(x, y, 0);
+        BioRegion expected = null;
+        float best = Float.POSITIVE_INFINITY;
+        for (BioRegion region : regions) {
+            float distance = region.getCenter().distance(cell);
+            if (distance < best) {
+                best = distance;
+                expected = region;
+            }
+        }
+
+        BioRegion actual = tree.closest(x, y);
+        Check.verify(actual == expected, "At (%.3f, %.3f) the tree returned BioRegion %d instead of BioRegion %d of %d.",
+                     x, y, regions.indexOf(actual), regions.indexOf(expected), regions.size());
+    }
+}
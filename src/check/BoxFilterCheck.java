@@ -0,0 +1,191 @@
+package check;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import bio.Biome;
+import env.BoxFilter;
+import env.Grid;
+import env.Kernel;
+import env.Terrain;
+import util.RNG;
+
+/**
+ * The BoxFilterCheck class checks the error bound reported by a
+ * {@link BoxFilter}: away from the edges of a Grid, the difference between the
+ * exact {@link Kernel} average and the BoxFilter average of a BioVertex must
+ * not exceed the error bound multiplied by the range of the values around the
+ * BioVertex.
+ */
+public class BoxFilterCheck {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the Checks of the BoxFilter class.
+     *
+     * @return The Checks.
+     */
+    public static List<Check> create() {
+        List<Check> checks = new ArrayList<>();
+
+        checks.add(new Check("BoxFilter.getErrorBound(random)", () -> {
+            // The Grid has different row and column spacings so that the box
+            // widths differ between the axes.
+            Grid grid = BoxFilterCheck.createGrid(90, 120);
+            float[] distances = {0.02f, 0.05f, 0.1f, 0.15f};
+            for (float distance : distances) {
+                Kernel kernel = grid.getKernel(distance);
+                BoxFilter filter = grid.getBoxFilter(distance);
+                float bound = filter.getErrorBound();
+                Check.verify(bound > 0 && bound < 0.5f, "The BoxFilter with distance %.2f has error bound %f.", distance, bound);
+
+                for (int field = 0; field < FIELDS; ++field) {
+                    float[] values = BoxFilterCheck.createField(grid, field);
+                    BoxFilterCheck.compare(grid, kernel, filter, values, distance);
+                }
+            }
+        }));
+
+        return checks;
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of random fields smoothed with each BoxFilter.
+     */
+    private static final int FIELDS = 6;
+
+    /**
+     * The largest rounding error of a float average, relative to the range of
+     * the averaged values.
+     */
+    private static final float ROUNDING = 1e-5f;
+
+    /**
+     * Creates a Grid with the given dimensions that spans a 2 x 1 rectangle.
+     *
+     * @param rows The number of rows in the Grid.
+     * @param cols The number of columns in the Grid.
+     *
+     * @return The Grid.
+     */
+    private static Grid createGrid(int rows, int cols) {
+        Terrain terrain = new Terrain(rows*cols);
+        for (int row = 0; row < rows; ++row) {
+            for (int col = 0; col < cols; ++col) {
+                terrain.reset(row*cols + col, Biome.GRASSLANDS, 2f*col/(cols - 1), (float) row/(rows - 1), 0);
+            }
+        }
+        return new Grid("Check", rows, cols, 0, 0, 2, 1, terrain);
+    }
+
+    /**
+     * Returns a random field over the given Grid.  Even fields are white noise,
+     * which has the largest local range; odd fields are a random step plus a
+     * little noise, which puts most of the weight on one side of the Kernel.
+     *
+     * @param grid  The Grid.
+     * @param field The number of the field.
+     *
+     * @return The values of the field in row-major order.
+     */
+    private static float[] createField(Grid grid, int field) {
+        int rows = grid.getRows();
+        int cols = grid.getColumns();
+        float[] values = new float[rows*cols];
+        float scale = RNG.random(0.1f, 10f);
+
+        float nx = RNG.random(-1f, 1f), ny = RNG.random(-1f, 1f);
+        float step = RNG.random(-1f, 1f)*(rows + cols)/4;
+        for (int row = 0; row < rows; ++row) {
+            for (int col = 0; col < cols; ++col) {
+                float noise = RNG.random(-1f, 1f);
+                if (field % 2 == 0) {
+                    values[row*cols + col] = scale*noise;
+                } else {
+                    float side = nx*(col - cols/2) + ny*(row - rows/2) > step ? 1 : 0;
+                    values[row*cols + col] = scale*(side + 0.05f*noise);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Verifies that the Kernel and BoxFilter averages of the given values agree
+     * to within the error bound of the BoxFilter at every BioVertex whose
+     * neighbourhood lies inside the Grid.
+     *
+     * @param grid     The Grid.
+     * @param kernel   The Kernel.
+     * @param filter   The BoxFilter approximating the Kernel.
+     * @param values   The values of the Grid in row-major order.
+     * @param distance The proximity distance of the Kernel (for error messages).
+     */
+    private static void compare(Grid grid, Kernel kernel, BoxFilter filter, float[] values, float distance) {
+        int rows = grid.getRows();
+        int cols = grid.getColumns();
+        float[] smoothed = filter.apply(values);
+
+        // The neighbourhood of a BioVertex spans every tap where either the
+        // Kernel or the BoxFilter is nonzero.
+        int rowSpan = Math.max(kernel.getRowReach(), BoxFilterCheck.support(filter, rows, cols, true));
+        int colSpan = Math.max(kernel.getColumnReach(), BoxFilterCheck.support(filter, rows, cols, false));
+        Check.verify(2*rowSpan < rows && 2*colSpan < cols, "The %d x %d Grid has no BioVertex away from its edges with distance %.2f.", rows, cols, distance);
+
+        for (int row = rowSpan; row < rows - rowSpan; ++row) {
+            for (int col = colSpan; col < cols - colSpan; ++col) {
+                float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+                for (int r = row - rowSpan; r <= row + rowSpan; ++r) {
+                    for (int c = col - colSpan; c <= col + colSpan; ++c) {
+                        min = Math.min(min, values[r*cols + c]);
+                        max = Math.max(max, values[r*cols + c]);
+                    }
+                }
+                float range = max - min;
+
+                float exact = kernel.average(values, row, col);
+                float approx = smoothed[row*cols + col];
+                float error = Math.abs(exact - approx);
+                float limit = (filter.getErrorBound() + ROUNDING)*range;
+                Check.verify(error <= limit, "With distance %.2f, BioVertex (%d, %d) averages to %f with the Kernel but to %f with the BoxFilter (error %f > %f).",
+                             distance, row, col, exact, approx, error, limit);
+            }
+        }
+    }
+
+    /**
+     * Returns the reach of the impulse response of the given BoxFilter along
+     * the rows or columns of a Grid with the given dimensions.  Taps within the
+     * rounding error of the running sums of the BoxFilter are treated as zero.
+     *
+     * @param filter   The BoxFilter.
+     * @param rows     The number of rows in the Grid.
+     * @param cols     The number of columns in the Grid.
+     * @param vertical True for the reach along a column, false for a row.
+     *
+     * @return The largest offset of a nonzero tap.
+     */
+    private static int support(BoxFilter filter, int rows, int cols, boolean vertical) {
+        int row = rows/2, col = cols/2;
+        float[] impulse = new float[rows*cols];
+        impulse[row*cols + col] = 1;
+        float[] response = filter.apply(impulse);
+
+        float peak = response[row*cols + col];
+        int reach = 0;
+        int length = vertical ? rows : cols;
+        for (int offset = 1; offset < length/2; ++offset) {
+            int index = vertical ? (row + offset)*cols + col : row*cols + col + offset;
+            if (Math.abs(response[index]) > ROUNDING*peak) {
+                reach = offset;
+            }
+        }
+        return reach;
+    }
+}
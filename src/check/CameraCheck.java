@@ -0,0 +1,246 @@
+package check;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import util.RNG;
+import view.Camera;
+
+/**
+ * The CameraCheck class checks the matrices of the {@link Camera} against the
+ * formulas of the OpenGL specification.  The Camera used to build its view
+ * matrix with glRotatef() and glTranslatef() and its projection matrix with
+ * glFrustum(); the reference replays the same calls in double precision.
+ */
+public class CameraCheck {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the Checks of the Camera class.
+     *
+     * @return The Checks.
+     */
+    public static List<Check> create() {
+        List<Check> checks = new ArrayList<>();
+
+        checks.add(new Check("Camera.getViewMatrix(random)", () -> {
+            Camera camera = Camera.getInstance();
+            for (int trial = 0; trial < TRIALS; ++trial) {
+                // The rotation of the Camera is set once and then rotated
+                // about a chain of random axes, as the Viewer does.
+                float[] axis = CameraCheck.createAxis();
+                float angle = RNG.random(-180f, 180f);
+                camera.setRotation(angle, axis[0], axis[1], axis[2]);
+                double[] rotation = CameraCheck.rotate(CameraCheck.identity(), angle, axis);
+
+                int turns = trial % (MAX_TURNS + 1);
+                for (int turn = 0; turn < turns; ++turn) {
+                    axis = CameraCheck.createAxis();
+                    angle = RNG.random(-30f, 30f);
+                    camera.rotate(angle, axis[0], axis[1], axis[2]);
+                    rotation = CameraCheck.rotate(rotation, angle, axis);
+                }
+
+                // The position of the Camera is set once and then translated.
+                float[] position = {RNG.random(-5f, 5f), RNG.random(-5f, 5f), RNG.random(-5f, 5f)};
+                camera.setPosition(position[0], position[1], position[2]);
+                double[] translation = CameraCheck.translate(CameraCheck.identity(), -position[0], -position[1], -position[2]);
+                for (int move = 0; move < MOVES; ++move) {
+                    float dx = RNG.random(-0.1f, 0.1f), dy = RNG.random(-0.1f, 0.1f), dz = RNG.random(-0.1f, 0.1f);
+                    camera.translate(dx, dy, dz);
+                    translation = CameraCheck.translate(translation, -dx, -dy, -dz);
+                }
+
+                double[] expected = CameraCheck.multiply(rotation, translation);
+                double scale = 1 + Math.abs(translation[12]) + Math.abs(translation[13]) + Math.abs(translation[14]);
+                CameraCheck.compare("view", camera.getViewMatrix(), expected, TOLERANCE*scale, trial, turns);
+            }
+        }));
+
+        checks.add(new Check("Camera.getProjectionMatrix(random)", () -> {
+            Camera camera = Camera.getInstance();
+            for (int trial = 0; trial < TRIALS; ++trial) {
+                float fov = RNG.random(20f, 120f);
+                float ratio = RNG.random(0.5f, 2.5f);
+                float near = RNG.random(0.01f, 1f);
+                float far = near + RNG.random(1f, 100f);
+                camera.setPerspective(fov, ratio, near, far);
+
+                // The Camera mirrors the horizontal axis of glFrustum().
+                double top = Math.tan(Math.toRadians(fov)/2)*near;
+                double right = -ratio*top;
+                double[] expected = CameraCheck.frustum(-right, right, -top, top, near, far);
+                double scale = Math.max(1, Math.abs(expected[14]));
+                CameraCheck.compare("projection", camera.getProjectionMatrix(), expected, TOLERANCE*scale, trial, 0);
+            }
+        }));
+
+        return checks;
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of random Cameras in each Check.
+     */
+    private static final int TRIALS = 500;
+
+    /**
+     * The largest number of chained rotations applied to a Camera.
+     */
+    private static final int MAX_TURNS = 50;
+
+    /**
+     * The number of translations applied to a Camera.
+     */
+    private static final int MOVES = 10;
+
+    /**
+     * The largest difference between an element of a Camera matrix and the
+     * reference, relative to the scale of the matrix.
+     */
+    private static final double TOLERANCE = 2e-5;
+
+    /**
+     * Returns a random rotation axis that is not too short to be normalized.
+     *
+     * @return The X, Y, and Z components of the axis.
+     */
+    private static float[] createAxis() {
+        // Half of the axes are the coordinate axes used by the Viewer.
+        if (RNG.random(0f, 1f) < 0.5f) {
+            float[] axis = new float[3];
+            axis[RNG.random(0, 2)] = RNG.random(0f, 1f) < 0.5f ? -1 : 1;
+            return axis;
+        }
+        float x, y, z;
+        do {
+            x = RNG.random(-1f, 1f);
+            y = RNG.random(-1f, 1f);
+            z = RNG.random(-1f, 1f);
+        } while (x*x + y*y + z*z < 0.01f);
+        return new float[]{x, y, z};
+    }
+
+    /**
+     * Returns the 4 x 4 identity matrix.
+     *
+     * @return The identity matrix.
+     */
+    private static double[] identity() {
+        double[] matrix = new double[16];
+        for (int i = 0; i < 4; ++i) {
+            matrix[5*i] = 1;
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns the product of the given 4 x 4 column-major matrices.
+     *
+     * @param a The left matrix.
+     * @param b The right matrix.
+     *
+     * @return The product |a|*|b|.
+     */
+    private static double[] multiply(double[] a, double[] b) {
+        double[] product = new double[16];
+        for (int col = 0; col < 4; ++col) {
+            for (int row = 0; row < 4; ++row) {
+                double sum = 0;
+                for (int k = 0; k < 4; ++k) {
+                    sum += a[4*k + row]*b[4*col + k];
+                }
+                product[4*col + row] = sum;
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Multiplies the given matrix by the rotation matrix of glRotatef().
+     *
+     * @param matrix The matrix.
+     * @param angle  The angle of the rotation (in degrees).
+     * @param axis   The axis of the rotation.
+     *
+     * @return The product of the matrix and the rotation matrix.
+     */
+    private static double[] rotate(double[] matrix, float angle, float[] axis) {
+        double length = Math.sqrt(axis[0]*axis[0] + axis[1]*axis[1] + axis[2]*axis[2]);
+        double x = axis[0]/length, y = axis[1]/length, z = axis[2]/length;
+        double c = Math.cos(Math.toRadians(angle));
+        double s = Math.sin(Math.toRadians(angle));
+
+        double[] rotation = CameraCheck.identity();
+        rotation[0] = x*x*(1 - c) + c;   rotation[4] = x*y*(1 - c) - z*s; rotation[8]  = x*z*(1 - c) + y*s;
+        rotation[1] = y*x*(1 - c) + z*s; rotation[5] = y*y*(1 - c) + c;   rotation[9]  = y*z*(1 - c) - x*s;
+        rotation[2] = x*z*(1 - c) - y*s; rotation[6] = y*z*(1 - c) + x*s; rotation[10] = z*z*(1 - c) + c;
+        return CameraCheck.multiply(matrix, rotation);
+    }
+
+    /**
+     * Multiplies the given matrix by the translation matrix of glTranslatef().
+     *
+     * @param matrix The matrix.
+     * @param x      The X-component of the translation.
+     * @param y      The Y-component of the translation.
+     * @param z      The Z-component of the translation.
+     *
+     * @return The product of the matrix and the translation matrix.
+     */
+    private static double[] translate(double[] matrix, double x, double y, double z) {
+        double[] translation = CameraCheck.identity();
+        translation[12] = x;
+        translation[13] = y;
+        translation[14] = z;
+        return CameraCheck.multiply(matrix, translation);
+    }
+
+    /**
+     * Returns the projection matrix of glFrustum() with the given clipping planes.
+     *
+     * @param left   The X-coordinate of the left clipping plane.
+     * @param right  The X-coordinate of the right clipping plane.
+     * @param bottom The Y-coordinate of the bottom clipping plane.
+     * @param top    The Y-coordinate of the top clipping plane.
+     * @param near   The distance to the near clipping plane.
+     * @param far    The distance to the far clipping plane.
+     *
+     * @return The projection matrix.
+     */
+    private static double[] frustum(double left, double right, double bottom, double top, double near, double far) {
+        double[] matrix = new double[16];
+        matrix[0] = 2*near/(right - left);
+        matrix[5] = 2*near/(top - bottom);
+        matrix[8] = (right + left)/(right - left);
+        matrix[9] = (top + bottom)/(top - bottom);
+        matrix[10] = -(far + near)/(far - near);
+        matrix[11] = -1;
+        matrix[14] = -2*far*near/(far - near);
+        return matrix;
+    }
+
+    /**
+     * Verifies that every element of the given Camera matrix is within the
+     * given tolerance of the reference matrix.
+     *
+     * @param name      The name of the matrix (for error messages).
+     * @param actual    The Camera matrix.
+     * @param expected  The reference matrix.
+     * @param tolerance The largest allowed difference.
+     * @param trial     The number of the trial (for error messages).
+     * @param turns     The number of chained rotations (for error messages).
+     */
+    private static void compare(String name, float[] actual, double[] expected, double tolerance, int trial, int turns) {
+        Check.verify(actual.length == 16, "The %s matrix of trial %d has %d elements.", name, trial, actual.length);
+        for (int i = 0; i < 16; ++i) {
+            double error = Math.abs(actual[i] - expected[i]);
+            Check.verify(error <= tolerance, "Element %d of the %s matrix of trial %d (%d rotations) is %f instead of %f.", i, name, trial, turns, actual[i], expected[i]);
+        }
+    }
+}
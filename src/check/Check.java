@@ -0,0 +1,93 @@
+package check;
+
+/**
+ * The Check class represents a single correctness check of the World
+ * generation pipeline.  A Check runs its body and fails if the body throws an
+ * exception; {@link #verify} is the usual way for a body to report a mismatch.
+ */
+public class Check {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The Body interface represents the work performed by a Check.
+     */
+    @FunctionalInterface
+    public static interface Body {
+        /**
+         * Runs the Check.
+         *
+         * @throws Exception If the Check fails.
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * Fails the current Check with the given message if the given condition is
+     * false.
+     *
+     * @param condition The condition that must hold.
+     * @param msg       The message describing the failure.
+     * @param args      The arguments to be substituted into the message.
+     *
+     * @throws AssertionError If the condition is false.
+     */
+    public static void verify(boolean condition, String msg, Object ... args) {
+        if (!condition) {
+            throw new AssertionError(String.format(msg, args));
+        }
+    }
+
+    /**
+     * Constructs a Check with the given name and body.
+     *
+     * @param name The name of this Check.
+     * @param body The body of this Check.
+     */
+    public Check(String name, Body body) {
+        this.name = name;
+        this.body = body;
+    }
+
+    /**
+     * Returns the name of this Check.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Runs this Check.
+     *
+     * @throws Exception If this Check fails.
+     */
+    public void run() throws Exception {
+        this.body.run();
+    }
+
+    /**
+     * Returns a String representation of this Check.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("Check \"%s\"", this.name);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The name of this Check.
+     */
+    private String name;
+
+    /**
+     * The body of this Check.
+     */
+    private Body body;
+}
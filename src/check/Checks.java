@@ -0,0 +1,134 @@
+package check;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import core.Logger;
+import util.RNG;
+
+/**
+ * The Checks class is the execution entry point for checking the World
+ * generation pipeline.  Every Check is run once and the result of each Check
+ * is reported in a table; the process exits with a nonzero status if any
+ * Check fails.
+ */
+public class Checks {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a description of the command-line flags accepted by {@link #main}.
+     *
+     * @return The usage message.
+     */
+    public static String usage() {
+        return String.join(System.lineSeparator(),
+            "Usage: java check.Checks [flags]",
+            "    --filter <text>         Only runs the Checks whose names contain the given text.",
+            "    --seed <long>           The seed of the RNG."
+        );
+    }
+
+    /**
+     * Execution entry point.  The command-line arguments are described by
+     * {@link #usage}.
+     *
+     * @param args Command-line arguments.
+     */
+    public static void main(String[] args) {
+        String filter = "";
+        long seed = 0;
+
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                String flag = args[i];
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException(String.format("Missing value for flag \"%s\".", flag));
+                }
+                String value = args[i + 1];
+
+                try {
+                    switch (flag) {
+                        case "--filter":
+                            filter = value;
+                            break;
+                        case "--seed":
+                            seed = Long.parseLong(value);
+                            break;
+                        default:
+                            throw new IllegalArgumentException(String.format("Unknown flag \"%s\".", flag));
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(String.format("Invalid value \"%s\" for flag \"%s\".", value, flag));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            Logger.error(e.getMessage());
+            Logger.flush();
+            System.out.println(Checks.usage());
+            return;
+        }
+
+        List<Check> checks = new ArrayList<>();
+        for (Check check : Checks.create()) {
+            if (check.getName().contains(filter)) {
+                checks.add(check);
+            }
+        }
+        Logger.info("Running %d Checks with seed %d.", checks.size(), seed);
+
+        // The checked code logs its progress; silence it so that the results
+        // table remains readable.
+        Logger.flush();
+        System.out.println(String.format("%-48s %s", "Check", "Result"));
+
+        int failures = 0;
+        for (Check check : checks) {
+            // Every Check begins from the same RNG state so that failures can
+            // be reproduced.
+            RNG.setSeed(seed);
+
+            String result = "PASS";
+            Logger.setLevel(Logger.Level.WARN);
+            try {
+                check.run();
+            } catch (Throwable e) {
+                result = String.format("FAIL (%s)", e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+                ++failures;
+            } finally {
+                Logger.setLevel(Logger.Level.DEBUG);
+            }
+            Logger.flush();
+            System.out.println(String.format("%-48s %s", check.getName(), result));
+        }
+
+        if (failures > 0) {
+            Logger.error("%d of %d Checks failed.", failures, checks.size());
+            Logger.flush();
+            System.exit(1);
+        }
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the list of Checks that cover the World generation pipeline.
+     *
+     * @return The Checks.
+     */
+    private static List<Check> create() {
+        List<Check> checks = new ArrayList<>();
+        checks.addAll(BioRegionTreeCheck.create());
+        checks.addAll(BoxFilterCheck.create());
+        checks.addAll(CameraCheck.create());
+        checks.addAll(FrustumCheck.create());
+        checks.addAll(GeomipmapCheck.create());
+        checks.addAll(GridMeshCheck.create());
+        checks.addAll(TerrainCheck.create());
+        checks.addAll(WaveCheck.create());
+        return checks;
+    }
+}
@@ -0,0 +1,424 @@
+package check;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import bio.Biome;
+import env.Geomipmap;
+import env.Grid;
+import env.GridMesh;
+import env.Terrain;
+import geo.Bounds;
+import geo.Frustum;
+import geo.Quaternion;
+import util.Algebra;
+import util.RNG;
+
+/**
+ * The FrustumCheck class checks the culling tests of a {@link Frustum} against
+ * random Cameras and bounding volumes.  The reference extracts the planes of
+ * the Frustum in double precision and samples points of each bounding volume:
+ * a volume with a point inside the Frustum must never be culled, and a volume
+ * that lies entirely behind one of the planes must always be culled.  Volumes
+ * within a small margin of a plane are not held to either rule.
+ */
+public class FrustumCheck {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the Checks of the Frustum class.
+     *
+     * @return The Checks.
+     */
+    public static List<Check> create() {
+        List<Check> checks = new ArrayList<>();
+
+        checks.add(new Check("Frustum.intersects(box)", () -> {
+            int visible = 0, hidden = 0;
+            for (int camera = 0; camera < CAMERAS; ++camera) {
+                float[] clip = FrustumCheck.createClip();
+                double[] planes = FrustumCheck.extract(clip);
+                Frustum frustum = new Frustum(clip);
+
+                for (int volume = 0; volume < VOLUMES; ++volume) {
+                    float[] box = FrustumCheck.createBox();
+                    Bounds bounds = new Bounds(box[0], box[1], box[2], box[3], box[4], box[5]);
+                    boolean actual = frustum.intersects(box[0], box[1], box[2], box[3], box[4], box[5]);
+                    Check.verify(actual == frustum.intersects(bounds), "The box and Bounds tests disagree on %s.", bounds);
+                    Check.verify(actual == frustum.isVisible(bounds), "The isVisible() and intersects() tests disagree on %s.", bounds);
+
+                    if (FrustumCheck.sample(planes, box)) {
+                        Check.verify(actual, "Camera %d culled %s, which contains a visible point.", camera, bounds);
+                        ++visible;
+                    } else if (FrustumCheck.behind(planes, box)) {
+                        Check.verify(!actual, "Camera %d did not cull %s, which is behind one of its planes.", camera, bounds);
+                        ++hidden;
+                    }
+                }
+
+                Check.verify(frustum.getTested() == VOLUMES, "Camera %d tested %d of %d boxes.", camera, frustum.getTested(), VOLUMES);
+            }
+
+            // Make sure that the random boxes exercise both rules.
+            Check.verify(visible > CAMERAS && hidden > CAMERAS, "Only %d visible and %d hidden boxes were generated.", visible, hidden);
+        }));
+
+        checks.add(new Check("Frustum.intersects(sphere)", () -> {
+            int visible = 0, hidden = 0;
+            for (int camera = 0; camera < CAMERAS; ++camera) {
+                float[] clip = FrustumCheck.createClip();
+                double[] planes = FrustumCheck.extract(clip);
+                Frustum frustum = new Frustum(clip);
+
+                for (int volume = 0; volume < VOLUMES; ++volume) {
+                    float[] box = FrustumCheck.createBox();
+                    float x = (box[0] + box[3])/2;
+                    float y = (box[1] + box[4])/2;
+                    float z = (box[2] + box[5])/2;
+                    float radius = (box[3] - box[0])/2;
+                    boolean actual = frustum.intersects(x, y, z, radius);
+
+                    if (FrustumCheck.sample(planes, x, y, z, radius)) {
+                        Check.verify(actual, "Camera %d culled the sphere at (%f, %f, %f) with radius %f, which contains a visible point.", camera, x, y, z, radius);
+                        ++visible;
+                    } else if (FrustumCheck.behind(planes, x, y, z, radius)) {
+                        Check.verify(!actual, "Camera %d did not cull the sphere at (%f, %f, %f) with radius %f, which is behind one of its planes.", camera, x, y, z, radius);
+                        ++hidden;
+                    }
+                }
+            }
+            Check.verify(visible > CAMERAS && hidden > CAMERAS, "Only %d visible and %d hidden spheres were generated.", visible, hidden);
+        }));
+
+        checks.add(new Check("Geomipmap.cull(null)", () -> {
+            // A Camera hovering above a corner of the Grid sees a few patches.
+            Grid grid = FrustumCheck.createGrid(65, 65);
+            GridMesh mesh = grid.getMesh();
+            Geomipmap geomipmap = mesh.getGeomipmap();
+            int[] before = FrustumCheck.copy(mesh.getIndexBuffer());
+
+            Frustum frustum = new Frustum(FrustumCheck.createClip(60, 1, 0.1f, 100, Quaternion.IDENTITY, 8, 8, 10));
+            mesh.cull(frustum);
+            int culled = 0;
+            for (int pr = 0; pr < geomipmap.getPatchRows(); ++pr) {
+                for (int pc = 0; pc < geomipmap.getPatchColumns(); ++pc) {
+                    culled += geomipmap.isVisible(pr, pc) ? 0 : 1;
+                }
+            }
+            int patches = geomipmap.getPatchRows()*geomipmap.getPatchColumns();
+            Check.verify(culled > 0 && culled < patches, "The Camera culled %d of %d patches.", culled, patches);
+            Check.verify(mesh.getTriangleCount() < before.length/3, "Culling %d patches left all %d BioTriangles.", culled, before.length/3);
+
+            // Disabling culling must restore the original index buffer.
+            mesh.cull(null);
+            for (int pr = 0; pr < geomipmap.getPatchRows(); ++pr) {
+                for (int pc = 0; pc < geomipmap.getPatchColumns(); ++pc) {
+                    Check.verify(geomipmap.isVisible(pr, pc), "Patch (%d, %d) is still culled.", pr, pc);
+                }
+            }
+            int[] after = FrustumCheck.copy(mesh.getIndexBuffer());
+            Check.verify(Arrays.equals(before, after), "The index buffer holds %d instead of %d indexes after culling is disabled.", after.length, before.length);
+        }));
+
+        return checks;
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of random Cameras in each Check.
+     */
+    private static final int CAMERAS = 200;
+
+    /**
+     * The number of random bounding volumes tested against each Camera.
+     */
+    private static final int VOLUMES = 200;
+
+    /**
+     * The number of random points sampled from each bounding volume.
+     */
+    private static final int SAMPLES = 64;
+
+    /**
+     * The distance from a plane within which a point is considered to be on
+     * the plane.
+     */
+    private static final double MARGIN = 1e-3;
+
+    /**
+     * Creates the clip matrix of a Camera with a random perspective, position,
+     * and orientation.
+     *
+     * @return The clip matrix.
+     */
+    private static float[] createClip() {
+        float fov = RNG.random(20f, 120f);
+        float ratio = RNG.random(0.5f, 2.5f);
+        float near = RNG.random(0.05f, 1f);
+        float far = near + RNG.random(2f, 30f);
+
+        float ax = RNG.random(-1f, 1f), ay = RNG.random(-1f, 1f), az = RNG.random(-1f, 1f);
+        Quaternion orientation = ax*ax + ay*ay + az*az < 1e-6 ? Quaternion.IDENTITY : Quaternion.fromAxisAngle(RNG.random(0f, 360f), ax, ay, az);
+
+        float x = RNG.random(-5f, 5f), y = RNG.random(-5f, 5f), z = RNG.random(-5f, 5f);
+        return FrustumCheck.createClip(fov, ratio, near, far, orientation, x, y, z);
+    }
+
+    /**
+     * Creates the clip matrix of a Camera with the given perspective, position,
+     * and orientation.  The matrices are derived in the same way as the Camera
+     * class derives them.
+     *
+     * @param fov         The vertical field of view (in degrees).
+     * @param ratio       The aspect ratio (width over height).
+     * @param near        The distance to the near clipping plane.
+     * @param far         The distance to the far clipping plane.
+     * @param orientation The orientation of the Camera.
+     * @param x           The X-coordinate of the Camera.
+     * @param y           The Y-coordinate of the Camera.
+     * @param z           The Z-coordinate of the Camera.
+     *
+     * @return The clip matrix.
+     */
+    private static float[] createClip(float fov, float ratio, float near, float far, Quaternion orientation, float x, float y, float z) {
+        float top = (float) Math.tan(Math.toRadians(fov/2))*near;
+        float side = ratio*top;
+        float[] projection = Algebra.frustum(side, -side, -top, top, near, far);
+
+        float[] m = new float[16];
+        orientation.toMatrix(m);
+        m[12] = -(m[0]*x + m[4]*y + m[8]*z);
+        m[13] = -(m[1]*x + m[5]*y + m[9]*z);
+        m[14] = -(m[2]*x + m[6]*y + m[10]*z);
+        m[15] = 1;
+        return Algebra.multiply(projection, m);
+    }
+
+    /**
+     * Creates a random axis-aligned box in the surroundings of the random
+     * Cameras.  The box is returned as [minX, minY, minZ, maxX, maxY, maxZ];
+     * its X-extent doubles as the diameter of a sphere.
+     *
+     * @return The box.
+     */
+    private static float[] createBox() {
+        float size = RNG.random(0.01f, 4f);
+        float[] box = new float[6];
+        for (int axis = 0; axis < 3; ++axis) {
+            float centre = RNG.random(-20f, 20f);
+            float extent = axis == 0 ? size : RNG.random(0.01f, 4f);
+            box[axis] = centre - extent/2;
+            box[axis + 3] = centre + extent/2;
+        }
+        return box;
+    }
+
+    /**
+     * Extracts the normalized planes of the Frustum with the given clip matrix
+     * in double precision.
+     *
+     * @param clip The clip matrix.
+     *
+     * @return The (A, B, C, D) coefficients of the six planes.
+     */
+    private static double[] extract(float[] clip) {
+        double[] planes = new double[24];
+        for (int plane = 0; plane < 6; ++plane) {
+            int row = plane/2;
+            double sign = plane % 2 == 0 ? 1 : -1;
+            double length = 0;
+            for (int col = 0; col < 4; ++col) {
+                planes[4*plane + col] = (double) clip[4*col + 3] + sign*clip[4*col + row];
+                length += col < 3 ? planes[4*plane + col]*planes[4*plane + col] : 0;
+            }
+            length = Math.sqrt(length);
+            for (int col = 0; col < 4; ++col) {
+                planes[4*plane + col] /= length;
+            }
+        }
+        return planes;
+    }
+
+    /**
+     * Returns the signed distance from the given plane to the given point.
+     *
+     * @param planes The planes of the Frustum.
+     * @param plane  The index of the plane.
+     * @param x      The X-coordinate of the point.
+     * @param y      The Y-coordinate of the point.
+     * @param z      The Z-coordinate of the point.
+     *
+     * @return The signed distance (which is positive inside the Frustum).
+     */
+    private static double distance(double[] planes, int plane, double x, double y, double z) {
+        return planes[4*plane]*x + planes[4*plane + 1]*y + planes[4*plane + 2]*z + planes[4*plane + 3];
+    }
+
+    /**
+     * Returns true if the given point lies inside the Frustum with the given
+     * planes by more than the margin.
+     *
+     * @param planes The planes of the Frustum.
+     * @param x      The X-coordinate of the point.
+     * @param y      The Y-coordinate of the point.
+     * @param z      The Z-coordinate of the point.
+     *
+     * @return True if the point is clearly inside the Frustum.
+     */
+    private static boolean inside(double[] planes, double x, double y, double z) {
+        for (int plane = 0; plane < 6; ++plane) {
+            if (FrustumCheck.distance(planes, plane, x, y, z) <= MARGIN) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if a corner, the centre, or a random point of the given box
+     * lies inside the Frustum with the given planes.
+     *
+     * @param planes The planes of the Frustum.
+     * @param box    The box.
+     *
+     * @return True if the box is known to be visible.
+     */
+    private static boolean sample(double[] planes, float[] box) {
+        for (int corner = 0; corner < 8; ++corner) {
+            double x = box[(corner & 1) == 0 ? 0 : 3];
+            double y = box[(corner & 2) == 0 ? 1 : 4];
+            double z = box[(corner & 4) == 0 ? 2 : 5];
+            if (FrustumCheck.inside(planes, x, y, z)) {
+                return true;
+            }
+        }
+        for (int i = 0; i <= SAMPLES; ++i) {
+            // The first sample is the centre of the box.
+            double u = i == 0 ? 0.5 : RNG.random(), v = i == 0 ? 0.5 : RNG.random(), w = i == 0 ? 0.5 : RNG.random();
+            double x = box[0] + u*(box[3] - box[0]);
+            double y = box[1] + v*(box[4] - box[1]);
+            double z = box[2] + w*(box[5] - box[2]);
+            if (FrustumCheck.inside(planes, x, y, z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if every corner of the given box lies behind the same plane
+     * of the Frustum with the given planes by more than the margin.
+     *
+     * @param planes The planes of the Frustum.
+     * @param box    The box.
+     *
+     * @return True if the box is known to be hidden.
+     */
+    private static boolean behind(double[] planes, float[] box) {
+        for (int plane = 0; plane < 6; ++plane) {
+            boolean all = true;
+            for (int corner = 0; corner < 8 && all; ++corner) {
+                double x = box[(corner & 1) == 0 ? 0 : 3];
+                double y = box[(corner & 2) == 0 ? 1 : 4];
+                double z = box[(corner & 4) == 0 ? 2 : 5];
+                all = FrustumCheck.distance(planes, plane, x, y, z) < -MARGIN;
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the centre or a random point of the given sphere lies
+     * inside the Frustum with the given planes.
+     *
+     * @param planes The planes of the Frustum.
+     * @param x      The X-coordinate of the centre of the sphere.
+     * @param y      The Y-coordinate of the centre of the sphere.
+     * @param z      The Z-coordinate of the centre of the sphere.
+     * @param radius The radius of the sphere.
+     *
+     * @return True if the sphere is known to be visible.
+     */
+    private static boolean sample(double[] planes, float x, float y, float z, float radius) {
+        for (int i = 0; i <= SAMPLES; ++i) {
+            // The first sample is the centre of the sphere.
+            double dx = 0, dy = 0, dz = 0;
+            if (i > 0) {
+                do {
+                    dx = RNG.random(-1f, 1f);
+                    dy = RNG.random(-1f, 1f);
+                    dz = RNG.random(-1f, 1f);
+                } while (dx*dx + dy*dy + dz*dz > 1);
+            }
+            if (FrustumCheck.inside(planes, x + radius*dx, y + radius*dy, z + radius*dz)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the given sphere lies behind one of the planes of the
+     * Frustum with the given planes by more than the margin.
+     *
+     * @param planes The planes of the Frustum.
+     * @param x      The X-coordinate of the centre of the sphere.
+     * @param y      The Y-coordinate of the centre of the sphere.
+     * @param z      The Z-coordinate of the centre of the sphere.
+     * @param radius The radius of the sphere.
+     *
+     * @return True if the sphere is known to be hidden.
+     */
+    private static boolean behind(double[] planes, float x, float y, float z, float radius) {
+        for (int plane = 0; plane < 6; ++plane) {
+            if (FrustumCheck.distance(planes, plane, x, y, z) < -radius - MARGIN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a flat Grid with the given dimensions that spans one unit per
+     * cell in the XY-plane.
+     *
+     * @param rows The number of rows in the Grid.
+     * @param cols The number of columns in the Grid.
+     *
+     * @return The Grid.
+     */
+    private static Grid createGrid(int rows, int cols) {
+        Terrain terrain = new Terrain(rows*cols);
+        for (int row = 0; row < rows; ++row) {
+            for (int col = 0; col < cols; ++col) {
+                terrain.reset(row*cols + col, Biome.GRASSLANDS, col, row, 0);
+            }
+        }
+        return new Grid("Check", rows, cols, 0, 0, cols - 1, rows - 1, terrain);
+    }
+
+    /**
+     * Returns a copy of the indexes in the given buffer.
+     *
+     * @param buffer The buffer.
+     *
+     * @return The indexes in the range [0, limit).
+     */
+    private static int[] copy(IntBuffer buffer) {
+        int[] indexes = new int[buffer.limit()];
+        for (int i = 0; i < indexes.length; ++i) {
+            indexes[i] = buffer.get(i);
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,296 @@
+package check;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import bio.Biome;
+import env.Geomipmap;
+import env.Grid;
+import env.GridMesh;
+import env.Terrain;
+import util.RNG;
+
+/**
+ * The GeomipmapCheck class checks the level of detail selected by a
+ * {@link Geomipmap} without a GPU.  At full detail, the triangulation must
+ * match the GridMesh; at any focal point, adjacent patches must differ by at
+ * most one level, and the triangulation must remain watertight: every edge in
+ * the interior of the Grid is shared by exactly two BioTriangles that traverse
+ * it in opposite directions, and every edge on the border of the Grid belongs
+ * to exactly one BioTriangle.
+ */
+public class GeomipmapCheck {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the Checks of the Geomipmap class.
+     *
+     * @return The Checks.
+     */
+    public static List<Check> create() {
+        List<Check> checks = new ArrayList<>();
+
+        checks.add(new Check("Geomipmap.triangulate(full)", () -> {
+            // The sizes cover single cells, partial patches, and several patches.
+            int[][] sizes = {{2, 2}, {2, 9}, {17, 17}, {23, 40}, {65, 65}};
+            for (int[] size : sizes) {
+                Grid grid = GeomipmapCheck.createGrid(size[0], size[1]);
+                GridMesh mesh = grid.getMesh();
+                Geomipmap geomipmap = mesh.getGeomipmap();
+
+                // A detail distance of zero selects full detail everywhere.
+                geomipmap.select(RNG.random(-10f, 10f), RNG.random(-10f, 10f), RNG.random(-10f, 10f), 0);
+                for (int pr = 0; pr < geomipmap.getPatchRows(); ++pr) {
+                    for (int pc = 0; pc < geomipmap.getPatchColumns(); ++pc) {
+                        Check.verify(geomipmap.getLevel(pr, pc) == 0, "Patch (%d, %d) of the %d x %d Grid has level %d at full detail.", pr, pc, size[0], size[1], geomipmap.getLevel(pr, pc));
+                    }
+                }
+
+                int[] indexes = new int[6*(size[0] - 1)*(size[1] - 1)];
+                int count = geomipmap.triangulate(indexes);
+                Set<List<Integer>> expected = GeomipmapCheck.strips(size[0], size[1]);
+                Set<List<Integer>> actual = GeomipmapCheck.triangles(indexes, count);
+                Set<List<Integer>> packed = GeomipmapCheck.triangles(mesh.getIndexBuffer());
+                Check.verify(count == 3*expected.size() && actual.size() == expected.size(), "The %d x %d Grid is triangulated into %d (%d distinct) instead of %d BioTriangles.",
+                             size[0], size[1], count/3, actual.size(), expected.size());
+                Check.verify(actual.equals(expected), "The full-detail triangulation of the %d x %d Grid differs from its triangle strips.", size[0], size[1]);
+                Check.verify(packed.equals(expected), "The index buffer of the %d x %d GridMesh differs from its triangle strips.", size[0], size[1]);
+            }
+        }));
+
+        checks.add(new Check("Geomipmap.select(random)", () -> {
+            Grid grid = GeomipmapCheck.createGrid(GRID_ROWS, GRID_COLS);
+            Geomipmap geomipmap = grid.getMesh().getGeomipmap();
+
+            int coarse = 0;
+            for (int camera = 0; camera < CAMERAS; ++camera) {
+                float[] focus = GeomipmapCheck.createFocus();
+                geomipmap.select(focus[0], focus[1], focus[2], focus[3]);
+
+                for (int pr = 0; pr < geomipmap.getPatchRows(); ++pr) {
+                    for (int pc = 0; pc < geomipmap.getPatchColumns(); ++pc) {
+                        int level = geomipmap.getLevel(pr, pc);
+                        Check.verify(level >= 0 && level <= geomipmap.getMaxLevel(), "Camera %d selected level %d for patch (%d, %d).", camera, level, pr, pc);
+                        if (pr > 0) {
+                            int above = geomipmap.getLevel(pr - 1, pc);
+                            Check.verify(Math.abs(level - above) <= 1, "Camera %d selected levels %d and %d for patches (%d, %d) and (%d, %d).", camera, above, level, pr - 1, pc, pr, pc);
+                        }
+                        if (pc > 0) {
+                            int left = geomipmap.getLevel(pr, pc - 1);
+                            Check.verify(Math.abs(level - left) <= 1, "Camera %d selected levels %d and %d for patches (%d, %d) and (%d, %d).", camera, left, level, pr, pc - 1, pr, pc);
+                        }
+                        coarse += level > 1 ? 1 : 0;
+                    }
+                }
+            }
+
+            // Make sure that the random focal points exercise the coarse levels.
+            Check.verify(coarse > CAMERAS, "Only %d coarse patches were selected.", coarse);
+        }));
+
+        checks.add(new Check("Geomipmap.triangulate(random)", () -> {
+            Grid grid = GeomipmapCheck.createGrid(GRID_ROWS, GRID_COLS);
+            Geomipmap geomipmap = grid.getMesh().getGeomipmap();
+            int[] indexes = new int[6*(GRID_ROWS - 1)*(GRID_COLS - 1)];
+
+            for (int camera = 0; camera < CAMERAS; ++camera) {
+                float[] focus = GeomipmapCheck.createFocus();
+                geomipmap.select(focus[0], focus[1], focus[2], focus[3]);
+                int count = geomipmap.triangulate(indexes);
+                GeomipmapCheck.verifyEdges(indexes, count, camera);
+            }
+        }));
+
+        return checks;
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of rows in the Grid of the random Checks (a partial patch is
+     * left at the bottom of the Grid).
+     */
+    private static final int GRID_ROWS = 7*GridMesh.PATCH_CELLS - 5;
+
+    /**
+     * The number of columns in the Grid of the random Checks.
+     */
+    private static final int GRID_COLS = 6*GridMesh.PATCH_CELLS + 1;
+
+    /**
+     * The number of random focal points in each Check.
+     */
+    private static final int CAMERAS = 100;
+
+    /**
+     * Creates a Grid with the given dimensions whose BioVertexes lie on the
+     * integer lattice at random elevations.
+     *
+     * @param rows The number of rows in the Grid.
+     * @param cols The number of columns in the Grid.
+     *
+     * @return The Grid.
+     */
+    private static Grid createGrid(int rows, int cols) {
+        Terrain terrain = new Terrain(rows*cols);
+        for (int row = 0; row < rows; ++row) {
+            for (int col = 0; col < cols; ++col) {
+                terrain.reset(row*cols + col, Biome.GRASSLANDS, col, row, RNG.random(0f, 4f));
+            }
+        }
+        return new Grid("Check", rows, cols, 0, 0, cols - 1, rows - 1, terrain);
+    }
+
+    /**
+     * Returns a random focal point near the Grid of the random Checks followed
+     * by a random detail distance.
+     *
+     * @return The X, Y, and Z coordinates of the focal point and the distance.
+     */
+    private static float[] createFocus() {
+        float x = RNG.random(-0.5f*GRID_COLS, 1.5f*GRID_COLS);
+        float y = RNG.random(-0.5f*GRID_ROWS, 1.5f*GRID_ROWS);
+        float z = RNG.random(0f, 50f);
+        float distance = RNG.random(1f, 2f*GridMesh.PATCH_CELLS);
+        return new float[]{x, y, z, distance};
+    }
+
+    /**
+     * Returns the BioTriangles of the GL_TRIANGLE_STRIP rows of a Grid with the
+     * given dimensions, as GridMesh vertex indexes in drawing order.
+     *
+     * @param rows The number of rows in the Grid.
+     * @param cols The number of columns in the Grid.
+     *
+     * @return The BioTriangles.
+     */
+    private static Set<List<Integer>> strips(int rows, int cols) {
+        Set<List<Integer>> triangles = new HashSet<>();
+        for (int row = 0; row < rows - 1; ++row) {
+            for (int p = 0; p < 2*cols - 2; ++p) {
+                // GL_TRIANGLE_STRIP reverses the first two vertexes of odd BioTriangles.
+                int first = row*2*cols + p;
+                List<Integer> triangle = new ArrayList<>(3);
+                triangle.add(p % 2 == 0 ? first : first + 1);
+                triangle.add(p % 2 == 0 ? first + 1 : first);
+                triangle.add(first + 2);
+                triangles.add(triangle);
+            }
+        }
+        return triangles;
+    }
+
+    /**
+     * Returns the BioTriangles described by the first given number of indexes
+     * in the given array.
+     *
+     * @param indexes The indexes.
+     * @param count   The number of indexes.
+     *
+     * @return The BioTriangles, as GridMesh vertex indexes in drawing order.
+     */
+    private static Set<List<Integer>> triangles(int[] indexes, int count) {
+        Set<List<Integer>> triangles = new HashSet<>();
+        for (int i = 0; i < count; i += 3) {
+            List<Integer> triangle = new ArrayList<>(3);
+            for (int k = 0; k < 3; ++k) {
+                triangle.add(indexes[i + k]);
+            }
+            triangles.add(triangle);
+        }
+        return triangles;
+    }
+
+    /**
+     * Returns the BioTriangles described by the given index buffer.
+     *
+     * @param buffer The index buffer.
+     *
+     * @return The BioTriangles, as GridMesh vertex indexes in drawing order.
+     */
+    private static Set<List<Integer>> triangles(IntBuffer buffer) {
+        int[] indexes = new int[buffer.limit()];
+        for (int i = 0; i < indexes.length; ++i) {
+            indexes[i] = buffer.get(i);
+        }
+        return GeomipmapCheck.triangles(indexes, indexes.length);
+    }
+
+    /**
+     * Verifies that the BioTriangles described by the first given number of
+     * indexes in the given array form a watertight surface over the Grid of
+     * the random Checks.  The GridMesh vertexes are mapped back to the Grid
+     * BioVertexes since the BioVertexes of each inner row appear in two strips.
+     *
+     * @param indexes The indexes.
+     * @param count   The number of indexes.
+     * @param camera  The number of the focal point (for error messages).
+     */
+    private static void verifyEdges(int[] indexes, int count, int camera) {
+        // Count the directed edges between the BioVertexes of each BioTriangle.
+        Map<Long, Integer> edges = new HashMap<>();
+        int[] corners = new int[3];
+        for (int i = 0; i < count; i += 3) {
+            for (int k = 0; k < 3; ++k) {
+                int strip = indexes[i + k]/(2*GRID_COLS);
+                int slot = indexes[i + k] % (2*GRID_COLS);
+                corners[k] = (strip + slot % 2)*GRID_COLS + slot/2;
+            }
+            Check.verify(corners[0] != corners[1] && corners[1] != corners[2] && corners[0] != corners[2], "Camera %d produced BioTriangle %d with a repeated BioVertex.", camera, i/3);
+            for (int k = 0; k < 3; ++k) {
+                edges.merge(GeomipmapCheck.edge(corners[k], corners[(k + 1) % 3]), 1, Integer::sum);
+            }
+        }
+
+        for (Map.Entry<Long, Integer> entry : edges.entrySet()) {
+            int from = (int) (entry.getKey() >>> 32);
+            int to = (int) (long) entry.getKey();
+            int forward = entry.getValue();
+            int backward = edges.getOrDefault(GeomipmapCheck.edge(to, from), 0);
+
+            if (GeomipmapCheck.isBorder(from, to)) {
+                Check.verify(forward == 1 && backward == 0, "Camera %d traverses the border edge (%d, %d) %d times forward and %d times backward.", camera, from, to, forward, backward);
+            } else {
+                Check.verify(forward == 1 && backward == 1, "Camera %d traverses the interior edge (%d, %d) %d times forward and %d times backward.", camera, from, to, forward, backward);
+            }
+        }
+    }
+
+    /**
+     * Returns the key of the directed edge between the given BioVertexes.
+     *
+     * @param from The index of the first BioVertex.
+     * @param to   The index of the second BioVertex.
+     *
+     * @return The key.
+     */
+    private static long edge(int from, int to) {
+        return ((long) from << 32) | to;
+    }
+
+    /**
+     * Returns true if the edge between the given BioVertexes of the Grid of the
+     * random Checks lies on the border of the Grid.
+     *
+     * @param from The index of the first BioVertex.
+     * @param to   The index of the second BioVertex.
+     *
+     * @return True if the edge lies on the border.
+     */
+    private static boolean isBorder(int from, int to) {
+        int r0 = from/GRID_COLS, c0 = from % GRID_COLS;
+        int r1 = to/GRID_COLS, c1 = to % GRID_COLS;
+        boolean row = r0 == r1 && (r0 == 0 || r0 == GRID_ROWS - 1);
+        boolean col = c0 == c1 && (c0 == 0 || c0 == GRID_COLS - 1);
+        return row || col;
+    }
+}
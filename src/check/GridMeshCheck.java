@@ -0,0 +1,255 @@
+package check;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import bio.Biome;
+import env.Grid;
+import env.GridMesh;
+import env.Terrain;
+import util.RNG;
+
+/**
+ * The GridMeshCheck class checks that the buffers packed by a {@link GridMesh}
+ * describe the same BioTriangles as the immediate-mode Grid renderer, which
+ * emits one GL_TRIANGLE_STRIP per row of the Grid.  Since the Window uses flat
+ * shading, a BioTriangle is drawn with the normal and Colour of its provoking
+ * (last) vertex, so only the provoking vertexes need to carry the attributes
+ * that the immediate-mode renderer sets before completing each BioTriangle.
+ */
+public class GridMeshCheck {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the Checks of the GridMesh class.
+     *
+     * @return The Checks.
+     */
+    public static List<Check> create() {
+        List<Check> checks = new ArrayList<>();
+
+        checks.add(new Check("GridMesh.pack(random)", () -> {
+            // The sizes cover single cells, partial patches, and several patches.
+            int[][] sizes = {{2, 2}, {2, 9}, {5, 3}, {17, 17}, {23, 40}, {33, 33}};
+            for (int[] size : sizes) {
+                Grid grid = GridMeshCheck.createGrid(size[0], size[1]);
+                GridMeshCheck.compare(grid);
+            }
+        }));
+
+        checks.add(new Check("GridMesh.pack(repack)", () -> {
+            // Moving and recolouring the BioVertexes of a Grid (e.g., when its
+            // Wave is evaluated on the CPU) must be reflected by pack().
+            Grid grid = GridMeshCheck.createGrid(19, 21);
+            Terrain terrain = grid.getTerrain();
+            for (int index = 0; index < terrain.size(); ++index) {
+                terrain.setZ(index, RNG.random(-1f, 1f));
+                terrain.setOffset(index, RNG.random(-0.1f, 0.1f));
+                terrain.setRGBA(index, GridMeshCheck.createRGBA());
+            }
+            grid.getMesh().pack();
+            GridMeshCheck.compare(grid);
+        }));
+
+        return checks;
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of floats recorded for each vertex emitted by the immediate-mode
+     * renderer: the position followed by the current normal and Colour.
+     */
+    private static final int STRIDE = GridMesh.POSITION_STRIDE + GridMesh.ATTRIBUTE_STRIDE;
+
+    /**
+     * Creates a Grid with the given dimensions whose BioVertexes have jittered
+     * positions, random elevations and offsets, and random Colours.
+     *
+     * @param rows The number of rows in the Grid.
+     * @param cols The number of columns in the Grid.
+     *
+     * @return The Grid.
+     */
+    private static Grid createGrid(int rows, int cols) {
+        Biome[] biomes = Biome.values();
+        Terrain terrain = new Terrain(rows*cols);
+        for (int row = 0; row < rows; ++row) {
+            for (int col = 0; col < cols; ++col) {
+                int index = row*cols + col;
+                float x = col + RNG.random(-0.25f, 0.25f);
+                float y = row + RNG.random(-0.25f, 0.25f);
+                float z = RNG.random(-1f, 1f);
+                terrain.reset(index, biomes[RNG.random(0, biomes.length - 1)], x, y, z);
+                terrain.setOffset(index, RNG.random(-0.1f, 0.1f));
+                terrain.setRGBA(index, GridMeshCheck.createRGBA());
+            }
+        }
+        return new Grid("Check", rows, cols, 0, 0, cols - 1, rows - 1, terrain);
+    }
+
+    /**
+     * Returns a random packed RGBA Colour.
+     *
+     * @return The packed Colour.
+     */
+    private static int createRGBA() {
+        int rgba = 0;
+        for (int i = 0; i < 4; ++i) {
+            rgba = (rgba << 8) | RNG.random(0, 255);
+        }
+        return rgba;
+    }
+
+    /**
+     * Verifies that the full-detail index buffer of the GridMesh of the given
+     * Grid draws every BioTriangle of the immediate-mode renderer exactly once,
+     * with the same winding and the same flat-shaded attributes.
+     *
+     * @param grid The Grid.
+     */
+    private static void compare(Grid grid) {
+        int rows = grid.getRows();
+        int cols = grid.getColumns();
+        int perRow = 2*cols - 2;
+        int triangles = perRow*(rows - 1);
+
+        GridMesh mesh = grid.getMesh();
+        Check.verify(mesh.getVertexCount() == 2*cols*(rows - 1), "The %d x %d GridMesh has %d vertexes.", rows, cols, mesh.getVertexCount());
+
+        float[] expected = GridMeshCheck.emit(grid);
+        FloatBuffer positions = mesh.getPositionBuffer();
+        FloatBuffer attributes = mesh.getAttributeBuffer();
+        IntBuffer indexes = mesh.getIndexBuffer();
+        Check.verify(indexes.limit() == 3*triangles, "The %d x %d GridMesh indexes %d of %d BioTriangles.", rows, cols, indexes.limit()/3, triangles);
+
+        boolean[] drawn = new boolean[triangles];
+        for (int i = 0; i < indexes.limit(); i += 3) {
+            // The provoking vertex of the BioTriangle identifies its strip.
+            int provoking = indexes.get(i + 2);
+            int row = provoking/(2*cols);
+            int p = provoking % (2*cols) - 2;
+            Check.verify(p >= 0, "BioTriangle %d is provoked by vertex %d, which does not complete a BioTriangle.", i/3, provoking);
+
+            int triangle = row*perRow + p;
+            Check.verify(!drawn[triangle], "BioTriangle %d of row %d is drawn twice.", p, row);
+            drawn[triangle] = true;
+
+            // GL_TRIANGLE_STRIP reverses the first two vertexes of odd BioTriangles.
+            int first = row*2*cols + p;
+            int[] order = p % 2 == 0 ? new int[]{first, first + 1, first + 2} : new int[]{first + 1, first, first + 2};
+            for (int k = 0; k < 3; ++k) {
+                int vertex = indexes.get(i + k);
+                for (int c = 0; c < GridMesh.POSITION_STRIDE; ++c) {
+                    float want = expected[STRIDE*order[k] + c];
+                    float got = positions.get(GridMesh.POSITION_STRIDE*vertex + c);
+                    Check.verify(Float.compare(want, got) == 0, "Corner %d of BioTriangle %d of row %d has position component %d = %f instead of %f.", k, p, row, c, got, want);
+                }
+            }
+            for (int c = 0; c < GridMesh.ATTRIBUTE_STRIDE; ++c) {
+                float want = expected[STRIDE*(first + 2) + GridMesh.POSITION_STRIDE + c];
+                float got = attributes.get(GridMesh.ATTRIBUTE_STRIDE*provoking + c);
+                Check.verify(Float.compare(want, got) == 0, "BioTriangle %d of row %d has attribute %d = %f instead of %f.", p, row, c, got, want);
+            }
+        }
+    }
+
+    /**
+     * Records the vertexes that the immediate-mode renderer emits for the given
+     * Grid, along with the normal and Colour that are current when each vertex
+     * is emitted.  The attributes of the first two vertexes of each strip are
+     * left as NaN since no BioTriangle is completed by them.
+     *
+     * @param grid The Grid.
+     *
+     * @return The recorded vertexes, in the order of the GridMesh vertexes.
+     */
+    private static float[] emit(Grid grid) {
+        int rows = grid.getRows();
+        int cols = grid.getColumns();
+        Terrain terrain = grid.getTerrain();
+
+        float[] vertexes = new float[STRIDE*2*cols*(rows - 1)];
+        Arrays.fill(vertexes, Float.NaN);
+
+        int[] corners = new int[3];
+        for (int row = 0; row < rows - 1; ++row) {
+            for (int v = 0; v < 2*cols; ++v) {
+                int offset = STRIDE*(row*2*cols + v);
+                if (v >= 2) {
+                    // Each row of the Grid contains 2 BioTriangles for every
+                    // column; even BioTriangles point forward and odd
+                    // BioTriangles point backward.
+                    int p = v - 2;
+                    int col = p/2;
+                    boolean forward = p % 2 == 0;
+                    corners[0] = forward ? grid.getIndex(row,     col) : grid.getIndex(row + 1, col    );
+                    corners[1] = forward ? grid.getIndex(row + 1, col) : grid.getIndex(row + 1, col + 1);
+                    corners[2] = grid.getIndex(row, col + 1);
+                    GridMeshCheck.normal(terrain, corners, vertexes, offset + 3);
+                    GridMeshCheck.colour(terrain, corners, vertexes, offset + 6);
+                }
+
+                int index = grid.getIndex(row + (v % 2), v/2);
+                vertexes[offset + 0] = terrain.getX(index);
+                vertexes[offset + 1] = terrain.getY(index);
+                vertexes[offset + 2] = terrain.getZ(index) + terrain.getOffset(index);
+            }
+        }
+        return vertexes;
+    }
+
+    /**
+     * Computes the unit normal passed to glNormal3f() for the BioTriangle with
+     * the given corners.
+     *
+     * @param terrain The Terrain of the Grid.
+     * @param corners The Terrain indexes of the corners.
+     * @param out     The array that receives the normal.
+     * @param offset  The position of the normal in the array.
+     */
+    private static void normal(Terrain terrain, int[] corners, float[] out, int offset) {
+        float ax = terrain.getX(corners[2]) - terrain.getX(corners[0]);
+        float ay = terrain.getY(corners[2]) - terrain.getY(corners[0]);
+        float az = terrain.getZ(corners[2]) - terrain.getZ(corners[0]);
+        float bx = terrain.getX(corners[1]) - terrain.getX(corners[0]);
+        float by = terrain.getY(corners[1]) - terrain.getY(corners[0]);
+        float bz = terrain.getZ(corners[1]) - terrain.getZ(corners[0]);
+
+        float nx = ay*bz - az*by;
+        float ny = az*bx - ax*bz;
+        float nz = ax*by - ay*bx;
+        float magnitude = (float) Math.sqrt(nx*nx + ny*ny + nz*nz);
+
+        out[offset + 0] = nx/magnitude;
+        out[offset + 1] = ny/magnitude;
+        out[offset + 2] = nz/magnitude;
+    }
+
+    /**
+     * Computes the RGBA Colour passed to glColor4f() for the BioTriangle with
+     * the given corners.
+     *
+     * @param terrain The Terrain of the Grid.
+     * @param corners The Terrain indexes of the corners.
+     * @param out     The array that receives the Colour.
+     * @param offset  The position of the Colour in the array.
+     */
+    private static void colour(Terrain terrain, int[] corners, float[] out, int offset) {
+        for (int i = 0; i < 4; ++i) {
+            int shift = 24 - 8*i;
+            int sum = 0;
+            for (int corner : corners) {
+                sum += (terrain.getRGBA(corner) >>> shift) & 0xFF;
+            }
+            out[offset + i] = sum/(3*255f);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package check;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import bio.Biome;
+import bio.Biomix;
+import env.Terrain;
+import util.Pair;
+import util.RNG;
+
+/**
+ * The TerrainCheck class checks that updating the Biomix of a single BioVertex
+ * in place leaves a {@link Terrain} in the same state as rebuilding the Biomix
+ * of every BioVertex with {@link Terrain#setBiomixes}.
+ */
+public class TerrainCheck {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the Checks of the Terrain class.
+     *
+     * @return The Checks.
+     */
+    public static List<Check> create() {
+        List<Check> checks = new ArrayList<>();
+
+        checks.add(new Check("Terrain.setBiomix(random)", () -> {
+            // The first update replaces the implicit Biomixes of a new Terrain.
+            int size = 50;
+            Terrain terrain = new Terrain(size);
+            Biome[] biomes = new Biome[size];
+            Biomix[] expected = new Biomix[size];
+            for (int index = 0; index < size; ++index) {
+                biomes[index] = TerrainCheck.createBiome();
+                terrain.reset(index, biomes[index], 0, 0, 0);
+                expected[index] = new Biomix();
+                expected[index].add(biomes[index], 1f);
+            }
+
+            // Updates may grow, shrink, or keep the size of a Biomix (including
+            // the first and last ones).
+            for (int update = 0; update < UPDATES; ++update) {
+                int index = update < 2 ? update*(size - 1) : RNG.random(0, size - 1);
+                Biomix biomix = TerrainCheck.createBiomix();
+                terrain.setBiomix(index, biomix);
+                expected[index] = biomix;
+                TerrainCheck.compare(terrain, expected, update);
+            }
+
+            // The sparse arrays must match those of a Terrain whose Biomixes
+            // were committed at once, byte for byte.
+            Terrain reference = new Terrain(size);
+            for (int index = 0; index < size; ++index) {
+                reference.reset(index, biomes[index], 0, 0, 0);
+            }
+            reference.setBiomixes(expected);
+            Check.verify(TerrainCheck.serialize(terrain).equals(TerrainCheck.serialize(reference)), "The updated Terrain does not serialize like the reference Terrain.");
+        }));
+
+        return checks;
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of random Biomix updates.
+     */
+    private static final int UPDATES = 500;
+
+    /**
+     * The largest number of Biomes in a random Biomix.
+     */
+    private static final int MAX_BIOMES = 4;
+
+    /**
+     * Returns a random Biome.
+     *
+     * @return The Biome.
+     */
+    private static Biome createBiome() {
+        Biome[] biomes = Biome.values();
+        return biomes[RNG.random(0, biomes.length - 1)];
+    }
+
+    /**
+     * Returns a random Biomix with up to {@link #MAX_BIOMES} Biomes.
+     *
+     * @return The Biomix.
+     */
+    private static Biomix createBiomix() {
+        Biomix biomix = new Biomix();
+        int count = RNG.random(0, MAX_BIOMES);
+        for (int k = 0; k < count; ++k) {
+            biomix.add(TerrainCheck.createBiome(), RNG.random(0.01f, 1f));
+        }
+        return biomix;
+    }
+
+    /**
+     * Returns the serialized form of the given Terrain.
+     *
+     * @param terrain The Terrain.
+     *
+     * @return The buffer holding the serialized Terrain.
+     */
+    private static ByteBuffer serialize(Terrain terrain) {
+        ByteBuffer buffer = ByteBuffer.allocate(terrain.bytes());
+        terrain.write(buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Verifies that the Biomixes of the given Terrain match the given Biomixes.
+     *
+     * @param terrain  The Terrain.
+     * @param expected The expected Biomixes, ordered by BioVertex index.
+     * @param update   The number of the last update (for error messages).
+     */
+    private static void compare(Terrain terrain, Biomix[] expected, int update) {
+        for (int index = 0; index < expected.length; ++index) {
+            Check.verify(terrain.getBiomixSize(index) == expected[index].size(), "After update %d, BioVertex %d has %d instead of %d Biomes.",
+                         update, index, terrain.getBiomixSize(index), expected[index].size());
+            int k = 0;
+            for (Pair<Biome, Float> pair : expected[index]) {
+                Biome biome = terrain.getBiomixBiome(index, k);
+                float weight = terrain.getBiomixWeight(index, k);
+                Check.verify(biome == pair.getFirst() && weight == pair.getSecond(), "After update %d, Biome %d of BioVertex %d is %s (%f) instead of %s (%f).",
+                             update, k, index, biome, weight, pair.getFirst(), pair.getSecond());
+                ++k;
+            }
+        }
+    }
+}
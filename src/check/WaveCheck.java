@@ -0,0 +1,139 @@
+package check;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import bio.BioVertex;
+import bio.Biome;
+import env.Grid;
+import env.Terrain;
+import env.Wave;
+import env.WaveShader;
+import util.RNG;
+
+/**
+ * The WaveCheck class checks that the three implementations of the WATER waves
+ * agree: {@link Biome#update} (the original per-BioVertex animation),
+ * {@link Wave#animate} (the batched CPU animation), and
+ * {@link WaveShader#displace} (the CPU reference of the WaveShader).  The
+ * implementations round differently, so they only need to agree to within a
+ * small fraction of the amplitude of the waves.
+ */
+public class WaveCheck {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the Checks of the Wave class.
+     *
+     * @return The Checks.
+     */
+    public static List<Check> create() {
+        List<Check> checks = new ArrayList<>();
+
+        checks.add(new Check("Wave.animate(water)", () -> {
+            Grid grid = WaveCheck.createGrid(24, 24);
+            Terrain terrain = grid.getTerrain();
+            Wave wave = grid.getWave();
+
+            int animated = 0;
+            for (int index = 0; index < terrain.size(); ++index) {
+                animated += terrain.getBiome(index).isAnimated() ? 1 : 0;
+            }
+            Check.verify(wave.size() == animated, "The Wave animates %d of %d animated BioVertexes.", wave.size(), animated);
+
+            // The last times are several hours into a session, where a
+            // single-precision angle would have lost its fractional part.
+            double[] times = {0, RNG.random(0f, 1f), RNG.random(1f, 100f), 3600.0 + RNG.random(0f, 1f), 36000.0 + RNG.random(0f, 1f)};
+            for (double time : times) {
+                WaveCheck.compare(grid, time);
+            }
+        }));
+
+        checks.add(new Check("Wave.rest()", () -> {
+            Grid grid = WaveCheck.createGrid(8, 8);
+            Terrain terrain = grid.getTerrain();
+            Wave wave = grid.getWave();
+
+            wave.animate(RNG.random(1f, 100f));
+            wave.rest();
+            for (int index = 0; index < terrain.size(); ++index) {
+                Check.verify(terrain.getOffset(index) == 0, "BioVertex %d still has offset %f.", index, terrain.getOffset(index));
+            }
+        }));
+
+        return checks;
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The largest disagreement between two implementations, as a fraction of
+     * the largest amplitude of the waves.
+     */
+    private static final float TOLERANCE = 1e-4f;
+
+    /**
+     * Creates a Grid with the given dimensions in which roughly half of the
+     * BioVertexes belong to the WATER Biome and the rest to a static Biome.
+     *
+     * @param rows The number of rows in the Grid.
+     * @param cols The number of columns in the Grid.
+     *
+     * @return The Grid.
+     */
+    private static Grid createGrid(int rows, int cols) {
+        Terrain terrain = new Terrain(rows*cols);
+        for (int row = 0; row < rows; ++row) {
+            for (int col = 0; col < cols; ++col) {
+                Biome biome = RNG.random(0f, 1f) < 0.5f ? Biome.WATER : Biome.DESERT;
+                float x = -3 + 6f*col/(cols - 1);
+                float y = -3 + 6f*row/(rows - 1);
+                terrain.reset(row*cols + col, biome, x, y, RNG.random(-0.2f, 0.2f));
+            }
+        }
+        return new Grid("Check", rows, cols, -3, -3, 3, 3, terrain);
+    }
+
+    /**
+     * Verifies that the offsets set by Wave.animate() at the given time match
+     * WaveShader.displace() and Biome.update() for every BioVertex of the given
+     * Grid, and that the offsets never exceed the reach of the Wave.
+     *
+     * @param grid The Grid.
+     * @param time The uptime of the application (in seconds).
+     */
+    private static void compare(Grid grid, double time) {
+        Terrain terrain = grid.getTerrain();
+        Wave wave = grid.getWave();
+        float tolerance = TOLERANCE*wave.getReach() + Float.MIN_NORMAL;
+
+        wave.animate(time);
+        float[] batched = new float[terrain.size()];
+        for (int index = 0; index < terrain.size(); ++index) {
+            batched[index] = terrain.getOffset(index);
+        }
+
+        for (int i = 0; i < wave.size(); ++i) {
+            int index = wave.getIndex(i);
+            float shaded = WaveShader.displace(wave.getAmplitude(i), wave.getSpeed(i), wave.getPhase(i), time);
+            Check.verify(Math.abs(batched[index] - shaded) <= tolerance, "At t = %.3f, BioVertex %d is displaced by %f on the CPU but by %f on the GPU.", time, index, batched[index], shaded);
+            Check.verify(Math.abs(batched[index]) <= wave.getReach() + tolerance, "At t = %.3f, BioVertex %d is displaced by %f beyond the reach %f.", time, index, batched[index], wave.getReach());
+        }
+
+        for (int index = 0; index < terrain.size(); ++index) {
+            // Biome.update() overwrites the offset set by Wave.animate().
+            Biome biome = terrain.getBiome(index);
+            biome.update(new BioVertex(terrain, index), time, 1);
+            float original = terrain.getOffset(index);
+            if (biome.isAnimated()) {
+                Check.verify(Math.abs(batched[index] - original) <= tolerance, "At t = %.3f, BioVertex %d is displaced by %f by the Wave but by %f by its Biome.", time, index, batched[index], original);
+            } else {
+                Check.verify(batched[index] == 0, "At t = %.3f, static BioVertex %d is displaced by %f.", time, index, batched[index]);
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * The "check" package contains runnable correctness checks that compare the
+ * optimized parts of the World generation pipeline against simpler reference
+ * implementations.
+ */
+package check;
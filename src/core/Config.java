@@ -0,0 +1,582 @@
+package core;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import env.Noiseform;
+import util.Noise;
+import util.RNG;
+
+/**
+ * The Config class represents the parameters that control the generation of a
+ * World.  Two Worlds generated from equal Configs are identical.
+ */
+public class Config {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a description of the command-line flags accepted by {@link #parse}.
+     *
+     * @return The usage message.
+     */
+    public static String usage() {
+        return String.join(System.lineSeparator(),
+            "Usage: java core.Top [flags]",
+            "    --debug                 Enables debug parameters and verbose logging.",
+            "    --seed <long>           The seed of the RNG.",
+            "    --land <int>            The number of rows and columns in the land Grid.",
+            "    --water <int>           The number of rows and columns in the water Grid.",
+            "    --moisture <int>        The number of Perlin gradients along each side of the moisture map.",
+            "    --elevation <int>       The number of Perlin gradients along each side of the elevation map.",
+            "    --noise <int>           The number of Perlin cells along each side of a Grid Noiseform.",
+            "    --regions <int>         The number of BioRegions in the land BioMap.",
+            "    --smoothing <float>     The radius of the aliasing transformation (relative to the Grid size).",
+            "    --smoothing-mode <mode> The Smoothing method of the aliasing transformation (exact or box).",
+            "    --octaves <int>         The number of Perlin noise octaves in a Grid Noiseform (at most 8).",
+            "    --fractal <mode>        The Fractal method that combines the Perlin noise octaves (fbm or ridged).",
+            "    --save <path>           Writes a Snapshot of the generated World to the given path.",
+            "    --load <path>           Reads the World from the Snapshot at the given path instead of generating it.",
+            "    --profile <path>        Writes the frame time percentiles of each render stage to the given CSV file on exit.",
+            "    --chunks <int>          Streams Chunks within the given number of Chunks of the Camera (0 disables streaming).",
+            "    --chunk-size <int>      The number of rows and columns in each streamed Chunk.",
+            "    --chunk-budget <int>    The maximum number of resident Chunks (0 fits the streaming radius).",
+            "    --detail <float>        The distance beyond which Grids lose detail (0 draws every Grid at full detail).",
+            "    --threads <int>         The number of threads that generate the World (0 uses every processor)."
+        );
+    }
+
+    /**
+     * Returns the Config described by the given command-line arguments.  Any
+     * parameter that is not specified retains its default value.
+     *
+     * @param args The command-line arguments.
+     *
+     * @return The Config.
+     *
+     * @throws IllegalArgumentException If an argument is unknown or malformed.
+     */
+    public static Config parse(String[] args) {
+        Config config = new Config();
+        for (int i = 0; i < args.length; ++i) {
+            String flag = args[i];
+            if (flag.equals("--debug")) {
+                config.debug = true;
+                continue;
+            }
+
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException(String.format("Missing value for flag \"%s\".", flag));
+            }
+            String value = args[++i];
+
+            try {
+                switch (flag) {
+                    case "--seed":
+                        config.seed = Long.parseLong(value);
+                        config.seeded = true;
+                        break;
+                    case "--land":
+                        config.landSize = Config.atLeast(flag, Integer.parseInt(value), 2);
+                        break;
+                    case "--water":
+                        config.waterSize = Config.atLeast(flag, Integer.parseInt(value), 2);
+                        break;
+                    case "--moisture":
+                        config.moistureGradients = Config.atLeast(flag, Integer.parseInt(value), 2);
+                        break;
+                    case "--elevation":
+                        config.elevationGradients = Config.atLeast(flag, Integer.parseInt(value), 2);
+                        break;
+                    case "--noise":
+                        config.noiseCells = Config.atLeast(flag, Integer.parseInt(value), 1);
+                        break;
+                    case "--regions":
+                        config.regions = Config.atLeast(flag, Integer.parseInt(value), 1);
+                        break;
+                    case "--smoothing":
+                        config.smoothingRadius = Float.parseFloat(value);
+                        if (!(config.smoothingRadius >= 0)) {
+                            throw new IllegalArgumentException(String.format("Flag \"%s\" must be non-negative.", flag));
+                        }
+                        break;
+                    case "--smoothing-mode":
+                        config.smoothing = Config.smoothing(value);
+                        break;
+                    case "--octaves":
+                        config.octaves = Config.atMost(flag, Config.atLeast(flag, Integer.parseInt(value), 1), MAX_OCTAVES);
+                        break;
+                    case "--fractal":
+                        config.fractal = Config.fractal(value);
+                        break;
+                    case "--save":
+                        config.savePath = Paths.get(value);
+                        break;
+                    case "--load":
+                        config.loadPath = Paths.get(value);
+                        break;
+                    case "--profile":
+                        config.profilePath = Paths.get(value);
+                        break;
+                    case "--chunks":
+                        config.chunkRadius = Config.atLeast(flag, Integer.parseInt(value), 0);
+                        break;
+                    case "--chunk-size":
+                        config.chunkSize = Config.atLeast(flag, Integer.parseInt(value), 2);
+                        break;
+                    case "--chunk-budget":
+                        config.chunkBudget = Config.atLeast(flag, Integer.parseInt(value), 0);
+                        break;
+                    case "--detail":
+                        config.detailDistance = Float.parseFloat(value);
+                        if (!(config.detailDistance >= 0)) {
+                            throw new IllegalArgumentException(String.format("Flag \"%s\" must be non-negative.", flag));
+                        }
+                        break;
+                    case "--threads":
+                        config.threads = Config.atLeast(flag, Integer.parseInt(value), 0);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("Unknown flag \"%s\".", flag));
+                }
+            } catch (NumberFormatException | InvalidPathException e) {
+                throw new IllegalArgumentException(String.format("Invalid value \"%s\" for flag \"%s\".", value, flag));
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Constructs a Config with the default parameters.  The default seed is the
+     * current seed of the RNG.
+     */
+    public Config() {
+        this.debug = false;
+        this.seed = RNG.getSeed();
+        this.seeded = false;
+        this.landSize = 0;
+        this.waterSize = 0;
+        this.moistureGradients = 5;
+        this.elevationGradients = 3;
+        this.noiseCells = 8;
+        this.regions = 25;
+        this.smoothingRadius = 0.05f;
+        this.smoothing = Noiseform.Smoothing.EXACT;
+        this.octaves = 1;
+        this.fractal = Noise.Fractal.FBM;
+        this.savePath = null;
+        this.loadPath = null;
+        this.profilePath = null;
+        this.chunkRadius = 0;
+        this.chunkSize = 48;
+        this.chunkBudget = 0;
+        this.detailDistance = 0.5f;
+        this.threads = 0;
+    }
+
+    /**
+     * Returns true if debug parameters were requested.
+     *
+     * @return True if debug parameters were requested.
+     */
+    public boolean isDebug() {
+        return this.debug;
+    }
+
+    /**
+     * Returns the seed of the RNG.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns true if the seed of the RNG was given on the command line.
+     *
+     * @return True if the seed was given explicitly.
+     */
+    public boolean hasSeed() {
+        return this.seeded;
+    }
+
+    /**
+     * Returns the number of rows and columns in the land Grid.  Unless specified,
+     * this is 100 in DEBUG mode and 300 otherwise.
+     *
+     * @return The size of the land Grid.
+     */
+    public int getLandSize() {
+        return this.landSize > 0 ? this.landSize : (Top.DEBUG ? 100 : 300);
+    }
+
+    /**
+     * Returns the number of rows and columns in the water Grid.  Unless specified,
+     * this is 100 in DEBUG mode and 150 otherwise.
+     *
+     * @return The size of the water Grid.
+     */
+    public int getWaterSize() {
+        return this.waterSize > 0 ? this.waterSize : (Top.DEBUG ? 100 : 150);
+    }
+
+    /**
+     * Returns the number of Perlin gradients along each side of the moisture map.
+     *
+     * @return The number of moisture gradients.
+     */
+    public int getMoistureGradients() {
+        return this.moistureGradients;
+    }
+
+    /**
+     * Returns the number of Perlin gradients along each side of the elevation map.
+     *
+     * @return The number of elevation gradients.
+     */
+    public int getElevationGradients() {
+        return this.elevationGradients;
+    }
+
+    /**
+     * Returns the number of Perlin cells along each side of a Grid Noiseform.
+     *
+     * @return The number of Noiseform cells.
+     */
+    public int getNoiseCells() {
+        return this.noiseCells;
+    }
+
+    /**
+     * Returns the number of BioRegions in the land BioMap.
+     *
+     * @return The number of BioRegions.
+     */
+    public int getRegions() {
+        return this.regions;
+    }
+
+    /**
+     * Returns the radius of the aliasing transformation relative to the size
+     * of the Grid.
+     *
+     * @return The smoothing radius.
+     */
+    public float getSmoothingRadius() {
+        return this.smoothingRadius;
+    }
+
+    /**
+     * Returns the Smoothing method of the aliasing transformation.
+     *
+     * @return The Smoothing method.
+     */
+    public Noiseform.Smoothing getSmoothing() {
+        return this.smoothing;
+    }
+
+    /**
+     * Returns the number of Perlin noise octaves in a Grid Noiseform.
+     *
+     * @return The number of octaves.
+     */
+    public int getOctaves() {
+        return this.octaves;
+    }
+
+    /**
+     * Returns the Fractal method that combines the Perlin noise octaves of a
+     * Grid Noiseform.
+     *
+     * @return The Fractal method.
+     */
+    public Noise.Fractal getFractal() {
+        return this.fractal;
+    }
+
+    /**
+     * Returns the path where a Snapshot of the generated World should be written.
+     *
+     * @return The path, or null if no Snapshot should be written.
+     */
+    public Path getSavePath() {
+        return this.savePath;
+    }
+
+    /**
+     * Returns the path of the Snapshot from which the World should be read.
+     *
+     * @return The path, or null if the World should be generated.
+     */
+    public Path getLoadPath() {
+        return this.loadPath;
+    }
+
+    /**
+     * Returns the path where the frame time percentiles of the render loop
+     * should be written when the Simulation ends.
+     *
+     * @return The path, or null if the frame times should not be written.
+     */
+    public Path getProfilePath() {
+        return this.profilePath;
+    }
+
+    /**
+     * Returns the radius (in Chunks) around the Camera within which Chunks are
+     * streamed into the World.
+     *
+     * @return The streaming radius, or 0 if the World is not streamed.
+     */
+    public int getChunkRadius() {
+        return this.chunkRadius;
+    }
+
+    /**
+     * Returns the number of rows and columns in each streamed Chunk.
+     *
+     * @return The size of a Chunk.
+     */
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Returns the maximum number of Chunks that may be resident at once.  By
+     * default, the budget covers every Chunk within one Chunk of the streaming
+     * radius so that Chunks are not evicted while the Camera is stationary.
+     *
+     * @return The Chunk budget.
+     */
+    public int getChunkBudget() {
+        if (this.chunkBudget == 0) {
+            int side = 2*this.chunkRadius + 3;
+            return side*side;
+        }
+        return this.chunkBudget;
+    }
+
+    /**
+     * Returns the distance beyond which Grids lose detail.
+     *
+     * @return The detail distance, or 0 if every Grid is drawn at full detail.
+     */
+    public float getDetailDistance() {
+        return this.detailDistance;
+    }
+
+    /**
+     * Returns the number of threads that generate the World.  Unless specified,
+     * this is the number of available processors.
+     *
+     * @return The number of threads.
+     */
+    public int getThreads() {
+        if (this.threads == 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return this.threads;
+    }
+
+    /**
+     * Returns a String representation of this Config.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("Config (seed %d, land %d, water %d, moisture %d, elevation %d, noise %d, regions %d, smoothing %.3f %s, octaves %d %s, chunks %d, threads %d)",
+                             this.seed, this.getLandSize(), this.getWaterSize(), this.moistureGradients, this.elevationGradients,
+                             this.noiseCells, this.regions, this.smoothingRadius, this.smoothing, this.octaves, this.fractal, this.chunkRadius,
+                             this.getThreads());
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The largest number of Perlin noise octaves in a Grid Noiseform.  Beyond
+     * this number, the octaves are finer than the cells of any practical Grid.
+     */
+    private static final int MAX_OCTAVES = 8;
+
+    /**
+     * Indicates whether debug parameters were requested.
+     */
+    private boolean debug;
+
+    /**
+     * The seed of the RNG.
+     */
+    private long seed;
+
+    /**
+     * Indicates whether the seed of the RNG was given on the command line.
+     */
+    private boolean seeded;
+
+    /**
+     * The size of the land Grid, or 0 to use the default size.
+     */
+    private int landSize;
+
+    /**
+     * The size of the water Grid, or 0 to use the default size.
+     */
+    private int waterSize;
+
+    /**
+     * The number of Perlin gradients along each side of the moisture map.
+     */
+    private int moistureGradients;
+
+    /**
+     * The number of Perlin gradients along each side of the elevation map.
+     */
+    private int elevationGradients;
+
+    /**
+     * The number of Perlin cells along each side of a Grid Noiseform.
+     */
+    private int noiseCells;
+
+    /**
+     * The number of BioRegions in the land BioMap.
+     */
+    private int regions;
+
+    /**
+     * The radius of the aliasing transformation.
+     */
+    private float smoothingRadius;
+
+    /**
+     * The Smoothing method of the aliasing transformation.
+     */
+    private Noiseform.Smoothing smoothing;
+
+    /**
+     * The number of Perlin noise octaves in a Grid Noiseform.
+     */
+    private int octaves;
+
+    /**
+     * The Fractal method that combines the Perlin noise octaves.
+     */
+    private Noise.Fractal fractal;
+
+    /**
+     * The path where a Snapshot of the generated World is written.
+     */
+    private Path savePath;
+
+    /**
+     * The path of the Snapshot from which the World is read.
+     */
+    private Path loadPath;
+
+    /**
+     * The path where the frame time percentiles of the render loop are written.
+     */
+    private Path profilePath;
+
+    /**
+     * The streaming radius (in Chunks), or 0 if the World is not streamed.
+     */
+    private int chunkRadius;
+
+    /**
+     * The number of rows and columns in each streamed Chunk.
+     */
+    private int chunkSize;
+
+    /**
+     * The maximum number of resident Chunks, or 0 to fit the streaming radius.
+     */
+    private int chunkBudget;
+
+    /**
+     * The distance beyond which Grids lose detail, or 0 for full detail.
+     */
+    private float detailDistance;
+
+    /**
+     * The number of threads that generate the World, or 0 to use every processor.
+     */
+    private int threads;
+
+    /**
+     * Verifies that the given flag value is at least the specified minimum.
+     *
+     * @param flag    The name of the flag.
+     * @param value   The value of the flag.
+     * @param minimum The minimum value of the flag.
+     *
+     * @return The value of the flag.
+     *
+     * @throws IllegalArgumentException If the value is less than the minimum.
+     */
+    private static int atLeast(String flag, int value, int minimum) {
+        if (value < minimum) {
+            throw new IllegalArgumentException(String.format("Flag \"%s\" must be at least %d.", flag, minimum));
+        }
+        return value;
+    }
+
+    /**
+     * Verifies that the given flag value is at most the specified maximum.
+     *
+     * @param flag    The name of the flag.
+     * @param value   The value of the flag.
+     * @param maximum The maximum value of the flag.
+     *
+     * @return The value of the flag.
+     *
+     * @throws IllegalArgumentException If the value is greater than the maximum.
+     */
+    private static int atMost(String flag, int value, int maximum) {
+        if (value > maximum) {
+            throw new IllegalArgumentException(String.format("Flag \"%s\" must be at most %d.", flag, maximum));
+        }
+        return value;
+    }
+
+    /**
+     * Returns the Smoothing method with the given case-insensitive name.
+     *
+     * @param name The name of the Smoothing method.
+     *
+     * @return The Smoothing method.
+     *
+     * @throws IllegalArgumentException If no Smoothing method has the given name.
+     */
+    private static Noiseform.Smoothing smoothing(String name) {
+        for (Noiseform.Smoothing smoothing : Noiseform.Smoothing.values()) {
+            if (smoothing.name().equalsIgnoreCase(name)) {
+                return smoothing;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown smoothing mode \"%s\".", name));
+    }
+
+    /**
+     * Returns the Fractal method with the given case-insensitive name.
+     *
+     * @param name The name of the Fractal method.
+     *
+     * @return The Fractal method.
+     *
+     * @throws IllegalArgumentException If no Fractal method has the given name.
+     */
+    private static Noise.Fractal fractal(String name) {
+        for (Noise.Fractal fractal : Noise.Fractal.values()) {
+            if (fractal.name().equalsIgnoreCase(name)) {
+                return fractal;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown fractal mode \"%s\".", name));
+    }
+}
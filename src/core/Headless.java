@@ -0,0 +1,64 @@
+package core;
+
+import env.Chunk;
+import env.Grid;
+import env.Streamer;
+import env.World;
+import util.Parallel;
+import util.RNG;
+
+/**
+ * The Headless class is the execution entry point for generating a World
+ * without a Window.  No OpenGL or GLFW calls are made, so the World can be
+ * generated on machines without a display (e.g., to benchmark generation).
+ */
+public class Headless {
+    /**
+     * Execution entry point.  The command-line arguments are described by
+     * {@link Config#usage}.
+     *
+     * @param args Command-line arguments.
+     */
+    public static void main(String[] args) {
+        Config config;
+        try {
+            config = Config.parse(args);
+        } catch (IllegalArgumentException e) {
+            Logger.error(e.getMessage());
+            Logger.flush();
+            System.out.println(Config.usage());
+            return;
+        }
+        Top.DEBUG |= config.isDebug();
+        RNG.setSeed(config.getSeed());
+        Parallel.setThreads(config.getThreads());
+
+        Logger.info("Launching %s in headless mode", Build.getVersionString());
+        Logger.info("The following seed was used to initialize the RNG: %d.", RNG.getSeed());
+        Logger.debug("Generating the World with %s.", config);
+
+        long start = System.nanoTime();
+        World world = Simulation.createWorld(config);
+
+        // A streamed World only contains the Chunks around the origin.
+        Streamer streamer = world.getStreamer();
+        if (streamer != null) {
+            streamer.preload(0, 0);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        for (Grid grid : world.getGrids()) {
+            Logger.info("Generated %s with %d rows, %d columns, and %d polygons.", grid, grid.getRows(), grid.getColumns(), grid.polygons());
+        }
+        if (streamer != null) {
+            for (Chunk chunk : streamer.getChunks()) {
+                Logger.info("Generated %s with %d polygons.", chunk, chunk.polygons());
+            }
+        }
+        Logger.info("Generated %s in %.3f seconds.", world, elapsed/1E9);
+
+        if (streamer != null) {
+            streamer.shutdown();
+        }
+    }
+}
@@ -1,17 +1,87 @@
 package core;
 
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The Logger class logs application messages.
+ *
+ * Logging is asynchronous: a call checks the Level of the message, formats
+ * the message on the calling thread, and adds it to a bounded ring buffer; a
+ * background thread timestamps the buffered messages and writes them to stdout.
+ * As a result, logging from the generation threads does not serialize them on
+ * stdout, and messages below the current Level cost nothing beyond the check.
+ * The arguments of a message are converted into Strings before the call
+ * returns, so they are never read concurrently with their owner.  If the ring
+ * buffer is full, callers wait for the background thread to catch up, so no
+ * message is dropped while it runs.  Call {@link #flush} before writing to
+ * stdout directly to keep the output in order.
  */
 public class Logger {
 
     // Public members
     // -------------------------------------------------------------------------
 
+    /**
+     * Level represents the severity of a message.
+     */
+    public enum Level {
+        DEBUG("Debug"),  // Diagnostic messages (only logged in debug mode)
+        INFO("Info"),    // Progress and status messages
+        WARN("Warn"),    // Recoverable problems
+        ERROR("Error");  // Failures
+
+        /**
+         * Constructs a Level with the given tag.
+         *
+         * @param tag The tag that prefixes messages of this Level.
+         */
+        private Level(String tag) {
+            this.tag = tag;
+        }
+
+        /**
+         * Returns the tag that prefixes messages of this Level.
+         *
+         * @return The tag.
+         */
+        public String getTag() {
+            return this.tag;
+        }
+
+        /**
+         * The tag that prefixes messages of this Level.
+         */
+        private String tag;
+    };
+
+    /**
+     * Returns true if messages of the given Level are logged.  Debug messages
+     * are only logged in debug mode.
+     *
+     * @param level The Level.
+     *
+     * @return True if messages of the Level are logged.
+     */
+    public static boolean isEnabled(Level level) {
+        if (level == Level.DEBUG && !Top.DEBUG) {
+            return false;
+        }
+        return level.compareTo(Logger.threshold) >= 0;
+    }
+
+    /**
+     * Sets the lowest Level of the messages that are logged.
+     *
+     * @param level The Level.
+     */
+    public static void setLevel(Level level) {
+        Logger.threshold = level;
+    }
+
     /**
      * Logs a debug message to stdout.
      *
@@ -19,9 +89,7 @@ public class Logger {
      * @param args The arguments to be substituted into the message.
      */
     public static void debug(String msg, Object ... args) {
-        if (Top.DEBUG) {
-            print("Debug", msg, args);
-        }
+        Logger.log(Level.DEBUG, 0, msg, args);
     }
 
     /**
@@ -31,7 +99,7 @@ public class Logger {
      * @param args The arguments to be substituted into the message.
      */
     public static void info(String msg, Object ... args) {
-        Logger.info(0, msg, args);
+        Logger.log(Level.INFO, 0, msg, args);
     }
 
     /**
@@ -42,18 +110,7 @@ public class Logger {
      * @param args  The arguments to be substituted into the message.
      */
     public static void info(int level, String msg, Object ... args) {
-        // Declare the unit of indentation.
-        String tab = "    ";
-
-        // Appending to a StringBuilder object is much more efficient than
-        // concatenating Strings.
-        int size = level*tab.length();
-        StringBuilder indent = new StringBuilder(size);
-        for (int i = 0; i < level; ++i) {
-            indent.append(tab);
-        }
-
-        print("Info", indent.toString() + msg, args);
+        Logger.log(Level.INFO, level, msg, args);
     }
 
     /**
@@ -63,7 +120,7 @@ public class Logger {
      * @param args The arguments to be substituted into the message.
      */
     public static void warn(String msg, Object ... args) {
-        print("Warn", msg, args);
+        Logger.log(Level.WARN, 0, msg, args);
     }
 
     /**
@@ -73,7 +130,7 @@ public class Logger {
      * @param args The arguments to be substituted into the message.
      */
     public static void error(String msg, Object ... args) {
-        print("Error", msg, args);
+        Logger.log(Level.ERROR, 0, msg, args);
     }
 
     /**
@@ -84,34 +141,286 @@ public class Logger {
      */
     public static void fatal(String msg, Object ... args) {
         error(msg, args);
+        flush();
         System.exit(1);
     }
 
+    /**
+     * Blocks until every message logged before this call has been written to
+     * stdout.  This function returns immediately if the background thread of
+     * the Logger is no longer running.
+     */
+    public static void flush() {
+        Logger.flush(Long.MAX_VALUE);
+    }
+
     // Private members
     // -------------------------------------------------------------------------
 
     /**
-     * Substitutes the given arguments into the provided message to generate a
-     * string that is logged to stdout with the given severity tag.
+     * The number of messages that fit in the ring buffer.
+     */
+    private static final int CAPACITY = 1024;
+
+    /**
+     * The number of nanoseconds that the shutdown hook waits for the buffered
+     * messages to be written.
+     */
+    private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * The number of nanoseconds that a blocked caller waits before checking
+     * whether the background thread is still running.
+     */
+    private static final long POLL_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * The unit of indentation.
+     */
+    private static final String TAB = "    ";
+
+    /**
+     * The lock that guards the ring buffer.
+     */
+    private static final ReentrantLock LOCK = new ReentrantLock();
+
+    /**
+     * Signalled when a message is added to the ring buffer.
+     */
+    private static final Condition NOT_EMPTY = LOCK.newCondition();
+
+    /**
+     * Signalled when messages are removed from the ring buffer.
+     */
+    private static final Condition NOT_FULL = LOCK.newCondition();
+
+    /**
+     * Signalled when messages have been written to stdout.
+     */
+    private static final Condition WRITTEN = LOCK.newCondition();
+
+    /**
+     * The lowest Level of the messages that are logged.
+     */
+    private static volatile Level threshold = Level.DEBUG;
+
+    /**
+     * The time at which each buffered message was logged (in milliseconds).
+     */
+    private static final long[] times = new long[CAPACITY];
+
+    /**
+     * The Level of each buffered message.
+     */
+    private static final Level[] levels = new Level[CAPACITY];
+
+    /**
+     * The indentation level of each buffered message.
+     */
+    private static final int[] indents = new int[CAPACITY];
+
+    /**
+     * The text of each buffered message.
+     */
+    private static final String[] messages = new String[CAPACITY];
+
+    /**
+     * The position of the oldest buffered message.
+     */
+    private static int head = 0;
+
+    /**
+     * The number of buffered messages.
+     */
+    private static int size = 0;
+
+    /**
+     * The number of messages that have been logged.
+     */
+    private static long logged = 0;
+
+    /**
+     * The number of messages that have been written to stdout.
+     */
+    private static long written = 0;
+
+    /**
+     * The background thread that writes the buffered messages to stdout.
+     */
+    private static final Thread drainer = new Thread(Logger::drain, "Logger");
+
+    static {
+        drainer.setDaemon(true);
+        drainer.start();
+
+        // Messages that are still buffered when the program exits should not
+        // be lost, but a stuck Logger must not prevent the program from exiting.
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> Logger.flush(SHUTDOWN_TIMEOUT), "Logger Flush"));
+    }
+
+    /**
+     * Blocks until every message logged before this call has been written to
+     * stdout, the given timeout elapses, or the background thread stops.
      *
-     * @param severity The severity of the message.
-     * @param msg  The message to display.
-     * @param args The arguments to be substituted into the message.
+     * @param timeout The maximum number of nanoseconds to wait.
+     */
+    private static void flush(long timeout) {
+        long deadline = System.nanoTime() + Math.min(timeout, Long.MAX_VALUE/2);
+        LOCK.lock();
+        try {
+            long target = Logger.logged;
+            while (Logger.written < target && drainer.isAlive()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                WRITTEN.awaitNanos(Math.min(remaining, POLL_INTERVAL));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * Formats a message with the given format and arguments and adds it to the
+     * ring buffer along with the given Level and indentation level if the Level
+     * is enabled.
+     *
+     * @param level  The Level of the message.
+     * @param indent The indentation level of the message.
+     * @param msg    The message to display.
+     * @param args   The arguments to be substituted into the message.
      */
-    private static void print(String severity, String msg, Object ... args) {
-        String now = getTimestamp();
-        String prefix = String.format("[%s] %s: ", now, severity);
-        System.out.printf(prefix + msg + "\n", args);
+    private static void log(Level level, int indent, String msg, Object[] args) {
+        if (!Logger.isEnabled(level)) {
+            return;
+        }
+
+        String text = Logger.format(msg, args);
+        long now = System.currentTimeMillis();
+        LOCK.lock();
+        try {
+            while (Logger.size == CAPACITY) {
+                if (!drainer.isAlive()) {
+                    // Nothing will ever make room, so drop the message.
+                    return;
+                }
+                try {
+                    NOT_FULL.awaitNanos(POLL_INTERVAL);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            int tail = (Logger.head + Logger.size) % CAPACITY;
+            Logger.times[tail] = now;
+            Logger.levels[tail] = level;
+            Logger.indents[tail] = indent;
+            Logger.messages[tail] = text;
+            ++Logger.size;
+            ++Logger.logged;
+            NOT_EMPTY.signal();
+        } finally {
+            LOCK.unlock();
+        }
     }
 
     /**
-     * Generates a String representation of the current time.
+     * Substitutes the given arguments into the given message.  If the message
+     * cannot be formatted (e.g., if the format is invalid or an argument cannot
+     * be converted into a String), the unformatted message is returned rather
+     * than losing it.
+     *
+     * @param msg  The message to format.
+     * @param args The arguments to be substituted into the message.
      *
-     * @return The current timestamp.
+     * @return The formatted message.
      */
-    private static String getTimestamp() {
-        Date now = Calendar.getInstance().getTime();
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy/MM/dd hh:mm:ss");
-        return formatter.format(now);
+    private static String format(String msg, Object[] args) {
+        try {
+            return String.format(msg, args);
+        } catch (RuntimeException e) {
+            return String.format("%s [%s while formatting]", msg, e.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Writes the messages in the ring buffer to stdout as they arrive.  This
+     * function is run by the background thread of the Logger; it timestamps a
+     * batch of messages outside of the lock and writes the batch at once.
+     */
+    private static void drain() {
+        long[] times = new long[CAPACITY];
+        Level[] levels = new Level[CAPACITY];
+        int[] indents = new int[CAPACITY];
+        String[] messages = new String[CAPACITY];
+
+        StringBuilder text = new StringBuilder();
+
+        // The timestamp only changes once per second.
+        SimpleDateFormat clock = new SimpleDateFormat("yyyy/MM/dd hh:mm:ss");
+        long second = -1;
+        String timestamp = "";
+
+        while (true) {
+            int count;
+            LOCK.lock();
+            try {
+                while (Logger.size == 0) {
+                    NOT_EMPTY.awaitUninterruptibly();
+                }
+
+                count = Logger.size;
+                for (int i = 0; i < count; ++i) {
+                    int slot = (Logger.head + i) % CAPACITY;
+                    times[i] = Logger.times[slot];
+                    levels[i] = Logger.levels[slot];
+                    indents[i] = Logger.indents[slot];
+                    messages[i] = Logger.messages[slot];
+
+                    // Release the message so that it can be collected.
+                    Logger.messages[slot] = null;
+                }
+                Logger.head = (Logger.head + count) % CAPACITY;
+                Logger.size = 0;
+                NOT_FULL.signalAll();
+            } finally {
+                LOCK.unlock();
+            }
+
+            try {
+                text.setLength(0);
+                for (int i = 0; i < count; ++i) {
+                    if (times[i]/1000 != second) {
+                        second = times[i]/1000;
+                        timestamp = clock.format(new Date(times[i]));
+                    }
+
+                    text.append('[').append(timestamp).append("] ").append(levels[i].getTag()).append(": ");
+                    for (int j = 0; j < indents[i]; ++j) {
+                        text.append(TAB);
+                    }
+
+                    text.append(messages[i]).append('\n');
+                    messages[i] = null;
+                }
+                System.out.print(text);
+                System.out.flush();
+            } catch (RuntimeException e) {
+                // The batch is lost, but the Logger must keep running.
+                e.printStackTrace();
+            } finally {
+                LOCK.lock();
+                try {
+                    Logger.written += count;
+                    WRITTEN.signalAll();
+                } finally {
+                    LOCK.unlock();
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,9 @@ package core;
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.opengl.GL11.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 import bio.BioMap;
 import bio.BioMapFactory;
 import env.Backdrop;
@@ -11,7 +14,10 @@ import env.Grid;
 import env.Light;
 import env.Overlay;
 import env.Platform;
+import env.Snapshot;
+import env.Streamer;
 import env.World;
+import geo.Frustum;
 import geo.Vertex;
 import util.RNG;
 import view.Camera;
@@ -28,59 +34,95 @@ public class Simulation {
     // -------------------------------------------------------------------------
 
     /**
-     * Constructs a Simulation object with the given Window.
+     * Constructs a Simulation object with the given Window and generation
+     * parameters.
      * 
      * @param window The Window that will display this Simulation.
+     * @param config The parameters used to generate the World of this Simulation.
      */
-    public Simulation(Window window) {
+    public Simulation(Window window, Config config) {
         this.viewer = new Viewer(window);
+        this.world = Simulation.createWorld(config);
+        this.world.setDetailDistance(config.getDetailDistance());
+        this.profilePath = config.getProfilePath();
+    }
 
-        // Instantiate the World representing this Simulation.
-        float minX = -0.8f;
-        float minY = -0.8f;
-        float maxX =  0.8f;
-        float maxY =  0.8f;
-        this.world = new World("Geoscape", minX, minY, maxX, maxY);
+    /**
+     * Creates the World of a Simulation using the given generation parameters.
+     * No OpenGL or GLFW calls are made, so this function can be invoked without
+     * a Window (see {@link Headless}).  If the Config names a Snapshot to load,
+     * the World is read from the Snapshot instead of being generated; unless
+     * the Config specifies a seed, the RNG is reseeded with the seed of the
+     * Snapshot so that the loaded World matches the World that was saved.
+     *
+     * @param config The parameters used to generate the World.
+     *
+     * @return The World.
+     */
+    public static World createWorld(Config config) {
+        if (config.getLoadPath() != null) {
+            long seed = RNG.getSeed();
+            try {
+                // The seed must be applied before the Backdrop is created.
+                if (!config.hasSeed()) {
+                    RNG.setSeed(Snapshot.readSeed(config.getLoadPath()));
+                    Logger.info("The seed of the RNG was changed to %d to match the Snapshot.", RNG.getSeed());
+                }
+                World world = Simulation.createEmptyWorld();
+                Snapshot.read(config.getLoadPath(), world);
+                return world;
+            } catch (IOException e) {
+                Logger.error("Failed to load Snapshot \"%s\": %s", config.getLoadPath(), e.getMessage());
+                Logger.warn("Generating a new World instead.");
+                RNG.setSeed(seed);
+            }
+        }
 
-        // Create the Backdrop behind the World.
-        Backdrop backdrop = new Backdrop(new Vertex(Vertex.ORIGIN), 5f);
-        this.world.add(backdrop);
+        World world = Simulation.createEmptyWorld();
+
+        // An unbounded World is streamed around the Camera in Chunks instead.
+        if (config.getChunkRadius() > 0) {
+            if (config.getSavePath() != null) {
+                Logger.warn("Snapshots of streamed Worlds are not supported.");
+            }
+            world.setStreamer(new Streamer(config));
+            Simulation.addLights(world);
+            return world;
+        }
 
         // Create the Platform underneath the World.
         float minZ = -0.200f;
         float maxZ =  0.003f;
         int platformSize = 10;
-        Platform platform = new Platform(minX, minY, minZ, maxX, maxY, maxZ, platformSize, platformSize);
-        this.world.add(platform);
+        Platform platform = new Platform(world.getMinX(), world.getMinY(), minZ, world.getMaxX(), world.getMaxY(), maxZ, platformSize, platformSize);
+        world.setPlatform(platform);
 
         // Create the landscape of the World.
         {
-            int size = Top.DEBUG ? 100 : 300;
-            BioMap biomap = BioMapFactory.create(BioMapFactory.Type.LAND, size, size);
-            Grid land = new Grid("Land", size, size, 0.06f, minX, minY, maxX, maxY, biomap);
-            this.world.addGrids(land);
+            int size = config.getLandSize();
+            BioMap biomap = BioMapFactory.create(BioMapFactory.Type.LAND, size, size, config);
+            Grid land = new Grid("Land", size, size, 0.06f, world.getMinX(), world.getMinY(), world.getMaxX(), world.getMaxY(), biomap, config);
+            world.addGrids(land);
         }
 
         // Create the water in the World.
         {
-            int size = Top.DEBUG ? 100 : 150;
-            BioMap biomap = BioMapFactory.create(BioMapFactory.Type.WATER, size, size);
-            Grid water = new Grid("Water", size, size, 0.015f, minX, minY, maxX, maxY, biomap);
-            this.world.addGrids(water);
+            int size = config.getWaterSize();
+            BioMap biomap = BioMapFactory.create(BioMapFactory.Type.WATER, size, size, config);
+            Grid water = new Grid("Water", size, size, 0.015f, world.getMinX(), world.getMinY(), world.getMaxX(), world.getMaxY(), biomap, config);
+            world.addGrids(water);
         }
 
-        // Create a set of Lights to illuminate the World.
-        {
-            Colour yellow = new Colour(1f, 0.5f, 0);
+        Simulation.addLights(world);
 
-            float x = RNG.random(-1.0f, 1.0f);
-            float y = RNG.random(-1.0f, 1.0f);
-            float z = RNG.random(0.6f, 0.8f);
-            Vertex location = new Vertex(x, y, z);
-
-            Light sun = new Light(location, yellow);
-            this.world.addLights(sun);
+        if (config.getSavePath() != null) {
+            try {
+                Snapshot.write(world, config.getSavePath());
+            } catch (IOException e) {
+                Logger.error("Failed to save Snapshot \"%s\": %s", config.getSavePath(), e.getMessage());
+            }
         }
+        return world;
     }
 
     /**
@@ -93,6 +135,16 @@ public class Simulation {
         // Ideally, the Geoscape controls should be displayed on the screen.  Oh well.
         this.viewer.logControls();
         loop();
+
+        FrameTracker fpsTracker = Window.getInstance().getFrameTracker();
+        fpsTracker.report();
+        if (this.profilePath != null) {
+            try {
+                fpsTracker.write(this.profilePath.toString());
+            } catch (IOException e) {
+                Logger.error("Failed to write frame times to \"%s\": %s", this.profilePath, e.getMessage());
+            }
+        }
     }
 
 
@@ -109,6 +161,52 @@ public class Simulation {
      */
     private Viewer viewer;
 
+    /**
+     * The path where the frame times of the render loop are written, or null.
+     */
+    private Path profilePath;
+
+    /**
+     * Creates a World without any Grids, Lights, or Platform.  Only the
+     * Backdrop behind the World is added.
+     *
+     * @return The World.
+     */
+    private static World createEmptyWorld() {
+        // Instantiate the World representing this Simulation.
+        float minX = -0.8f;
+        float minY = -0.8f;
+        float maxX =  0.8f;
+        float maxY =  0.8f;
+        World world = new World("Geoscape", minX, minY, maxX, maxY);
+
+        // Create the Backdrop behind the World.
+        Backdrop backdrop = new Backdrop(new Vertex(Vertex.ORIGIN), 5f);
+        world.add(backdrop);
+        return world;
+    }
+
+    /**
+     * Adds a set of Lights to illuminate the given World.
+     *
+     * @param world The World to illuminate.
+     */
+    private static void addLights(World world) {
+        Colour yellow = new Colour(1f, 0.5f, 0);
+
+        // The generation stages leave the generator of this thread in a state
+        // that depends on how their bands were scheduled.
+        RNG.reseed(RNG.getSeed(), 0, 0, RNG.Stream.LIGHTS);
+
+        float x = RNG.random(-1.0f, 1.0f);
+        float y = RNG.random(-1.0f, 1.0f);
+        float z = RNG.random(0.6f, 0.8f);
+        Vertex location = new Vertex(x, y, z);
+
+        Light sun = new Light(location, yellow);
+        world.addLights(sun);
+    }
+
     /**
      * Continuously renders the World of this Simulation by controlling the
      * high-level graphics pipeline flow and synchronizing the framerate of the
@@ -122,15 +220,16 @@ public class Simulation {
         Overlay pauseOverlay = new Overlay(dark);
 
         long handle = window.getHandle();
+        FrameTracker fpsTracker = window.getFrameTracker();
 
         while (!glfwWindowShouldClose(handle)) {
-            // Clear the GL buffers.
-            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-
-            // Update the FPS counter.
-            FrameTracker fpsTracker = window.getFrameTracker();
+            // Update the FPS counter and start timing the frame.
             fpsTracker.update();
 
+            // Process the input events of the last frame.
+            glfwPollEvents();
+            fpsTracker.lap(FrameTracker.Stage.POLL);
+
             // Update the state of the Camera singleton.
             this.viewer.update();
             camera.capture();
@@ -140,21 +239,32 @@ public class Simulation {
             for (Light light : world.getLights()) {
                 light.glPosition();
             }
+            fpsTracker.lap(FrameTracker.Stage.VIEWER);
 
-            // Update and draw the World.
+            // Stream the Chunks and select the level of detail of the World
+            // around the Camera, then update the World.
+            Vertex position = camera.getPosition();
+            world.focus(position.getX(), position.getY(), position.getZ());
             double now = glfwGetTime();
             world.update(now);
-            world.draw();
+            fpsTracker.lap(FrameTracker.Stage.UPDATE);
+
+            // Draw the parts of the World that the Camera can see.
+            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+            Frustum frustum = camera.getFrustum();
+            world.draw(frustum);
+            fpsTracker.record(frustum);
 
             // Draw the pause Overlay if the Viewer is paused.
             boolean paused = viewer.isPaused();
             if (paused) {
                 pauseOverlay.draw();
             }
+            fpsTracker.lap(FrameTracker.Stage.DRAW);
 
-            // Prepare for the next frame.
+            // Present the frame.
             glfwSwapBuffers(handle);
-            glfwPollEvents();
+            fpsTracker.lap(FrameTracker.Stage.SWAP);
         }
     }
 }
\ No newline at end of file
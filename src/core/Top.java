@@ -3,6 +3,7 @@ package core;
 import static org.lwjgl.glfw.Callbacks.*;
 import static org.lwjgl.glfw.GLFW.*;
 
+import util.Parallel;
 import util.RNG;
 import view.Camera;
 import view.Window;
@@ -22,8 +23,22 @@ public class Top {
      * @param args Command-line arguments.
      */
     public static void main(String[] args) {
+        Config config;
+        try {
+            config = Config.parse(args);
+        } catch (IllegalArgumentException e) {
+            Logger.error(e.getMessage());
+            Logger.flush();
+            System.out.println(Config.usage());
+            return;
+        }
+        Top.DEBUG |= config.isDebug();
+        RNG.setSeed(config.getSeed());
+        Parallel.setThreads(config.getThreads());
+
         Logger.info("Launching %s", Build.getVersionString());
         Logger.info("The following seed was used to initialize the RNG: %d.", RNG.getSeed());
+        Logger.debug("Generating the World with %s.", config);
 
         try {
             // Initialize the Window and Camera singletons.
@@ -32,7 +47,7 @@ public class Top {
 
             // Start a Simulation using the Window singleton.
             Window window = Window.getInstance();
-            Simulation simulation = new Simulation(window);
+            Simulation simulation = new Simulation(window, config);
             simulation.start();
 
             // Free the window callbacks and destroy the window.
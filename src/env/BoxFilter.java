@@ -0,0 +1,320 @@
+package env;
+
+import java.util.Arrays;
+
+import util.Parallel;
+
+/**
+ * The BoxFilter class approximates the radial Kernel of a Grid with repeated
+ * box filters along each axis.  Each box filter is evaluated with a running sum,
+ * so the cost of a BoxFilter per BioVertex is independent of its radius.
+ *
+ * The row and column box widths are chosen to match the variance of the Kernel
+ * along each axis.  The quality of the approximation is reported by
+ * {@link #getErrorBound}: away from the edges of the Grid, the difference
+ * between an exact Kernel average and a BoxFilter average never exceeds the
+ * error bound multiplied by the range of the values under the Kernel.
+ */
+public class BoxFilter {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of box filters applied along each axis.  Three passes form a
+     * quadratic B-spline, which is a close match for the bell-shaped Kernel.
+     */
+    public static final int PASSES = 3;
+
+    /**
+     * Constructs a BoxFilter that approximates the Kernel of the given Grid with
+     * the provided proximity distance.
+     *
+     * @param grid    The Grid to which this BoxFilter will be applied.
+     * @param maxdist The maximum distance to a nearby BioVertex.
+     */
+    public BoxFilter(Grid grid, float maxdist) {
+        this.rows = grid.getRows();
+        this.cols = grid.getColumns();
+
+        Kernel kernel = grid.getKernel(maxdist);
+        int rowReach = kernel.getRowReach();
+        int colReach = kernel.getColumnReach();
+
+        // Compute the variance of the Kernel along each axis.
+        double weightSum = 0;
+        double rowMoment = 0;
+        double colMoment = 0;
+        for (int dr = -rowReach; dr <= rowReach; ++dr) {
+            for (int dc = -colReach; dc <= colReach; ++dc) {
+                float weight = kernel.getWeight(dr, dc);
+                weightSum += weight;
+                rowMoment += weight*dr*dr;
+                colMoment += weight*dc*dc;
+            }
+        }
+        this.rowRadii = BoxFilter.radii(rowMoment/weightSum);
+        this.colRadii = BoxFilter.radii(colMoment/weightSum);
+
+        // The error bound is half of the L1 distance between the normalized
+        // Kernel and the normalized BoxFilter.
+        float[] rowProfile = BoxFilter.profile(this.rowRadii);
+        float[] colProfile = BoxFilter.profile(this.colRadii);
+        int rowSpan = Math.max(rowReach, rowProfile.length/2);
+        int colSpan = Math.max(colReach, colProfile.length/2);
+
+        double distance = 0;
+        for (int dr = -rowSpan; dr <= rowSpan; ++dr) {
+            for (int dc = -colSpan; dc <= colSpan; ++dc) {
+                double exact = kernel.getWeight(dr, dc)/weightSum;
+                double approx = BoxFilter.tap(rowProfile, dr)*BoxFilter.tap(colProfile, dc);
+                distance += Math.abs(exact - approx);
+            }
+        }
+        this.errorBound = (float) (distance/2);
+
+        // The all-ones image is blurred once to renormalize the weights near
+        // the edges of the Grid.
+        this.norms = new float[this.rows*this.cols];
+        Arrays.fill(this.norms, 1f);
+        this.blur(this.norms);
+    }
+
+    /**
+     * Returns the smoothed version of the given values.  Taps that fall outside
+     * the Grid are ignored, just like in {@link Kernel#average}.
+     *
+     * @param values The values of the Grid in row-major order.
+     *
+     * @return The smoothed values in row-major order.
+     */
+    public float[] apply(float[] values) {
+        float[] sums = values.clone();
+        this.blur(sums);
+
+        Parallel.forEachBand(this.rows, this.cols, (first, last) -> {
+            for (int index = first*this.cols; index < last*this.cols; ++index) {
+                sums[index] /= this.norms[index];
+            }
+        });
+        return sums;
+    }
+
+    /**
+     * Returns the error bound of this BoxFilter relative to its Kernel.
+     *
+     * @return The error bound as a fraction of the local value range.
+     */
+    public float getErrorBound() {
+        return this.errorBound;
+    }
+
+    /**
+     * Returns a String representation of this BoxFilter.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("BoxFilter (error bound %.4f)", this.errorBound);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of rows in the Grid of this BoxFilter.
+     */
+    private int rows;
+
+    /**
+     * The number of columns in the Grid of this BoxFilter.
+     */
+    private int cols;
+
+    /**
+     * The radius of each box filter applied along the columns of a row.
+     */
+    private int[] colRadii;
+
+    /**
+     * The radius of each box filter applied along the rows of a column.
+     */
+    private int[] rowRadii;
+
+    /**
+     * The error bound of this BoxFilter relative to its Kernel.
+     */
+    private float errorBound;
+
+    /**
+     * The blurred all-ones image, which holds the total weight of the taps
+     * that fall inside the Grid for each BioVertex (in row-major order).
+     */
+    private float[] norms;
+
+    /**
+     * Blurs each row of the Grid, and then each column of the Grid, in place.
+     * Each band of rows (or columns) reuses a pair of scratch lines.
+     *
+     * @param values The values of the Grid in row-major order.
+     */
+    private void blur(float[] values) {
+        Parallel.forEachBand(this.rows, this.cols, (first, last) -> {
+            float[][] scratch = BoxFilter.scratch(this.cols, this.colRadii);
+            for (int row = first; row < last; ++row) {
+                BoxFilter.blur(values, row*this.cols, 1, this.cols, this.colRadii, scratch);
+            }
+        });
+        // The columns are processed in bands as if the Grid were transposed.
+        Parallel.forEachBand(this.cols, this.rows, (first, last) -> {
+            float[][] scratch = BoxFilter.scratch(this.rows, this.rowRadii);
+            for (int col = first; col < last; ++col) {
+                BoxFilter.blur(values, col, this.cols, this.rows, this.rowRadii, scratch);
+            }
+        });
+    }
+
+    /**
+     * Returns the total radius of the given box filters, which is the number
+     * of zeros that pad each end of a line.
+     *
+     * @param radii The radius of each box filter.
+     *
+     * @return The padding.
+     */
+    private static int padding(int[] radii) {
+        int padding = 0;
+        for (int radius : radii) {
+            padding += radius;
+        }
+        return padding;
+    }
+
+    /**
+     * Returns a pair of scratch lines for blurring lines of the given length
+     * with the given box filters.
+     *
+     * @param length The number of elements in a line.
+     * @param radii  The radius of each box filter.
+     *
+     * @return The scratch lines.
+     */
+    private static float[][] scratch(int length, int[] radii) {
+        int size = length + 2*BoxFilter.padding(radii);
+        return new float[][] {new float[size], new float[size]};
+    }
+
+    /**
+     * Blurs a strided line of the given array in place.  The line is padded
+     * with zeros so that every box filter behaves as if the line were infinite.
+     *
+     * @param values  The array containing the line.
+     * @param start   The index of the first element of the line.
+     * @param stride  The distance between consecutive elements of the line.
+     * @param length  The number of elements in the line.
+     * @param radii   The radius of each box filter.
+     * @param scratch The pair of scratch lines (see {@link #scratch}).
+     */
+    private static void blur(float[] values, int start, int stride, int length, int[] radii, float[][] scratch) {
+        int padding = BoxFilter.padding(radii);
+        int size = length + 2*padding;
+
+        // The previous line may have left values in the padding.
+        float[] line = scratch[0];
+        float[] temp = scratch[1];
+        Arrays.fill(line, 0, padding, 0);
+        Arrays.fill(line, padding + length, size, 0);
+        for (int i = 0; i < length; ++i) {
+            line[padding + i] = values[start + i*stride];
+        }
+
+        for (int radius : radii) {
+            // Slide a window of width 2*radius + 1 across the line.
+            float width = 2*radius + 1;
+            double sum = 0;
+            for (int i = 0; i < Math.min(radius, size); ++i) {
+                sum += line[i];
+            }
+            for (int i = 0; i < size; ++i) {
+                if (i + radius < size) {
+                    sum += line[i + radius];
+                }
+                if (i - radius - 1 >= 0) {
+                    sum -= line[i - radius - 1];
+                }
+                temp[i] = (float) (sum/width);
+            }
+
+            float[] swap = line;
+            line = temp;
+            temp = swap;
+        }
+
+        for (int i = 0; i < length; ++i) {
+            values[start + i*stride] = line[padding + i];
+        }
+    }
+
+    /**
+     * Returns the box filter radii whose combined variance is closest to the
+     * given variance.  A box filter of radius |h| has a variance of h(h + 1)/3.
+     *
+     * @param variance The target variance.
+     *
+     * @return The radius of each box filter.
+     */
+    private static int[] radii(double variance) {
+        int[] best = new int[PASSES];
+        double bestError = Double.POSITIVE_INFINITY;
+        for (int h = 0; PASSES*h*(h + 1)/3.0 <= variance + 1; ++h) {
+            // Use |wide| boxes of radius h + 1 and the rest of radius h.
+            for (int wide = 0; wide < PASSES; ++wide) {
+                double total = (PASSES - wide)*h*(h + 1)/3.0 + wide*(h + 1)*(h + 2)/3.0;
+                double error = Math.abs(total - variance);
+                if (error < bestError) {
+                    bestError = error;
+                    for (int p = 0; p < PASSES; ++p) {
+                        best[p] = p < wide ? h + 1 : h;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the 1D impulse response of the given box filter radii.
+     *
+     * @param radii The radius of each box filter.
+     *
+     * @return The impulse response, centered in the returned array.
+     */
+    private static float[] profile(int[] radii) {
+        float[] profile = {1f};
+        for (int radius : radii) {
+            float[] next = new float[profile.length + 2*radius];
+            for (int i = 0; i < profile.length; ++i) {
+                for (int j = 0; j <= 2*radius; ++j) {
+                    next[i + j] += profile[i]/(2*radius + 1);
+                }
+            }
+            profile = next;
+        }
+        return profile;
+    }
+
+    /**
+     * Returns the tap of the given centered impulse response at the specified
+     * offset, or 0 if the offset is out of range.
+     *
+     * @param profile The impulse response.
+     * @param offset  The offset from the center.
+     *
+     * @return The tap.
+     */
+    private static float tap(float[] profile, int offset) {
+        int index = offset + profile.length/2;
+        return index >= 0 && index < profile.length ? profile[index] : 0;
+    }
+}
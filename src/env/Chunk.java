@@ -0,0 +1,158 @@
+package env;
+
+import geo.Frustum;
+
+/**
+ * The Chunk class represents a square tile of an unbounded World.  Each Chunk
+ * holds a land Grid and a water Grid that span the same bounds.  Chunks are
+ * generated by a {@link ChunkFactory} and streamed into the World by a
+ * {@link Streamer}.
+ */
+public class Chunk implements Drawable {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs a Chunk at the given row and column with the given Grids.
+     *
+     * @param row   The row of this Chunk.
+     * @param col   The column of this Chunk.
+     * @param land  The land Grid of this Chunk.
+     * @param water The water Grid of this Chunk.
+     */
+    public Chunk(int row, int col, Grid land, Grid water) {
+        this.row = row;
+        this.col = col;
+        this.land = land;
+        this.water = water;
+    }
+
+    /**
+     * Draws this Chunk.
+     */
+    public void draw() {
+        this.land.draw();
+        this.water.draw();
+    }
+
+    /**
+     * Draws the parts of this Chunk that intersect the given Frustum.
+     *
+     * @param frustum The viewing Frustum.
+     */
+    public void draw(Frustum frustum) {
+        this.land.draw(frustum);
+        this.water.draw(frustum);
+    }
+
+    /**
+     * Returns the number of Polygons in this Chunk.
+     *
+     * @return The number of Polygons.
+     */
+    public int polygons() {
+        return this.land.polygons() + this.water.polygons();
+    }
+
+    /**
+     * Returns the row of this Chunk.
+     *
+     * @return The row.
+     */
+    public int getRow() {
+        return this.row;
+    }
+
+    /**
+     * Returns the column of this Chunk.
+     *
+     * @return The column.
+     */
+    public int getColumn() {
+        return this.col;
+    }
+
+    /**
+     * Returns the land Grid of this Chunk.
+     *
+     * @return The land Grid.
+     */
+    public Grid getLand() {
+        return this.land;
+    }
+
+    /**
+     * Returns the water Grid of this Chunk.
+     *
+     * @return The water Grid.
+     */
+    public Grid getWater() {
+        return this.water;
+    }
+
+    /**
+     * Updates the Grids of this Chunk using the given time.
+     *
+     * @param time The uptime of the application (in seconds).
+     */
+    public void update(double time) {
+        this.land.update(time);
+        this.water.update(time);
+    }
+
+    /**
+     * Selects the level of detail of the Grids of this Chunk for a Camera at
+     * the given position.
+     *
+     * @param x        The X-coordinate of the Camera.
+     * @param y        The Y-coordinate of the Camera.
+     * @param z        The Z-coordinate of the Camera.
+     * @param distance The distance beyond which the Grids lose detail.
+     */
+    public void focus(float x, float y, float z, float distance) {
+        this.land.focus(x, y, z, distance);
+        this.water.focus(x, y, z, distance);
+    }
+
+    /**
+     * Releases the OpenGL resources held by this Chunk.
+     */
+    public void dispose() {
+        this.land.dispose();
+        this.water.dispose();
+    }
+
+    /**
+     * Returns a String representation of this Chunk.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("Chunk (%d, %d)", this.row, this.col);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The row of this Chunk.
+     */
+    private int row;
+
+    /**
+     * The column of this Chunk.
+     */
+    private int col;
+
+    /**
+     * The land Grid of this Chunk.
+     */
+    private Grid land;
+
+    /**
+     * The water Grid of this Chunk.
+     */
+    private Grid water;
+}
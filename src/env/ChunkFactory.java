@@ -0,0 +1,272 @@
+package env;
+
+import bio.BioMapFactory;
+import bio.Biome;
+import bio.Biomix;
+import core.Config;
+import util.Field;
+import util.RNG;
+
+/**
+ * The ChunkFactory class generates the Chunks of an unbounded World.  Unlike
+ * the BioMaps and Noiseforms of a bounded World, every stage of the generation
+ * of a Chunk is keyed on world coordinates: the Biomes, elevations, and
+ * textures of a BioVertex only depend on its position in the World.  As a
+ * result, adjacent Chunks that are generated independently (and concurrently)
+ * agree exactly along their shared edge.
+ *
+ * The local stages of the pipeline (i.e., Biome blending, smoothing, and
+ * texturing) read the neighbourhood of each BioVertex, so each Chunk is first
+ * generated on a staging lattice that extends past the Chunk by the combined
+ * reach of these stages and then cropped to its final size.
+ */
+public class ChunkFactory {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The width and height of a Chunk.  A bounded World spans 4 x 4 Chunks.
+     */
+    public static final float EXTENT = 0.4f;
+
+    /**
+     * Constructs a ChunkFactory with the given generation parameters.
+     *
+     * @param config The parameters used to generate the Chunks.
+     */
+    public ChunkFactory(Config config) {
+        this.size = config.getChunkSize();
+        this.spacing = EXTENT/(this.size - 1);
+        this.seed = RNG.hash(RNG.getSeed(), 0, 0, RNG.Stream.GRID);
+
+        // The moisture, elevation, and detail Fields are scaled such that a
+        // bounded World would have the same number of gradients as its BioMap
+        // and Noiseform.
+        long biomap = RNG.hash(RNG.getSeed(), BioMapFactory.Type.LAND.ordinal(), 0, RNG.Stream.BIOMAP);
+        this.moisture = new Field(RNG.hash(biomap, 0, 0, RNG.Stream.MOISTURE), WORLD_EXTENT/(config.getMoistureGradients() - 1));
+        this.elevation = new Field(RNG.hash(biomap, 0, 0, RNG.Stream.ELEVATION), WORLD_EXTENT/(config.getElevationGradients() - 1));
+        this.detail = new Field(this.seed, WORLD_EXTENT/config.getNoiseCells(), config.getFractal(), config.getOctaves());
+
+        // The blending and smoothing radii are scaled in the same way.
+        float blendRadius = BLEND_RADIUS*WORLD_EXTENT;
+        float smoothRadius = config.getSmoothingRadius()*WORLD_EXTENT;
+        int blendReach = (int) Math.ceil(blendRadius/this.spacing);
+        int smoothReach = (int) Math.ceil(smoothRadius/this.spacing);
+
+        // The extra row and column support the neighbourhood of the textures.
+        this.padding = blendReach + smoothReach + 1;
+        this.stride = this.size + 2*this.padding;
+        this.blender = new Kernel(this.stride, this.stride, this.spacing, this.spacing, blendRadius);
+        this.smoother = smoothRadius > 0 ? new Kernel(this.stride, this.stride, this.spacing, this.spacing, smoothRadius) : null;
+    }
+
+    /**
+     * Creates the Chunk at the given row and column of the World.  The Chunk at
+     * (row, col) spans [col, col + 1] x [row, row + 1] times the EXTENT of a
+     * Chunk.  This function may be invoked from any thread.
+     *
+     * @param row The row of the Chunk.
+     * @param col The column of the Chunk.
+     *
+     * @return The Chunk.
+     */
+    public Chunk create(int row, int col) {
+        Grid land = this.createGrid(BioMapFactory.Type.LAND, row, col);
+        Grid water = this.createGrid(BioMapFactory.Type.WATER, row, col);
+        return new Chunk(row, col, land, water);
+    }
+
+    /**
+     * Returns the number of rows and columns in each Chunk.
+     *
+     * @return The size of a Chunk.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Returns a String representation of this ChunkFactory.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("ChunkFactory (%d x %d BioVertexes, %d padding)", this.size, this.size, this.padding);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The width and height of a bounded World.
+     */
+    private static final float WORLD_EXTENT = 1.6f;
+
+    /**
+     * The Biome blending radius relative to the size of a bounded World.
+     */
+    private static final float BLEND_RADIUS = 0.05f;
+
+    /**
+     * The initial elevation of the land in each Chunk.
+     */
+    private static final float LAND_Z = 0.06f;
+
+    /**
+     * The initial elevation of the water in each Chunk.
+     */
+    private static final float WATER_Z = 0.015f;
+
+    /**
+     * The number of rows and columns in each Chunk.
+     */
+    private int size;
+
+    /**
+     * The distance between adjacent BioVertexes in a Chunk.
+     */
+    private float spacing;
+
+    /**
+     * The seed from which the detail and textures of every Chunk are derived.
+     */
+    private long seed;
+
+    /**
+     * The moisture Field that selects the Biome of each BioVertex.
+     */
+    private Field moisture;
+
+    /**
+     * The elevation Field that selects the Biome of each BioVertex.
+     */
+    private Field elevation;
+
+    /**
+     * The Field that disturbs the elevation of each BioVertex.
+     */
+    private Field detail;
+
+    /**
+     * The number of staging rows and columns on each side of a Chunk.
+     */
+    private int padding;
+
+    /**
+     * The number of rows and columns in the staging lattice.
+     */
+    private int stride;
+
+    /**
+     * The Kernel that blends the Biomes of nearby BioVertexes.
+     */
+    private Kernel blender;
+
+    /**
+     * The Kernel that smooths the elevations of nearby BioVertexes, or null if
+     * smoothing is disabled.
+     */
+    private Kernel smoother;
+
+    /**
+     * Creates the land or water Grid of the Chunk at the given row and column.
+     *
+     * @param type The type of the Grid.
+     * @param row  The row of the Chunk.
+     * @param col  The column of the Chunk.
+     *
+     * @return The Grid.
+     */
+    private Grid createGrid(BioMapFactory.Type type, int row, int col) {
+        int n = this.stride;
+        float initZ = type == BioMapFactory.Type.LAND ? LAND_Z : WATER_Z;
+
+        // The global lattice coordinates of the first staging BioVertex.
+        int row0 = row*(this.size - 1) - this.padding;
+        int col0 = col*(this.size - 1) - this.padding;
+
+        // Assign the Biome of each staging BioVertex.  The coordinates are
+        // derived from the global lattice so that they are bitwise identical
+        // in every Chunk that contains the BioVertex.
+        Terrain terrain = new Terrain(n*n);
+        for (int r = 0; r < n; ++r) {
+            for (int c = 0; c < n; ++c) {
+                float x = (col0 + c)*this.spacing;
+                float y = (row0 + r)*this.spacing;
+                Biome biome = Biome.WATER;
+                if (type == BioMapFactory.Type.LAND) {
+                    float m = (this.moisture.sample(x, y) + 1)/2;
+                    float e = (this.elevation.sample(x, y) + 1)/2;
+                    biome = BioMapFactory.getBiome(m, e);
+                }
+                terrain.reset(r*n + c, biome, x, y, initZ);
+            }
+        }
+
+        // Blend the Biomes of nearby BioVertexes and disturb the elevations.
+        float amplitude = this.detail.getScale();
+        float[] heights = new float[n*n];
+        int[] colours = new int[n*n];
+        Biomix[] biomixes = new Biomix[n*n];
+        for (int r = 0; r < n; ++r) {
+            for (int c = 0; c < n; ++c) {
+                int index = r*n + c;
+                LocalMap locals = new LocalMap(this.blender, terrain, r, c);
+                float dz = amplitude*this.detail.sample(terrain.getX(index), terrain.getY(index));
+                heights[index] = initZ + dz*locals.getScale();
+                colours[index] = locals.getColour().toRGBA();
+                biomixes[index] = locals.getBiomix();
+            }
+        }
+        if (this.smoother != null) {
+            float[] smoothed = new float[n*n];
+            for (int r = 0; r < n; ++r) {
+                for (int c = 0; c < n; ++c) {
+                    smoothed[r*n + c] = this.smoother.average(heights, r, c);
+                }
+            }
+            heights = smoothed;
+        }
+        for (int index = 0; index < n*n; ++index) {
+            terrain.setZ(index, Math.max(0, heights[index]));
+            terrain.setRGBA(index, colours[index]);
+        }
+        terrain.setBiomixes(biomixes);
+
+        // Texturize the staging BioVertexes.  The textures of each BioVertex
+        // only depend on its global position and the elevations of its
+        // neighbours before texturing.
+        Grid staging = new Grid("Staging", n, n, col0*this.spacing, row0*this.spacing, (col0 + n - 1)*this.spacing, (row0 + n - 1)*this.spacing, terrain);
+        float[] elevations = new float[n*n];
+        for (int index = 0; index < n*n; ++index) {
+            elevations[index] = terrain.getZ(index);
+        }
+        for (int r = 0; r < n; ++r) {
+            for (int c = 0; c < n; ++c) {
+                int index = r*n + c;
+                RNG.reseed(this.seed, row0 + r, col0 + c, RNG.Stream.TEXTURES);
+
+                Colour colour = terrain.getColour(index);
+                colour.illuminate(terrain.getZ(index));
+                terrain.setColour(index, colour);
+
+                int count = terrain.getBiomixSize(index);
+                for (int k = 0; k < count; ++k) {
+                    terrain.getBiomixBiome(index, k).texturize(staging, elevations, r, c, terrain.getBiomixWeight(index, k));
+                }
+            }
+        }
+
+        // Crop the staging lattice to the bounds of the Chunk.
+        int p = this.padding;
+        Terrain cropped = terrain.crop(n, p, p, this.size, this.size);
+        String name = String.format("%s (%d, %d)", type == BioMapFactory.Type.LAND ? "Land" : "Water", row, col);
+        float minX = (col0 + p)*this.spacing;
+        float minY = (row0 + p)*this.spacing;
+        float maxX = (col0 + p + this.size - 1)*this.spacing;
+        float maxY = (row0 + p + this.size - 1)*this.spacing;
+        return new Grid(name, this.size, this.size, minX, minY, maxX, maxY, cropped);
+    }
+}
@@ -60,6 +60,21 @@ public class Colour {
                           average.apply(Colour::getAlpha));
     }
 
+    /**
+     * Returns the Colour represented by the given packed RGBA value.
+     *
+     * @param rgba The packed RGBA value in the form 0xRRGGBBAA.
+     *
+     * @return The Colour.
+     */
+    public static Colour fromRGBA(int rgba) {
+        float red   = ((rgba >>> 24) & 0xFF)/255f;
+        float green = ((rgba >>> 16) & 0xFF)/255f;
+        float blue  = ((rgba >>>  8) & 0xFF)/255f;
+        float alpha = ((rgba >>>  0) & 0xFF)/255f;
+        return new Colour(red, green, blue, alpha);
+    }
+
     /**
      * Returns a random opaque Colour using the given colour option.
      *
@@ -253,6 +268,19 @@ public class Colour {
         return new float[]{this.red, this.green, this.blue, this.alpha};
     }
 
+    /**
+     * Returns a packed RGBA representation of this Colour.  Each component is
+     * clamped to the range [0, 1] and quantized to 8 bits.
+     *
+     * @return The packed RGBA value in the form 0xRRGGBBAA.
+     */
+    public int toRGBA() {
+        return (Colour.quantize(this.red)   << 24)
+             | (Colour.quantize(this.green) << 16)
+             | (Colour.quantize(this.blue)  <<  8)
+             | (Colour.quantize(this.alpha) <<  0);
+    }
+
     /**
      * Returns a String representation of this Colour.
      *
@@ -266,6 +294,17 @@ public class Colour {
     // Private members
     // -------------------------------------------------------------------------
 
+    /**
+     * Converts the given colour component to an 8-bit integer.
+     *
+     * @param component The colour component.
+     *
+     * @return The 8-bit integer in the range [0, 255].
+     */
+    private static int quantize(float component) {
+        return Math.round(Math.min(1f, Math.max(0f, component))*255);
+    }
+
     /**
      * The red RGBA component of this Colour.
      */
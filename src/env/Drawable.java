@@ -1,5 +1,8 @@
 package env;
 
+import geo.Bounds;
+import geo.Frustum;
+
 /**
  * Classes that implement the Drawable interface represent objects that can be
  * rendered to the screen.
@@ -11,6 +14,30 @@ public interface Drawable {
      */
     public void draw();
 
+    /**
+     * Draws the parts of this Drawable entity that intersect the given Frustum.
+     * By default, the entity is drawn if its Bounds intersect the Frustum (or
+     * if it is unbounded).
+     *
+     * @param frustum The viewing Frustum.
+     */
+    public default void draw(Frustum frustum) {
+        Bounds bounds = this.getBounds();
+        if (bounds == null || frustum.isVisible(bounds)) {
+            this.draw();
+        }
+    }
+
+    /**
+     * Returns the Bounds of this Drawable entity.  An entity without Bounds is
+     * never culled.
+     *
+     * @return The Bounds, or null if this entity is unbounded.
+     */
+    public default Bounds getBounds() {
+        return null;
+    }
+
     /**
      * Returns the number of Polygons comprising this entity.
      *
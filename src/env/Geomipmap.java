@@ -0,0 +1,472 @@
+package env;
+
+import java.util.Arrays;
+
+import geo.Bounds;
+import geo.Frustum;
+
+/**
+ * The Geomipmap class selects the level of detail of a Grid.  The cells of the
+ * Grid are partitioned into square patches, and each patch is drawn with a
+ * vertex step of 2^L, where the level L grows with the distance between the
+ * patch and the focal point (typically the Camera).  Adjacent patches never
+ * differ by more than one level; the cracks along the edge between a patch and
+ * a coarser neighbour are stitched by snapping every odd vertex on that edge
+ * to the preceding even vertex, which collapses the BioTriangles that would
+ * otherwise leave a gap into degenerate (and discarded) BioTriangles.
+ *
+ * Each patch also has a bounding box, which allows the patches that lie
+ * outside the viewing Frustum to be left out of the triangulation.
+ *
+ * A Geomipmap does not make any OpenGL calls: the selection of the patch
+ * levels, the culling of the patches, and the triangulation of the patches all
+ * run on the CPU.  The triangles reference the vertex buffer of a
+ * {@link GridMesh}.
+ */
+public class Geomipmap {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs a Geomipmap for the given Grid with the specified patch size.
+     * Every patch starts at full detail and visible.
+     *
+     * @param grid  The Grid whose level of detail is selected.
+     * @param cells The number of cells along each side of a patch.
+     *
+     * @throws IllegalArgumentException If the patch size is not a power of two.
+     */
+    public Geomipmap(Grid grid, int cells) {
+        if (cells < 1 || Integer.bitCount(cells) != 1) {
+            throw new IllegalArgumentException("The size of a Geomipmap patch must be a power of two.");
+        }
+
+        this.rows = grid.getRows();
+        this.cols = grid.getColumns();
+        this.cells = cells;
+        this.maxLevel = Integer.numberOfTrailingZeros(cells);
+        this.patchRows = (this.rows - 2)/cells + 1;
+        this.patchCols = (this.cols - 2)/cells + 1;
+        this.levels = new int[this.patchRows*this.patchCols];
+        this.selection = new int[this.patchRows*this.patchCols];
+        this.visible = new boolean[this.patchRows*this.patchCols];
+        Arrays.fill(this.visible, true);
+
+        this.bounds = new float[6*this.levels.length];
+        this.bound(grid);
+    }
+
+    /**
+     * Recomputes the bounding box of each patch (and the Bounds of the entire
+     * Grid) from the current positions of the BioVertexes of the given Grid.
+     * The offsets of the BioVertexes are included and each box is padded by the
+     * reach of the Wave of the Grid, so the boxes remain valid while the Grid
+     * is animated.
+     *
+     * @param grid The Grid whose level of detail is selected.
+     */
+    public void bound(Grid grid) {
+        Terrain terrain = grid.getTerrain();
+        float reach = grid.getWave().getReach();
+        float[] box = new float[6];
+        for (int patch = 0; patch < this.levels.length; ++patch) {
+            int r0 = this.getFirstRow(patch/this.patchCols), r1 = this.getLastRow(patch/this.patchCols);
+            int c0 = this.getFirstColumn(patch % this.patchCols), c1 = this.getLastColumn(patch % this.patchCols);
+
+            Arrays.fill(box, 0, 3, Float.MAX_VALUE);
+            Arrays.fill(box, 3, 6, -Float.MAX_VALUE);
+            for (int r = r0; r <= r1; ++r) {
+                for (int c = c0; c <= c1; ++c) {
+                    int index = grid.getIndex(r, c);
+                    float z = terrain.getZ(index) + terrain.getOffset(index);
+                    box[0] = Math.min(box[0], terrain.getX(index));
+                    box[1] = Math.min(box[1], terrain.getY(index));
+                    box[2] = Math.min(box[2], z - reach);
+                    box[3] = Math.max(box[3], terrain.getX(index));
+                    box[4] = Math.max(box[4], terrain.getY(index));
+                    box[5] = Math.max(box[5], z + reach);
+                }
+            }
+            System.arraycopy(box, 0, this.bounds, 6*patch, 6);
+        }
+
+        // The Bounds of the Grid enclose the bounding box of every patch.
+        float[] extent = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (int patch = 0; patch < this.levels.length; ++patch) {
+            for (int axis = 0; axis < 3; ++axis) {
+                extent[axis]     = Math.min(extent[axis],     this.bounds[6*patch + axis]);
+                extent[axis + 3] = Math.max(extent[axis + 3], this.bounds[6*patch + axis + 3]);
+            }
+        }
+        this.extent = new Bounds(extent[0], extent[1], extent[2], extent[3], extent[4], extent[5]);
+    }
+
+    /**
+     * Selects the level of each patch using the given focal point.  A patch is
+     * drawn at full detail if its distance to the focal point is less than the
+     * given detail distance; beyond that distance, every doubling of distance
+     * halves the number of vertexes along each side of the patch.
+     *
+     * @param x        The X-coordinate of the focal point.
+     * @param y        The Y-coordinate of the focal point.
+     * @param z        The Z-coordinate of the focal point.
+     * @param distance The detail distance, or 0 to draw every patch at full detail.
+     *
+     * @return True if the level of any patch has changed.
+     */
+    public boolean select(float x, float y, float z, float distance) {
+        for (int patch = 0; patch < this.selection.length; ++patch) {
+            float d = this.getDistance(patch, x, y, z);
+            int level = 0;
+            if (distance > 0 && d >= distance) {
+                level = 1 + (int) Math.floor(Math.log(d/distance)/Math.log(2));
+            }
+            this.selection[patch] = Math.min(this.maxLevel, level);
+        }
+
+        // Restrict the difference between adjacent patches to a single level.
+        // Each pass can only lower levels, so the passes eventually settle.
+        boolean lowered = true;
+        while (lowered) {
+            lowered = false;
+            for (int pr = 0; pr < this.patchRows; ++pr) {
+                for (int pc = 0; pc < this.patchCols; ++pc) {
+                    int patch = pr*this.patchCols + pc;
+                    int limit = this.selection[patch];
+                    if (pr > 0)                  limit = Math.min(limit, this.selection[patch - this.patchCols] + 1);
+                    if (pr < this.patchRows - 1) limit = Math.min(limit, this.selection[patch + this.patchCols] + 1);
+                    if (pc > 0)                  limit = Math.min(limit, this.selection[patch - 1] + 1);
+                    if (pc < this.patchCols - 1) limit = Math.min(limit, this.selection[patch + 1] + 1);
+                    if (limit < this.selection[patch]) {
+                        this.selection[patch] = limit;
+                        lowered = true;
+                    }
+                }
+            }
+        }
+
+        boolean changed = false;
+        for (int patch = 0; patch < this.levels.length; ++patch) {
+            changed |= this.levels[patch] != this.selection[patch];
+            this.levels[patch] = this.selection[patch];
+        }
+        return changed;
+    }
+
+    /**
+     * Marks the patches whose bounding boxes intersect the given Frustum as
+     * visible.  Every patch is marked visible if no Frustum is given.
+     *
+     * @param frustum The viewing Frustum, or null to disable culling.
+     *
+     * @return True if the visibility of any patch has changed.
+     */
+    public boolean cull(Frustum frustum) {
+        boolean changed = false;
+        for (int patch = 0; patch < this.visible.length; ++patch) {
+            int offset = 6*patch;
+            boolean visible = frustum == null || frustum.isVisible(this.bounds[offset + 0],
+                                                                   this.bounds[offset + 1],
+                                                                   this.bounds[offset + 2],
+                                                                   this.bounds[offset + 3],
+                                                                   this.bounds[offset + 4],
+                                                                   this.bounds[offset + 5]);
+            changed |= this.visible[patch] != visible;
+            this.visible[patch] = visible;
+        }
+        return changed;
+    }
+
+    /**
+     * Writes the GridMesh vertex indexes of the BioTriangles of every visible
+     * patch to the given array.  Every three indexes describe a BioTriangle whose
+     * provoking (last) vertex carries the attributes of a full-detail
+     * BioTriangle inside the coarse BioTriangle.  At full detail, the
+     * BioTriangles are identical to those of the GridMesh.
+     *
+     * @param indexes The array that receives the indexes.  The array must be
+     *                able to hold the indexes of a full-detail Grid.
+     *
+     * @return The number of indexes written to the array.
+     */
+    public int triangulate(int[] indexes) {
+        int count = 0;
+        for (int pr = 0; pr < this.patchRows; ++pr) {
+            for (int pc = 0; pc < this.patchCols; ++pc) {
+                if (this.visible[pr*this.patchCols + pc]) {
+                    count = this.triangulate(pr, pc, indexes, count);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the level of the patch at the given patch row and column.
+     *
+     * @param pr The row of the patch.
+     * @param pc The column of the patch.
+     *
+     * @return The level.
+     */
+    public int getLevel(int pr, int pc) {
+        return this.levels[pr*this.patchCols + pc];
+    }
+
+    /**
+     * Returns true if the patch at the given patch row and column is visible.
+     *
+     * @param pr The row of the patch.
+     * @param pc The column of the patch.
+     *
+     * @return True if the patch is visible.
+     */
+    public boolean isVisible(int pr, int pc) {
+        return this.visible[pr*this.patchCols + pc];
+    }
+
+    /**
+     * Returns the Bounds of the Grid.
+     *
+     * @return The Bounds.
+     */
+    public Bounds getBounds() {
+        return this.extent;
+    }
+
+    /**
+     * Returns the coarsest level of a patch.
+     *
+     * @return The maximum level.
+     */
+    public int getMaxLevel() {
+        return this.maxLevel;
+    }
+
+    /**
+     * Returns the number of rows of patches.
+     *
+     * @return The number of patch rows.
+     */
+    public int getPatchRows() {
+        return this.patchRows;
+    }
+
+    /**
+     * Returns the number of columns of patches.
+     *
+     * @return The number of patch columns.
+     */
+    public int getPatchColumns() {
+        return this.patchCols;
+    }
+
+    /**
+     * Returns a String representation of this Geomipmap.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("Geomipmap (%d x %d patches of %d cells)", this.patchRows, this.patchCols, this.cells);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Indicates whether each corner of a cell is taken from the strip below
+     * it (the top corners) or the strip above it (the bottom corners).
+     */
+    private static final boolean[] BELOW = {true, false, true, true, false, false};
+
+    /**
+     * The number of rows in the Grid.
+     */
+    private int rows;
+
+    /**
+     * The number of columns in the Grid.
+     */
+    private int cols;
+
+    /**
+     * The number of cells along each side of a patch.
+     */
+    private int cells;
+
+    /**
+     * The coarsest level of a patch.
+     */
+    private int maxLevel;
+
+    /**
+     * The number of rows of patches.
+     */
+    private int patchRows;
+
+    /**
+     * The number of columns of patches.
+     */
+    private int patchCols;
+
+    /**
+     * The level of each patch (row-major).
+     */
+    private int[] levels;
+
+    /**
+     * The scratch levels used while selecting the levels of the patches.
+     */
+    private int[] selection;
+
+    /**
+     * The bounding box of each patch: the minimum X-, Y-, and Z-coordinates
+     * followed by the maximum X-, Y-, and Z-coordinates.
+     */
+    private float[] bounds;
+
+    /**
+     * The Bounds of the Grid.
+     */
+    private Bounds extent;
+
+    /**
+     * Indicates whether each patch intersected the last viewing Frustum.
+     */
+    private boolean[] visible;
+
+    /**
+     * Returns the first row of the given patch row.
+     *
+     * @param pr The patch row.
+     *
+     * @return The first row.
+     */
+    private int getFirstRow(int pr) {
+        return pr*this.cells;
+    }
+
+    /**
+     * Returns the last row of the given patch row.  The last patch row may
+     * contain fewer cells than the others.
+     *
+     * @param pr The patch row.
+     *
+     * @return The last row.
+     */
+    private int getLastRow(int pr) {
+        return Math.min((pr + 1)*this.cells, this.rows - 1);
+    }
+
+    /**
+     * Returns the first column of the given patch column.
+     *
+     * @param pc The patch column.
+     *
+     * @return The first column.
+     */
+    private int getFirstColumn(int pc) {
+        return pc*this.cells;
+    }
+
+    /**
+     * Returns the last column of the given patch column.  The last patch column
+     * may contain fewer cells than the others.
+     *
+     * @param pc The patch column.
+     *
+     * @return The last column.
+     */
+    private int getLastColumn(int pc) {
+        return Math.min((pc + 1)*this.cells, this.cols - 1);
+    }
+
+    /**
+     * Returns the distance between the given point and the bounding box of
+     * the given patch.
+     *
+     * @param patch The index of the patch.
+     * @param x     The X-coordinate of the point.
+     * @param y     The Y-coordinate of the point.
+     * @param z     The Z-coordinate of the point.
+     *
+     * @return The distance.
+     */
+    private float getDistance(int patch, float x, float y, float z) {
+        int offset = 6*patch;
+        float dx = Math.max(0, Math.max(this.bounds[offset + 0] - x, x - this.bounds[offset + 3]));
+        float dy = Math.max(0, Math.max(this.bounds[offset + 1] - y, y - this.bounds[offset + 4]));
+        float dz = Math.max(0, Math.max(this.bounds[offset + 2] - z, z - this.bounds[offset + 5]));
+        return (float) Math.sqrt(dx*dx + dy*dy + dz*dz);
+    }
+
+    /**
+     * Writes the GridMesh vertex indexes of the BioTriangles of the given patch
+     * to the given array.
+     *
+     * @param pr      The row of the patch.
+     * @param pc      The column of the patch.
+     * @param indexes The array that receives the indexes.
+     * @param count   The number of indexes already written to the array.
+     *
+     * @return The number of indexes written to the array (including the
+     *         indexes that were already written).
+     */
+    private int triangulate(int pr, int pc, int[] indexes, int count) {
+        int level = this.getLevel(pr, pc);
+        int step = 1 << level;
+        int r0 = this.getFirstRow(pr), r1 = this.getLastRow(pr);
+        int c0 = this.getFirstColumn(pc), c1 = this.getLastColumn(pc);
+
+        // Determine which edges border a coarser patch.
+        boolean top    = pr > 0                  && this.getLevel(pr - 1, pc) > level;
+        boolean bottom = pr < this.patchRows - 1 && this.getLevel(pr + 1, pc) > level;
+        boolean left   = pc > 0                  && this.getLevel(pr, pc - 1) > level;
+        boolean right  = pc < this.patchCols - 1 && this.getLevel(pr, pc + 1) > level;
+
+        int[] corners = new int[12];
+        int[] vertexes = new int[6];
+        for (int rt = r0; rt < r1; rt += step) {
+            int rb = Math.min(rt + step, r1);
+            for (int cl = c0; cl < c1; cl += step) {
+                int cr = Math.min(cl + step, c1);
+
+                // Each cell is split into the same pair of BioTriangles as the
+                // GL_TRIANGLE_STRIP of the immediate-mode Grid renderer.
+                corners[0] = rt; corners[1]  = cl; corners[2]  = rb; corners[3]  = cl; corners[4]  = rt; corners[5]  = cr;
+                corners[6] = rt; corners[7]  = cr; corners[8]  = rb; corners[9]  = cl; corners[10] = rb; corners[11] = cr;
+                for (int v = 0; v < 6; ++v) {
+                    int r = corners[2*v];
+                    int c = corners[2*v + 1];
+
+                    // Snap the odd vertexes along the edges of coarser patches.
+                    int twice = 2*step;
+                    if ((top && r == r0 || bottom && r == r1) && c != c0 && c != c1) {
+                        c = c0 + (c - c0)/twice*twice;
+                    } else if ((left && c == c0 || right && c == c1) && r != r0 && r != r1) {
+                        r = r0 + (r - r0)/twice*twice;
+                    }
+                    corners[2*v] = r;
+                    corners[2*v + 1] = c;
+                    vertexes[v] = r*this.cols + c;
+                }
+
+                // Discard the BioTriangles that collapsed into a point during
+                // snapping.  A cell in the corner between two coarser patches
+                // can also collapse into a line; that sliver is kept because it
+                // closes the T-junction left by the snapped vertexes.
+                for (int t = 0; t < 6; t += 3) {
+                    if (vertexes[t] == vertexes[t + 1] || vertexes[t] == vertexes[t + 2] || vertexes[t + 1] == vertexes[t + 2]) {
+                        continue;
+                    }
+                    for (int v = t; v < t + 3; ++v) {
+                        indexes[count++] = GridMesh.getStripIndex(this.rows, this.cols, corners[2*v], corners[2*v + 1], BELOW[v]);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -2,14 +2,20 @@ package env;
 
 import static org.lwjgl.opengl.GL11.*;
 
-import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lwjgl.opengl.GL;
 
 import bio.BioVertex;
-import bio.BioTriangle;
 import bio.BioMap;
 import bio.Biome;
+import core.Config;
 import core.Logger;
-import util.Pair;
+import geo.Bounds;
+import geo.Frustum;
+import util.Parallel;
+import util.RNG;
 
 /**
  * The Grid class represents the surface of a landscape.
@@ -21,7 +27,7 @@ public class Grid implements Drawable {
 
     /**
      * Constructs a Grid with the given name, rows, columns, coordinate bounds,
-     * and BioMap.
+     * and BioMap.  The Grid is generated with the default Config.
      *
      * @param name   The name of this Grid.
      * @param rows   The number of rows in this Grid.
@@ -34,9 +40,29 @@ public class Grid implements Drawable {
      * @param biomap The BioMap representing the Biomes imposed on this Grid.
      */
     public Grid(String name, int rows, int cols, float initZ, float minX, float minY, float maxX, float maxY, BioMap biomap) {
+        this(name, rows, cols, initZ, minX, minY, maxX, maxY, biomap, new Config());
+    }
+
+    /**
+     * Constructs a Grid with the given name, rows, columns, coordinate bounds,
+     * BioMap, and generation parameters.
+     *
+     * @param name   The name of this Grid.
+     * @param rows   The number of rows in this Grid.
+     * @param cols   The number of columns in this Grid.
+     * @param initZ  The initial elevation of all BioVertexes in this Grid.
+     * @param minX   The minimum X-coordinate of this Grid.
+     * @param minY   The minimum Y-coordinate of this Grid.
+     * @param maxX   The maximum X-coordinate of this Grid.
+     * @param maxY   The maximum Y-coordinate of this Grid.
+     * @param biomap The BioMap representing the Biomes imposed on this Grid.
+     * @param config The generation parameters of this Grid.
+     */
+    public Grid(String name, int rows, int cols, float initZ, float minX, float minY, float maxX, float maxY, BioMap biomap, Config config) {
         Logger.debug("Creating Grid \"%s\" with %d rows and %d columns from (%.2f, %.2f) to (%.2f, %.2f).", name, rows, cols, minX, minY, maxX, maxY);
 
         this.name = name;
+        this.seed = RNG.hash(RNG.getSeed(), name.hashCode(), 0, RNG.Stream.GRID);
         this.rows = rows;
         this.cols = cols;
         this.minX = minX;
@@ -44,89 +70,95 @@ public class Grid implements Drawable {
         this.maxX = maxX;
         this.maxY = maxY;
 
-        this.biotexes = new BioVertex[this.rows][this.cols];
-        this.biogles = new ArrayList<>();
-        this.indexes = new ArrayList<>(rows*cols);
+        this.terrain = new Terrain(rows*cols);
+        this.kernels = new ConcurrentHashMap<>();
+        this.filters = new ConcurrentHashMap<>();
 
         // Initialize the BioVertexes in this Grid.
-        for (int row = 0 ; row < this.rows; ++row) {
-            for (int col = 0 ; col < this.cols ; ++col) {
-                this.indexes.add(new Pair<>(row, col));
-
-                float x = this.minX + col*(this.maxX - this.minX)/(this.cols - 1);
-                float y = this.minY + row*(this.maxY - this.minY)/(this.rows - 1);
-                float z = initZ;
-                Biome biome = biomap.getBiome(row, col);
-
-                BioVertex biotex = new BioVertex(biome, x, y, z);
-                this.biotexes[row][col] = biotex;
+        this.forEachBand((first, last) -> {
+            for (int row = first; row < last; ++row) {
+                for (int col = 0 ; col < this.cols ; ++col) {
+                    float x = this.minX + col*(this.maxX - this.minX)/(this.cols - 1);
+                    float y = this.minY + row*(this.maxY - this.minY)/(this.rows - 1);
+                    float z = initZ;
+                    Biome biome = biomap.getBiome(row, col);
+
+                    this.terrain.reset(this.getIndex(row, col), biome, x, y, z);
+                }
             }
-        }
-
-        // Initialize the BioTriangles in this Grid.
-        for (int row = 0; row < this.rows - 1; ++row) {
-            for (int p = 0; p < 2*this.cols - 2; ++p) {
-                int col = p/2;
-                boolean forward = p % 2 == 0;
-
-                BioVertex[] biogle = new BioVertex[3];
-                biogle[0] = forward ? this.biotexes[row    ][col    ] : this.biotexes[row + 1][col    ];
-                biogle[1] = forward ? this.biotexes[row + 1][col    ] : this.biotexes[row + 1][col + 1];
-                biogle[2] = forward ? this.biotexes[row    ][col + 1] : this.biotexes[row    ][col + 1];
-                this.biogles.add(new BioTriangle(biogle));
-            }
-        }
+        });
 
-        Noiseform noiseform = new Noiseform(this, 8, 8);
+        int cells = config.getNoiseCells();
+        Noiseform noiseform = new Noiseform(this, cells, cells, config.getSmoothing(), config.getSmoothingRadius(), config.getFractal(), config.getOctaves());
         noiseform.apply();
+
+        this.prepare();
     }
 
     /**
-     * Draws this Grid.
+     * Constructs a Grid with the given name, rows, columns, and coordinate
+     * bounds from a previously generated Terrain (e.g., one loaded from a
+     * Snapshot).  No Noiseform is applied to the Terrain.
+     *
+     * @param name    The name of this Grid.
+     * @param rows    The number of rows in this Grid.
+     * @param cols    The number of columns in this Grid.
+     * @param minX    The minimum X-coordinate of this Grid.
+     * @param minY    The minimum Y-coordinate of this Grid.
+     * @param maxX    The maximum X-coordinate of this Grid.
+     * @param maxY    The maximum Y-coordinate of this Grid.
+     * @param terrain The Terrain storing the BioVertexes of this Grid.
      */
-    public void draw() {
-        // By default, the BioTriangles that compose this Grid are pretty shiny.
-        int shininess = 100;
-        glMateriali(GL_FRONT, GL_SHININESS, shininess);
+    public Grid(String name, int rows, int cols, float minX, float minY, float maxX, float maxY, Terrain terrain) {
+        Logger.debug("Restoring Grid \"%s\" with %d rows and %d columns from (%.2f, %.2f) to (%.2f, %.2f).", name, rows, cols, minX, minY, maxX, maxY);
+        if (terrain.size() != rows*cols) {
+            throw new IllegalArgumentException("The size of the Terrain must match the number of BioVertexes in the Grid.");
+        }
 
-        for (int row = 0; row < this.rows - 1; ++row) {
-            // GL_TRIANGLE_STRIP expects the Vertices to be ordered as follows
-            // in the OpenGL buffer:
-            //
-            //  0 --- 2 --- 4 --- 6
-            //  |   / |   / |   / |
-            //  |  /  |  /  |  /  |
-            //  | /   | /   | /   |
-            //  1 --- 3 --- 4 --- 5
-            glBegin(GL_TRIANGLE_STRIP);
-            this.biotexes[row][0].glVertex();
-            this.biotexes[row + 1][0].glVertex();
-            for (int v = 2; v < 2*this.cols; ++v) {
-                // Each row of the Grid contains 2 Biogles for every column in
-                // the Grid (except for the last column).
-                int t = row*2*(this.cols - 1) + (v - 2);
-                BioTriangle biogle = this.biogles.get(t);
+        this.name = name;
+        this.seed = RNG.hash(RNG.getSeed(), name.hashCode(), 0, RNG.Stream.GRID);
+        this.rows = rows;
+        this.cols = cols;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
 
-                // Apply the colour of the BioVertex and update the OpenGL normal.
-                biogle.getColour().glColour();
-                biogle.getNormal().glNormal();
+        this.terrain = terrain;
+        this.kernels = new ConcurrentHashMap<>();
+        this.filters = new ConcurrentHashMap<>();
 
-                // Apply the specular highlights of the BioTriangle.
-                float[] highlight = biogle.getHighlight().toArray();
-                glMaterialfv(GL_FRONT, GL_SPECULAR, highlight);
+        this.prepare();
+    }
 
-                // The row and column equations for the current Vertex can be
-                // derived by studying the ASCII depiction of the BioTriangles
-                // above. 
-                int r = row + (v % 2);
-                int c = v/2;
-                this.biotexes[r][c].glVertex();
-            }
-            glEnd();
+    /**
+     * Draws this Grid.  The Grid is rendered from its GridMesh if vertex buffer
+     * objects are supported by the OpenGL context; otherwise, the Grid is
+     * rendered in immediate mode.
+     */
+    public void draw() {
+        this.render(null);
+    }
+
+    /**
+     * Draws the patches of this Grid that intersect the given Frustum.  The
+     * patches are only culled if the Grid is rendered from its GridMesh.
+     *
+     * @param frustum The viewing Frustum.
+     */
+    public void draw(Frustum frustum) {
+        if (frustum.isVisible(this.getBounds())) {
+            this.render(frustum);
         }
+    }
 
-        // Restore the specular highlight settings.
-        glMaterialfv(GL_FRONT, GL_SPECULAR, Colour.GL_BLACK);
+    /**
+     * Returns the Bounds of this Grid.
+     *
+     * @return The Bounds.
+     */
+    public Bounds getBounds() {
+        return this.mesh.getGeomipmap().getBounds();
     }
 
     /**
@@ -135,7 +167,7 @@ public class Grid implements Drawable {
      * @return The number of Polygons
      */
     public int polygons() {
-        return this.biogles.size();
+        return 2*(this.rows - 1)*(this.cols - 1);
     }
 
     /**
@@ -147,6 +179,34 @@ public class Grid implements Drawable {
         return this.cols;
     }
 
+    /**
+     * Returns the name of this Grid.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the GridMesh of this Grid.
+     *
+     * @return The GridMesh.
+     */
+    public GridMesh getMesh() {
+        return this.mesh;
+    }
+
+    /**
+     * Returns the seed from which every random decision in this Grid is
+     * derived.  The seed only depends on the RNG seed and the name of this Grid.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
     /**
      * Returns the number of rows in this Grid.
      *
@@ -165,16 +225,53 @@ public class Grid implements Drawable {
      * @return The BioVertex located at the given position.
      */
     public BioVertex getVertex(int row, int col) {
-        return this.biotexes[row][col];
+        return new BioVertex(this.terrain, this.getIndex(row, col));
+    }
+
+    /**
+     * Returns the index of the BioVertex located at the given position in the
+     * Terrain of this Grid.
+     *
+     * @param row The row of the BioVertex.
+     * @param col The column of the BioVertex.
+     *
+     * @return The index of the BioVertex.
+     */
+    public int getIndex(int row, int col) {
+        return row*this.cols + col;
+    }
+
+    /**
+     * Returns the Kernel of this Grid with the given proximity distance.  Each
+     * Kernel is only computed once per Grid.
+     *
+     * @param maxdist The maximum distance to a nearby BioVertex.
+     *
+     * @return The Kernel.
+     */
+    public Kernel getKernel(float maxdist) {
+        return this.kernels.computeIfAbsent(maxdist, key -> new Kernel(this, key));
+    }
+
+    /**
+     * Returns the BoxFilter that approximates the Kernel of this Grid with the
+     * given proximity distance.  Each BoxFilter is only computed once per Grid.
+     *
+     * @param maxdist The maximum distance to a nearby BioVertex.
+     *
+     * @return The BoxFilter.
+     */
+    public BoxFilter getBoxFilter(float maxdist) {
+        return this.filters.computeIfAbsent(maxdist, key -> new BoxFilter(this, key));
     }
 
     /**
-     * Returns the BioTriangles comprising this Grid.
+     * Returns the Terrain storing the BioVertexes of this Grid.
      *
-     * @return The BioTriangles.
+     * @return The Terrain.
      */
-    public ArrayList<BioTriangle> getTriangles() {
-        return this.biogles;
+    public Terrain getTerrain() {
+        return this.terrain;
     }
 
     /**
@@ -231,8 +328,15 @@ public class Grid implements Drawable {
         return this.getHeight()/this.rows;
     }
 
-    public ArrayList<Pair<Integer, Integer>> getIndexes() {
-        return this.indexes;
+    /**
+     * Runs the given Band over the rows of this Grid on the threads of the
+     * generation pipeline.  The call returns once every row has been processed,
+     * so the Band must process each row independently of the other rows.
+     *
+     * @param band The work to perform on each band of rows.
+     */
+    public void forEachBand(Parallel.Band band) {
+        Parallel.forEachBand(this.rows, this.cols, band);
     }
 
     /**
@@ -259,14 +363,41 @@ public class Grid implements Drawable {
      * @param time   The uptime of the application (in seconds).
      */
     public void update(double time) {
-        indexes.parallelStream().forEach(pair -> {
-            int row = pair.getFirst();
-            int col = pair.getSecond();
+        if (this.wave.size() == 0) {
+            return;
+        }
 
-            BioVertex biotex = this.biotexes[row][col];
-            Biome biome = biotex.getBiome();
-            biome.update(biotex, time, 1f);
-        });
+        this.mesh.animate(time);
+    }
+
+    /**
+     * Returns the Wave that animates the BioVertexes of this Grid.
+     *
+     * @return The Wave.
+     */
+    public Wave getWave() {
+        return this.wave;
+    }
+
+    /**
+     * Selects the level of detail of this Grid for a Camera at the given
+     * position.
+     *
+     * @param x        The X-coordinate of the Camera.
+     * @param y        The Y-coordinate of the Camera.
+     * @param z        The Z-coordinate of the Camera.
+     * @param distance The distance beyond which the Grid loses detail, or 0 to
+     *                 draw the entire Grid at full detail.
+     */
+    public void focus(float x, float y, float z, float distance) {
+        this.mesh.focus(x, y, z, distance);
+    }
+
+    /**
+     * Releases the OpenGL resources held by the GridMesh of this Grid.
+     */
+    public void dispose() {
+        this.mesh.dispose();
     }
 
     /**
@@ -286,6 +417,11 @@ public class Grid implements Drawable {
      */
     private String name;
 
+    /**
+     * The seed of this Grid.
+     */
+    private long seed;
+
     /**
      * The number of rows in this Grid.
      */
@@ -317,17 +453,194 @@ public class Grid implements Drawable {
     private float maxY;
 
     /**
-     * The list of indexes in this Grid.
+     * The Terrain storing the BioVertexes of this Grid in row-major order.
+     */
+    private Terrain terrain;
+
+    /**
+     * The Kernels of this Grid, keyed by proximity distance.
+     */
+    private Map<Float, Kernel> kernels;
+
+    /**
+     * The BoxFilters of this Grid, keyed by proximity distance.
+     */
+    private Map<Float, BoxFilter> filters;
+
+    /**
+     * The retained-mode mesh of this Grid.
+     */
+    private GridMesh mesh;
+
+    /**
+     * The Wave that animates the BioVertexes of this Grid with animated Biomes.
+     */
+    private Wave wave;
+
+    /**
+     * Prepares this Grid for rendering once its Terrain is complete.
+     */
+    private void prepare() {
+        // Only Grids with animated Biomes need to be updated every frame.
+        this.wave = new Wave(this);
+        this.mesh = new GridMesh(this);
+    }
+
+    /**
+     * Draws the patches of this Grid that intersect the given Frustum.
+     *
+     * @param frustum The viewing Frustum, or null to draw every patch.
+     */
+    private void render(Frustum frustum) {
+        // By default, the BioTriangles that compose this Grid are pretty shiny.
+        int shininess = 100;
+        glMateriali(GL_FRONT, GL_SHININESS, shininess);
+
+        if (GL.getCapabilities().OpenGL15) {
+            this.mesh.cull(frustum);
+            this.mesh.draw();
+        } else {
+            this.drawImmediate();
+        }
+
+        // Restore the specular highlight settings.
+        glMaterialfv(GL_FRONT, GL_SPECULAR, Colour.GL_BLACK);
+    }
+
+    /**
+     * Draws this Grid in immediate mode.
+     */
+    private void drawImmediate() {
+        int[] corners = new int[3];
+        float[] normal = new float[3];
+        float[] colour = new float[4];
+        float[] highlight = new float[4];
+
+        for (int row = 0; row < this.rows - 1; ++row) {
+            // GL_TRIANGLE_STRIP expects the Vertices to be ordered as follows
+            // in the OpenGL buffer:
+            //
+            //  0 --- 2 --- 4 --- 6
+            //  |   / |   / |   / |
+            //  |  /  |  /  |  /  |
+            //  | /   | /   | /   |
+            //  1 --- 3 --- 4 --- 5
+            glBegin(GL_TRIANGLE_STRIP);
+            this.glVertex(row, 0);
+            this.glVertex(row + 1, 0);
+            for (int v = 2; v < 2*this.cols; ++v) {
+                // Each row of the Grid contains 2 BioTriangles for every column
+                // in the Grid (except for the last column).
+                this.getCorners(row, v - 2, corners);
+
+                // Apply the colour of the BioTriangle and update the OpenGL normal.
+                this.getTriangleColour(corners, colour);
+                glColor4f(colour[0], colour[1], colour[2], colour[3]);
+                this.getTriangleNormal(corners, normal);
+                glNormal3f(normal[0], normal[1], normal[2]);
+
+                // Apply the specular highlights of the BioTriangle.
+                this.getTriangleHighlight(corners, highlight);
+                glMaterialfv(GL_FRONT, GL_SPECULAR, highlight);
+
+                // The row and column equations for the current Vertex can be
+                // derived by studying the ASCII depiction of the BioTriangles
+                // above. 
+                int r = row + (v % 2);
+                int c = v/2;
+                this.glVertex(r, c);
+            }
+            glEnd();
+        }
+    }
+
+    /**
+     * Returns the Terrain indexes of the corners of the given BioTriangle.
+     * Each row of this Grid contains 2 BioTriangles for every column (except
+     * for the last column); even BioTriangles point forward and odd
+     * BioTriangles point backward.
+     *
+     * @param row     The row of the BioTriangle.
+     * @param p       The position of the BioTriangle in its row.
+     * @param corners The array that receives the indexes of the three corners.
+     */
+    void getCorners(int row, int p, int[] corners) {
+        int col = p/2;
+        boolean forward = p % 2 == 0;
+        corners[0] = forward ? this.getIndex(row,     col) : this.getIndex(row + 1, col    );
+        corners[1] = forward ? this.getIndex(row + 1, col) : this.getIndex(row + 1, col + 1);
+        corners[2] = this.getIndex(row, col + 1);
+    }
+
+    /**
+     * Computes the average RGBA Colour of the given BioTriangle corners.
+     *
+     * @param corners The Terrain indexes of the corners.
+     * @param colour  The array that receives the RGBA components.
+     */
+    void getTriangleColour(int[] corners, float[] colour) {
+        for (int i = 0; i < 4; ++i) {
+            int shift = 24 - 8*i;
+            int sum = 0;
+            for (int corner : corners) {
+                sum += (this.terrain.getRGBA(corner) >>> shift) & 0xFF;
+            }
+            colour[i] = sum/(3*255f);
+        }
+    }
+
+    /**
+     * Computes the unit normal of the BioTriangle with the given corners.  The
+     * rendering offsets of the corners do not affect the normal.
+     *
+     * @param corners The Terrain indexes of the corners.
+     * @param normal  The array that receives the normal components.
      */
-    private ArrayList<Pair<Integer, Integer>> indexes;
+    void getTriangleNormal(int[] corners, float[] normal) {
+        Terrain t = this.terrain;
+        float ax = t.getX(corners[2]) - t.getX(corners[0]);
+        float ay = t.getY(corners[2]) - t.getY(corners[0]);
+        float az = t.getZ(corners[2]) - t.getZ(corners[0]);
+        float bx = t.getX(corners[1]) - t.getX(corners[0]);
+        float by = t.getY(corners[1]) - t.getY(corners[0]);
+        float bz = t.getZ(corners[1]) - t.getZ(corners[0]);
+
+        float nx = ay*bz - az*by;
+        float ny = az*bx - ax*bz;
+        float nz = ax*by - ay*bx;
+        float magnitude = (float) Math.sqrt(nx*nx + ny*ny + nz*nz);
+
+        normal[0] = nx/magnitude;
+        normal[1] = ny/magnitude;
+        normal[2] = nz/magnitude;
+    }
 
     /**
-     * The matrix of BioVertexes that comprise the BioTriangles of this Grid.
+     * Computes the average specular highlight of the Biomes at the given
+     * BioTriangle corners.
+     *
+     * @param corners   The Terrain indexes of the corners.
+     * @param highlight The array that receives the RGBA components.
      */
-    private BioVertex[][] biotexes;
+    void getTriangleHighlight(int[] corners, float[] highlight) {
+        highlight[0] = highlight[1] = highlight[2] = highlight[3] = 0;
+        for (int corner : corners) {
+            Colour colour = this.terrain.getBiome(corner).getHighlight();
+            highlight[0] += colour.getRed()/3;
+            highlight[1] += colour.getGreen()/3;
+            highlight[2] += colour.getBlue()/3;
+            highlight[3] += colour.getAlpha()/3;
+        }
+    }
 
     /**
-     * The BioTriangles that comprise this Grid.
+     * Adds the BioVertex at the given position to the GL buffer.
+     *
+     * @param row The row of the BioVertex.
+     * @param col The column of the BioVertex.
      */
-    private ArrayList<BioTriangle> biogles;
+    private void glVertex(int row, int col) {
+        int index = this.getIndex(row, col);
+        glVertex3f(this.terrain.getX(index), this.terrain.getY(index), this.terrain.getZ(index) + this.terrain.getOffset(index));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,685 @@
+package env;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.lwjgl.BufferUtils;
+
+import core.Logger;
+import geo.Frustum;
+
+/**
+ * The GridMesh class represents the retained-mode mesh of a Grid.  The mesh
+ * packs the positions of the Grid into a position buffer and the normals and
+ * colours of the Grid into an interleaved attribute buffer.  Both buffers
+ * mirror the GL_TRIANGLE_STRIP stream of the immediate-mode Grid renderer: each
+ * strip vertex (except for the first two in a row) carries the attributes of
+ * the BioTriangle it completes.  Animating a Grid only moves its vertexes, so
+ * only the affected range of the position buffer is uploaded each frame; if
+ * the {@link WaveShader} is available, the vertexes are displaced on the GPU
+ * instead and nothing is uploaded at all.  The BioTriangles are then
+ * drawn with an index buffer that is sorted by specular highlight.  The index
+ * buffer is rebuilt whenever the {@link Geomipmap} of the GridMesh selects a
+ * different level of detail or a different set of visible patches.
+ */
+public class GridMesh {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of floats describing each vertex in the position buffer.
+     */
+    public static final int POSITION_STRIDE = 3;
+
+    /**
+     * The number of floats describing each vertex in the attribute buffer:
+     * three normal components and four colour components.
+     */
+    public static final int ATTRIBUTE_STRIDE = 7;
+
+    /**
+     * The number of cells along each side of a level-of-detail patch.
+     */
+    public static final int PATCH_CELLS = 16;
+
+    /**
+     * Constructs a GridMesh for the given Grid.  The CPU-side buffers are packed
+     * immediately; no OpenGL calls are made until the GridMesh is drawn.
+     *
+     * @param grid The Grid represented by this GridMesh.
+     */
+    public GridMesh(Grid grid) {
+        this.grid = grid;
+
+        int rows = grid.getRows();
+        int cols = grid.getColumns();
+        this.vertexes = 2*cols*(rows - 1);
+        this.positionBuffer = BufferUtils.createFloatBuffer(POSITION_STRIDE*this.vertexes);
+        this.attributeBuffer = BufferUtils.createFloatBuffer(ATTRIBUTE_STRIDE*this.vertexes);
+
+        this.positionVbo = 0;
+        this.attributeVbo = 0;
+        this.waveVbo = 0;
+        this.ibo = 0;
+        this.shader = null;
+        this.dirty = true;
+        this.movedFirst = 0;
+        this.movedLast = 0;
+        this.geomipmap = new Geomipmap(grid, PATCH_CELLS);
+
+        this.pack();
+        this.index();
+    }
+
+    /**
+     * Draws this GridMesh.  The position, attribute, and index buffers are
+     * uploaded to the GPU during the first call to draw().
+     */
+    public void draw() {
+        if (this.positionVbo == 0) {
+            this.shade();
+
+            this.positionVbo = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, this.positionVbo);
+            glBufferData(GL_ARRAY_BUFFER, this.positionBuffer, GL_DYNAMIC_DRAW);
+
+            this.attributeVbo = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, this.attributeVbo);
+            glBufferData(GL_ARRAY_BUFFER, this.attributeBuffer, GL_STATIC_DRAW);
+
+            if (this.shader != null) {
+                this.waveVbo = glGenBuffers();
+                glBindBuffer(GL_ARRAY_BUFFER, this.waveVbo);
+                glBufferData(GL_ARRAY_BUFFER, this.waveBuffer, GL_STATIC_DRAW);
+            }
+
+            this.ibo = glGenBuffers();
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, this.ibo);
+            glBufferData(GL_ELEMENT_ARRAY_BUFFER, this.indexBuffer, GL_DYNAMIC_DRAW);
+            this.dirty = false;
+            this.movedFirst = this.movedLast = 0;
+            this.reindexed = false;
+        } else {
+            if (this.dirty) {
+                glBindBuffer(GL_ARRAY_BUFFER, this.positionVbo);
+                glBufferSubData(GL_ARRAY_BUFFER, 0, this.positionBuffer);
+                glBindBuffer(GL_ARRAY_BUFFER, this.attributeVbo);
+                glBufferSubData(GL_ARRAY_BUFFER, 0, this.attributeBuffer);
+                this.dirty = false;
+                this.movedFirst = this.movedLast = 0;
+            }
+            if (this.movedLast > this.movedFirst) {
+                // Only upload the range of positions that were moved.
+                FloatBuffer buffer = this.positionBuffer;
+                buffer.limit(POSITION_STRIDE*this.movedLast).position(POSITION_STRIDE*this.movedFirst);
+                glBindBuffer(GL_ARRAY_BUFFER, this.positionVbo);
+                glBufferSubData(GL_ARRAY_BUFFER, (long) POSITION_STRIDE*this.movedFirst*Float.BYTES, buffer);
+                buffer.clear();
+                this.movedFirst = this.movedLast = 0;
+            }
+            if (this.reindexed) {
+                glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, this.ibo);
+                glBufferData(GL_ELEMENT_ARRAY_BUFFER, this.indexBuffer, GL_DYNAMIC_DRAW);
+                this.reindexed = false;
+            }
+        }
+
+        int bytes = Float.BYTES*ATTRIBUTE_STRIDE;
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, this.ibo);
+
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glEnableClientState(GL_NORMAL_ARRAY);
+        glEnableClientState(GL_COLOR_ARRAY);
+        glBindBuffer(GL_ARRAY_BUFFER, this.positionVbo);
+        glVertexPointer(3, GL_FLOAT, 0, 0);
+        glBindBuffer(GL_ARRAY_BUFFER, this.attributeVbo);
+        glNormalPointer(GL_FLOAT, bytes, 0);
+        glColorPointer(4, GL_FLOAT, bytes, 3*Float.BYTES);
+
+        if (this.shader != null) {
+            int attribute = this.shader.getWaveAttribute();
+            this.shader.bind(this.speed, this.time);
+            glEnableVertexAttribArray(attribute);
+            glBindBuffer(GL_ARRAY_BUFFER, this.waveVbo);
+            glVertexAttribPointer(attribute, 2, GL_FLOAT, false, 0, 0);
+        }
+
+        // Each highlight group shares a single specular material.
+        for (int group = 0; group < this.highlights.size(); ++group) {
+            glMaterialfv(GL_FRONT, GL_SPECULAR, this.highlights.get(group));
+            int first = this.groupStarts[group];
+            int count = this.groupStarts[group + 1] - first;
+            glDrawElements(GL_TRIANGLES, count, GL_UNSIGNED_INT, (long) first*Integer.BYTES);
+        }
+
+        if (this.shader != null) {
+            glDisableVertexAttribArray(this.shader.getWaveAttribute());
+            this.shader.unbind();
+        }
+
+        glDisableClientState(GL_COLOR_ARRAY);
+        glDisableClientState(GL_NORMAL_ARRAY);
+        glDisableClientState(GL_VERTEX_ARRAY);
+
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Selects the level of detail of this GridMesh for a Camera at the given
+     * position.  The index buffer is only rebuilt if the level of a patch
+     * changes; the new buffer is uploaded during the next call to draw().
+     *
+     * @param x        The X-coordinate of the Camera.
+     * @param y        The Y-coordinate of the Camera.
+     * @param z        The Z-coordinate of the Camera.
+     * @param distance The distance beyond which patches lose detail, or 0 to
+     *                 draw every patch at full detail.
+     */
+    public void focus(float x, float y, float z, float distance) {
+        if (this.geomipmap.select(x, y, z, distance)) {
+            this.sort();
+            this.reindexed = true;
+        }
+    }
+
+    /**
+     * Leaves the patches of this GridMesh that lie outside the given Frustum
+     * out of the index buffer.  The index buffer is only rebuilt if the
+     * visibility of a patch changes; the new buffer is uploaded during the
+     * next call to draw().
+     *
+     * @param frustum The viewing Frustum, or null to draw every patch.
+     */
+    public void cull(Frustum frustum) {
+        if (this.geomipmap.cull(frustum)) {
+            this.sort();
+            this.reindexed = true;
+        }
+    }
+
+    /**
+     * Returns the Geomipmap that selects the level of detail of this GridMesh.
+     *
+     * @return The Geomipmap.
+     */
+    public Geomipmap getGeomipmap() {
+        return this.geomipmap;
+    }
+
+    /**
+     * Returns the number of BioTriangles in the index buffer of this GridMesh.
+     *
+     * @return The number of BioTriangles.
+     */
+    public int getTriangleCount() {
+        return this.groupStarts[this.groupStarts.length - 1]/3;
+    }
+
+    /**
+     * Releases the OpenGL buffer objects of this GridMesh.  The buffers are
+     * uploaded again if this GridMesh is drawn afterwards.  This function must
+     * be called from the thread that owns the OpenGL context.
+     */
+    public void dispose() {
+        if (this.positionVbo != 0) {
+            glDeleteBuffers(this.positionVbo);
+            glDeleteBuffers(this.attributeVbo);
+            glDeleteBuffers(this.ibo);
+            if (this.waveVbo != 0) {
+                glDeleteBuffers(this.waveVbo);
+            }
+            this.positionVbo = 0;
+            this.attributeVbo = 0;
+            this.waveVbo = 0;
+            this.ibo = 0;
+        }
+    }
+
+    /**
+     * Returns the position buffer of this GridMesh.
+     *
+     * @return The position buffer.
+     */
+    public FloatBuffer getPositionBuffer() {
+        return this.positionBuffer;
+    }
+
+    /**
+     * Returns the interleaved normal and colour buffer of this GridMesh.
+     *
+     * @return The attribute buffer.
+     */
+    public FloatBuffer getAttributeBuffer() {
+        return this.attributeBuffer;
+    }
+
+    /**
+     * Returns the index buffer of this GridMesh.  Every three indexes describe
+     * a BioTriangle whose provoking (last) vertex carries its attributes.
+     *
+     * @return The index buffer.
+     */
+    public IntBuffer getIndexBuffer() {
+        return this.indexBuffer;
+    }
+
+    /**
+     * Returns the number of vertexes in the buffers of this GridMesh.
+     *
+     * @return The number of vertexes.
+     */
+    public int getVertexCount() {
+        return this.vertexes;
+    }
+
+    /**
+     * Animates the Wave of the Grid represented by this GridMesh at the given
+     * time.  If the WaveShader displaces the vertexes of this GridMesh, the
+     * time is simply passed to the shader during the next call to draw();
+     * otherwise, the Wave is evaluated on the CPU and the moved vertexes are
+     * uploaded during the next call to draw().  The bounding boxes of the
+     * patches are not recomputed since they account for the reach of the Wave.
+     *
+     * @param time The uptime of the application (in seconds).
+     */
+    public void animate(double time) {
+        this.time = time;
+        if (this.shader == null) {
+            Wave wave = this.grid.getWave();
+            wave.animate(time);
+            this.move(wave);
+        }
+    }
+
+    /**
+     * Returns true if the vertexes of this GridMesh are displaced on the GPU
+     * by the WaveShader.  The choice is made during the first call to draw().
+     *
+     * @return True if the WaveShader animates this GridMesh.
+     */
+    public boolean isShaded() {
+        return this.shader != null;
+    }
+
+    /**
+     * Repacks the buffers of this GridMesh from the current state of its Grid
+     * and recomputes the bounding boxes of its patches.  The new buffers are
+     * uploaded during the next call to draw().
+     */
+    public void pack() {
+        int rows = this.grid.getRows();
+        int cols = this.grid.getColumns();
+        Terrain terrain = this.grid.getTerrain();
+
+        int[] corners = new int[3];
+        float[] normal = new float[3];
+        float[] colour = new float[4];
+
+        FloatBuffer positions = this.positionBuffer;
+        FloatBuffer attributes = this.attributeBuffer;
+        positions.clear();
+        attributes.clear();
+        for (int row = 0; row < rows - 1; ++row) {
+            for (int v = 0; v < 2*cols; ++v) {
+                // The first two vertexes of a strip do not complete a BioTriangle,
+                // so they borrow the attributes of the first BioTriangle.
+                this.grid.getCorners(row, Math.max(0, v - 2), corners);
+                this.grid.getTriangleNormal(corners, normal);
+                this.grid.getTriangleColour(corners, colour);
+
+                int index = this.grid.getIndex(row + (v % 2), v/2);
+                positions.put(terrain.getX(index));
+                positions.put(terrain.getY(index));
+                positions.put(terrain.getZ(index) + terrain.getOffset(index));
+                attributes.put(normal);
+                attributes.put(colour);
+            }
+        }
+        positions.flip();
+        attributes.flip();
+        this.dirty = true;
+        this.geomipmap.bound(this.grid);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The Grid represented by this GridMesh.
+     */
+    private Grid grid;
+
+    /**
+     * The number of vertexes in the position and attribute buffers.
+     */
+    private int vertexes;
+
+    /**
+     * The position buffer.
+     */
+    private FloatBuffer positionBuffer;
+
+    /**
+     * The interleaved normal and colour buffer.
+     */
+    private FloatBuffer attributeBuffer;
+
+    /**
+     * The BioTriangle index buffer, sorted by highlight group.
+     */
+    private IntBuffer indexBuffer;
+
+    /**
+     * The distinct specular highlights of the BioTriangles in this GridMesh.
+     */
+    private List<float[]> highlights;
+
+    /**
+     * The offset of the first index of each highlight group.  The indexes of
+     * group |g| occupy the range [groupStarts[g], groupStarts[g + 1]).
+     */
+    private int[] groupStarts;
+
+    /**
+     * The OpenGL name of the position buffer object.
+     */
+    private int positionVbo;
+
+    /**
+     * The OpenGL name of the attribute buffer object.
+     */
+    private int attributeVbo;
+
+    /**
+     * The OpenGL name of the wave buffer object.
+     */
+    private int waveVbo;
+
+    /**
+     * The amplitude and phase of the wave of each vertex, if this GridMesh is
+     * animated by the WaveShader.
+     */
+    private FloatBuffer waveBuffer;
+
+    /**
+     * The WaveShader that animates this GridMesh, or null if this GridMesh is
+     * animated on the CPU (or not at all).
+     */
+    private WaveShader shader;
+
+    /**
+     * The speed of the waves passed to the WaveShader.
+     */
+    private float speed;
+
+    /**
+     * The time passed to the WaveShader.
+     */
+    private double time;
+
+    /**
+     * The OpenGL name of the index buffer object.
+     */
+    private int ibo;
+
+    /**
+     * Indicates whether the position and attribute buffers have been repacked
+     * since they were last uploaded.
+     */
+    private boolean dirty;
+
+    /**
+     * The first vertex in the range of vertexes that were moved since the
+     * position buffer was last uploaded.
+     */
+    private int movedFirst;
+
+    /**
+     * The vertex after the last vertex in the range of vertexes that were
+     * moved since the position buffer was last uploaded.  The range is empty
+     * if this is not greater than movedFirst.
+     */
+    private int movedLast;
+
+    /**
+     * Indicates whether the index buffer has changed since it was last uploaded.
+     */
+    private boolean reindexed;
+
+    /**
+     * The Geomipmap that selects the level of detail of this GridMesh.
+     */
+    private Geomipmap geomipmap;
+
+    /**
+     * The highlight group of each vertex in the buffers.  The group of a
+     * BioTriangle is the group of its provoking vertex.
+     */
+    private int[] vertexGroups;
+
+    /**
+     * The scratch array that receives the indexes of the Geomipmap.
+     */
+    private int[] indexes;
+
+    /**
+     * The positions of the Z-coordinates of the two strip copies of each
+     * BioVertex of the Wave in the position buffer.
+     */
+    private int[] slots;
+
+    /**
+     * The first vertex of the range of vertexes that are moved by the Wave.
+     */
+    private int slotsFirst;
+
+    /**
+     * The vertex after the last vertex of the range of vertexes that are
+     * moved by the Wave.
+     */
+    private int slotsLast;
+
+    /**
+     * Returns the index of the vertex at the given row and column of a Grid in
+     * the buffers of its GridMesh.  Each BioVertex appears in the strip
+     * below it and the strip above it; the two copies share a position but
+     * carry the attributes of different BioTriangles.
+     *
+     * @param rows  The number of rows in the Grid.
+     * @param cols  The number of columns in the Grid.
+     * @param row   The row of the BioVertex.
+     * @param col   The column of the BioVertex.
+     * @param below Indicates whether the copy in the strip below the BioVertex
+     *              is preferred over the copy in the strip above it.
+     *
+     * @return The index of the vertex.
+     */
+    static int getStripIndex(int rows, int cols, int row, int col, boolean below) {
+        // The last row only appears in the strip above it and the first row
+        // only appears in the strip below it.
+        if (below && row < rows - 1 || row == 0) {
+            return row*2*cols + 2*col;
+        }
+        return (row - 1)*2*cols + 2*col + 1;
+    }
+
+    /**
+     * Moves the vertexes of the BioVertexes animated by the given Wave to the
+     * current elevations (including offsets) of those BioVertexes.  Only the
+     * range of the position buffer spanning the moved vertexes is uploaded
+     * during the next call to draw().
+     *
+     * @param wave The Wave of the Grid represented by this GridMesh.
+     */
+    private void move(Wave wave) {
+        if (this.slots == null || this.slots.length != 2*wave.size()) {
+            this.locate(wave);
+        }
+
+        Terrain terrain = this.grid.getTerrain();
+        FloatBuffer buffer = this.positionBuffer;
+        for (int i = 0; i < wave.size(); ++i) {
+            int index = wave.getIndex(i);
+            float z = terrain.getZ(index) + terrain.getOffset(index);
+            buffer.put(this.slots[2*i], z);
+            buffer.put(this.slots[2*i + 1], z);
+        }
+
+        int first = this.slotsFirst;
+        int last = this.slotsLast;
+        if (first < last) {
+            if (this.movedLast > this.movedFirst) {
+                first = Math.min(first, this.movedFirst);
+                last = Math.max(last, this.movedLast);
+            }
+            this.movedFirst = first;
+            this.movedLast = last;
+        }
+    }
+
+    /**
+     * Hands the animation of this GridMesh to the WaveShader if the Grid has
+     * a Wave with a single speed and the shader is available.  The vertexes
+     * are returned to rest so that the shader can displace them, and the
+     * amplitude and phase of each vertex are packed into the wave buffer.
+     */
+    private void shade() {
+        Wave wave = this.grid.getWave();
+        if (wave.size() == 0 || wave.getSpeedCount() != 1 || !WaveShader.getInstance().isCompiled()) {
+            return;
+        }
+
+        wave.rest();
+        this.move(wave);
+
+        // The vertexes that are not animated keep a zero amplitude.
+        this.waveBuffer = BufferUtils.createFloatBuffer(2*this.vertexes);
+        for (int i = 0; i < wave.size(); ++i) {
+            for (int copy = 0; copy < 2; ++copy) {
+                int vertex = this.slots[2*i + copy]/POSITION_STRIDE;
+                this.waveBuffer.put(2*vertex, wave.getAmplitude(i));
+                this.waveBuffer.put(2*vertex + 1, wave.getPhase(i));
+            }
+        }
+
+        this.shader = WaveShader.getInstance();
+        this.speed = wave.getSpeed(0);
+        Logger.debug("Animating %d BioVertexes of Grid \"%s\" on the GPU.", wave.size(), this.grid.getName());
+    }
+
+    /**
+     * Locates the strip copies of the BioVertexes of the given Wave in the
+     * position buffer of this GridMesh.
+     *
+     * @param wave The Wave of the Grid represented by this GridMesh.
+     */
+    private void locate(Wave wave) {
+        int rows = this.grid.getRows();
+        int cols = this.grid.getColumns();
+
+        this.slots = new int[2*wave.size()];
+        this.slotsFirst = this.vertexes;
+        this.slotsLast = 0;
+        for (int i = 0; i < wave.size(); ++i) {
+            int index = wave.getIndex(i);
+            int row = index/cols;
+            int col = index % cols;
+
+            // Every BioVertex appears in up to two strips.
+            int below = GridMesh.getStripIndex(rows, cols, row, col, true);
+            int above = GridMesh.getStripIndex(rows, cols, row, col, false);
+            this.slots[2*i] = POSITION_STRIDE*below + 2;
+            this.slots[2*i + 1] = POSITION_STRIDE*above + 2;
+
+            this.slotsFirst = Math.min(this.slotsFirst, Math.min(below, above));
+            this.slotsLast = Math.max(this.slotsLast, Math.max(below, above) + 1);
+        }
+    }
+
+    /**
+     * Builds the index buffer of this GridMesh.  The BioTriangles are grouped by
+     * their specular highlights so that each group can be drawn with one call.
+     */
+    private void index() {
+        int rows = this.grid.getRows();
+        int cols = this.grid.getColumns();
+        int perRow = 2*cols - 2;
+        int triangles = perRow*(rows - 1);
+
+        int[] corners = new int[3];
+        float[] highlight = new float[4];
+
+        // Assign each BioTriangle to a highlight group.
+        this.highlights = new ArrayList<>();
+        int[] groups = new int[triangles];
+        for (int t = 0; t < triangles; ++t) {
+            this.grid.getCorners(t/perRow, t % perRow, corners);
+            this.grid.getTriangleHighlight(corners, highlight);
+
+            int group = 0;
+            while (group < this.highlights.size() && !Arrays.equals(this.highlights.get(group), highlight)) {
+                ++group;
+            }
+            if (group == this.highlights.size()) {
+                this.highlights.add(highlight.clone());
+            }
+            groups[t] = group;
+        }
+
+        // Each strip vertex carries the attributes of the BioTriangle it
+        // completes; the first two vertexes of a strip borrow the first.
+        this.vertexGroups = new int[this.vertexes];
+        for (int row = 0; row < rows - 1; ++row) {
+            for (int v = 0; v < 2*cols; ++v) {
+                this.vertexGroups[row*2*cols + v] = groups[row*perRow + Math.max(0, v - 2)];
+            }
+        }
+
+        this.indexes = new int[3*triangles];
+        this.indexBuffer = BufferUtils.createIntBuffer(3*triangles);
+        this.groupStarts = new int[this.highlights.size() + 1];
+        this.sort();
+    }
+
+    /**
+     * Fills the index buffer of this GridMesh with the BioTriangles of the
+     * current levels of detail, grouped by highlight.
+     */
+    private void sort() {
+        int count = this.geomipmap.triangulate(this.indexes);
+
+        int groups = this.highlights.size();
+        int[] counts = new int[groups];
+        for (int i = 0; i < count; i += 3) {
+            ++counts[this.vertexGroups[this.indexes[i + 2]]];
+        }
+
+        // Compute the first index of each highlight group.
+        for (int group = 0; group < groups; ++group) {
+            this.groupStarts[group + 1] = this.groupStarts[group] + 3*counts[group];
+        }
+
+        // Emit the indexes of each BioTriangle in its group.
+        int[] cursors = Arrays.copyOf(this.groupStarts, this.groupStarts.length);
+        this.indexBuffer.clear();
+        for (int i = 0; i < count; i += 3) {
+            int group = this.vertexGroups[this.indexes[i + 2]];
+            int cursor = cursors[group];
+            this.indexBuffer.put(cursor + 0, this.indexes[i + 0]);
+            this.indexBuffer.put(cursor + 1, this.indexes[i + 1]);
+            this.indexBuffer.put(cursor + 2, this.indexes[i + 2]);
+            cursors[group] += 3;
+        }
+        this.indexBuffer.limit(count);
+    }
+}
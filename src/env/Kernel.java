@@ -0,0 +1,289 @@
+package env;
+
+import util.Algebra;
+
+/**
+ * The Kernel class represents a radial convolution kernel over the BioVertexes
+ * of a Grid.  Since the BioVertexes of a Grid are evenly spaced, the weight of
+ * a nearby BioVertex only depends on its row and column offset from the
+ * reference BioVertex; these weights are computed once and then applied to
+ * every BioVertex in the Grid.
+ */
+public class Kernel {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs a Kernel for the given Grid with the provided proximity distance.
+     * A BioVertex is nearby if its planar distance to the reference BioVertex
+     * does not exceed |maxdist| times the smaller dimension of the Grid.
+     *
+     * @param grid    The Grid to which this Kernel will be applied.
+     * @param maxdist The maximum distance to a nearby BioVertex.
+     */
+    public Kernel(Grid grid, float maxdist) {
+        this(grid.getRows(),
+             grid.getColumns(),
+             grid.getWidth()/(grid.getColumns() - 1),
+             grid.getHeight()/(grid.getRows() - 1),
+             maxdist*Math.min(grid.getWidth(), grid.getHeight()),
+             (int) (maxdist*Math.min(grid.getRows(), grid.getColumns())));
+    }
+
+    /**
+     * Constructs a Kernel for a lattice of BioVertexes with the given number of
+     * rows and columns, spacing, and absolute proximity distance.  Unlike the
+     * Grid Kernel, the reach of this Kernel does not depend on the size of the
+     * lattice, so the same Kernel can be applied to lattices of any size.
+     *
+     * @param rows       The number of rows in the lattice.
+     * @param cols       The number of columns in the lattice.
+     * @param colSpacing The distance between adjacent columns.
+     * @param rowSpacing The distance between adjacent rows.
+     * @param radius     The maximum distance to a nearby BioVertex.
+     */
+    public Kernel(int rows, int cols, float colSpacing, float rowSpacing, float radius) {
+        this(rows, cols, colSpacing, rowSpacing, radius, (int) (radius/rowSpacing));
+    }
+
+    /**
+     * Returns the weighted average of the given values around the specified
+     * row and column.  Taps that fall outside the Grid are ignored.
+     *
+     * @param values The values of the Grid in row-major order.
+     * @param row    The row of the reference BioVertex.
+     * @param col    The column of the reference BioVertex.
+     *
+     * @return The weighted average.
+     */
+    public float average(float[] values, int row, int col) {
+        float valueSum = 0;
+        float weightSum = 0;
+        for (int s = 0; s < this.spanRows.length; ++s) {
+            int r = row + this.spanRows[s];
+            if (r < 0 || r >= this.rows) {
+                continue;
+            }
+
+            int reach = this.spanCols[s];
+            int minCol = Math.max(0, col - reach);
+            int maxCol = Math.min(this.cols - 1, col + reach);
+
+            int w = this.spanStarts[s] + (minCol - (col - reach));
+            int base = r*this.cols;
+            for (int c = minCol; c <= maxCol; ++c, ++w) {
+                float weight = this.weights[w];
+                valueSum += weight*values[base + c];
+                weightSum += weight;
+            }
+        }
+        return valueSum/weightSum;
+    }
+
+    /**
+     * Accumulates the weights of the primary Biomes of the BioVertexes around
+     * the specified row and column of the given Terrain.  Taps that fall
+     * outside the Grid are ignored.
+     *
+     * @param terrain The Terrain of the Grid.
+     * @param row     The row of the reference BioVertex.
+     * @param col     The column of the reference BioVertex.
+     * @param weights The array, indexed by Biome ID, that receives the weights.
+     *
+     * @return The number of nearby BioVertexes.
+     */
+    public int accumulate(Terrain terrain, int row, int col, float[] weights) {
+        int count = 0;
+        for (int s = 0; s < this.spanRows.length; ++s) {
+            int r = row + this.spanRows[s];
+            if (r < 0 || r >= this.rows) {
+                continue;
+            }
+
+            int reach = this.spanCols[s];
+            int minCol = Math.max(0, col - reach);
+            int maxCol = Math.min(this.cols - 1, col + reach);
+
+            int w = this.spanStarts[s] + (minCol - (col - reach));
+            int base = r*this.cols;
+            for (int c = minCol; c <= maxCol; ++c, ++w) {
+                weights[terrain.getBiomeID(base + c)] += this.weights[w];
+            }
+            count += maxCol - minCol + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of columns in the lattice of this Kernel.
+     *
+     * @return The number of columns.
+     */
+    public int getColumns() {
+        return this.cols;
+    }
+
+    /**
+     * Returns the maximum column offset of a tap in this Kernel.
+     *
+     * @return The column reach.
+     */
+    public int getColumnReach() {
+        int reach = 0;
+        for (int s = 0; s < this.spanCols.length; ++s) {
+            reach = Math.max(reach, this.spanCols[s]);
+        }
+        return reach;
+    }
+
+    /**
+     * Returns the maximum row offset of a tap in this Kernel.
+     *
+     * @return The row reach.
+     */
+    public int getRowReach() {
+        return this.spanRows.length/2;
+    }
+
+    /**
+     * Returns the weight of the tap at the given offset, or 0 if the offset is
+     * not covered by this Kernel.
+     *
+     * @param dr The row offset of the tap.
+     * @param dc The column offset of the tap.
+     *
+     * @return The weight.
+     */
+    public float getWeight(int dr, int dc) {
+        int s = dr + this.getRowReach();
+        if (s < 0 || s >= this.spanRows.length || Math.abs(dc) > this.spanCols[s]) {
+            return 0;
+        }
+        return this.weights[this.spanStarts[s] + dc + this.spanCols[s]];
+    }
+
+    /**
+     * Returns the number of taps in this Kernel.
+     *
+     * @return The number of taps.
+     */
+    public int size() {
+        return this.weights.length;
+    }
+
+    /**
+     * Returns a String representation of this Kernel.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("Kernel (%d taps over %d rows)", this.weights.length, this.spanRows.length);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of rows in the Grid of this Kernel.
+     */
+    private int rows;
+
+    /**
+     * The number of columns in the Grid of this Kernel.
+     */
+    private int cols;
+
+    /**
+     * The row offset of each span.
+     */
+    private int[] spanRows;
+
+    /**
+     * The column reach of each span.  Span |s| covers the column offsets
+     * [-spanCols[s], spanCols[s]]; a negative reach denotes an empty span.
+     */
+    private int[] spanCols;
+
+    /**
+     * The offset of the first weight of each span.
+     */
+    private int[] spanStarts;
+
+    /**
+     * The weights of the taps in this Kernel, ordered by span and then by
+     * column offset.
+     */
+    private float[] weights;
+
+    /**
+     * Constructs a Kernel for a lattice of BioVertexes with the given number of
+     * rows and columns, spacing, and Euclidean and Manhattan proximity distances.
+     *
+     * @param rows       The number of rows in the lattice.
+     * @param cols       The number of columns in the lattice.
+     * @param colSpacing The distance between adjacent columns.
+     * @param rowSpacing The distance between adjacent rows.
+     * @param eucdist    The maximum Euclidean distance to a nearby BioVertex.
+     * @param mandist    The maximum row offset of a nearby BioVertex.
+     */
+    private Kernel(int rows, int cols, float colSpacing, float rowSpacing, float eucdist, int mandist) {
+        this.rows = rows;
+        this.cols = cols;
+
+        int spans = 2*mandist + 1;
+        this.spanRows = new int[spans];
+        this.spanCols = new int[spans];
+        this.spanStarts = new int[spans + 1];
+
+        // The nearby BioVertexes in each row form a contiguous span that is
+        // centered on the column of the reference BioVertex.
+        float[] weights = new float[spans*(2*this.cols + 1)];
+        int taps = 0;
+        for (int s = 0; s < spans; ++s) {
+            int dr = s - mandist;
+            this.spanRows[s] = dr;
+            this.spanStarts[s] = taps;
+
+            // Calculate the Euclidean distance between the reference row and
+            // the current row.
+            float height = Math.abs(dr)*rowSpacing;
+            // Calculate the Euclidian distance between the reference column and
+            // the furthest column of the current row.
+            float width = (float) Math.sqrt(Math.pow(eucdist, 2) - Math.pow(height, 2));
+            int coldist = (int) Math.ceil(width/colSpacing);
+
+            // Find the widest span of columns that are within distance of the
+            // reference BioVertex.
+            int reach = -1;
+            for (int dc = 0; dc <= Math.min(coldist, this.cols); ++dc) {
+                if (Kernel.distance(dr*rowSpacing, dc*colSpacing) <= eucdist) {
+                    reach = dc;
+                }
+            }
+            this.spanCols[s] = reach;
+
+            for (int dc = -reach; dc <= reach; ++dc) {
+                float dist = Kernel.distance(dr*rowSpacing, dc*colSpacing);
+                weights[taps++] = (float) Math.pow(1f - Algebra.curve(dist/(eucdist + 1E-4f)), 0.8);
+            }
+        }
+        this.spanStarts[spans] = taps;
+
+        this.weights = new float[taps];
+        System.arraycopy(weights, 0, this.weights, 0, taps);
+    }
+
+    /**
+     * Returns the length of the given planar displacement.
+     *
+     * @param dy The displacement along the Y-axis.
+     * @param dx The displacement along the X-axis.
+     *
+     * @return The length of the displacement.
+     */
+    private static float distance(float dy, float dx) {
+        return (float) Math.sqrt(dx*dx + dy*dy);
+    }
+}
@@ -4,6 +4,7 @@ import static org.lwjgl.opengl.GL11.*;
 
 import core.Logger;
 import core.Top;
+import geo.Bounds;
 import geo.Sphere;
 import geo.Vertex;
 
@@ -35,19 +36,10 @@ public class Light implements Drawable {
             }
         } 
 
-        // The intensity of the Light is described by the following equation:
-        //                1
-        //     I =  --------------
-        //           0.05 + 2*d^2
-        glLightf(this.glIndex, GL_CONSTANT_ATTENUATION,  0.05f);
-        glLightf(this.glIndex, GL_LINEAR_ATTENUATION,    0);
-        glLightf(this.glIndex, GL_QUADRATIC_ATTENUATION, 2f);
+        // The OpenGL light is configured when this Light is first positioned
+        // so that Lights can be created without an OpenGL context.
+        this.configured = false;
 
-        glLightfv(this.glIndex, GL_DIFFUSE,  colour.toArray());
-        glLightfv(this.glIndex, GL_SPECULAR, colour.toArray());
-        glLightfv(this.glIndex, GL_POSITION, location.toArray());
-        glEnable(this.glIndex);
-        
         Logger.debug("Created Light %d at (%.2f, %.2f, %.2f).", this.glIndex - GL_LIGHT0, location.getX(), location.getY(), location.getZ());
     }
 
@@ -63,6 +55,15 @@ public class Light implements Drawable {
         }
     }
 
+    /**
+     * Returns the Bounds of the Sphere representing this Light.
+     *
+     * @return The Bounds.
+     */
+    public Bounds getBounds() {
+        return this.sphere.getBounds();
+    }
+
     /**
      * Returns the number of Polygons in this Light.
      *
@@ -72,11 +73,30 @@ public class Light implements Drawable {
         return this.sphere.polygons();
     }
 
+    /**
+     * Returns the Colour of this Light.
+     *
+     * @return The Colour.
+     */
+    public Colour getColour() {
+        return this.colour;
+    }
+
     /**
      * Returns the location of this Light.
      *
      * @return The location.
      */
+    /**
+     * Returns the number of Lights that have been created.  The OpenGL lights
+     * of the Lights occupy the indexes [GL_LIGHT0, GL_LIGHT0 + count).
+     *
+     * @return The number of Lights.
+     */
+    public static int getCount() {
+        return Light.nextGLindex - GL_LIGHT0;
+    }
+
     public Vertex getPosition() {
         return this.location;
     }
@@ -86,6 +106,9 @@ public class Light implements Drawable {
      * location of this Light.
      */
     public void glPosition() {
+        if (!this.configured) {
+            this.glSetup();
+        }
         glLightfv(this.glIndex, GL_POSITION, location.toArray());
     }
 
@@ -126,4 +149,28 @@ public class Light implements Drawable {
      * The OpenGL light index of this Light. 
      */
     private int glIndex;
-}
\ No newline at end of file
+
+    /**
+     * Indicates whether the OpenGL light of this Light has been configured.
+     */
+    private boolean configured;
+
+    /**
+     * Configures the OpenGL light associated with this Light.
+     */
+    private void glSetup() {
+        // The intensity of the Light is described by the following equation:
+        //                1
+        //     I =  --------------
+        //           0.05 + 2*d^2
+        glLightf(this.glIndex, GL_CONSTANT_ATTENUATION,  0.05f);
+        glLightf(this.glIndex, GL_LINEAR_ATTENUATION,    0);
+        glLightf(this.glIndex, GL_QUADRATIC_ATTENUATION, 2f);
+
+        glLightfv(this.glIndex, GL_DIFFUSE,  this.colour.toArray());
+        glLightfv(this.glIndex, GL_SPECULAR, this.colour.toArray());
+        glEnable(this.glIndex);
+
+        this.configured = true;
+    }
+}
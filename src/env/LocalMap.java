@@ -1,16 +1,13 @@
 package env;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Function;
-
 import bio.Biome;
 import bio.Biomix;
 import bio.BioVertex;
-import util.Algebra;
 
 /**
- * The LocalMap class represents a weighted set of nearby BioVertexes.
+ * The LocalMap class represents a weighted set of nearby BioVertexes.  The
+ * weights are taken from the Kernel of the Grid and accumulated by Biome, since
+ * every query of a LocalMap only depends on the Biomes of the nearby BioVertexes.
  */
 public class LocalMap {
 
@@ -27,44 +24,29 @@ public class LocalMap {
      * @param maxdist The maximum manhattan distance to a nearby BioVertex.
      */
     public LocalMap(Grid grid, int row, int col, float maxdist) {
-        this.map = new HashMap<>();
-        this.weightSum = 0;
+        this(grid.getKernel(maxdist), grid.getTerrain(), row, col);
+    }
 
-        this.biotex = grid.getVertex(row, col);
-
-        // Convert the maximum distance parameter into its Manhattan and Euclidean
-        // equivalents.
-        int mandist = (int) (maxdist*Math.min(grid.getRows(), grid.getColumns()));
-        float eucdist = maxdist*Math.min(grid.getWidth(), grid.getHeight());
-
-        // Determine the bounding rows containing BioVertexes to be added to the map.
-        int minRow = Math.max(0, row - mandist);
-        int maxRow = Math.min(grid.getRows() - 1, row + mandist);
-
-        for (int r = minRow; r <= maxRow; ++r) {
-            // Calculate the Euclidean distance between the given row and the
-            // current row.
-            float height = Math.abs(r - row)*grid.getCellHeight();
-            // Calculate the Euclidian distance between the given column and the
-            // the column corresponding to the current row.
-            float width = (float) Math.sqrt(Math.pow(eucdist, 2) - Math.pow(height, 2));
-
-            // Determine the bounding column containing BioVertexes to be added to the map.
-            int coldist = (int) Math.ceil(width/grid.getCellWidth());
-            int minCol = (int) Math.max(0, col - coldist);
-            int maxCol = (int) Math.min(grid.getColumns() - 1, col + coldist);
-            for (int c = minCol; c <= maxCol; ++c) {
-                BioVertex curtex = grid.getVertex(r, c);
-
-                // Verify that the current BioVertex is within distance of the
-                // reference BioVertex.
-                float dist = this.biotex.distance(curtex);
-                if (dist <= eucdist) {
-                    float weight = (float) Math.pow(1f - Algebra.curve(dist/(eucdist + 1E-4f)), 0.8);
-                    this.map.put(curtex, weight);
-                    this.weightSum += weight;
-                }
-            }
+    /**
+     * Constructs a LocalMap using the BioVertex located at the given row and
+     * column of the specified Terrain with the weights of the given Kernel.
+     * The vertices of the Terrain must be stored in row-major order with as
+     * many columns as the lattice of the Kernel.
+     *
+     * @param kernel  The Kernel that weighs the nearby BioVertexes.
+     * @param terrain The Terrain containing the BioVertex.
+     * @param row     The row of the BioVertex.
+     * @param col     The column of the BioVertex.
+     */
+    public LocalMap(Kernel kernel, Terrain terrain, int row, int col) {
+        this.biotex = new BioVertex(terrain, row*kernel.getColumns() + col);
+
+        this.weights = new float[Biome.values().length];
+        this.count = kernel.accumulate(terrain, row, col, this.weights);
+
+        this.weightSum = 0;
+        for (float weight : this.weights) {
+            this.weightSum += weight;
         }
     }
 
@@ -75,10 +57,10 @@ public class LocalMap {
      */
     public Biomix getBiomix() {
         Biomix biomix = new Biomix();
-        for (BioVertex biotex : this.map.keySet()) {
-            Biome biome = biotex.getBiome();
-            float weight = this.map.get(biotex);
-            biomix.add(biome, weight/this.weightSum);
+        for (int id = 0; id < this.weights.length; ++id) {
+            if (this.weights[id] > 0) {
+                biomix.add(Biome.fromID(id), this.weights[id]/this.weightSum);
+            }
         }
         return biomix;
     }
@@ -89,35 +71,18 @@ public class LocalMap {
      * @return The Colour.
      */
     public Colour getColour() {
-        // Returns the average value of the given Colour component accessor function.
-        // The average is calculated with respect to the weighted average map of
-        // this LocalMap instance.
-        Function<Function<Colour, Float>, Float> average = (Function<Colour, Float> supplier) -> {
-            float component = 0;
-            for (BioVertex biotex : this.map.keySet()) {
-                Colour colour = biotex.getBiome().getColour();
-                float weight = this.map.get(biotex);
-                float scalar = weight/this.weightSum;
-                component += supplier.apply(colour)*scalar;
+        float r = 0, g = 0, b = 0, a = 0;
+        for (int id = 0; id < this.weights.length; ++id) {
+            if (this.weights[id] > 0) {
+                Colour colour = Biome.fromID(id).getColour();
+                float scalar = this.weights[id]/this.weightSum;
+                r += colour.getRed()*scalar;
+                g += colour.getGreen()*scalar;
+                b += colour.getBlue()*scalar;
+                a += colour.getAlpha()*scalar;
             }
-            return component;
-        };
-
-        return new Colour(
-            average.apply(Colour::getRed),
-            average.apply(Colour::getGreen),
-            average.apply(Colour::getBlue),
-            average.apply(Colour::getAlpha)
-        );
-    }
-
-    /**
-     * Returns the weighted average map associated with this LocalMap.
-     * 
-     * @return Ther weighted average map.
-     */
-    public Map<BioVertex, Float> getMap() {
-        return this.map;
+        }
+        return new Colour(r, g, b, a);
     }
 
     /**
@@ -127,21 +92,19 @@ public class LocalMap {
      */
     public float getScale() {
         float average = 0;
-        for (BioVertex biotex : this.map.keySet()) {
-            float scale = biotex.getBiome().getScale();
-            float weight = this.map.get(biotex);
-            average += weight*scale/this.map.size();
+        for (int id = 0; id < this.weights.length; ++id) {
+            average += this.weights[id]*Biome.fromID(id).getScale()/this.count;
         }
         return average;
     }
 
     /**
-     * Returns a String representation of this Shape.
+     * Returns a String representation of this LocalMap.
      *
-     * @return A String representing this Shape.
+     * @return A String representing this LocalMap.
      */
     public String toString() {
-        return String.format("%s: %s", this.biotex.toString(), this.map.toString());
+        return String.format("%s: %d BioVertexes with total weight %.2f", this.biotex.toString(), this.count, this.weightSum);
     }
 
 
@@ -154,12 +117,18 @@ public class LocalMap {
     private BioVertex biotex;
 
     /**
-     * The map that associates BioVertexes with their influence on the reference BioVertex.
+     * The total influence of each Biome on the reference BioVertex, indexed by
+     * Biome ID.
+     */
+    private float[] weights;
+
+    /**
+     * The number of nearby BioVertexes.
      */
-    private Map<BioVertex, Float> map;
+    private int count;
 
     /**
-     * The sum of the weights in the LocalMap map.
+     * The sum of the weights in this LocalMap.
      */
     private float weightSum;
-}
\ No newline at end of file
+}
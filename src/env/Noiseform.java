@@ -1,17 +1,11 @@
 package env;
 
-import bio.Biomix;
-
-import java.util.ArrayList;
-import java.util.Map;
-
-import bio.BioTriangle;
-import bio.BioVertex;
 import bio.Biome;
+import bio.Biomix;
 import core.Logger;
-import geo.Vector;
 import util.Algebra;
-import util.Pair;
+import util.Noise;
+import util.Parallel;
 import util.Progress;
 import util.RNG;
 
@@ -20,38 +14,87 @@ import util.RNG;
  * Specifically, this class uses Perlin noise to distort a given Grid and then
  * texturizes the BioVertexes of the given Grid to reflect the influence of nearby
  * Biomes.
+ *
+ * Each stage of a Noiseform processes the rows of the Grid in parallel bands
+ * (see {@link Parallel}) and returns once every band is complete, so the next
+ * stage always observes the full output of the previous one.
  */
 public class Noiseform {
 
     // Public members
     // -------------------------------------------------------------------------
 
+    /**
+     * The Smoothing enum represents the methods that can be used to remove
+     * prominent edges from the Grid of a Noiseform.
+     */
+    public static enum Smoothing {
+        /**
+         * Averages the elevations under the exact radial Kernel of the Grid.
+         */
+        EXACT,
+        /**
+         * Approximates the radial Kernel of the Grid with a BoxFilter.  This
+         * is much faster for large Grids at the cost of exact parity.
+         */
+        BOX
+    };
+
     /**
      * Constructs a Noiseform with the given Grid and the specified number of
-     * Perlin rows and columns.
+     * Perlin rows and columns.  The Noiseform uses EXACT smoothing with a
+     * radius of 0.05.
      *
      * @param grid The Grid to be associated with this Noiseform.
      * @param rows The number of Perlin rows.
      * @param cols The number of Perlin columns.
      */
     public Noiseform(Grid grid, int rows, int cols) {
+        this(grid, rows, cols, Smoothing.EXACT, 0.05f);
+    }
+
+    /**
+     * Constructs a Noiseform with the given Grid, the specified number of
+     * Perlin rows and columns, and the given Smoothing method and radius.
+     * The Noiseform uses a single octave of Perlin noise.
+     *
+     * @param grid      The Grid to be associated with this Noiseform.
+     * @param rows      The number of Perlin rows.
+     * @param cols      The number of Perlin columns.
+     * @param smoothing The Smoothing method of this Noiseform.
+     * @param radius    The smoothing radius relative to the size of the Grid.
+     */
+    public Noiseform(Grid grid, int rows, int cols, Smoothing smoothing, float radius) {
+        this(grid, rows, cols, smoothing, radius, Noise.Fractal.FBM, 1);
+    }
+
+    /**
+     * Constructs a Noiseform with the given Grid, the specified number of
+     * Perlin rows and columns, the given Smoothing method and radius, and the
+     * given number of Perlin noise octaves.
+     *
+     * @param grid      The Grid to be associated with this Noiseform.
+     * @param rows      The number of Perlin rows.
+     * @param cols      The number of Perlin columns.
+     * @param smoothing The Smoothing method of this Noiseform.
+     * @param radius    The smoothing radius relative to the size of the Grid.
+     * @param fractal   The method used to combine the Perlin noise octaves.
+     * @param octaves   The number of Perlin noise octaves.
+     */
+    public Noiseform(Grid grid, int rows, int cols, Smoothing smoothing, float radius, Noise.Fractal fractal, int octaves) {
         this.grid = grid;
         this.rows = rows;
         this.cols = cols;
-
-        this.gradients = new Vector[rows + 1][cols + 1];
-        for (int row = 0; row <= rows; ++row) {
-            for (int col = 0; col <= cols; ++col) {
-                double angle = 2*Math.PI*RNG.random();
-                float x = (float) Math.cos(angle);
-                float y = (float) Math.sin(angle);
-                this.gradients[row][col] = new Vector(x, y);
-            }
-        }
+        this.smoothing = smoothing;
+        this.radius = radius;
+        this.noise = new Noise(rows, cols, grid.getSeed(), fractal, octaves);
     }
 
 	/**
-	 * Applies this Noisform transformation.
+	 * Applies this Noisform transformation.  This is equivalent to applying the
+	 * disturb, alias, texture, and ground stages in that order; each stage is
+	 * also exposed individually so that it can be benchmarked in isolation.
+	 * The stages depend on each other's output, so they run one after another.
 	 */
     public void apply() {
         this.disturb();
@@ -60,158 +103,102 @@ public class Noiseform {
         this.ground();
     }
 
-    // Private members
-    // -------------------------------------------------------------------------
-
-    /**
-     * The Grid associated with this Noiseform.
-     */
-    private Grid grid;
-
-    /**
-     * The number of Perlin rows to be used in this Noiseform.
-     */
-    private int rows;
-
-    /**
-     * The number of Perlin columns to be used in this Noiseform.
-     */
-    private int cols;
-
-    /**
-     * The map of Perlin gradients used to generate the Perlin noise.
-     */
-    private Vector[][] gradients;
-
     /**
      * Applies a Perlin noise transformation to the Grid associated with this Noiseform.
      */
-    private void disturb() {
+    public void disturb() {
         Logger.info("Applying Perlin noise transformations to %s.", this.grid);
 
         // Define a set of conversion ratios to convert a Grid coordinate into
-        // a Perlin grid coordinate.  An epsilon is thrown in to avoid division
-        // by 0 errors.
-        float epsilon = 1E-4f;
-        float colSize = this.grid.getWidth()/(this.cols - epsilon);
-        float rowSize = this.grid.getHeight()/(this.rows - epsilon);
+        // a Perlin grid coordinate.
+        float colSize = this.grid.getWidth()/this.cols;
+        float rowSize = this.grid.getHeight()/this.rows;
         float minSize = Math.min(colSize, rowSize);
 
         int rows = this.grid.getRows();
         int cols = this.grid.getColumns();
+        Terrain terrain = this.grid.getTerrain();
 
         // The transformation to be applied to each BioVertex in the Grid is
-        // first captured in a cloned BioVertex array to ensure that each
-        // BioVertex is transformed independently.
-        BioVertex[][] biotexes = new BioVertex[rows][cols];
-
-        // Construct a list of all (row, column) indexes in the Grid.
-        ArrayList<Pair<Integer, Integer>> indexes = new ArrayList<>(rows*cols);
-        for (int row = 0; row < rows; ++row) {
-            for (int col = 0; col < cols; ++col) {
-                indexes.add(new Pair<>(row, col));
-                BioVertex biotex = this.grid.getVertex(row, col);
-                biotexes[row][col] = new BioVertex(biotex);
-            }
-        }
+        // first captured in a set of arrays to ensure that each BioVertex is
+        // transformed independently.
+        float[] heights = new float[rows*cols];
+        int[] colours = new int[rows*cols];
+        Biomix[] biomixes = new Biomix[rows*cols];
+
+        // Use Perlin noise to calculate the change in elevation of each
+        // BioVertex.  The noise is measured in Perlin cells, so it is scaled
+        // by the size of a cell to convert it into a Grid distance.
+        float[] noise = new float[rows*cols];
+        float du = this.grid.getWidth()/(cols - 1)/colSize;
+        float dv = this.grid.getHeight()/(rows - 1)/rowSize;
+        this.noise.fill(noise, rows, cols, 0, 0, du, dv);
 
         // Track the progress of the Perlin transformations.
         Progress progress = new Progress("Applied a Perlin noise transformation to %d%% of the current Grid.", 10, rows*cols);
-                
+
         // Computing the Perlin transformation of each BioVertex in parallel
         // drastically improves performance.
-        indexes.parallelStream().forEach(pair -> {
-            int row = pair.getFirst();
-            int col = pair.getSecond();
-
-            BioVertex biotex = biotexes[row][col];
-
-            /**
-             * Use Perlin noise to calculate the change in elevation of this
-             * BioVertex.
-             */
-
-            // Calculate the X and Y components of the BioVertex relative to
-            // the origin of the Grid.
-            float dx = biotex.getX() - this.grid.getMinX();
-            float dy = biotex.getY() - this.grid.getMinY();
-
-            // Map the Grid coordinate of the BioVertex to a Perlin grid coordinate.
-            int colCell = (int) (dx/colSize);
-            int rowCell = (int) (dy/rowSize);
-
-            // Determine the offset of the BioVertex to the Perlin coordinate.
-            float colOffset = dx % colSize;
-            float rowOffset = dy % rowSize;
-
-            // Compute the dot products from each corner of the Perlin cell
-            // to the BioVertex.
-            float[][] dotProducts = new float[2][2];
-            dotProducts[0][0] = gradients[rowCell    ][colCell    ].dot(new Vector(colOffset          , rowOffset    ));
-            dotProducts[0][1] = gradients[rowCell    ][colCell + 1].dot(new Vector(colOffset - colSize, rowOffset    ));
-            dotProducts[1][1] = gradients[rowCell + 1][colCell + 1].dot(new Vector(colOffset - colSize, rowOffset - rowSize));
-            dotProducts[1][0] = gradients[rowCell + 1][colCell    ].dot(new Vector(colOffset          , rowOffset - rowSize));
-
-            // Calculate the elevation influence of the Perlin noise.
-            float colWeight = Algebra.curve(colOffset/colSize);
-            float colDot0 = Algebra.average(dotProducts[0][0], dotProducts[0][1], colWeight);
-            float colDot1 = Algebra.average(dotProducts[1][0], dotProducts[1][1], colWeight);
-
-            float rowWeight = Algebra.curve(rowOffset/rowSize);
-            float dz = Algebra.average(colDot0, colDot1, rowWeight);
-
-            /**
-             * Use nearby BioVertexes to adjust the elevation scaling, Colour,
-             * and Biomix of the current BioVertex.
-             */
-
-            LocalMap locals = new LocalMap(this.grid, row, col, 0.05f);
-
-            Colour colour = locals.getColour();
-            biotex.setColour(colour);
-
-            Biomix biomix = locals.getBiomix();
-            biotex.setBiomix(biomix);
-
-            dz *= locals.getScale();
-            float z = biotex.getZ() + dz;
-
-            // Tie the BioVertex to the ground if it is near a Grid boundary.
-            float colBorder = Math.min(biotex.getX() - this.grid.getMinX(), this.grid.getMaxX() - biotex.getX());
-            float rowBorder = Math.min(biotex.getY() - this.grid.getMinY(), this.grid.getMaxY() - biotex.getY());
-            float minBorder = Math.min(colBorder, rowBorder);
-            if (minBorder < minSize/2) {
-                z *= Algebra.curve(2*minBorder/minSize);
-            }
-            biotex.setZ(z);
-
-            // Update the progress tracker and display a message when a new
-            // milestone is reached.
-            progress.increment();
-            progress.display();
-        });
-
-        // Apply the BioVertex transformations to the Grid BioVertexes.
-        for (int row = 0; row < rows; ++row) {
-            for (int col = 0; col < cols; ++col) {
-                BioVertex newtex = biotexes[row][col];
+        progress.start();
+        try {
+            this.grid.forEachBand((first, last) -> {
+                for (int row = first; row < last; ++row) {
+                    for (int col = 0; col < cols; ++col) {
+                        int index = this.grid.getIndex(row, col);
+
+                        float x = terrain.getX(index);
+                        float y = terrain.getY(index);
+                        float dz = minSize*noise[index];
+
+                        // Use nearby BioVertexes to adjust the elevation scaling,
+                        // Colour, and Biomix of the current BioVertex.
+                        LocalMap locals = new LocalMap(this.grid, row, col, 0.05f);
+
+                        colours[index] = locals.getColour().toRGBA();
+                        biomixes[index] = locals.getBiomix();
+
+                        dz *= locals.getScale();
+                        float z = terrain.getZ(index) + dz;
+
+                        // Tie the BioVertex to the ground if it is near a Grid boundary.
+                        float colBorder = Math.min(x - this.grid.getMinX(), this.grid.getMaxX() - x);
+                        float rowBorder = Math.min(y - this.grid.getMinY(), this.grid.getMaxY() - y);
+                        float minBorder = Math.min(colBorder, rowBorder);
+                        if (minBorder < minSize/2) {
+                            z *= Algebra.curve(2*minBorder/minSize);
+                        }
+                        heights[index] = z;
+                    }
+
+                    // Update the progress tracker; its sampler displays a message
+                    // when a new milestone is reached.
+                    progress.increment(cols);
+                }
+            });
+        } finally {
+            progress.finish();
+        }
 
-                BioVertex biotex = this.grid.getVertex(row, col);
-                biotex.setZ(newtex.getZ());
-                biotex.setColour(newtex.getColour());
-                biotex.setBiomix(newtex.getBiomix());
+        // Apply the BioVertex transformations to the Grid BioVertexes.  The
+        // LocalMaps above read the original Terrain, so this waits for every
+        // band of the previous stage.
+        this.grid.forEachBand((first, last) -> {
+            for (int index = first*cols; index < last*cols; ++index) {
+                terrain.setZ(index, heights[index]);
+                terrain.setRGBA(index, colours[index]);
             }
-        }
+        });
+        terrain.setBiomixes(biomixes);
 
         // Clamp the BioVertex along each edge of the Grid to the base height.
         float base = 0;
         for (int row = 0; row < rows; ++row) {
-            this.grid.getVertex(row, 0       ).setZ(base);
-            this.grid.getVertex(row, cols - 1).setZ(base);
+            terrain.setZ(this.grid.getIndex(row, 0       ), base);
+            terrain.setZ(this.grid.getIndex(row, cols - 1), base);
         }
         for (int col = 0; col < cols; ++col) {
-            this.grid.getVertex(0,        col).setZ(base);
-            this.grid.getVertex(rows - 1, col).setZ(base);
+            terrain.setZ(this.grid.getIndex(0,        col), base);
+            terrain.setZ(this.grid.getIndex(rows - 1, col), base);
         }
 
         Logger.info("Finished applying Perlin noise transformation.");
@@ -221,87 +208,63 @@ public class Noiseform {
      * Remove prominent edges from the Grid of this Noiseform by averaging the
      * elevations of nearby BioVertexes.
      */
-    private void alias() {
+    public void alias() {
         Logger.info("Applying an aliasing transformation to %s.", this.grid);
 
         int rows = this.grid.getRows();
         int cols = this.grid.getColumns();
+        Terrain terrain = this.grid.getTerrain();
 
-        // The height of each BioVertex in the Grid after the aliasing
-        // transformation is first captured in an array to ensure that each
+        // The elevations of the BioVertexes before and after the aliasing
+        // transformation are captured in separate arrays to ensure that each
         // aliasing operation can be applied independently.
-        float[][] heights = new float[rows][cols];
-
-        // Construct a list of all (row, column) indexes in the Grid.
-        ArrayList<Pair<Integer, Integer>> indexes = this.grid.getIndexes();
-
-        // Track the progress of the alias transformations.
-        Progress progress = new Progress("Applied an aliasing transformation to %d%% of the current Grid.", 10, rows*cols);
-
-        // Computing the Perlin transformation of each BioVertex in parallel
-        // drastically improves performance.
-        indexes.parallelStream().forEach(pair -> {
-            int row = pair.getFirst();
-            int col = pair.getSecond();
-
-            /**
-             * Calculate the weighted average elevation of the BioVertex located
-             * at (row, col) using the elevations of nearby BioVertexes.
-             */
-
-            LocalMap localMap = new LocalMap(this.grid, row, col, 0.05f);
-            Map<BioVertex, Float> map = localMap.getMap();
-
-            float zSum = 0f;
-            for (BioVertex biotex : map.keySet()) {
-                float weight = map.get(biotex);
-                float z = biotex.getZ();
-                zSum += weight*z;
+        float[] elevations = new float[rows*cols];
+        this.grid.forEachBand((first, last) -> {
+            for (int index = first*cols; index < last*cols; ++index) {
+                elevations[index] = terrain.getZ(index);
             }
-
-            float weightSum = map.values()
-                                 .stream()
-                                 .reduce(0f, (sum, weight) -> sum + weight);
-            heights[row][col] = zSum/weightSum;
-
-            // Update the progress tracker and display a message when a new
-            // milestone is reached.
-            progress.increment();
-            progress.display();
         });
 
+        float[] heights;
+        if (this.smoothing == Smoothing.BOX) {
+            BoxFilter filter = this.grid.getBoxFilter(this.radius);
+            Logger.debug("Approximating the aliasing transformation with a %s.", filter);
+            heights = filter.apply(elevations);
+        } else {
+            heights = this.average(elevations, this.radius);
+        }
+
         // Apply the aliasing transformations to the Grid BioVertexes.
-        for (int row = 0; row < rows; ++row) {
-            for (int col = 0; col < cols; ++col) {
-                BioVertex biotex = this.grid.getVertex(row, col);
-                biotex.setZ(heights[row][col]);
+        this.grid.forEachBand((first, last) -> {
+            for (int index = first*cols; index < last*cols; ++index) {
+                terrain.setZ(index, heights[index]);
             }
-        }
+        });
     }
 
     /**
      * Apply the weighted texturing of each BioVertex.  The Colour of each
      * BioVertex will also be increase proptional to its elevation.
      */
-    private void texture() {
+    public void texture() {
         Logger.debug("Applying textures to %s.", this.grid);
 
-        for (int row = 0; row < this.grid.getRows(); ++row) {
-            for (int col = 0; col < this.grid.getColumns(); ++col) {
-                BioVertex biotex = this.grid.getVertex(row, col);
-                biotex.getColour().illuminate(biotex.getZ());
+        // Some textures read the elevations of the neighbours of a BioVertex
+        // while others change the elevation of the BioVertex.  The elevations
+        // before the texturing are captured in a separate array so that every
+        // BioVertex reads the same neighbourhood, regardless of the order in
+        // which the rows are textured.
+        int rows = this.grid.getRows();
+        int cols = this.grid.getColumns();
+        Terrain terrain = this.grid.getTerrain();
 
-                for (Pair<Biome, Float> biomePair : biotex.getBiomix()) {
-                    Biome biome = biomePair.getFirst();
-                    float scalar = (float) biomePair.getSecond();
-                    biome.texturize(this.grid, row, col, scalar);
-                }
+        float[] elevations = new float[rows*cols];
+        this.grid.forEachBand((first, last) -> {
+            for (int index = first*cols; index < last*cols; ++index) {
+                elevations[index] = terrain.getZ(index);
             }
-        }
-
-        for (BioTriangle biogle : this.grid.getTriangles()) {
-            biogle.updateColour();
-        }
+        });
+        this.grid.forEachBand((first, last) -> this.texture(elevations, first, last));
     }
 
     /**
@@ -310,25 +273,134 @@ public class Noiseform {
      *    1. The BioVertex is located beneath the ground.
      *    2. The BioVertex is on the edge of the platform.
      */
-    private void ground() {
+    public void ground() {
         Logger.debug("Grounded the BioVertexes in %s.", this.grid);
 
         // Cache the dimensions of the Grid.
         int rows = this.grid.getRows();
         int cols = this.grid.getColumns();
+        Terrain terrain = this.grid.getTerrain();
+
+        this.grid.forEachBand((first, last) -> {
+            for (int row = first; row < last; ++row) {
+                for (int col = 0; col < cols; ++col) {
+                    int index = this.grid.getIndex(row, col);
+
+                    // Determine whether the current BioVertex should be grounded.
+                    boolean below = terrain.getZ(index) < 0;
+                    boolean edge = row == 0 || row == rows - 1 || col == 0 || col == cols - 1;
+                    boolean ground = below || edge;
+
+                    if (ground) {
+                        terrain.setZ(index, 0);
+                        terrain.setOffset(index, 0);
+                    }
+                }
+            }
+        });
+    }
 
-        for (int row = 0; row < rows; ++row) {
-            for (int col = 0; col < cols; ++col) {
-                BioVertex biotex = this.grid.getVertex(row, col);
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The Grid associated with this Noiseform.
+     */
+    private Grid grid;
+
+    /**
+     * The number of Perlin rows to be used in this Noiseform.
+     */
+    private int rows;
+
+    /**
+     * The number of Perlin columns to be used in this Noiseform.
+     */
+    private int cols;
+
+    /**
+     * The Smoothing method used to remove prominent edges from the Grid.
+     */
+    private Smoothing smoothing;
+
+    /**
+     * The smoothing radius relative to the size of the Grid.
+     */
+    private float radius;
+
+    /**
+     * The Noise used to disturb the elevation of the Grid.
+     */
+    private Noise noise;
+
+    /**
+     * Returns the weighted average of the given elevations around each BioVertex
+     * in the Grid of this Noiseform using the exact Kernel of the Grid.
+     *
+     * @param elevations The elevations of the BioVertexes in row-major order.
+     * @param maxdist    The maximum distance to a nearby BioVertex.
+     *
+     * @return The averaged elevations in row-major order.
+     */
+    private float[] average(float[] elevations, float maxdist) {
+        int rows = this.grid.getRows();
+        int cols = this.grid.getColumns();
+        Kernel kernel = this.grid.getKernel(maxdist);
+
+        float[] heights = new float[rows*cols];
+
+        // Track the progress of the alias transformations.
+        Progress progress = new Progress("Applied an aliasing transformation to %d%% of the current Grid.", 10, rows*cols);
+
+        // Computing the average elevation of each BioVertex in parallel
+        // drastically improves performance.
+        progress.start();
+        try {
+            this.grid.forEachBand((first, last) -> {
+                for (int row = first; row < last; ++row) {
+                    // Calculate the weighted average elevation of each BioVertex in
+                    // the row using the elevations of nearby BioVertexes.
+                    for (int col = 0; col < cols; ++col) {
+                        heights[this.grid.getIndex(row, col)] = kernel.average(elevations, row, col);
+                    }
+
+                    // Update the progress tracker; its sampler displays a message
+                    // when a new milestone is reached.
+                    progress.increment(cols);
+                }
+            });
+        } finally {
+            progress.finish();
+        }
+        return heights;
+    }
+
+    /**
+     * Applies the weighted texturing of each BioVertex in the given range of
+     * rows.
+     *
+     * @param elevations The elevations of the Grid BioVertexes before texturing.
+     * @param first      The first row.
+     * @param last       The row after the last row.
+     */
+    private void texture(float[] elevations, int first, int last) {
+        Terrain terrain = this.grid.getTerrain();
+        for (int row = first; row < last; ++row) {
+            for (int col = 0; col < this.grid.getColumns(); ++col) {
+                int index = this.grid.getIndex(row, col);
+
+                // The textures of each BioVertex only depend on its position.
+                RNG.reseed(this.grid.getSeed(), row, col, RNG.Stream.TEXTURES);
 
-                // Determine whether the current BioVertex should be grounded.
-                boolean below = biotex.getZ() < 0;
-                boolean edge = row == 0 || row == rows - 1 || col == 0 || col == cols - 1;
-                boolean ground = below || edge;
+                Colour colour = terrain.getColour(index);
+                colour.illuminate(terrain.getZ(index));
+                terrain.setColour(index, colour);
 
-                if (ground) {
-                    biotex.setZ(0);
-                    biotex.setOffset(0, 0, 0);
+                int count = terrain.getBiomixSize(index);
+                for (int k = 0; k < count; ++k) {
+                    Biome biome = terrain.getBiomixBiome(index, k);
+                    float scalar = terrain.getBiomixWeight(index, k);
+                    biome.texturize(this.grid, elevations, row, col, scalar);
                 }
             }
         }
@@ -1,12 +1,12 @@
 package env;
 
 import core.Logger;
-import geo.Prism;
-import geo.Vertex;
+import geo.Bounds;
 import util.RNG;
 
 /**
- * The Platform class represents the platform beneath the landscape.
+ * The Platform class represents the platform beneath the landscape.  The
+ * stalactites of a Platform are drawn as a single {@link PlatformMesh}.
  */
 public class Platform implements Drawable {
 
@@ -35,59 +35,179 @@ public class Platform implements Drawable {
         this.rows = rows;
         this.cols = cols;
 
-        // Compute the width of the stalactite Prisms along the X and Y dimensions.
-        float dx = (maxX - minX)/cols;
-        float dy = (maxY - minY)/rows;
-
         // The range of stalactite Prism heights.
         float range = (maxZ - minZ)*0.60f;
 
-        this.prisms = new Prism[rows][cols];
-        for (int row = 0; row < rows; ++row) {
-            for (int col = 0; col < cols; ++col) {
-                // The lower X, Y, and Z corner of the stalactite Prism.
-                float lowX = minX + col*dx;
-                float lowY = minY + row*dy;
-                float lowZ = RNG.random(minZ, minZ + range);
-                Vertex low = new Vertex(lowX, lowY, lowZ);
+        this.depths = new float[rows*cols];
+        this.colours = new Colour[rows*cols];
+        for (int i = 0; i < rows*cols; ++i) {
+            this.depths[i] = RNG.random(minZ, minZ + range);
+            this.colours[i] = Colour.random(Colour.Option.LIGHT);
+        }
 
-                // The upper X, Y, and Z corner of the stalactite Prism.
-                float highX = lowX + dx;
-                float highY = lowY + dy;
-                Vertex high = new Vertex(highX, highY, maxZ);
+        this.build();
+        Logger.debug("Created Platform from (%.2f, %.2f, %.2f) to (%.2f, %.2f, %.2f) with (%d x %d) stalactites.", minX, minY, minZ, maxX, maxY, maxZ, rows, cols);
+    }
 
-                Colour clr = Colour.random(Colour.Option.LIGHT);
+    /**
+     * Constructs a Platform with the given geometric constraints and stalactites.
+     *
+     * @param minX    The minimum X constraint.
+     * @param minY    The minimum Y constraint.
+     * @param minZ    The minimum Z constraint.
+     * @param maxX    The maximum X constraint.
+     * @param maxY    The maximum Y constraint.
+     * @param maxZ    The maximum Z constraint.
+     * @param rows    The number of stalactite rows in this Platform.
+     * @param cols    The number of stalactite columns in this Platform.
+     * @param depths  The lower Z-coordinate of each stalactite in row-major order.
+     * @param colours The Colour of each stalactite in row-major order.
+     */
+    public Platform(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int rows, int cols, float[] depths, Colour[] colours) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.rows = rows;
+        this.cols = cols;
 
-                this.prisms[row][col] = new Prism(clr, low, high);
-            }
-        }
-        Logger.debug("Created Platform from (%.2f, %.2f, %.2f) to (%.2f, %.2f, %.2f) with (%d x %d) stalactites.", minX, minY, minZ, maxX, maxY, maxZ, rows, cols);
+        this.depths = depths;
+        this.colours = colours;
+
+        this.build();
+        Logger.debug("Restored Platform from (%.2f, %.2f, %.2f) to (%.2f, %.2f, %.2f) with (%d x %d) stalactites.", minX, minY, minZ, maxX, maxY, maxZ, rows, cols);
     }
 
     /**
      * Draws this Platform.
      */
     public void draw() {
-        for (int row = 0; row < rows; ++row) {
-            for (int col = 0; col < cols; ++col) {
-                this.prisms[row][col].draw();
-            }
-        }
+        this.mesh.draw();
+    }
+
+    /**
+     * Returns the Bounds of this Platform.
+     *
+     * @return The Bounds.
+     */
+    public Bounds getBounds() {
+        return new Bounds(this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ);
     }
 
     /**
-     * Returns the number of Polygons in this Polygon.
+     * Returns the number of Polygons in this Platform.
      *
      * @return The number of Polygons
      */
     public int polygons() {
-        int polygons = 0;
-        for (int row = 0; row < rows; ++row) {
-            for (int col = 0; col < cols; ++col) {
-                polygons += this.prisms[row][col].polygons();
-            }
-        }
-        return polygons;
+        return this.mesh.getFaceCount();
+    }
+
+    /**
+     * Returns the merged static mesh of this Platform.
+     *
+     * @return The PlatformMesh.
+     */
+    public PlatformMesh getMesh() {
+        return this.mesh;
+    }
+
+    /**
+     * Returns the Colour of the stalactite at the given position.
+     *
+     * @param row The row of the stalactite.
+     * @param col The column of the stalactite.
+     *
+     * @return The Colour.
+     */
+    public Colour getColour(int row, int col) {
+        return this.colours[row*this.cols + col];
+    }
+
+    /**
+     * Returns the lower Z-coordinate of the stalactite at the given position.
+     *
+     * @param row The row of the stalactite.
+     * @param col The column of the stalactite.
+     *
+     * @return The lower Z-coordinate.
+     */
+    public float getDepth(int row, int col) {
+        return this.depths[row*this.cols + col];
+    }
+
+    /**
+     * Returns the minimum X-coordinate of this Platform.
+     *
+     * @return The minimum X-coordinate.
+     */
+    public float getMinX() {
+        return this.minX;
+    }
+
+    /**
+     * Returns the minimum Y-coordinate of this Platform.
+     *
+     * @return The minimum Y-coordinate.
+     */
+    public float getMinY() {
+        return this.minY;
+    }
+
+    /**
+     * Returns the minimum Z-coordinate of this Platform.
+     *
+     * @return The minimum Z-coordinate.
+     */
+    public float getMinZ() {
+        return this.minZ;
+    }
+
+    /**
+     * Returns the maximum X-coordinate of this Platform.
+     *
+     * @return The maximum X-coordinate.
+     */
+    public float getMaxX() {
+        return this.maxX;
+    }
+
+    /**
+     * Returns the maximum Y-coordinate of this Platform.
+     *
+     * @return The maximum Y-coordinate.
+     */
+    public float getMaxY() {
+        return this.maxY;
+    }
+
+    /**
+     * Returns the maximum Z-coordinate of this Platform.
+     *
+     * @return The maximum Z-coordinate.
+     */
+    public float getMaxZ() {
+        return this.maxZ;
+    }
+
+    /**
+     * Returns the number of stalactite rows in this Platform.
+     *
+     * @return The number of rows.
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the number of stalactite columns in this Platform.
+     *
+     * @return The number of columns.
+     */
+    public int getColumns() {
+        return this.cols;
     }
 
     /**
@@ -144,7 +264,30 @@ public class Platform implements Drawable {
     private int cols;
 
     /**
-     * The stalactite Prisms that compose this Platform.
+     * The merged static mesh of the stalactites that compose this Platform.
+     */
+    private PlatformMesh mesh;
+
+    /**
+     * The lower Z-coordinate of each stalactite in row-major order.
      */
-    private Prism[][] prisms;
-}
\ No newline at end of file
+    private float[] depths;
+
+    /**
+     * The Colour of each stalactite in row-major order.
+     */
+    private Colour[] colours;
+
+    /**
+     * Creates the merged static mesh of the stalactites of this Platform.
+     */
+    private void build() {
+        this.mesh = new PlatformMesh(this);
+        Logger.debug("Merged %d stalactite faces into %d faces (%d tops, %d walls, and %d tips).",
+                     6*this.rows*this.cols,
+                     this.mesh.getFaceCount(),
+                     this.mesh.getTopCount(),
+                     this.mesh.getWallCount(),
+                     this.mesh.getTipCount());
+    }
+}
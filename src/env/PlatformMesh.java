@@ -0,0 +1,378 @@
+package env;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * The PlatformMesh class represents the static, retained-mode mesh of a
+ * Platform.  Instead of drawing six Quads for every stalactite, the mesh only
+ * contains the faces that can be seen:
+ *
+ *   1. The tops of the stalactites are coplanar, so neighbouring tops with the
+ *      same Colour are merged into rectangles.
+ *   2. The wall between two neighbouring stalactites is hidden wherever both
+ *      stalactites extend, so only the part of the wall that hangs below the
+ *      shallower stalactite is kept.
+ *   3. The tip at the bottom of each stalactite is always kept.
+ *
+ * The faces keep the winding and normals of the corresponding {@link geo.Prism}
+ * faces and are packed into one interleaved buffer that is uploaded to the GPU
+ * once and drawn with a single call.
+ */
+public class PlatformMesh {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of floats describing each vertex in the vertex buffer: three
+     * position components, three normal components, and four colour components.
+     */
+    public static final int STRIDE = 10;
+
+    /**
+     * Constructs a PlatformMesh for the given Platform.  The CPU-side buffer is
+     * packed immediately; no OpenGL calls are made until the PlatformMesh is
+     * drawn.
+     *
+     * @param platform The Platform represented by this PlatformMesh.
+     */
+    public PlatformMesh(Platform platform) {
+        this.platform = platform;
+
+        int rows = platform.getRows();
+        int cols = platform.getColumns();
+        this.dx = (platform.getMaxX() - platform.getMinX())/cols;
+        this.dy = (platform.getMaxY() - platform.getMinY())/rows;
+
+        // Count the faces before packing them so that the buffer is allocated once.
+        int[] tops = this.merge();
+        this.topCount = tops.length/4;
+        this.tipCount = rows*cols;
+        this.wallCount = 0;
+        for (int row = 0; row < rows; ++row) {
+            for (int col = 0; col < cols; ++col) {
+                for (int side = 0; side < 4; ++side) {
+                    if (this.getWallTop(row, col, side) > platform.getDepth(row, col)) {
+                        ++this.wallCount;
+                    }
+                }
+            }
+        }
+
+        this.buffer = BufferUtils.createFloatBuffer(4*STRIDE*this.getFaceCount());
+        this.vbo = 0;
+        this.pack(tops);
+    }
+
+    /**
+     * Draws this PlatformMesh.  The vertex buffer is uploaded to the GPU during
+     * the first call to draw().
+     */
+    public void draw() {
+        if (this.vbo == 0) {
+            this.vbo = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, this.vbo);
+            glBufferData(GL_ARRAY_BUFFER, this.buffer, GL_STATIC_DRAW);
+        }
+
+        int bytes = STRIDE*Float.BYTES;
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glEnableClientState(GL_NORMAL_ARRAY);
+        glEnableClientState(GL_COLOR_ARRAY);
+        glBindBuffer(GL_ARRAY_BUFFER, this.vbo);
+        glVertexPointer(3, GL_FLOAT, bytes, 0);
+        glNormalPointer(GL_FLOAT, bytes, 3*Float.BYTES);
+        glColorPointer(4, GL_FLOAT, bytes, 6*Float.BYTES);
+
+        glDrawArrays(GL_QUADS, 0, 4*this.getFaceCount());
+
+        glDisableClientState(GL_COLOR_ARRAY);
+        glDisableClientState(GL_NORMAL_ARRAY);
+        glDisableClientState(GL_VERTEX_ARRAY);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Releases the OpenGL buffer object of this PlatformMesh.  The buffer is
+     * uploaded again if this PlatformMesh is drawn afterwards.  This function
+     * must be called from the thread that owns the OpenGL context.
+     */
+    public void dispose() {
+        if (this.vbo != 0) {
+            glDeleteBuffers(this.vbo);
+            this.vbo = 0;
+        }
+    }
+
+    /**
+     * Returns the number of faces in this PlatformMesh.
+     *
+     * @return The number of faces.
+     */
+    public int getFaceCount() {
+        return this.topCount + this.wallCount + this.tipCount;
+    }
+
+    /**
+     * Returns the number of merged top faces in this PlatformMesh.
+     *
+     * @return The number of top faces.
+     */
+    public int getTopCount() {
+        return this.topCount;
+    }
+
+    /**
+     * Returns the number of (partial) wall faces in this PlatformMesh.
+     *
+     * @return The number of wall faces.
+     */
+    public int getWallCount() {
+        return this.wallCount;
+    }
+
+    /**
+     * Returns the number of tip faces in this PlatformMesh.
+     *
+     * @return The number of tip faces.
+     */
+    public int getTipCount() {
+        return this.tipCount;
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The row and column offsets of the neighbour on each side of a stalactite:
+     * front (-Y), left (-X), back (+Y), and right (+X).
+     */
+    private static final int[][] SIDES = {{-1, 0}, {0, -1}, {1, 0}, {0, 1}};
+
+    /**
+     * The Platform represented by this PlatformMesh.
+     */
+    private Platform platform;
+
+    /**
+     * The width of a stalactite along the X dimension.
+     */
+    private float dx;
+
+    /**
+     * The width of a stalactite along the Y dimension.
+     */
+    private float dy;
+
+    /**
+     * The number of merged top faces.
+     */
+    private int topCount;
+
+    /**
+     * The number of (partial) wall faces.
+     */
+    private int wallCount;
+
+    /**
+     * The number of tip faces.
+     */
+    private int tipCount;
+
+    /**
+     * The interleaved vertex buffer with 4 vertexes per face.
+     */
+    private FloatBuffer buffer;
+
+    /**
+     * The OpenGL name of the vertex buffer object, or 0 if it is not uploaded.
+     */
+    private int vbo;
+
+    /**
+     * Merges the tops of the stalactites into rectangles of the same Colour.
+     * Each rectangle grows greedily along its row and then along the rows
+     * above it for as long as every stalactite it covers shares its Colour.
+     *
+     * @return The rectangles as [row, col, rows, cols] quadruplets.
+     */
+    private int[] merge() {
+        int rows = this.platform.getRows();
+        int cols = this.platform.getColumns();
+
+        int[] rects = new int[4*rows*cols];
+        int count = 0;
+        boolean[] merged = new boolean[rows*cols];
+        for (int row = 0; row < rows; ++row) {
+            for (int col = 0; col < cols; ++col) {
+                if (merged[row*cols + col]) {
+                    continue;
+                }
+                Colour colour = this.platform.getColour(row, col);
+
+                int width = 1;
+                while (col + width < cols && !merged[row*cols + col + width] && this.matches(row, col + width, colour)) {
+                    ++width;
+                }
+
+                int height = 1;
+                grow:
+                while (row + height < rows) {
+                    for (int c = col; c < col + width; ++c) {
+                        if (merged[(row + height)*cols + c] || !this.matches(row + height, c, colour)) {
+                            break grow;
+                        }
+                    }
+                    ++height;
+                }
+
+                for (int r = row; r < row + height; ++r) {
+                    for (int c = col; c < col + width; ++c) {
+                        merged[r*cols + c] = true;
+                    }
+                }
+                rects[4*count]     = row;
+                rects[4*count + 1] = col;
+                rects[4*count + 2] = height;
+                rects[4*count + 3] = width;
+                ++count;
+            }
+        }
+
+        int[] result = new int[4*count];
+        System.arraycopy(rects, 0, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * Returns true if the stalactite at the given position has the given Colour.
+     *
+     * @param row    The row of the stalactite.
+     * @param col    The column of the stalactite.
+     * @param colour The Colour.
+     *
+     * @return True if the Colours are identical.
+     */
+    private boolean matches(int row, int col, Colour colour) {
+        Colour other = this.platform.getColour(row, col);
+        return other.getRed()   == colour.getRed()
+            && other.getGreen() == colour.getGreen()
+            && other.getBlue()  == colour.getBlue()
+            && other.getAlpha() == colour.getAlpha();
+    }
+
+    /**
+     * Returns the upper Z-coordinate of the visible part of the wall on the
+     * given side of the given stalactite.  The wall is visible from the tip of
+     * the stalactite up to the tip of its neighbour (or up to the top of the
+     * Platform along its boundary).
+     *
+     * @param row  The row of the stalactite.
+     * @param col  The column of the stalactite.
+     * @param side The side of the stalactite (see SIDES).
+     *
+     * @return The upper Z-coordinate of the wall.
+     */
+    private float getWallTop(int row, int col, int side) {
+        int r = row + SIDES[side][0];
+        int c = col + SIDES[side][1];
+        if (r < 0 || r >= this.platform.getRows() || c < 0 || c >= this.platform.getColumns()) {
+            return this.platform.getMaxZ();
+        }
+        return Math.min(this.platform.getMaxZ(), this.platform.getDepth(r, c));
+    }
+
+    /**
+     * Packs the faces of this PlatformMesh into the vertex buffer.
+     *
+     * @param tops The merged top rectangles (see merge()).
+     */
+    private void pack(int[] tops) {
+        float maxZ = this.platform.getMaxZ();
+
+        for (int i = 0; i < tops.length; i += 4) {
+            int row = tops[i], col = tops[i + 1];
+            float x0 = this.getX(col), x1 = this.getX(col + tops[i + 3]);
+            float y0 = this.getY(row), y1 = this.getY(row + tops[i + 2]);
+            this.quad(this.platform.getColour(row, col), 0, 0, 1,
+                      x0, y0, maxZ,  x0, y1, maxZ,  x1, y1, maxZ,  x1, y0, maxZ);
+        }
+
+        for (int row = 0; row < this.platform.getRows(); ++row) {
+            for (int col = 0; col < this.platform.getColumns(); ++col) {
+                Colour colour = this.platform.getColour(row, col);
+                float x0 = this.getX(col), x1 = this.getX(col + 1);
+                float y0 = this.getY(row), y1 = this.getY(row + 1);
+                float z0 = this.platform.getDepth(row, col);
+
+                // The Vertexes of each face are ordered like those of a Prism.
+                this.quad(colour, 0, 0, -1, x0, y0, z0,  x1, y0, z0,  x1, y1, z0,  x0, y1, z0);
+
+                float z1 = this.getWallTop(row, col, 0);
+                if (z1 > z0) {
+                    this.quad(colour, 0, -1, 0, x0, y0, z0,  x0, y0, z1,  x1, y0, z1,  x1, y0, z0);
+                }
+                z1 = this.getWallTop(row, col, 1);
+                if (z1 > z0) {
+                    this.quad(colour, -1, 0, 0, x0, y0, z0,  x0, y1, z0,  x0, y1, z1,  x0, y0, z1);
+                }
+                z1 = this.getWallTop(row, col, 2);
+                if (z1 > z0) {
+                    this.quad(colour, 0, 1, 0, x0, y1, z0,  x1, y1, z0,  x1, y1, z1,  x0, y1, z1);
+                }
+                z1 = this.getWallTop(row, col, 3);
+                if (z1 > z0) {
+                    this.quad(colour, 1, 0, 0, x1, y0, z0,  x1, y0, z1,  x1, y1, z1,  x1, y1, z0);
+                }
+            }
+        }
+        this.buffer.flip();
+    }
+
+    /**
+     * Returns the X-coordinate of the left edge of the given column.  Every
+     * face derives its coordinates from the same edges so that the faces meet
+     * without cracks.
+     *
+     * @param col The column.
+     *
+     * @return The X-coordinate.
+     */
+    private float getX(int col) {
+        return col == this.platform.getColumns() ? this.platform.getMaxX() : this.platform.getMinX() + col*this.dx;
+    }
+
+    /**
+     * Returns the Y-coordinate of the lower edge of the given row.
+     *
+     * @param row The row.
+     *
+     * @return The Y-coordinate.
+     */
+    private float getY(int row) {
+        return row == this.platform.getRows() ? this.platform.getMaxY() : this.platform.getMinY() + row*this.dy;
+    }
+
+    /**
+     * Adds a face with the given Colour, normal, and corners to the vertex buffer.
+     *
+     * @param colour  The Colour of the face.
+     * @param nx      The X-component of the normal.
+     * @param ny      The Y-component of the normal.
+     * @param nz      The Z-component of the normal.
+     * @param corners The [x, y, z] coordinates of the 4 corners of the face.
+     */
+    private void quad(Colour colour, float nx, float ny, float nz, float ... corners) {
+        for (int i = 0; i < 12; i += 3) {
+            this.buffer.put(corners[i]).put(corners[i + 1]).put(corners[i + 2]);
+            this.buffer.put(nx).put(ny).put(nz);
+            this.buffer.put(colour.getRed()).put(colour.getGreen()).put(colour.getBlue()).put(colour.getAlpha());
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package env;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import core.Logger;
+import geo.Vertex;
+import util.RNG;
+
+/**
+ * The Snapshot class reads and writes the generated contents of a World in a
+ * compact binary format.  Loading a Snapshot skips the generation of the World
+ * entirely: the Terrain of each Grid is copied straight out of a memory-mapped
+ * file.
+ *
+ * All values are stored in little-endian byte order using the following layout:
+ *
+ *     Header:   int magic, int version, long seed
+ *     Platform: float minX, minY, minZ, maxX, maxY, maxZ, int rows, cols,
+ *               float[rows*cols] depths, float[4*rows*cols] colours (RGBA)
+ *     Lights:   int count, {float x, y, z, float r, g, b, a}[count]
+ *     Grids:    int count, {short length, byte[length] name (UTF-8), int rows, cols,
+ *                           float minX, minY, maxX, maxY, Terrain}[count]
+ *
+ * See {@link Terrain#write} for the layout of a Terrain.
+ */
+public class Snapshot {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The magic number at the start of every Snapshot ("GEOS").
+     */
+    public static final int MAGIC = 0x47454F53;
+
+    /**
+     * The version of the Snapshot format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Returns the seed of the RNG that generated the Snapshot at the given
+     * path.  Only the header of the Snapshot is read.
+     *
+     * @param path The path of the Snapshot.
+     *
+     * @return The seed.
+     *
+     * @throws IOException If the header of the Snapshot cannot be read or is
+     *                     malformed.
+     */
+    public static long readSeed(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+        }
+        if (buffer.hasRemaining()) {
+            throw new IOException(String.format("Snapshot \"%s\" is malformed.", path));
+        }
+        buffer.flip();
+        return Snapshot.readHeader(buffer, path);
+    }
+
+    /**
+     * Writes the Platform, Lights, and Grids of the given World to a Snapshot
+     * at the specified path.
+     *
+     * @param world The World to write.
+     * @param path  The path of the Snapshot.
+     *
+     * @throws IOException If the Snapshot cannot be written.
+     */
+    public static void write(World world, Path path) throws IOException {
+        Platform platform = world.getPlatform();
+        if (platform == null) {
+            throw new IllegalArgumentException("A World must have a Platform to be written to a Snapshot.");
+        }
+
+        // Compute the size of the Snapshot so that it can be written in one go.
+        int stalactites = platform.getRows()*platform.getColumns();
+        int bytes = HEADER_BYTES;
+        bytes += 6*Float.BYTES + 2*Integer.BYTES + stalactites*5*Float.BYTES;
+        bytes += Integer.BYTES + world.getLights().size()*7*Float.BYTES;
+        bytes += Integer.BYTES;
+        for (Grid grid : world.getGrids()) {
+            byte[] name = grid.getName().getBytes(StandardCharsets.UTF_8);
+            bytes += Short.BYTES + name.length + 2*Integer.BYTES + 4*Float.BYTES + grid.getTerrain().bytes();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(RNG.getSeed());
+
+        buffer.putFloat(platform.getMinX());
+        buffer.putFloat(platform.getMinY());
+        buffer.putFloat(platform.getMinZ());
+        buffer.putFloat(platform.getMaxX());
+        buffer.putFloat(platform.getMaxY());
+        buffer.putFloat(platform.getMaxZ());
+        buffer.putInt(platform.getRows());
+        buffer.putInt(platform.getColumns());
+        for (int row = 0; row < platform.getRows(); ++row) {
+            for (int col = 0; col < platform.getColumns(); ++col) {
+                buffer.putFloat(platform.getDepth(row, col));
+            }
+        }
+        for (int row = 0; row < platform.getRows(); ++row) {
+            for (int col = 0; col < platform.getColumns(); ++col) {
+                Snapshot.putColour(buffer, platform.getColour(row, col));
+            }
+        }
+
+        buffer.putInt(world.getLights().size());
+        for (Light light : world.getLights()) {
+            Vertex position = light.getPosition();
+            buffer.putFloat(position.getX());
+            buffer.putFloat(position.getY());
+            buffer.putFloat(position.getZ());
+            Snapshot.putColour(buffer, light.getColour());
+        }
+
+        buffer.putInt(world.getGrids().size());
+        for (Grid grid : world.getGrids()) {
+            byte[] name = grid.getName().getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+            buffer.putInt(grid.getRows());
+            buffer.putInt(grid.getColumns());
+            buffer.putFloat(grid.getMinX());
+            buffer.putFloat(grid.getMinY());
+            buffer.putFloat(grid.getMaxX());
+            buffer.putFloat(grid.getMaxY());
+            grid.getTerrain().write(buffer);
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Logger.info("Wrote a %d byte Snapshot of %s to \"%s\".", bytes, world, path);
+    }
+
+    /**
+     * Reads the Snapshot at the given path and adds its Platform, Grids, and
+     * Lights to the specified World.
+     *
+     * @param path  The path of the Snapshot.
+     * @param world The World that receives the contents of the Snapshot.
+     *
+     * @throws IOException If the Snapshot cannot be read or is malformed.
+     */
+    public static void read(Path path, World world) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            long seed = Snapshot.readHeader(buffer, path);
+            Logger.info("Reading Snapshot \"%s\" generated with seed %d.", path, seed);
+
+            float minX = buffer.getFloat();
+            float minY = buffer.getFloat();
+            float minZ = buffer.getFloat();
+            float maxX = buffer.getFloat();
+            float maxY = buffer.getFloat();
+            float maxZ = buffer.getFloat();
+            int rows = buffer.getInt();
+            int cols = buffer.getInt();
+            if (rows <= 0 || cols <= 0) {
+                throw new IOException(String.format("Snapshot \"%s\" has a Platform with %d rows and %d columns.", path, rows, cols));
+            }
+            Snapshot.require(buffer, (long) rows*cols, 5*Float.BYTES, "stalactites");
+
+            float[] depths = new float[rows*cols];
+            buffer.asFloatBuffer().get(depths);
+            buffer.position(buffer.position() + depths.length*Float.BYTES);
+
+            Colour[] colours = new Colour[rows*cols];
+            for (int i = 0; i < colours.length; ++i) {
+                colours[i] = Snapshot.getColour(buffer);
+            }
+            world.setPlatform(new Platform(minX, minY, minZ, maxX, maxY, maxZ, rows, cols, depths, colours));
+
+            // The Lights are added after the Grids to preserve the drawing order
+            // of a generated World.
+            int lightCount = buffer.getInt();
+            Snapshot.require(buffer, lightCount, 7*Float.BYTES, "Lights");
+            Light[] lights = new Light[lightCount];
+            for (int i = 0; i < lightCount; ++i) {
+                Vertex location = new Vertex(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+                lights[i] = new Light(location, Snapshot.getColour(buffer));
+            }
+
+            int gridCount = buffer.getInt();
+            Snapshot.require(buffer, gridCount, Short.BYTES, "Grids");
+            for (int i = 0; i < gridCount; ++i) {
+                // The length of the name is written as an unsigned short.
+                int length = buffer.getShort() & 0xFFFF;
+                Snapshot.require(buffer, length, Byte.BYTES, "name bytes");
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                String name = new String(bytes, StandardCharsets.UTF_8);
+
+                int gridRows = buffer.getInt();
+                int gridCols = buffer.getInt();
+                float gridMinX = buffer.getFloat();
+                float gridMinY = buffer.getFloat();
+                float gridMaxX = buffer.getFloat();
+                float gridMaxY = buffer.getFloat();
+                Terrain terrain = Terrain.read(buffer);
+
+                world.addGrids(new Grid(name, gridRows, gridCols, gridMinX, gridMinY, gridMaxX, gridMaxY, terrain));
+            }
+            world.addLights(lights);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException(String.format("Snapshot \"%s\" is malformed.", path), e);
+        }
+    }
+
+
+    // Package-private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Checks that the given buffer has room for the given number of elements
+     * of the given size.  Counts are read from the Snapshot itself, so they are
+     * validated before they are used to allocate arrays.
+     *
+     * @param buffer The buffer.
+     * @param count  The number of elements.
+     * @param bytes  The number of bytes in each element.
+     * @param name   The name of the elements (for the error message).
+     *
+     * @throws IOException If the count is negative or the elements do not fit
+     *                     in the remainder of the buffer.
+     */
+    static void require(ByteBuffer buffer, long count, long bytes, String name) throws IOException {
+        if (count < 0 || count > buffer.remaining()/bytes) {
+            throw new IOException(String.format("The Snapshot declares %d %s, but only %d bytes remain.", count, name, buffer.remaining()));
+        }
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of bytes in the header of a Snapshot.
+     */
+    private static final int HEADER_BYTES = 2*Integer.BYTES + Long.BYTES;
+
+    /**
+     * Reads the header of a Snapshot from the given buffer.
+     *
+     * @param buffer The buffer, positioned at the start of the Snapshot.
+     * @param path   The path of the Snapshot (for error messages).
+     *
+     * @return The seed of the RNG that generated the Snapshot.
+     *
+     * @throws IOException If the header is not that of a supported Snapshot.
+     */
+    private static long readHeader(ByteBuffer buffer, Path path) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException(String.format("File \"%s\" is not a Snapshot.", path));
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException(String.format("Snapshot \"%s\" has unsupported version %d.", path, version));
+        }
+        return buffer.getLong();
+    }
+
+    /**
+     * Writes the RGBA components of the given Colour to the buffer.
+     *
+     * @param buffer The buffer.
+     * @param colour The Colour to write.
+     */
+    private static void putColour(ByteBuffer buffer, Colour colour) {
+        buffer.putFloat(colour.getRed());
+        buffer.putFloat(colour.getGreen());
+        buffer.putFloat(colour.getBlue());
+        buffer.putFloat(colour.getAlpha());
+    }
+
+    /**
+     * Reads a Colour that was written with {@link #putColour} from the buffer.
+     *
+     * @param buffer The buffer.
+     *
+     * @return The Colour.
+     */
+    private static Colour getColour(ByteBuffer buffer) {
+        return new Colour(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+    }
+}
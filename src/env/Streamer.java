@@ -0,0 +1,420 @@
+package env;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import core.Config;
+import core.Logger;
+import geo.Frustum;
+
+/**
+ * The Streamer class streams the Chunks of an unbounded World around a focal
+ * point (typically the Camera).  Missing Chunks near the focal point are
+ * generated asynchronously on a pool of worker threads, and Chunks that drift
+ * too far away are evicted.  The number of resident and pending Chunks never
+ * exceeds the Chunk budget; when the budget is full, the least recently used
+ * Chunk is evicted first.  A Chunk whose generation fails is not scheduled
+ * again until it leaves the streaming radius.
+ *
+ * Apart from the worker threads, a Streamer must only be accessed from the
+ * thread that owns the OpenGL context.  To avoid frame-time spikes, at most one
+ * finished Chunk is integrated into the World per call to {@link #track}.
+ */
+public class Streamer implements Drawable {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs a Streamer with the given generation parameters.
+     *
+     * @param config The parameters used to generate and stream the Chunks.
+     */
+    public Streamer(Config config) {
+        this.factory = new ChunkFactory(config);
+        this.radius = config.getChunkRadius();
+        this.budget = config.getChunkBudget();
+
+        this.resident = new LinkedHashMap<>(16, 0.75f, true);
+        this.pending = new HashMap<>();
+        this.arrivals = new ConcurrentLinkedQueue<>();
+        this.failures = new ConcurrentLinkedQueue<>();
+        this.failed = new HashSet<>();
+
+        // Order the offsets within the streaming radius from nearest to farthest.
+        this.offsets = new ArrayList<>();
+        for (int dr = -this.radius; dr <= this.radius; ++dr) {
+            for (int dc = -this.radius; dc <= this.radius; ++dc) {
+                this.offsets.add(new int[] {dr, dc});
+            }
+        }
+        this.offsets.sort(Comparator.comparingInt(offset -> offset[0]*offset[0] + offset[1]*offset[1]));
+
+        // Generation should not compete with the rendering thread, so the
+        // workers leave one of the generation threads idle and run at a lower
+        // priority.
+        int threads = Math.max(1, config.getThreads() - 1);
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "Streamer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        Logger.info("Streaming Chunks within %d Chunks of the Camera using %s (budget %d).", this.radius, this.factory, this.budget);
+    }
+
+    /**
+     * Draws the resident Chunks of this Streamer.
+     */
+    public void draw() {
+        for (Chunk chunk : this.resident.values()) {
+            chunk.draw();
+        }
+    }
+
+    /**
+     * Draws the parts of the resident Chunks of this Streamer that intersect
+     * the given Frustum.
+     *
+     * @param frustum The viewing Frustum.
+     */
+    public void draw(Frustum frustum) {
+        for (Chunk chunk : this.resident.values()) {
+            chunk.draw(frustum);
+        }
+    }
+
+    /**
+     * Returns the number of Polygons in the resident Chunks of this Streamer.
+     *
+     * @return The number of Polygons.
+     */
+    public int polygons() {
+        int polygons = 0;
+        for (Chunk chunk : this.resident.values()) {
+            polygons += chunk.polygons();
+        }
+        return polygons;
+    }
+
+    /**
+     * Streams the Chunks around the given focal point.  Missing Chunks within
+     * the streaming radius are scheduled (nearest first), at most one finished
+     * Chunk is integrated, and Chunks beyond the streaming radius are evicted.
+     *
+     * @param x The X-coordinate of the focal point.
+     * @param y The Y-coordinate of the focal point.
+     */
+    public void track(float x, float y) {
+        int row = (int) Math.floor(y/ChunkFactory.EXTENT);
+        int col = (int) Math.floor(x/ChunkFactory.EXTENT);
+
+        Chunk chunk = this.arrivals.poll();
+        if (chunk != null) {
+            this.integrate(chunk, row, col);
+        }
+        this.release();
+        this.evict(row, col);
+        this.schedule(row, col);
+    }
+
+    /**
+     * Generates every Chunk within the streaming radius of the given focal
+     * point and blocks until all of them are resident.
+     *
+     * @param x The X-coordinate of the focal point.
+     * @param y The Y-coordinate of the focal point.
+     */
+    public void preload(float x, float y) {
+        int row = (int) Math.floor(y/ChunkFactory.EXTENT);
+        int col = (int) Math.floor(x/ChunkFactory.EXTENT);
+
+        this.evict(row, col);
+        this.schedule(row, col);
+        for (Future<?> future : new ArrayList<>(this.pending.values())) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                Logger.error("Failed to preload a Chunk: %s", e.getCause());
+            }
+        }
+
+        Chunk chunk;
+        while ((chunk = this.arrivals.poll()) != null) {
+            this.integrate(chunk, row, col);
+        }
+        this.release();
+    }
+
+    /**
+     * Selects the level of detail of the resident Chunks of this Streamer for
+     * a Camera at the given position.
+     *
+     * @param x        The X-coordinate of the Camera.
+     * @param y        The Y-coordinate of the Camera.
+     * @param z        The Z-coordinate of the Camera.
+     * @param distance The distance beyond which the Chunks lose detail.
+     */
+    public void focus(float x, float y, float z, float distance) {
+        for (Chunk chunk : this.resident.values()) {
+            chunk.focus(x, y, z, distance);
+        }
+    }
+
+    /**
+     * Updates the resident Chunks of this Streamer using the given time.
+     *
+     * @param time The uptime of the application (in seconds).
+     */
+    public void update(double time) {
+        for (Chunk chunk : this.resident.values()) {
+            chunk.update(time);
+        }
+    }
+
+    /**
+     * Stops the worker threads of this Streamer and evicts every resident Chunk.
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+        this.pending.clear();
+        this.arrivals.clear();
+        this.failures.clear();
+        this.failed.clear();
+        for (Chunk chunk : this.resident.values()) {
+            chunk.dispose();
+        }
+        this.resident.clear();
+    }
+
+    /**
+     * Returns the resident Chunks of this Streamer, from least to most recently
+     * used.
+     *
+     * @return The resident Chunks.
+     */
+    public List<Chunk> getChunks() {
+        return new ArrayList<>(this.resident.values());
+    }
+
+    /**
+     * Returns the number of Chunks that are being generated by this Streamer.
+     *
+     * @return The number of pending Chunks.
+     */
+    public int getPendingCount() {
+        return this.pending.size();
+    }
+
+    /**
+     * Returns a String representation of this Streamer.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("Streamer (%d resident, %d pending, budget %d)", this.resident.size(), this.pending.size(), this.budget);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The ChunkFactory that generates the Chunks.
+     */
+    private ChunkFactory factory;
+
+    /**
+     * The streaming radius (in Chunks).
+     */
+    private int radius;
+
+    /**
+     * The maximum number of resident and pending Chunks.
+     */
+    private int budget;
+
+    /**
+     * The (row, column) offsets within the streaming radius, nearest first.
+     */
+    private List<int[]> offsets;
+
+    /**
+     * The resident Chunks in access order, keyed by position.
+     */
+    private LinkedHashMap<Long, Chunk> resident;
+
+    /**
+     * The Chunks that are being generated, keyed by position.
+     */
+    private Map<Long, Future<?>> pending;
+
+    /**
+     * The Chunks that have been generated but not yet integrated.
+     */
+    private Queue<Chunk> arrivals;
+
+    /**
+     * The keys of the Chunks whose generation failed but that are still
+     * pending.  The worker threads add to this queue; the keys are released
+     * from the pending Chunks by the thread that owns the OpenGL context.
+     */
+    private Queue<Long> failures;
+
+    /**
+     * The keys of the Chunks whose generation failed.  These Chunks are not
+     * scheduled again until they are too far away from the focal Chunk.
+     */
+    private Set<Long> failed;
+
+    /**
+     * The worker threads that generate the Chunks.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Returns the key of the Chunk at the given row and column.
+     *
+     * @param row The row of the Chunk.
+     * @param col The column of the Chunk.
+     *
+     * @return The key.
+     */
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns true if the Chunk at the given position should be evicted when
+     * the focal point lies in the Chunk at the given focal row and column.
+     * Chunks are kept one Chunk past the streaming radius to avoid thrashing
+     * when the focal point oscillates across a Chunk boundary.
+     *
+     * @param row      The row of the Chunk.
+     * @param col      The column of the Chunk.
+     * @param focusRow The row of the focal Chunk.
+     * @param focusCol The column of the focal Chunk.
+     *
+     * @return True if the Chunk is too far away.
+     */
+    private boolean isDistant(int row, int col, int focusRow, int focusCol) {
+        return Math.max(Math.abs(row - focusRow), Math.abs(col - focusCol)) > this.radius + 1;
+    }
+
+    /**
+     * Adds the given finished Chunk to the resident Chunks unless it is already
+     * too far away from the focal Chunk or resident (which can happen when a
+     * Chunk is rescheduled after its generation was cancelled too late).  The
+     * Chunk has not been drawn yet, so a discarded Chunk holds no OpenGL
+     * resources.
+     *
+     * @param chunk    The finished Chunk.
+     * @param focusRow The row of the focal Chunk.
+     * @param focusCol The column of the focal Chunk.
+     */
+    private void integrate(Chunk chunk, int focusRow, int focusCol) {
+        long key = Streamer.key(chunk.getRow(), chunk.getColumn());
+        this.pending.remove(key);
+        boolean distant = this.isDistant(chunk.getRow(), chunk.getColumn(), focusRow, focusCol);
+        if (!distant && !this.resident.containsKey(key)) {
+            this.resident.put(key, chunk);
+            Logger.debug("Streamed %s into the World.", chunk);
+        }
+    }
+
+    /**
+     * Removes the Chunks whose generation failed from the pending Chunks so
+     * that they no longer count towards the budget.
+     */
+    private void release() {
+        Long key;
+        while ((key = this.failures.poll()) != null) {
+            this.pending.remove(key);
+            this.failed.add(key);
+        }
+    }
+
+    /**
+     * Evicts the resident Chunks that are too far away from the focal Chunk,
+     * followed by the least recently used Chunks if the budget is exceeded.
+     * Pending Chunks that are too far away are cancelled, and failed Chunks
+     * that are too far away may be scheduled again once they come back.
+     *
+     * @param focusRow The row of the focal Chunk.
+     * @param focusCol The column of the focal Chunk.
+     */
+    private void evict(int focusRow, int focusCol) {
+        Iterator<Chunk> chunks = this.resident.values().iterator();
+        while (chunks.hasNext()) {
+            Chunk chunk = chunks.next();
+            boolean distant = this.isDistant(chunk.getRow(), chunk.getColumn(), focusRow, focusCol);
+            if (distant || this.resident.size() + this.pending.size() > this.budget) {
+                chunk.dispose();
+                chunks.remove();
+            }
+        }
+
+        Iterator<Map.Entry<Long, Future<?>>> futures = this.pending.entrySet().iterator();
+        while (futures.hasNext()) {
+            Map.Entry<Long, Future<?>> entry = futures.next();
+            int row = (int) (entry.getKey() >> 32);
+            int col = (int) (long) entry.getKey();
+            if (this.isDistant(row, col, focusRow, focusCol)) {
+                entry.getValue().cancel(false);
+                futures.remove();
+            }
+        }
+
+        this.failed.removeIf(key -> this.isDistant((int) (key >> 32), (int) (long) key, focusRow, focusCol));
+    }
+
+    /**
+     * Schedules the generation of the missing Chunks within the streaming
+     * radius of the focal Chunk, nearest first, while the budget allows.  The
+     * resident Chunks within the streaming radius are marked as recently used.
+     *
+     * @param focusRow The row of the focal Chunk.
+     * @param focusCol The column of the focal Chunk.
+     */
+    private void schedule(int focusRow, int focusCol) {
+        for (int[] offset : this.offsets) {
+            int row = focusRow + offset[0];
+            int col = focusCol + offset[1];
+            long key = Streamer.key(row, col);
+            if (this.resident.get(key) != null || this.pending.containsKey(key) || this.failed.contains(key)) {
+                continue;
+            }
+            if (this.resident.size() + this.pending.size() >= this.budget) {
+                continue;
+            }
+
+            Future<?> future = this.executor.submit(() -> {
+                try {
+                    this.arrivals.add(this.factory.create(row, col));
+                } catch (RuntimeException e) {
+                    Logger.error("Failed to generate Chunk (%d, %d): %s", row, col, e);
+                    this.failures.add(key);
+                    throw e;
+                }
+            });
+            this.pending.put(key, future);
+        }
+    }
+}
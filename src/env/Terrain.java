@@ -0,0 +1,643 @@
+package env;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import bio.Biome;
+import bio.Biomix;
+import util.Pair;
+
+/**
+ * The Terrain class stores the state of a set of BioVertexes in flat primitive
+ * arrays.  Each BioVertex is identified by its index into this Terrain.
+ */
+public class Terrain {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs a Terrain with the given number of BioVertexes.  Each BioVertex
+     * is initially located at the origin and belongs to the VOID Biome.
+     *
+     * @param size The number of BioVertexes in this Terrain.
+     */
+    public Terrain(int size) {
+        this.size = size;
+
+        this.xs = new float[size];
+        this.ys = new float[size];
+        this.zs = new float[size];
+        this.offsets = new float[size];
+
+        this.colours = new int[size];
+        this.biomes = new byte[size];
+
+        // Until a set of Biomixes is committed, each BioVertex is entirely
+        // influenced by its primary Biome.
+        this.mixStarts = null;
+        this.mixBiomes = null;
+        this.mixWeights = null;
+
+        Arrays.fill(this.biomes, Biome.VOID.getID());
+        Arrays.fill(this.colours, Biome.VOID.getColour().toRGBA());
+    }
+
+    /**
+     * Returns the number of BioVertexes in this Terrain.
+     *
+     * @return The number of BioVertexes.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Resets the BioVertex at the given index to the specified Biome and position.
+     * The Colour of the BioVertex is set to the Colour of the Biome and its
+     * rendering offset is cleared.
+     *
+     * @param index The index of the BioVertex.
+     * @param biome The primary Biome of the BioVertex.
+     * @param x     The X-coordinate of the BioVertex.
+     * @param y     The Y-coordinate of the BioVertex.
+     * @param z     The Z-coordinate of the BioVertex.
+     */
+    public void reset(int index, Biome biome, float x, float y, float z) {
+        this.xs[index] = x;
+        this.ys[index] = y;
+        this.zs[index] = z;
+        this.offsets[index] = 0;
+        this.colours[index] = biome.getColour().toRGBA();
+        this.biomes[index] = biome.getID();
+    }
+
+    /**
+     * Returns the X-coordinate of the BioVertex at the given index.
+     *
+     * @param index The index of the BioVertex.
+     *
+     * @return The X-coordinate.
+     */
+    public float getX(int index) {
+        return this.xs[index];
+    }
+
+    /**
+     * Returns the Y-coordinate of the BioVertex at the given index.
+     *
+     * @param index The index of the BioVertex.
+     *
+     * @return The Y-coordinate.
+     */
+    public float getY(int index) {
+        return this.ys[index];
+    }
+
+    /**
+     * Returns the Z-coordinate of the BioVertex at the given index.
+     *
+     * @param index The index of the BioVertex.
+     *
+     * @return The Z-coordinate.
+     */
+    public float getZ(int index) {
+        return this.zs[index];
+    }
+
+    /**
+     * Returns the vertical rendering offset of the BioVertex at the given index.
+     *
+     * @param index The index of the BioVertex.
+     *
+     * @return The vertical offset.
+     */
+    public float getOffset(int index) {
+        return this.offsets[index];
+    }
+
+    /**
+     * Returns the Colour of the BioVertex at the given index.  The returned
+     * Colour is a copy; changes to it must be stored with {@link #setColour}.
+     *
+     * @param index The index of the BioVertex.
+     *
+     * @return The Colour.
+     */
+    public Colour getColour(int index) {
+        return Colour.fromRGBA(this.colours[index]);
+    }
+
+    /**
+     * Returns the packed RGBA Colour of the BioVertex at the given index.
+     *
+     * @param index The index of the BioVertex.
+     *
+     * @return The packed Colour.
+     */
+    public int getRGBA(int index) {
+        return this.colours[index];
+    }
+
+    /**
+     * Returns the primary Biome of the BioVertex at the given index.
+     *
+     * @param index The index of the BioVertex.
+     *
+     * @return The Biome.
+     */
+    public Biome getBiome(int index) {
+        return Biome.fromID(this.biomes[index]);
+    }
+
+    /**
+     * Returns the ID of the primary Biome of the BioVertex at the given index.
+     *
+     * @param index The index of the BioVertex.
+     *
+     * @return The Biome ID.
+     */
+    public byte getBiomeID(int index) {
+        return this.biomes[index];
+    }
+
+    /**
+     * Returns the Biomix of the BioVertex at the given index.  The returned
+     * Biomix is a copy; changes to it must be stored with {@link #setBiomix}.
+     *
+     * @param index The index of the BioVertex.
+     *
+     * @return The Biomix.
+     */
+    public Biomix getBiomix(int index) {
+        Biomix biomix = new Biomix();
+        int count = this.getBiomixSize(index);
+        for (int k = 0; k < count; ++k) {
+            biomix.add(this.getBiomixBiome(index, k), this.getBiomixWeight(index, k));
+        }
+        return biomix;
+    }
+
+    /**
+     * Returns the number of Biomes in the Biomix of the BioVertex at the given index.
+     *
+     * @param index The index of the BioVertex.
+     *
+     * @return The number of Biomes.
+     */
+    public int getBiomixSize(int index) {
+        if (this.mixStarts == null) {
+            return 1;
+        }
+        return this.mixStarts[index + 1] - this.mixStarts[index];
+    }
+
+    /**
+     * Returns the Biome at position |k| in the Biomix of the BioVertex at the
+     * given index.
+     *
+     * @param index The index of the BioVertex.
+     * @param k     The position in the Biomix.
+     *
+     * @return The Biome.
+     */
+    public Biome getBiomixBiome(int index, int k) {
+        if (this.mixStarts == null) {
+            return this.getBiome(index);
+        }
+        return Biome.fromID(this.mixBiomes[this.mixStarts[index] + k]);
+    }
+
+    /**
+     * Returns the weight at position |k| in the Biomix of the BioVertex at the
+     * given index.
+     *
+     * @param index The index of the BioVertex.
+     * @param k     The position in the Biomix.
+     *
+     * @return The weight.
+     */
+    public float getBiomixWeight(int index, int k) {
+        if (this.mixStarts == null) {
+            return 1f;
+        }
+        return this.mixWeights[this.mixStarts[index] + k];
+    }
+
+    /**
+     * Sets the X-coordinate of the BioVertex at the given index.
+     *
+     * @param index The index of the BioVertex.
+     * @param x     The new X-coordinate.
+     */
+    public void setX(int index, float x) {
+        this.xs[index] = x;
+    }
+
+    /**
+     * Sets the Y-coordinate of the BioVertex at the given index.
+     *
+     * @param index The index of the BioVertex.
+     * @param y     The new Y-coordinate.
+     */
+    public void setY(int index, float y) {
+        this.ys[index] = y;
+    }
+
+    /**
+     * Sets the Z-coordinate of the BioVertex at the given index.
+     *
+     * @param index The index of the BioVertex.
+     * @param z     The new Z-coordinate.
+     */
+    public void setZ(int index, float z) {
+        this.zs[index] = z;
+    }
+
+    /**
+     * Sets the vertical rendering offset of the BioVertex at the given index.
+     *
+     * @param index  The index of the BioVertex.
+     * @param offset The new vertical offset.
+     */
+    public void setOffset(int index, float offset) {
+        this.offsets[index] = offset;
+    }
+
+    /**
+     * Sets the Colour of the BioVertex at the given index.
+     *
+     * @param index  The index of the BioVertex.
+     * @param colour The new Colour.
+     */
+    public void setColour(int index, Colour colour) {
+        this.colours[index] = colour.toRGBA();
+    }
+
+    /**
+     * Sets the packed RGBA Colour of the BioVertex at the given index.
+     *
+     * @param index The index of the BioVertex.
+     * @param rgba  The new packed Colour.
+     */
+    public void setRGBA(int index, int rgba) {
+        this.colours[index] = rgba;
+    }
+
+    /**
+     * Sets the Biomix of every BioVertex in this Terrain.  The Biomixes are
+     * compacted into a sparse representation that only stores nonzero weights.
+     *
+     * @param biomixes The new Biomixes, ordered by BioVertex index.
+     */
+    public void setBiomixes(Biomix[] biomixes) {
+        if (biomixes.length != this.size) {
+            throw new IllegalArgumentException("The number of Biomixes must match the size of the Terrain.");
+        }
+
+        int[] starts = new int[this.size + 1];
+        for (int i = 0; i < this.size; ++i) {
+            starts[i + 1] = starts[i] + biomixes[i].size();
+        }
+
+        int total = starts[this.size];
+        byte[] ids = new byte[total];
+        float[] weights = new float[total];
+        for (int i = 0; i < this.size; ++i) {
+            int k = starts[i];
+            for (Pair<Biome, Float> pair : biomixes[i]) {
+                ids[k] = pair.getFirst().getID();
+                weights[k] = pair.getSecond();
+                ++k;
+            }
+        }
+
+        this.mixStarts = starts;
+        this.mixBiomes = ids;
+        this.mixWeights = weights;
+    }
+
+    /**
+     * Sets the Biomix of the BioVertex at the given index.  The sparse Biomix
+     * arrays are updated in place if the number of Biomes in the Biomix does
+     * not change; otherwise, the Biomixes that follow the BioVertex are shifted
+     * (without being rebuilt).  Use {@link #setBiomixes} to update many
+     * BioVertexes at once.
+     *
+     * @param index  The index of the BioVertex.
+     * @param biomix The new Biomix.
+     */
+    public void setBiomix(int index, Biomix biomix) {
+        if (this.mixStarts == null) {
+            // Commit the implicit Biomixes, each of which holds the primary
+            // Biome of its BioVertex.
+            this.mixStarts = new int[this.size + 1];
+            for (int i = 0; i <= this.size; ++i) {
+                this.mixStarts[i] = i;
+            }
+            this.mixBiomes = Arrays.copyOf(this.biomes, this.size);
+            this.mixWeights = new float[this.size];
+            Arrays.fill(this.mixWeights, 1f);
+        }
+
+        int start = this.mixStarts[index];
+        int end = this.mixStarts[index + 1];
+        int delta = biomix.size() - (end - start);
+        if (delta != 0) {
+            int total = this.mixStarts[this.size];
+            byte[] ids = new byte[total + delta];
+            float[] weights = new float[total + delta];
+            System.arraycopy(this.mixBiomes, 0, ids, 0, start);
+            System.arraycopy(this.mixWeights, 0, weights, 0, start);
+            System.arraycopy(this.mixBiomes, end, ids, end + delta, total - end);
+            System.arraycopy(this.mixWeights, end, weights, end + delta, total - end);
+            for (int i = index + 1; i <= this.size; ++i) {
+                this.mixStarts[i] += delta;
+            }
+            this.mixBiomes = ids;
+            this.mixWeights = weights;
+        }
+
+        int k = start;
+        for (Pair<Biome, Float> pair : biomix) {
+            this.mixBiomes[k] = pair.getFirst().getID();
+            this.mixWeights[k] = pair.getSecond();
+            ++k;
+        }
+    }
+
+    /**
+     * Returns a copy of the rectangular region of this Terrain with the given
+     * bounds, where the BioVertexes of this Terrain are arranged in row-major
+     * order with the given number of columns.
+     *
+     * @param stride The number of columns in this Terrain.
+     * @param row    The first row of the region.
+     * @param col    The first column of the region.
+     * @param rows   The number of rows in the region.
+     * @param cols   The number of columns in the region.
+     *
+     * @return The Terrain of the region.
+     */
+    public Terrain crop(int stride, int row, int col, int rows, int cols) {
+        if (row < 0 || col < 0 || col + cols > stride || (row + rows)*stride > this.size) {
+            throw new IllegalArgumentException("The region must lie within the Terrain.");
+        }
+
+        Terrain region = new Terrain(rows*cols);
+        for (int r = 0; r < rows; ++r) {
+            int from = (row + r)*stride + col;
+            int to = r*cols;
+            System.arraycopy(this.xs,      from, region.xs,      to, cols);
+            System.arraycopy(this.ys,      from, region.ys,      to, cols);
+            System.arraycopy(this.zs,      from, region.zs,      to, cols);
+            System.arraycopy(this.offsets, from, region.offsets, to, cols);
+            System.arraycopy(this.colours, from, region.colours, to, cols);
+            System.arraycopy(this.biomes,  from, region.biomes,  to, cols);
+        }
+
+        if (this.mixStarts != null) {
+            Biomix[] biomixes = new Biomix[rows*cols];
+            for (int r = 0; r < rows; ++r) {
+                for (int c = 0; c < cols; ++c) {
+                    biomixes[r*cols + c] = this.getBiomix((row + r)*stride + col + c);
+                }
+            }
+            region.setBiomixes(biomixes);
+        }
+        return region;
+    }
+
+    /**
+     * Overwrites the state of every BioVertex of this Terrain with the state of
+     * the corresponding BioVertex of the given Terrain.  The arrays of this
+     * Terrain are reused, so views of this Terrain (e.g., BioVertexes and the
+     * Grid that owns it) observe the copied state.
+     *
+     * @param source The Terrain to copy.
+     *
+     * @throws IllegalArgumentException If the sizes of the Terrains differ.
+     */
+    public void copy(Terrain source) {
+        if (source.size != this.size) {
+            throw new IllegalArgumentException("The size of the copied Terrain must match the size of the Terrain.");
+        }
+
+        System.arraycopy(source.xs,      0, this.xs,      0, this.size);
+        System.arraycopy(source.ys,      0, this.ys,      0, this.size);
+        System.arraycopy(source.zs,      0, this.zs,      0, this.size);
+        System.arraycopy(source.offsets, 0, this.offsets, 0, this.size);
+        System.arraycopy(source.colours, 0, this.colours, 0, this.size);
+        System.arraycopy(source.biomes,  0, this.biomes,  0, this.size);
+
+        this.mixStarts = source.mixStarts == null ? null : source.mixStarts.clone();
+        this.mixBiomes = source.mixBiomes == null ? null : source.mixBiomes.clone();
+        this.mixWeights = source.mixWeights == null ? null : source.mixWeights.clone();
+    }
+
+    /**
+     * Returns the number of bytes required to serialize this Terrain with
+     * {@link #write}.
+     *
+     * @return The number of bytes.
+     */
+    public int bytes() {
+        int bytes = Integer.BYTES + this.size*(4*Float.BYTES + Integer.BYTES + Byte.BYTES) + Integer.BYTES;
+        if (this.mixStarts != null) {
+            bytes += (this.size + 1)*Integer.BYTES + this.mixBiomes.length*(Byte.BYTES + Float.BYTES);
+        }
+        return bytes;
+    }
+
+    /**
+     * Serializes this Terrain into the given buffer.  The byte order of the
+     * buffer is respected.
+     *
+     * @param buffer The buffer that receives the Terrain.
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.putInt(this.size);
+        Terrain.put(buffer, this.xs);
+        Terrain.put(buffer, this.ys);
+        Terrain.put(buffer, this.zs);
+        Terrain.put(buffer, this.offsets);
+
+        buffer.asIntBuffer().put(this.colours);
+        buffer.position(buffer.position() + this.size*Integer.BYTES);
+        buffer.put(this.biomes);
+
+        // The number of Biomix entries is -1 if no Biomixes have been committed.
+        if (this.mixStarts == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(this.mixBiomes.length);
+            buffer.asIntBuffer().put(this.mixStarts);
+            buffer.position(buffer.position() + this.mixStarts.length*Integer.BYTES);
+            buffer.put(this.mixBiomes);
+            Terrain.put(buffer, this.mixWeights);
+        }
+    }
+
+    /**
+     * Deserializes a Terrain that was serialized with {@link #write} from the
+     * given buffer.  The arrays of the Terrain are filled with bulk copies, so
+     * the buffer may be a MappedByteBuffer.
+     *
+     * @param buffer The buffer containing the Terrain.
+     *
+     * @return The Terrain.
+     *
+     * @throws IOException If the buffer does not contain a valid Terrain.
+     */
+    public static Terrain read(ByteBuffer buffer) throws IOException {
+        int size = buffer.getInt();
+        Snapshot.require(buffer, size, 4*Float.BYTES + Integer.BYTES + Byte.BYTES, "BioVertexes");
+
+        Terrain terrain = new Terrain(size);
+        Terrain.get(buffer, terrain.xs);
+        Terrain.get(buffer, terrain.ys);
+        Terrain.get(buffer, terrain.zs);
+        Terrain.get(buffer, terrain.offsets);
+
+        buffer.asIntBuffer().get(terrain.colours);
+        buffer.position(buffer.position() + terrain.size*Integer.BYTES);
+        buffer.get(terrain.biomes);
+        for (byte id : terrain.biomes) {
+            Terrain.checkBiome(id);
+        }
+
+        int total = buffer.getInt();
+        if (total >= 0) {
+            Snapshot.require(buffer, size + 1, Integer.BYTES, "Biomix offsets");
+            Snapshot.require(buffer, total, Byte.BYTES + Float.BYTES, "Biomix entries");
+            terrain.mixStarts = new int[terrain.size + 1];
+            terrain.mixBiomes = new byte[total];
+            terrain.mixWeights = new float[total];
+
+            buffer.asIntBuffer().get(terrain.mixStarts);
+            buffer.position(buffer.position() + terrain.mixStarts.length*Integer.BYTES);
+            buffer.get(terrain.mixBiomes);
+            Terrain.get(buffer, terrain.mixWeights);
+
+            // The Biomixes of the BioVertexes must be consecutive ranges of the entries.
+            if (terrain.mixStarts[0] != 0 || terrain.mixStarts[size] != total) {
+                throw new IOException("The Biomix offsets of the Terrain do not span its Biomix entries.");
+            }
+            for (int i = 0; i < size; ++i) {
+                if (terrain.mixStarts[i] > terrain.mixStarts[i + 1]) {
+                    throw new IOException("The Biomix offsets of the Terrain are not sorted.");
+                }
+            }
+            for (byte id : terrain.mixBiomes) {
+                Terrain.checkBiome(id);
+            }
+        }
+        return terrain;
+    }
+
+    /**
+     * Returns a String representation of this Terrain.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("Terrain (%d BioVertexes)", this.size);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of Biomes (and hence the number of valid Biome IDs).
+     */
+    private static final int BIOME_COUNT = Biome.values().length;
+
+    /**
+     * The number of BioVertexes in this Terrain.
+     */
+    private int size;
+
+    /**
+     * The X-coordinates of the BioVertexes.
+     */
+    private float[] xs;
+
+    /**
+     * The Y-coordinates of the BioVertexes.
+     */
+    private float[] ys;
+
+    /**
+     * The Z-coordinates of the BioVertexes.
+     */
+    private float[] zs;
+
+    /**
+     * The vertical rendering offsets of the BioVertexes.
+     */
+    private float[] offsets;
+
+    /**
+     * The packed RGBA Colours of the BioVertexes.
+     */
+    private int[] colours;
+
+    /**
+     * The IDs of the primary Biomes of the BioVertexes.
+     */
+    private byte[] biomes;
+
+    /**
+     * The offset of the first Biomix entry of each BioVertex.  The entries of
+     * BioVertex |i| occupy the range [mixStarts[i], mixStarts[i + 1]).  This
+     * array is null if no Biomixes have been committed.
+     */
+    private int[] mixStarts;
+
+    /**
+     * The Biome IDs of the Biomix entries.
+     */
+    private byte[] mixBiomes;
+
+    /**
+     * The weights of the Biomix entries.
+     */
+    private float[] mixWeights;
+
+    /**
+     * Writes the given array to the buffer and advances its position.
+     *
+     * @param buffer The buffer.
+     * @param values The array to write.
+     */
+    private static void put(ByteBuffer buffer, float[] values) {
+        buffer.asFloatBuffer().put(values);
+        buffer.position(buffer.position() + values.length*Float.BYTES);
+    }
+
+    /**
+     * Reads the given array from the buffer and advances its position.
+     *
+     * @param buffer The buffer.
+     * @param values The array to fill.
+     */
+    private static void get(ByteBuffer buffer, float[] values) {
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + values.length*Float.BYTES);
+    }
+
+    /**
+     * Checks that the given Biome ID was read from a valid Terrain.
+     *
+     * @param id The Biome ID.
+     *
+     * @throws IOException If no Biome has the ID.
+     */
+    private static void checkBiome(byte id) throws IOException {
+        if (id < 0 || id >= BIOME_COUNT) {
+            throw new IOException(String.format("The Terrain refers to unknown Biome %d.", id));
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package env;
+
+import bio.BioVertex;
+import bio.Biome;
+
+/**
+ * The Wave class animates the BioVertexes of a Grid that belong to animated
+ * Biomes.  The offset of each animated BioVertex follows the wave described by
+ * {@link Biome#getWave}:
+ *
+ *     dz = A*sin(S*t + P) = sin(S*t)*(A*cos(P)) + cos(S*t)*(A*sin(P))
+ *
+ * The terms in parentheses are fixed, so they are computed once when the Wave
+ * is created.  Since the speed S is shared by every BioVertex of a Biome, each
+ * frame only costs one sine and one cosine per Biome and a multiply-add per
+ * BioVertex over primitive arrays, which the JIT compiler can vectorize.
+ */
+public class Wave {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs a Wave for the animated BioVertexes of the given Grid.
+     *
+     * @param grid The Grid to animate.
+     */
+    public Wave(Grid grid) {
+        this.terrain = grid.getTerrain();
+
+        int size = 0;
+        for (int index = 0; index < this.terrain.size(); ++index) {
+            if (this.terrain.getBiome(index).isAnimated()) {
+                ++size;
+            }
+        }
+
+        this.indexes = new int[size];
+        this.amplitudes = new float[size];
+        this.phases = new float[size];
+        this.cosines = new float[size];
+        this.sines = new float[size];
+        this.offsets = new float[size];
+        this.reach = 0;
+
+        // Group the BioVertexes into runs that share a Biome (and hence a speed).
+        int[] starts = new int[Biome.values().length + 1];
+        float[] speeds = new float[Biome.values().length];
+        int runs = 0;
+
+        float[] wave = new float[3];
+        int i = 0;
+        for (Biome biome : Biome.values()) {
+            if (!biome.isAnimated()) {
+                continue;
+            }
+
+            starts[runs] = i;
+            for (int index = 0; index < this.terrain.size(); ++index) {
+                if (this.terrain.getBiome(index) != biome) {
+                    continue;
+                }
+
+                biome.getWave(new BioVertex(this.terrain, index), wave);
+                speeds[runs] = wave[1];
+
+                double phase = wave[2];
+                this.indexes[i] = index;
+                this.amplitudes[i] = wave[0];
+                this.phases[i] = wave[2];
+                this.cosines[i] = (float) (wave[0]*Math.cos(phase));
+                this.sines[i] = (float) (wave[0]*Math.sin(phase));
+                this.reach = Math.max(this.reach, Math.abs(wave[0]));
+                ++i;
+            }
+            if (i > starts[runs]) {
+                ++runs;
+            }
+        }
+        starts[runs] = i;
+
+        this.starts = new int[runs + 1];
+        this.speeds = new float[runs];
+        System.arraycopy(starts, 0, this.starts, 0, runs + 1);
+        System.arraycopy(speeds, 0, this.speeds, 0, runs);
+    }
+
+    /**
+     * Sets the offset of every animated BioVertex to its displacement at the
+     * given time.  No objects are allocated.
+     *
+     * @param time The uptime of the application (in seconds).
+     */
+    public void animate(double time) {
+        for (int run = 0; run < this.speeds.length; ++run) {
+            double angle = this.speeds[run]*time;
+            float sin = (float) Math.sin(angle);
+            float cos = (float) Math.cos(angle);
+
+            int last = this.starts[run + 1];
+            for (int i = this.starts[run]; i < last; ++i) {
+                this.offsets[i] = sin*this.cosines[i] + cos*this.sines[i];
+            }
+        }
+
+        for (int i = 0; i < this.indexes.length; ++i) {
+            this.terrain.setOffset(this.indexes[i], this.offsets[i]);
+        }
+    }
+
+    /**
+     * Clears the offset of every animated BioVertex.
+     */
+    public void rest() {
+        for (int i = 0; i < this.indexes.length; ++i) {
+            this.terrain.setOffset(this.indexes[i], 0);
+        }
+    }
+
+    /**
+     * Returns the number of BioVertexes animated by this Wave.
+     *
+     * @return The number of BioVertexes.
+     */
+    public int size() {
+        return this.indexes.length;
+    }
+
+    /**
+     * Returns the Terrain index of the given animated BioVertex.  The indexes
+     * are grouped by Biome and increase within each Biome.
+     *
+     * @param i The position of the BioVertex in this Wave.
+     *
+     * @return The Terrain index.
+     */
+    public int getIndex(int i) {
+        return this.indexes[i];
+    }
+
+    /**
+     * Returns the amplitude of the wave of the given animated BioVertex.
+     *
+     * @param i The position of the BioVertex in this Wave.
+     *
+     * @return The amplitude.
+     */
+    public float getAmplitude(int i) {
+        return this.amplitudes[i];
+    }
+
+    /**
+     * Returns the phase of the wave of the given animated BioVertex.
+     *
+     * @param i The position of the BioVertex in this Wave.
+     *
+     * @return The phase.
+     */
+    public float getPhase(int i) {
+        return this.phases[i];
+    }
+
+    /**
+     * Returns the number of distinct speeds of the waves of this Wave.
+     *
+     * @return The number of speeds.
+     */
+    public int getSpeedCount() {
+        return this.speeds.length;
+    }
+
+    /**
+     * Returns the speed of the waves of the given animated BioVertex.
+     *
+     * @param i The position of the BioVertex in this Wave.
+     *
+     * @return The speed.
+     */
+    public float getSpeed(int i) {
+        int run = 0;
+        while (this.starts[run + 1] <= i) {
+            ++run;
+        }
+        return this.speeds[run];
+    }
+
+    /**
+     * Returns the largest displacement of any BioVertex animated by this Wave.
+     *
+     * @return The largest displacement.
+     */
+    public float getReach() {
+        return this.reach;
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The Terrain storing the animated BioVertexes.
+     */
+    private Terrain terrain;
+
+    /**
+     * The Terrain index of each animated BioVertex.
+     */
+    private int[] indexes;
+
+    /**
+     * The amplitude of each wave.
+     */
+    private float[] amplitudes;
+
+    /**
+     * The phase of each wave.
+     */
+    private float[] phases;
+
+    /**
+     * The product of the amplitude and the cosine of the phase of each wave.
+     */
+    private float[] cosines;
+
+    /**
+     * The product of the amplitude and the sine of the phase of each wave.
+     */
+    private float[] sines;
+
+    /**
+     * The scratch array that receives the offsets of the current frame.
+     */
+    private float[] offsets;
+
+    /**
+     * The first position of each run of BioVertexes that share a speed.  The
+     * BioVertexes of run |r| occupy the range [starts[r], starts[r + 1]).
+     */
+    private int[] starts;
+
+    /**
+     * The speed of the waves in each run.
+     */
+    private float[] speeds;
+
+    /**
+     * The largest amplitude of any wave.
+     */
+    private float reach;
+}
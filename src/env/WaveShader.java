@@ -0,0 +1,224 @@
+package env;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.*;
+
+import org.lwjgl.opengl.GL;
+
+import core.Logger;
+
+/**
+ * The WaveShader class displaces the vertexes of an animated GridMesh on the
+ * GPU.  The GridMesh uploads its vertexes once at rest along with the amplitude
+ * and phase of the wave of each vertex; every frame, the shader only receives
+ * the angle of the waves as a uniform.  The shader emulates the fixed-function
+ * lighting model (including GL_COLOR_MATERIAL), so an animated Grid looks the
+ * same whether it is displaced on the GPU or by {@link Wave} on the CPU.
+ *
+ * The angle is reduced modulo 2pi on the CPU in double precision since the
+ * single-precision product of the speed and uptime loses its fractional part
+ * within a few hours.  {@link #displace} is the CPU reference implementation
+ * of the displacement computed by the shader.
+ */
+public class WaveShader {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the singleton WaveShader instance.  The shader is compiled during
+     * the first call, which must be made from the thread that owns the OpenGL
+     * context.
+     *
+     * @return The singleton instance.
+     */
+    public static WaveShader getInstance() {
+        if (singleton == null) {
+            singleton = new WaveShader();
+        }
+        return singleton;
+    }
+
+    /**
+     * Returns the angle of a wave with the given speed at the given time,
+     * reduced to the range [0, 2pi).
+     *
+     * @param speed The speed of the wave.
+     * @param time  The uptime of the application (in seconds).
+     *
+     * @return The angle.
+     */
+    public static float getAngle(float speed, double time) {
+        double angle = (speed*time) % (2*Math.PI);
+        return (float) (angle < 0 ? angle + 2*Math.PI : angle);
+    }
+
+    /**
+     * Returns the vertical displacement that the shader applies to a vertex
+     * with the given wave at the given time.
+     *
+     * @param amplitude The amplitude of the wave.
+     * @param speed     The speed of the wave.
+     * @param phase     The phase of the wave.
+     * @param time      The uptime of the application (in seconds).
+     *
+     * @return The displacement.
+     */
+    public static float displace(float amplitude, float speed, float phase, double time) {
+        float angle = WaveShader.getAngle(speed, time);
+        return amplitude*(float) Math.sin(angle + phase);
+    }
+
+    /**
+     * Returns true if the shader compiled and linked successfully.
+     *
+     * @return True if the shader can be used.
+     */
+    public boolean isCompiled() {
+        return this.program != 0;
+    }
+
+    /**
+     * Returns the location of the vertex attribute that holds the amplitude
+     * and phase of the wave of each vertex.
+     *
+     * @return The location of the attribute.
+     */
+    public int getWaveAttribute() {
+        return this.waveAttribute;
+    }
+
+    /**
+     * Installs the shader with the given wave speed and time.
+     *
+     * @param speed The speed of the waves.
+     * @param time  The uptime of the application (in seconds).
+     */
+    public void bind(float speed, double time) {
+        glUseProgram(this.program);
+        glUniform1f(this.angleUniform, WaveShader.getAngle(speed, time));
+        glUniform1i(this.lightsUniform, Light.getCount());
+    }
+
+    /**
+     * Restores the fixed-function pipeline.
+     */
+    public void unbind() {
+        glUseProgram(0);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The source code of the vertex shader.
+     */
+    private static final String SOURCE = String.join("\n",
+        "#version 120",
+        "",
+        "uniform float angle;",
+        "uniform int lights;",
+        "",
+        "// The amplitude and phase of the wave of this vertex.",
+        "attribute vec2 wave;",
+        "",
+        "void main() {",
+        "    vec4 position = gl_Vertex;",
+        "    position.z += wave.x*sin(angle + wave.y);",
+        "",
+        "    vec4 eye = gl_ModelViewMatrix*position;",
+        "    vec3 normal = normalize(gl_NormalMatrix*gl_Normal);",
+        "    gl_Position = gl_ProjectionMatrix*eye;",
+        "",
+        "    // Emulate the fixed-function lighting model; the vertex colour acts",
+        "    // as both the ambient and diffuse reflectance of the material.",
+        "    vec4 colour = gl_FrontMaterial.emission + gl_LightModel.ambient*gl_Color;",
+        "    for (int i = 0; i < lights; ++i) {",
+        "        vec4 source = gl_LightSource[i].position;",
+        "        vec3 direction = source.xyz - eye.xyz*source.w;",
+        "        float distance = length(direction);",
+        "        direction /= max(distance, 1e-6);",
+        "",
+        "        float attenuation = 1.0;",
+        "        if (source.w != 0.0) {",
+        "            attenuation /= gl_LightSource[i].constantAttenuation",
+        "                         + gl_LightSource[i].linearAttenuation*distance",
+        "                         + gl_LightSource[i].quadraticAttenuation*distance*distance;",
+        "        }",
+        "",
+        "        float diffuse = max(dot(normal, direction), 0.0);",
+        "        vec4 light = gl_LightSource[i].ambient*gl_Color + diffuse*gl_LightSource[i].diffuse*gl_Color;",
+        "        if (diffuse > 0.0) {",
+        "            vec3 halfway = normalize(direction + vec3(0.0, 0.0, 1.0));",
+        "            float specular = pow(max(dot(normal, halfway), 0.0), gl_FrontMaterial.shininess);",
+        "            light += specular*gl_LightSource[i].specular*gl_FrontMaterial.specular;",
+        "        }",
+        "        colour += attenuation*light;",
+        "    }",
+        "    gl_FrontColor = vec4(colour.rgb, gl_Color.a);",
+        "}");
+
+    /**
+     * The reference to the WaveShader singleton.
+     */
+    private static WaveShader singleton = null;
+
+    /**
+     * The OpenGL name of the shader program, or 0 if the shader is unavailable.
+     */
+    private int program;
+
+    /**
+     * The location of the angle uniform.
+     */
+    private int angleUniform;
+
+    /**
+     * The location of the light count uniform.
+     */
+    private int lightsUniform;
+
+    /**
+     * The location of the wave attribute.
+     */
+    private int waveAttribute;
+
+    /**
+     * Constructs a WaveShader by compiling and linking the vertex shader.  If
+     * the OpenGL context does not support shaders or the shader fails to
+     * compile, the WaveShader is left uncompiled.
+     */
+    private WaveShader() {
+        this.program = 0;
+        if (!GL.getCapabilities().OpenGL20) {
+            Logger.warn("OpenGL 2.0 is not supported; waves will be animated on the CPU.");
+            return;
+        }
+
+        int shader = glCreateShader(GL_VERTEX_SHADER);
+        glShaderSource(shader, SOURCE);
+        glCompileShader(shader);
+        if (glGetShaderi(shader, GL_COMPILE_STATUS) == GL_FALSE) {
+            Logger.warn("Failed to compile the wave shader; waves will be animated on the CPU: %s", glGetShaderInfoLog(shader));
+            glDeleteShader(shader);
+            return;
+        }
+
+        int program = glCreateProgram();
+        glAttachShader(program, shader);
+        glLinkProgram(program);
+        glDeleteShader(shader);
+        if (glGetProgrami(program, GL_LINK_STATUS) == GL_FALSE) {
+            Logger.warn("Failed to link the wave shader; waves will be animated on the CPU: %s", glGetProgramInfoLog(program));
+            glDeleteProgram(program);
+            return;
+        }
+
+        this.program = program;
+        this.angleUniform = glGetUniformLocation(program, "angle");
+        this.lightsUniform = glGetUniformLocation(program, "lights");
+        this.waveAttribute = glGetAttribLocation(program, "wave");
+        Logger.debug("Compiled the wave shader.");
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Arrays;
 import bio.BioMap;
 import bio.BioVertex;
 import core.Top;
+import geo.Frustum;
 import geo.Line;
 import geo.Vertex;
 
@@ -37,6 +38,9 @@ public class World implements Drawable {
         this.drawables = new ArrayList<>();
         this.lights = new ArrayList<>();
         this.grids = new ArrayList<>();
+        this.platform = null;
+        this.streamer = null;
+        this.detailDistance = 0;
 
         // Add a set of axes and a grid to the World for debugging purposes.
         if (Top.DEBUG) {
@@ -74,6 +78,35 @@ public class World implements Drawable {
         this.add(lights);
     }
 
+    /**
+     * Sets the Platform underneath this World.
+     *
+     * @param platform The Platform to add.
+     */
+    public void setPlatform(Platform platform) {
+        this.platform = platform;
+        this.add(platform);
+    }
+
+    /**
+     * Sets the Streamer that streams the Chunks of this World.
+     *
+     * @param streamer The Streamer to add.
+     */
+    public void setStreamer(Streamer streamer) {
+        this.streamer = streamer;
+        this.add(streamer);
+    }
+
+    /**
+     * Sets the distance beyond which the Grids of this World lose detail.
+     *
+     * @param distance The detail distance, or 0 to draw every Grid at full detail.
+     */
+    public void setDetailDistance(float distance) {
+        this.detailDistance = distance;
+    }
+
     /**
      * Draws this World.
      */
@@ -83,6 +116,17 @@ public class World implements Drawable {
         }
     }
 
+    /**
+     * Draws the parts of this World that intersect the given Frustum.
+     *
+     * @param frustum The viewing Frustum.
+     */
+    public void draw(Frustum frustum) {
+        for (Drawable drawable : this.drawables) {
+            drawable.draw(frustum);
+        }
+    }
+
     /**
      * Returns the number of Polygons in this World.
      *
@@ -94,6 +138,33 @@ public class World implements Drawable {
                         .sum();
     }
 
+    /**
+     * Returns the Platform underneath this World.
+     * 
+     * @return The Platform, or null if this World has no Platform.
+     */
+    public Platform getPlatform() {
+        return this.platform;
+    }
+
+    /**
+     * Returns the Streamer that streams the Chunks of this World.
+     *
+     * @return The Streamer, or null if this World is not streamed.
+     */
+    public Streamer getStreamer() {
+        return this.streamer;
+    }
+
+    /**
+     * Returns the list of Grids in this World.
+     * 
+     * @return The Grids.
+     */
+    public ArrayList<Grid> getGrids() {
+        return this.grids;
+    }
+
     /**
      * Returns the list of Lights in this World.
      * 
@@ -149,7 +220,26 @@ public class World implements Drawable {
     }
 
     /**
-     * Updates all the Grids in this World using the given time.
+     * Adapts this World to a Camera at the given position: the Chunks around
+     * the Camera are streamed and the level of detail of every Grid is selected.
+     *
+     * @param x The X-coordinate of the Camera.
+     * @param y The Y-coordinate of the Camera.
+     * @param z The Z-coordinate of the Camera.
+     */
+    public void focus(float x, float y, float z) {
+        for (Grid grid : this.grids) {
+            grid.focus(x, y, z, this.detailDistance);
+        }
+        if (this.streamer != null) {
+            this.streamer.track(x, y);
+            this.streamer.focus(x, y, z, this.detailDistance);
+        }
+    }
+
+    /**
+     * Updates all the Grids (and streamed Chunks) in this World using the
+     * given time.
      * 
      * @param time The uptime of the application (in seconds).
      */
@@ -157,6 +247,9 @@ public class World implements Drawable {
         for (Grid grid : this.grids) {
             grid.update(time);
         }
+        if (this.streamer != null) {
+            this.streamer.update(time);
+        }
     }
 
     // Private members
@@ -202,6 +295,21 @@ public class World implements Drawable {
      */
     private ArrayList<Light> lights;
 
+    /**
+     * The Platform underneath this World.
+     */
+    private Platform platform;
+
+    /**
+     * The Streamer that streams the Chunks of this World.
+     */
+    private Streamer streamer;
+
+    /**
+     * The distance beyond which the Grids of this World lose detail.
+     */
+    private float detailDistance;
+
     /**
      * Adds the X, Y, and Z debug axes to the Drawable list of this World.
      */
@@ -0,0 +1,133 @@
+package geo;
+
+/**
+ * The Bounds class represents an axis-aligned bounding box.
+ */
+public class Bounds {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs a Bounds object with the given minimum and maximum coordinates.
+     *
+     * @param minX The minimum X-coordinate.
+     * @param minY The minimum Y-coordinate.
+     * @param minZ The minimum Z-coordinate.
+     * @param maxX The maximum X-coordinate.
+     * @param maxY The maximum Y-coordinate.
+     * @param maxZ The maximum Z-coordinate.
+     *
+     * @throws IllegalArgumentException If a minimum coordinate exceeds its
+     *                                  maximum coordinate.
+     */
+    public Bounds(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        if (minX > maxX || minY > maxY || minZ > maxZ) {
+            throw new IllegalArgumentException("The minimum coordinates of a Bounds object cannot exceed its maximum coordinates.");
+        }
+
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Returns the minimum X-coordinate of this Bounds object.
+     *
+     * @return The minimum X-coordinate.
+     */
+    public float getMinX() {
+        return this.minX;
+    }
+
+    /**
+     * Returns the minimum Y-coordinate of this Bounds object.
+     *
+     * @return The minimum Y-coordinate.
+     */
+    public float getMinY() {
+        return this.minY;
+    }
+
+    /**
+     * Returns the minimum Z-coordinate of this Bounds object.
+     *
+     * @return The minimum Z-coordinate.
+     */
+    public float getMinZ() {
+        return this.minZ;
+    }
+
+    /**
+     * Returns the maximum X-coordinate of this Bounds object.
+     *
+     * @return The maximum X-coordinate.
+     */
+    public float getMaxX() {
+        return this.maxX;
+    }
+
+    /**
+     * Returns the maximum Y-coordinate of this Bounds object.
+     *
+     * @return The maximum Y-coordinate.
+     */
+    public float getMaxY() {
+        return this.maxY;
+    }
+
+    /**
+     * Returns the maximum Z-coordinate of this Bounds object.
+     *
+     * @return The maximum Z-coordinate.
+     */
+    public float getMaxZ() {
+        return this.maxZ;
+    }
+
+    /**
+     * Returns a String representation of this Bounds object.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("Bounds (%.2f, %.2f, %.2f) to (%.2f, %.2f, %.2f)", this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The minimum X-coordinate of this Bounds object.
+     */
+    private float minX;
+
+    /**
+     * The minimum Y-coordinate of this Bounds object.
+     */
+    private float minY;
+
+    /**
+     * The minimum Z-coordinate of this Bounds object.
+     */
+    private float minZ;
+
+    /**
+     * The maximum X-coordinate of this Bounds object.
+     */
+    private float maxX;
+
+    /**
+     * The maximum Y-coordinate of this Bounds object.
+     */
+    private float maxY;
+
+    /**
+     * The maximum Z-coordinate of this Bounds object.
+     */
+    private float maxZ;
+}
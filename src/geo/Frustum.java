@@ -0,0 +1,233 @@
+package geo;
+
+import util.Algebra;
+
+/**
+ * The Frustum class represents the viewing volume of a Camera as six planes
+ * (left, right, bottom, top, near, and far) in world coordinates.  The planes
+ * are extracted from the product of the projection and ModelView matrices, so
+ * a Frustum can be built and tested without an OpenGL context.
+ *
+ * The intersection tests are conservative: a bounding volume that lies near a
+ * corner of the Frustum may be reported as visible even though it is not, but
+ * a visible bounding volume is never reported as hidden.  The isVisible()
+ * functions also count the number of bounding volumes that were tested and
+ * culled, which is useful to report culling statistics once per frame.
+ */
+public class Frustum {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs a Frustum from the given projection and ModelView matrices.
+     * Both matrices must be stored in column-major order, as in OpenGL.
+     *
+     * @param projection The projection matrix.
+     * @param modelview  The ModelView matrix.
+     */
+    public Frustum(float[] projection, float[] modelview) {
+        this(Algebra.multiply(projection, modelview));
+    }
+
+    /**
+     * Constructs a Frustum from the given clip matrix (i.e., the product of
+     * the projection and ModelView matrices).  The matrix must be stored in
+     * column-major order, as in OpenGL.
+     *
+     * @param clip The clip matrix.
+     *
+     * @throws IllegalArgumentException If the matrix does not have 16 entries.
+     */
+    public Frustum(float[] clip) {
+        if (clip.length != 16) {
+            throw new IllegalArgumentException("The clip matrix of a Frustum must be a 4 x 4 matrix.");
+        }
+
+        // A point is inside the Frustum if each of its clip coordinates lies
+        // within [-w, w].  Each plane is the sum or difference between the last
+        // row of the clip matrix and the row of the matching clip coordinate.
+        this.planes = new float[4*PLANES];
+        for (int plane = 0; plane < PLANES; ++plane) {
+            int row = plane/2;
+            float sign = plane % 2 == 0 ? 1 : -1;
+
+            float[] coefficients = new float[4];
+            for (int col = 0; col < 4; ++col) {
+                coefficients[col] = clip[4*col + 3] + sign*clip[4*col + row];
+            }
+
+            // Normalize the plane so that the sphere test can compare distances.
+            float length = (float) Math.sqrt(coefficients[0]*coefficients[0] + coefficients[1]*coefficients[1] + coefficients[2]*coefficients[2]);
+            for (int i = 0; i < 4; ++i) {
+                this.planes[4*plane + i] = length > 0 ? coefficients[i]/length : coefficients[i];
+            }
+        }
+
+        this.tested = 0;
+        this.culled = 0;
+    }
+
+    /**
+     * Returns true if the given Bounds intersect this Frustum.
+     *
+     * @param bounds The Bounds to test.
+     *
+     * @return True if the Bounds may be visible.
+     */
+    public boolean intersects(Bounds bounds) {
+        return this.intersects(bounds.getMinX(), bounds.getMinY(), bounds.getMinZ(), bounds.getMaxX(), bounds.getMaxY(), bounds.getMaxZ());
+    }
+
+    /**
+     * Returns true if the axis-aligned box with the given minimum and maximum
+     * coordinates intersects this Frustum.
+     *
+     * @param minX The minimum X-coordinate of the box.
+     * @param minY The minimum Y-coordinate of the box.
+     * @param minZ The minimum Z-coordinate of the box.
+     * @param maxX The maximum X-coordinate of the box.
+     * @param maxY The maximum Y-coordinate of the box.
+     * @param maxZ The maximum Z-coordinate of the box.
+     *
+     * @return True if the box may be visible.
+     */
+    public boolean intersects(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        for (int plane = 0; plane < PLANES; ++plane) {
+            float a = this.planes[4*plane + 0];
+            float b = this.planes[4*plane + 1];
+            float c = this.planes[4*plane + 2];
+            float d = this.planes[4*plane + 3];
+
+            // The box is outside the Frustum if the corner that lies furthest
+            // along the normal of a plane is behind that plane.
+            float x = a >= 0 ? maxX : minX;
+            float y = b >= 0 ? maxY : minY;
+            float z = c >= 0 ? maxZ : minZ;
+            if (a*x + b*y + c*z + d < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the sphere with the given centre and radius intersects
+     * this Frustum.
+     *
+     * @param x      The X-coordinate of the centre of the sphere.
+     * @param y      The Y-coordinate of the centre of the sphere.
+     * @param z      The Z-coordinate of the centre of the sphere.
+     * @param radius The radius of the sphere.
+     *
+     * @return True if the sphere may be visible.
+     */
+    public boolean intersects(float x, float y, float z, float radius) {
+        for (int plane = 0; plane < PLANES; ++plane) {
+            float distance = this.planes[4*plane]*x + this.planes[4*plane + 1]*y + this.planes[4*plane + 2]*z + this.planes[4*plane + 3];
+            if (distance < -radius) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the given Bounds intersect this Frustum and updates the
+     * culling statistics of this Frustum.
+     *
+     * @param bounds The Bounds to test.
+     *
+     * @return True if the Bounds may be visible.
+     */
+    public boolean isVisible(Bounds bounds) {
+        return this.count(this.intersects(bounds));
+    }
+
+    /**
+     * Returns true if the axis-aligned box with the given minimum and maximum
+     * coordinates intersects this Frustum and updates the culling statistics
+     * of this Frustum.
+     *
+     * @param minX The minimum X-coordinate of the box.
+     * @param minY The minimum Y-coordinate of the box.
+     * @param minZ The minimum Z-coordinate of the box.
+     * @param maxX The maximum X-coordinate of the box.
+     * @param maxY The maximum Y-coordinate of the box.
+     * @param maxZ The maximum Z-coordinate of the box.
+     *
+     * @return True if the box may be visible.
+     */
+    public boolean isVisible(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        return this.count(this.intersects(minX, minY, minZ, maxX, maxY, maxZ));
+    }
+
+    /**
+     * Returns the number of bounding volumes that have been tested by the
+     * isVisible() functions of this Frustum.
+     *
+     * @return The number of tested bounding volumes.
+     */
+    public int getTested() {
+        return this.tested;
+    }
+
+    /**
+     * Returns the number of bounding volumes that have been culled by the
+     * isVisible() functions of this Frustum.
+     *
+     * @return The number of culled bounding volumes.
+     */
+    public int getCulled() {
+        return this.culled;
+    }
+
+    /**
+     * Returns a String representation of this Frustum.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("Frustum (%d of %d culled)", this.culled, this.tested);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of planes that bound a Frustum.
+     */
+    private static final int PLANES = 6;
+
+    /**
+     * The normalized (A, B, C, D) coefficients of each plane.  A point (x, y, z)
+     * is on the inner side of a plane if Ax + By + Cz + D >= 0.
+     */
+    private float[] planes;
+
+    /**
+     * The number of bounding volumes tested by the isVisible() functions.
+     */
+    private int tested;
+
+    /**
+     * The number of bounding volumes culled by the isVisible() functions.
+     */
+    private int culled;
+
+    /**
+     * Records the result of a visibility test.
+     *
+     * @param visible The result of the test.
+     *
+     * @return The result of the test.
+     */
+    private boolean count(boolean visible) {
+        ++this.tested;
+        if (!visible) {
+            ++this.culled;
+        }
+        return visible;
+    }
+}
@@ -29,6 +29,7 @@ public class Prism extends Shape {
         float[] xs = minimax.apply(Vertex::getX);
         float[] ys = minimax.apply(Vertex::getY);
         float[] zs = minimax.apply(Vertex::getZ);
+        this.bounds = new Bounds(xs[0], ys[0], zs[0], xs[1], ys[1], zs[1]);
 
         // Create a Vertex for each corner of the Prism.
         Vertex[] vertexes = new Vertex[8];
@@ -0,0 +1,178 @@
+package geo;
+
+/**
+ * The Quaternion class represents a rotation in R3 Cartesian space as a unit
+ * quaternion.  The rotations follow the conventions of glRotatef(): angles are
+ * measured in degrees and describe a counter-clockwise rotation about the axis
+ * when the axis points towards the viewer.
+ */
+public class Quaternion {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The Quaternion representing the identity rotation.
+     */
+    public static final Quaternion IDENTITY = new Quaternion(1, 0, 0, 0);
+
+    /**
+     * Constructs a Quaternion with the given components.
+     *
+     * @param w The scalar component of this Quaternion.
+     * @param x The X-component of this Quaternion.
+     * @param y The Y-component of this Quaternion.
+     * @param z The Z-component of this Quaternion.
+     */
+    public Quaternion(float w, float x, float y, float z) {
+        this.w = w;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    /**
+     * Constructs a Quaternion representing a rotation by the given angle about
+     * the given axis.  The axis does not need to be normalized.
+     *
+     * @param rotation The degree of CCW rotation about the axis.
+     * @param x        The X-component of the axis.
+     * @param y        The Y-component of the axis.
+     * @param z        The Z-component of the axis.
+     *
+     * @return The Quaternion.
+     *
+     * @throws IllegalArgumentException If the axis has no length.
+     */
+    public static Quaternion fromAxisAngle(float rotation, float x, float y, float z) {
+        float length = (float) Math.sqrt(x*x + y*y + z*z);
+        if (length == 0) {
+            throw new IllegalArgumentException("The axis of a rotation must have a non-zero length.");
+        }
+
+        double half = Math.toRadians(rotation)/2;
+        float sin = (float) Math.sin(half)/length;
+        return new Quaternion((float) Math.cos(half), x*sin, y*sin, z*sin);
+    }
+
+    /**
+     * Returns the product of this Quaternion and the given Quaternion.  The
+     * product applies the given rotation first, followed by this rotation,
+     * just like a glRotatef() call after the rotation of this Quaternion.
+     *
+     * @param q The right-hand Quaternion.
+     *
+     * @return The product.
+     */
+    public Quaternion multiply(Quaternion q) {
+        return new Quaternion(this.w*q.w - this.x*q.x - this.y*q.y - this.z*q.z,
+                              this.w*q.x + this.x*q.w + this.y*q.z - this.z*q.y,
+                              this.w*q.y - this.x*q.z + this.y*q.w + this.z*q.x,
+                              this.w*q.z + this.x*q.y - this.y*q.x + this.z*q.w);
+    }
+
+    /**
+     * Returns the unit Quaternion with the same direction as this Quaternion.
+     * Repeated products slowly drift away from unit length, which would scale
+     * the rotation matrix.
+     *
+     * @return The normalized Quaternion.
+     */
+    public Quaternion normalize() {
+        float length = (float) Math.sqrt(this.w*this.w + this.x*this.x + this.y*this.y + this.z*this.z);
+        return new Quaternion(this.w/length, this.x/length, this.y/length, this.z/length);
+    }
+
+    /**
+     * Writes the rotation of this Quaternion to the upper-left 3 x 3 block of
+     * the given column-major 4 x 4 matrix.  The other entries are not changed.
+     *
+     * @param matrix The matrix that receives the rotation.
+     */
+    public void toMatrix(float[] matrix) {
+        float xx = this.x*this.x, yy = this.y*this.y, zz = this.z*this.z;
+        float xy = this.x*this.y, xz = this.x*this.z, yz = this.y*this.z;
+        float wx = this.w*this.x, wy = this.w*this.y, wz = this.w*this.z;
+
+        matrix[0] = 1 - 2*(yy + zz);
+        matrix[1] = 2*(xy + wz);
+        matrix[2] = 2*(xz - wy);
+
+        matrix[4] = 2*(xy - wz);
+        matrix[5] = 1 - 2*(xx + zz);
+        matrix[6] = 2*(yz + wx);
+
+        matrix[8] = 2*(xz + wy);
+        matrix[9] = 2*(yz - wx);
+        matrix[10] = 1 - 2*(xx + yy);
+    }
+
+    /**
+     * Returns the scalar component of this Quaternion.
+     *
+     * @return The scalar component.
+     */
+    public float getW() {
+        return this.w;
+    }
+
+    /**
+     * Returns the X-component of this Quaternion.
+     *
+     * @return The X-component.
+     */
+    public float getX() {
+        return this.x;
+    }
+
+    /**
+     * Returns the Y-component of this Quaternion.
+     *
+     * @return The Y-component.
+     */
+    public float getY() {
+        return this.y;
+    }
+
+    /**
+     * Returns the Z-component of this Quaternion.
+     *
+     * @return The Z-component.
+     */
+    public float getZ() {
+        return this.z;
+    }
+
+    /**
+     * Returns a String representation of this Quaternion.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("(%.3f, %.3f, %.3f, %.3f)", this.w, this.x, this.y, this.z);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The scalar component of this Quaternion.
+     */
+    private float w;
+
+    /**
+     * The X-component of this Quaternion.
+     */
+    private float x;
+
+    /**
+     * The Y-component of this Quaternion.
+     */
+    private float y;
+
+    /**
+     * The Z-component of this Quaternion.
+     */
+    private float z;
+}
@@ -28,6 +28,15 @@ public abstract class Shape implements Drawable {
         return this.polygons;
     }
 
+    /**
+     * Returns the Bounds of this Shape.
+     *
+     * @return The Bounds, or null if this Shape is unbounded.
+     */
+    public Bounds getBounds() {
+        return this.bounds;
+    }
+
     /**
      * Returns the number of Polygons in this Shape.
      *
@@ -54,6 +63,11 @@ public abstract class Shape implements Drawable {
      */
     protected Polygon[] polygons;
 
+    /**
+     * The Bounds of this Shape.
+     */
+    protected Bounds bounds;
+
     /**
      * Constructs an empty Shape object.
      */
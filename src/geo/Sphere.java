@@ -1,13 +1,10 @@
 package geo;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
-
 import env.Colour;
 
 /**
- * The Sphere class represents a sphere.
+ * The Sphere class represents a sphere.  The Triangles of a Sphere share
+ * their Vertexes, which are built from the {@link SphereMesh} of the unit sphere.
  */
 public class Sphere extends Shape {
 
@@ -36,36 +33,50 @@ public class Sphere extends Shape {
     public Sphere(Vertex origin, float radius, boolean inverted, int refines) {
         this.origin = origin;
         this.radius = radius;
-
-        // Create the Triangular faces of the Sphere.
-        ArrayList<Triangle> faces = approximate();
-        for (int i = 0; i < refines; ++i) {
-            faces = refine(faces);
+        this.mesh = SphereMesh.get(refines);
+
+        // Colour each corner of the octahedron randomly; every other Vertex
+        // blends the Colours of the endpoints of the edge it was split from.
+        Colour.Option option = Colour.Option.LIGHT;
+        Colour[] colours = new Colour[this.mesh.getVertexCount()];
+        for (int i = 0; i < colours.length; ++i) {
+            int a = this.mesh.getParent(i, 0);
+            int b = this.mesh.getParent(i, 1);
+            colours[i] = a == i ? Colour.random(option) : Colour.average(colours[a], colours[b]);
         }
 
-        // Derive the set of unique Vertexes that constitute the face Triangles.
-        Set<Vertex> vertexes = new HashSet<>();
-        for (Triangle face : faces) {
-            for (Vertex vertex : face.getVertexes()) {
-                vertexes.add(vertex);
-            }
+        // Scale and translate each Vertex to match the origin and radius of
+        // this Sphere.  Adjacent Triangles share the Vertexes along their edges.
+        Vertex[] vertexes = new Vertex[colours.length];
+        for (int i = 0; i < vertexes.length; ++i) {
+            float x = this.mesh.getX(i)*radius + origin.getX();
+            float y = this.mesh.getY(i)*radius + origin.getY();
+            float z = this.mesh.getZ(i)*radius + origin.getZ();
+            vertexes[i] = new Vertex(x, y, z, colours[i]);
         }
 
-        // Colour, scale, and translate each Vertex to match the origin and
-        // radius of this Sphere.
-        for (Vertex vertex : vertexes) {
-            vertex.scale(radius);
-            vertex.translate(origin.getX(), origin.getY(), origin.getZ());
+        // Create the Triangular faces of the Sphere, reversing their concavity
+        // if necessary.
+        this.polygons = new Polygon[this.mesh.getTriangleCount()];
+        for (int i = 0; i < this.polygons.length; ++i) {
+            Vertex c0 = vertexes[this.mesh.getIndex(i, 0)];
+            Vertex c1 = vertexes[this.mesh.getIndex(i, 1)];
+            Vertex c2 = vertexes[this.mesh.getIndex(i, 2)];
+            this.polygons[i] = inverted ? new Triangle(c2, c1, c0) : new Triangle(c0, c1, c2);
         }
 
-        // Reverse the concavity of the Triangles if necessary.
-        if (inverted) {
-            for (Triangle triangle : faces) {
-                triangle.reverse();
-            }
-        }
+        float x = origin.getX(), y = origin.getY(), z = origin.getZ();
+        this.bounds = new Bounds(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius);
+    }
 
-        this.polygons = faces.stream().toArray(Polygon[]::new);
+    /**
+     * Returns the indexed mesh of the unit sphere that this Sphere is built from.
+     * The mesh is shared by every Sphere with the same number of refinements.
+     *
+     * @return The SphereMesh.
+     */
+    public SphereMesh getMesh() {
+        return this.mesh;
     }
 
     /**
@@ -92,64 +103,7 @@ public class Sphere extends Shape {
     private float radius;
 
     /**
-     * Creates a first-order approximation of this Sphere (i.e., an octohedron).
-     *
-     * @return The list of Triangles representing the initial faces of the Sphere.
+     * The indexed mesh of the unit sphere that this Sphere is built from.
      */
-    private ArrayList<Triangle> approximate() {
-        ArrayList<Triangle> faces = new ArrayList<>();
-
-		// Declare the Vertices representing the corners of the octahedron.
-		Colour.Option option = Colour.Option.LIGHT;
-        Vertex u = new Vertex( 0,  0,  1, Colour.random(option));
-        Vertex d = new Vertex( 0,  0, -1, Colour.random(option));
-        Vertex l = new Vertex(-1,  0,  0, Colour.random(option));
-        Vertex r = new Vertex( 1,  0,  0, Colour.random(option));
-        Vertex b = new Vertex( 0, -1,  0, Colour.random(option));
-        Vertex f = new Vertex( 0,  1,  0, Colour.random(option));
-
-        // Create the Triangles representing the faces of the octahedron.
-        faces.add(new Triangle(u, f, r));
-        faces.add(new Triangle(u, r, b));
-        faces.add(new Triangle(u, b, l));
-        faces.add(new Triangle(u, l, f));
-
-        faces.add(new Triangle(d, f, l));
-        faces.add(new Triangle(d, l, b));
-        faces.add(new Triangle(d, b, r));
-        faces.add(new Triangle(d, r, f));
-
-        return faces;
-    }
-
-    /**
-     * Refines the faces of the Sphere to better approximate a round object.
-     * 
-     * @param faces The faces of the Sphere.
-     *
-     * @return The new list of Triangles representing the faces of the Sphere.
-     */
-    private ArrayList<Triangle> refine(ArrayList<Triangle> faces) {
-        ArrayList<Triangle> newTriangles = new ArrayList<>();
-
-        // Replace each Triangle face on the Sphere with 4 new Triangles that
-        // better represent the round nature of the Sphere.
-        for (Triangle face : faces) {
-            Vertex[] corners = face.getVertexes();
-            Vertex[] midpoints = new Vertex[3];
-
-            // Find the normalized midpoint coordinates of each edge in the Triangle.
-            for (int i = 0; i < 3; ++i) {
-                midpoints[i] = new Vertex(corners[i], corners[(i + 1) % 3]);
-                midpoints[i].normalize();
-            }
-
-            // Construct 4 new faces using the original Triangle's corners and midpoints.
-            newTriangles.add(new Triangle(corners[0], midpoints[0], midpoints[2]));
-            newTriangles.add(new Triangle(corners[1], midpoints[1], midpoints[0]));
-            newTriangles.add(new Triangle(corners[2], midpoints[2], midpoints[1]));
-            newTriangles.add(new Triangle(midpoints[0], midpoints[1], midpoints[2]));
-        }
-        return newTriangles;
-    }
-}
\ No newline at end of file
+    private SphereMesh mesh;
+}
@@ -0,0 +1,337 @@
+package geo;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * The SphereMesh class represents an indexed triangle mesh of the unit sphere.
+ * The mesh starts from an octahedron; each refinement level splits every
+ * Triangle into four by inserting the normalized midpoint of each edge.
+ *
+ * The midpoint of an edge is created once and shared by both Triangles that
+ * border the edge, so the mesh consists of a single array of vertex positions
+ * and an index buffer with three indexes per Triangle.  A level with T
+ * Triangles has only T/2 + 2 vertexes.  The midpoint of vertexes |a| and |b|
+ * remembers both of its parents, which allows attributes such as Colours to be
+ * interpolated over the mesh (see {@link #getParent}).
+ *
+ * A SphereMesh is immutable, and the SphereMesh of each level is built once
+ * and then shared (see {@link #get}).
+ */
+public class SphereMesh {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the SphereMesh with the given number of refinement levels.
+     *
+     * @param level The number of refinement levels.
+     *
+     * @return The SphereMesh.
+     *
+     * @throws IllegalArgumentException If the level is negative or too large.
+     */
+    public static SphereMesh get(int level) {
+        if (level < 0 || level > MAX_LEVEL) {
+            throw new IllegalArgumentException(String.format("The refinement level of a SphereMesh must fall within the range [0, %d].", MAX_LEVEL));
+        }
+
+        synchronized (SphereMesh.cache) {
+            if (SphereMesh.cache[level] == null) {
+                SphereMesh.cache[level] = level == 0 ? new SphereMesh() : new SphereMesh(SphereMesh.get(level - 1));
+            }
+            return SphereMesh.cache[level];
+        }
+    }
+
+    /**
+     * Returns the refinement level of this SphereMesh.
+     *
+     * @return The refinement level.
+     */
+    public int getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Returns the number of vertexes in this SphereMesh.
+     *
+     * @return The number of vertexes.
+     */
+    public int getVertexCount() {
+        return this.positions.length/3;
+    }
+
+    /**
+     * Returns the number of Triangles in this SphereMesh.
+     *
+     * @return The number of Triangles.
+     */
+    public int getTriangleCount() {
+        return this.indexes.length/3;
+    }
+
+    /**
+     * Returns the X-coordinate of the given vertex.
+     *
+     * @param vertex The index of the vertex.
+     *
+     * @return The X-coordinate.
+     */
+    public float getX(int vertex) {
+        return this.positions[3*vertex];
+    }
+
+    /**
+     * Returns the Y-coordinate of the given vertex.
+     *
+     * @param vertex The index of the vertex.
+     *
+     * @return The Y-coordinate.
+     */
+    public float getY(int vertex) {
+        return this.positions[3*vertex + 1];
+    }
+
+    /**
+     * Returns the Z-coordinate of the given vertex.
+     *
+     * @param vertex The index of the vertex.
+     *
+     * @return The Z-coordinate.
+     */
+    public float getZ(int vertex) {
+        return this.positions[3*vertex + 2];
+    }
+
+    /**
+     * Returns a parent of the given vertex.  The corners of the octahedron are
+     * their own parents; every other vertex is the midpoint of its parents,
+     * which always precede it in this SphereMesh.
+     *
+     * @param vertex The index of the vertex.
+     * @param which  The parent to return (0 or 1).
+     *
+     * @return The index of the parent.
+     */
+    public int getParent(int vertex, int which) {
+        return this.parents[2*vertex + which];
+    }
+
+    /**
+     * Returns the index of the given corner of the given Triangle.  The corners
+     * of each Triangle are ordered counter-clockwise when viewed from outside
+     * the sphere.
+     *
+     * @param triangle The index of the Triangle.
+     * @param corner   The corner of the Triangle (0, 1, or 2).
+     *
+     * @return The index of the vertex at the corner.
+     */
+    public int getIndex(int triangle, int corner) {
+        return this.indexes[3*triangle + corner];
+    }
+
+    /**
+     * Puts the vertex positions of this SphereMesh into the given buffer as
+     * [x, y, z] triplets.
+     *
+     * @param buffer The buffer with room for 3 floats per vertex.
+     */
+    public void putPositions(FloatBuffer buffer) {
+        buffer.put(this.positions);
+    }
+
+    /**
+     * Puts the index buffer of this SphereMesh into the given buffer with 3
+     * indexes per Triangle.
+     *
+     * @param buffer The buffer with room for 3 ints per Triangle.
+     */
+    public void putIndexes(IntBuffer buffer) {
+        buffer.put(this.indexes);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The largest supported refinement level (which has 8M Triangles).
+     */
+    private static final int MAX_LEVEL = 10;
+
+    /**
+     * The SphereMesh of each refinement level that has been built.
+     */
+    private static final SphereMesh[] cache = new SphereMesh[MAX_LEVEL + 1];
+
+    /**
+     * The refinement level of this SphereMesh.
+     */
+    private int level;
+
+    /**
+     * The position of each vertex as [x, y, z] triplets.
+     */
+    private float[] positions;
+
+    /**
+     * The parents of each vertex as pairs of vertex indexes.
+     */
+    private int[] parents;
+
+    /**
+     * The corners of each Triangle as triplets of vertex indexes.
+     */
+    private int[] indexes;
+
+    /**
+     * Constructs the SphereMesh of the octahedron (i.e., refinement level 0).
+     */
+    private SphereMesh() {
+        this.level = 0;
+
+        // The corners of the octahedron: up, down, left, right, back, and front.
+        this.positions = new float[] {
+             0,  0,  1,
+             0,  0, -1,
+            -1,  0,  0,
+             1,  0,  0,
+             0, -1,  0,
+             0,  1,  0
+        };
+        this.parents = new int[12];
+        for (int vertex = 0; vertex < 6; ++vertex) {
+            this.parents[2*vertex] = vertex;
+            this.parents[2*vertex + 1] = vertex;
+        }
+
+        final int u = 0, d = 1, l = 2, r = 3, b = 4, f = 5;
+        this.indexes = new int[] {
+            u, f, r,
+            u, r, b,
+            u, b, l,
+            u, l, f,
+
+            d, f, l,
+            d, l, b,
+            d, b, r,
+            d, r, f
+        };
+    }
+
+    /**
+     * Constructs a SphereMesh by refining the given SphereMesh.  Each Triangle
+     * with corners [c0, c1, c2] is replaced by the Triangles [c0, m0, m2],
+     * [c1, m1, m0], [c2, m2, m1], and [m0, m1, m2], where |mi| is the midpoint
+     * of the edge from |ci| to |c(i + 1)|.
+     *
+     * @param coarse The SphereMesh to refine.
+     */
+    private SphereMesh(SphereMesh coarse) {
+        this.level = coarse.level + 1;
+
+        int triangles = coarse.getTriangleCount();
+        int vertexes = coarse.getVertexCount();
+
+        // Every edge borders two Triangles, so each level adds one vertex per edge.
+        int edges = 3*triangles/2;
+        this.positions = Arrays.copyOf(coarse.positions, 3*(vertexes + edges));
+        this.parents = Arrays.copyOf(coarse.parents, 2*(vertexes + edges));
+        this.indexes = new int[4*coarse.indexes.length];
+
+        // The midpoint cache is an open-addressing hash table that maps the
+        // (ordered) vertex indexes of an edge to the index of its midpoint.
+        int capacity = Integer.highestOneBit(4*edges);
+        long[] keys = new long[capacity];
+        int[] values = new int[capacity];
+        Arrays.fill(keys, -1);
+
+        int next = vertexes;
+        int[] corners = new int[3];
+        int[] midpoints = new int[3];
+        for (int triangle = 0; triangle < triangles; ++triangle) {
+            for (int i = 0; i < 3; ++i) {
+                corners[i] = coarse.indexes[3*triangle + i];
+            }
+
+            for (int i = 0; i < 3; ++i) {
+                int a = corners[i];
+                int b = corners[(i + 1) % 3];
+                long key = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+
+                int slot = (int) (SphereMesh.mix(key) & (capacity - 1));
+                while (keys[slot] != -1 && keys[slot] != key) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                if (keys[slot] == -1) {
+                    keys[slot] = key;
+                    values[slot] = next;
+                    this.midpoint(next, a, b);
+                    ++next;
+                }
+                midpoints[i] = values[slot];
+            }
+
+            int offset = 12*triangle;
+            this.set(offset,     corners[0],   midpoints[0], midpoints[2]);
+            this.set(offset + 3, corners[1],   midpoints[1], midpoints[0]);
+            this.set(offset + 6, corners[2],   midpoints[2], midpoints[1]);
+            this.set(offset + 9, midpoints[0], midpoints[1], midpoints[2]);
+        }
+    }
+
+    /**
+     * Stores the normalized midpoint of the given vertexes at the given index.
+     * The arithmetic mirrors {@link Vertex#Vertex(Vertex, Vertex)} followed by
+     * {@link Vertex#normalize} so that the positions do not depend on whether
+     * the sphere is built from a SphereMesh or from Vertex objects.
+     *
+     * @param vertex The index of the midpoint.
+     * @param a      The index of the first endpoint.
+     * @param b      The index of the second endpoint.
+     */
+    private void midpoint(int vertex, int a, int b) {
+        float x = (this.positions[3*a]     + this.positions[3*b])/2;
+        float y = (this.positions[3*a + 1] + this.positions[3*b + 1])/2;
+        float z = (this.positions[3*a + 2] + this.positions[3*b + 2])/2;
+
+        float magnitude = (float) Math.sqrt(Math.pow(x, 2) + Math.pow(y, 2) + Math.pow(z, 2));
+        float scalar = 1/magnitude;
+
+        this.positions[3*vertex]     = x*scalar;
+        this.positions[3*vertex + 1] = y*scalar;
+        this.positions[3*vertex + 2] = z*scalar;
+        this.parents[2*vertex]     = a;
+        this.parents[2*vertex + 1] = b;
+    }
+
+    /**
+     * Stores the corners of a Triangle at the given offset in the index buffer.
+     *
+     * @param offset The offset of the Triangle in the index buffer.
+     * @param c0     The index of the first corner.
+     * @param c1     The index of the second corner.
+     * @param c2     The index of the third corner.
+     */
+    private void set(int offset, int c0, int c1, int c2) {
+        this.indexes[offset]     = c0;
+        this.indexes[offset + 1] = c1;
+        this.indexes[offset + 2] = c2;
+    }
+
+    /**
+     * Scrambles the bits of the given edge key for the midpoint cache.
+     *
+     * @param key The edge key.
+     *
+     * @return The scrambled key.
+     */
+    private static long mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return key ^ (key >>> 29);
+    }
+}
@@ -86,10 +86,10 @@ public class Vertex {
      * @param vertex The Vertex to clone.
      */
     public Vertex(Vertex vertex) {
-        this.x = vertex.x;
-        this.y = vertex.y;
-        this.z = vertex.z;
-        this.colour = new Colour(vertex.colour);
+        this.x = vertex.getX();
+        this.y = vertex.getY();
+        this.z = vertex.getZ();
+        this.colour = new Colour(vertex.getColour());
     }
 
     /**
@@ -99,10 +99,10 @@ public class Vertex {
      * @param v2 The second Vertex.
      */
     public Vertex(Vertex v1, Vertex v2) {
-        this.x = (v1.x + v2.x)/2;
-        this.y = (v1.y + v2.y)/2;
-        this.z = (v1.z + v2.z)/2;
-        this.colour = Colour.average(v1.colour, v2.colour);
+        this.x = (v1.getX() + v2.getX())/2;
+        this.y = (v1.getY() + v2.getY())/2;
+        this.z = (v1.getZ() + v2.getZ())/2;
+        this.colour = Colour.average(v1.getColour(), v2.getColour());
     }
 
     /**
@@ -124,9 +124,9 @@ public class Vertex {
      * @return The distance between the Vertexes.
      */
     public float distance(Vertex vertex) {
-        return (float) Math.sqrt(Math.pow(this.x - vertex.x, 2)
-                               + Math.pow(this.y - vertex.y, 2)
-                               + Math.pow(this.z - vertex.z, 2));
+        return (float) Math.sqrt(Math.pow(this.getX() - vertex.getX(), 2)
+                               + Math.pow(this.getY() - vertex.getY(), 2)
+                               + Math.pow(this.getZ() - vertex.getZ(), 2));
     }
 
     /**
@@ -178,14 +178,14 @@ public class Vertex {
      * Sets the GL colour to the Colour of this Vertex.
      */
     public void glColour() {
-        this.colour.glColour();
+        this.getColour().glColour();
     }
 
     /**
      * Adds this Vertex to the GL buffer.
      */
     public void glVertex() {
-        glVertex3f(this.x, this.y, this.z);
+        glVertex3f(this.getX(), this.getY(), this.getZ());
     }
 
     /**
@@ -229,9 +229,7 @@ public class Vertex {
      */
     public void normalize() {
         float magnitude = magnitude();
-        this.x /= magnitude;
-        this.y /= magnitude;
-        this.z /= magnitude;
+        this.scale(1/magnitude);
     }
 
     /**
@@ -240,9 +238,9 @@ public class Vertex {
      * @param scalar The scaling factor.
      */
     public void scale(float scalar) {
-        this.x *= scalar;
-        this.y *= scalar;
-        this.z *= scalar;
+        this.setX(this.getX()*scalar);
+        this.setY(this.getY()*scalar);
+        this.setZ(this.getZ()*scalar);
     }
 
     /**
@@ -251,7 +249,7 @@ public class Vertex {
      * @param magnitude The maximum magnitude of the change in elevation.
      */
     public void shift(float magnitude) {
-        this.z += RNG.random(magnitude);
+        this.setZ(this.getZ() + RNG.random(magnitude));
     }
 
     /**
@@ -262,9 +260,9 @@ public class Vertex {
      * @param dz The amount to translate the Z-coordinate of this Vertex.
      */
     public void translate(float dx, float dy, float dz) {
-        this.x += dx;
-        this.y += dy;
-        this.z += dz;
+        this.setX(this.getX() + dx);
+        this.setY(this.getY() + dy);
+        this.setZ(this.getZ() + dz);
     }
 
     /**
@@ -274,7 +272,7 @@ public class Vertex {
      * @return The float array representation.
      */
     public float[] toArray() {
-        return new float[]{this.x, this.y, this.z, 1};
+        return new float[]{this.getX(), this.getY(), this.getZ(), 1};
     }
 
     /**
@@ -283,7 +281,7 @@ public class Vertex {
      * @return The String representation.
      */
     public String toString() {
-        return String.format("Vertex (%.2f, %.2f, %.2f)", this.x, this.y, this.z);
+        return String.format("Vertex (%.2f, %.2f, %.2f)", this.getX(), this.getY(), this.getZ());
     }
 
 
@@ -309,4 +307,11 @@ public class Vertex {
      * The colour of this Vertex.
      */
     protected Colour colour;
+
+    /**
+     * Constructs a Vertex whose state is managed entirely by a subclass.  The
+     * subclass must override the accessors and mutators of this Vertex.
+     */
+    protected Vertex() {
+    }
 }
\ No newline at end of file
@@ -34,4 +34,60 @@ public class Algebra {
     public static float curve(float x) {
         return (float) (1f - Math.cos(Math.PI*x))/2f;
     }
+
+    /**
+     * Returns the perspective projection matrix of the viewing frustum with
+     * the given clipping planes, as computed by glFrustum().  The matrix is
+     * stored in column-major order.
+     *
+     * @param left   The X-coordinate of the left clipping plane.
+     * @param right  The X-coordinate of the right clipping plane.
+     * @param bottom The Y-coordinate of the bottom clipping plane.
+     * @param top    The Y-coordinate of the top clipping plane.
+     * @param near   The distance to the near clipping plane.
+     * @param far    The distance to the far clipping plane.
+     *
+     * @return The projection matrix.
+     *
+     * @throws IllegalArgumentException If the clipping planes do not describe
+     *                                  a valid frustum.
+     */
+    public static float[] frustum(float left, float right, float bottom, float top, float near, float far) {
+        if (near <= 0 || far <= 0 || left == right || bottom == top || near == far) {
+            throw new IllegalArgumentException("The clipping planes do not describe a valid frustum.");
+        }
+
+        float[] matrix = new float[16];
+        matrix[0] = 2*near/(right - left);
+        matrix[5] = 2*near/(top - bottom);
+        matrix[8] = (right + left)/(right - left);
+        matrix[9] = (top + bottom)/(top - bottom);
+        matrix[10] = -(far + near)/(far - near);
+        matrix[11] = -1;
+        matrix[14] = -2*far*near/(far - near);
+        return matrix;
+    }
+
+    /**
+     * Returns the product of the given 4 x 4 matrices.  Both matrices (and the
+     * product) are stored in column-major order, as in OpenGL.
+     *
+     * @param a The left matrix.
+     * @param b The right matrix.
+     *
+     * @return The product |a|*|b|.
+     */
+    public static float[] multiply(float[] a, float[] b) {
+        float[] product = new float[16];
+        for (int col = 0; col < 4; ++col) {
+            for (int row = 0; row < 4; ++row) {
+                float sum = 0;
+                for (int k = 0; k < 4; ++k) {
+                    sum += a[4*k + row]*b[4*col + k];
+                }
+                product[4*col + row] = sum;
+            }
+        }
+        return product;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,235 @@
+package util;
+
+/**
+ * The Field class is a gradient (Perlin) noise function that is defined over
+ * the entire plane.  Unlike a {@link Noise}, a Field has no gradient table:
+ * the gradient at each lattice point is selected by hashing the coordinates of
+ * the point with the seed of the Field.  Consequently, any region of the plane
+ * can be sampled on demand, and two regions that are sampled independently
+ * agree exactly wherever they meet.
+ */
+public class Field {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs a single-octave Field with the given seed and lattice scale.
+     *
+     * @param seed  The seed of the lattice gradients.
+     * @param scale The distance between adjacent lattice points of the base octave.
+     */
+    public Field(long seed, float scale) {
+        this(seed, scale, Noise.Fractal.FBM, 1);
+    }
+
+    /**
+     * Constructs a Field with the given seed and lattice scale that combines
+     * the specified number of octaves using the given Fractal method.  Each
+     * octave doubles the frequency and halves the amplitude of the last.
+     *
+     * @param seed    The seed of the lattice gradients.
+     * @param scale   The distance between adjacent lattice points of the base octave.
+     * @param fractal The method used to combine the octaves.
+     * @param octaves The number of octaves.
+     *
+     * @throws IllegalArgumentException If the scale is not positive or the
+     *                                  number of octaves is less than one.
+     */
+    public Field(long seed, float scale, Noise.Fractal fractal, int octaves) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("The scale of a Field must be positive.");
+        } else if (octaves < 1) {
+            throw new IllegalArgumentException("A Field must have at least one octave.");
+        }
+
+        this.scale = scale;
+        this.fractal = fractal;
+        this.octaves = octaves;
+
+        // The base octave uses the given seed so that single-octave Fields are
+        // independent of the number of octaves.
+        this.seeds = new long[octaves];
+        float amplitude = 1;
+        float amplitudes = 0;
+        for (int octave = 0; octave < octaves; ++octave) {
+            this.seeds[octave] = octave == 0 ? seed : RNG.hash(seed, octave, 0, RNG.Stream.GRADIENTS);
+            amplitudes += amplitude;
+            amplitude *= GAIN;
+        }
+        this.normalizer = 1/amplitudes;
+    }
+
+    /**
+     * Returns the noise at the given coordinate.
+     *
+     * @param x The X-coordinate.
+     * @param y The Y-coordinate.
+     *
+     * @return The noise value.
+     */
+    public float sample(float x, float y) {
+        float u = x/this.scale;
+        float v = y/this.scale;
+
+        float sum = 0;
+        float amplitude = 1;
+        for (int octave = 0; octave < this.octaves; ++octave) {
+            float frequency = 1 << octave;
+            sum += amplitude*this.fractal.shape(this.gradient(this.seeds[octave], u*frequency, v*frequency));
+            amplitude *= GAIN;
+        }
+        return sum*this.normalizer;
+    }
+
+    /**
+     * Fills the given row-major matrix with noise.  The coordinate of the
+     * matrix cell at (row, col) is (x0 + col*dx, y0 + row*dy).  Large matrices
+     * are evaluated in parallel bands of rows.
+     *
+     * @param matrix The matrix to fill.
+     * @param rows   The number of rows in the matrix.
+     * @param cols   The number of columns in the matrix.
+     * @param x0     The X-coordinate of the first column.
+     * @param y0     The Y-coordinate of the first row.
+     * @param dx     The distance between adjacent columns.
+     * @param dy     The distance between adjacent rows.
+     */
+    public void fill(float[] matrix, int rows, int cols, float x0, float y0, float dx, float dy) {
+        if (matrix.length < rows*cols) {
+            throw new IllegalArgumentException("The matrix is too small to hold the requested rows and columns.");
+        }
+
+        Parallel.forEachBand(rows, cols, (first, last) -> {
+            for (int row = first; row < last; ++row) {
+                int offset = row*cols;
+                float y = y0 + row*dy;
+                for (int col = 0; col < cols; ++col) {
+                    matrix[offset + col] = this.sample(x0 + col*dx, y);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the distance between adjacent lattice points of the base octave
+     * of this Field.
+     *
+     * @return The scale.
+     */
+    public float getScale() {
+        return this.scale;
+    }
+
+    /**
+     * Returns a String representation of this Field.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("Field (scale %.3f, %d %s octaves)", this.scale, this.octaves, this.fractal);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The ratio between the amplitudes of consecutive octaves.
+     */
+    private static final float GAIN = 0.5f;
+
+    /**
+     * The number of gradient directions.  This must be a power of two.
+     */
+    private static final int DIRECTIONS = 256;
+
+    /**
+     * The X-components of the unit gradient directions.
+     */
+    private static final float[] DIRECTIONS_X = new float[DIRECTIONS];
+
+    /**
+     * The Y-components of the unit gradient directions.
+     */
+    private static final float[] DIRECTIONS_Y = new float[DIRECTIONS];
+
+    static {
+        for (int i = 0; i < DIRECTIONS; ++i) {
+            double angle = 2*Math.PI*i/DIRECTIONS;
+            DIRECTIONS_X[i] = (float) Math.cos(angle);
+            DIRECTIONS_Y[i] = (float) Math.sin(angle);
+        }
+    }
+
+    /**
+     * The distance between adjacent lattice points of the base octave.
+     */
+    private float scale;
+
+    /**
+     * The method used to combine the octaves of this Field.
+     */
+    private Noise.Fractal fractal;
+
+    /**
+     * The number of octaves in this Field.
+     */
+    private int octaves;
+
+    /**
+     * The seed of the lattice gradients of each octave.
+     */
+    private long[] seeds;
+
+    /**
+     * The reciprocal of the sum of the octave amplitudes.
+     */
+    private float normalizer;
+
+    /**
+     * Returns the gradient noise of the lattice with the given seed at the
+     * given lattice coordinate.
+     *
+     * @param seed The seed of the lattice.
+     * @param u    The horizontal lattice coordinate.
+     * @param v    The vertical lattice coordinate.
+     *
+     * @return The gradient noise value.
+     */
+    private float gradient(long seed, float u, float v) {
+        // Flooring (rather than truncating) keeps the lattice consistent on
+        // both sides of the origin.
+        int col = (int) Math.floor(u);
+        int row = (int) Math.floor(v);
+        float fx = u - col;
+        float fy = v - row;
+
+        float d00 = Field.dot(seed, row,     col,     fx,      fy);
+        float d01 = Field.dot(seed, row,     col + 1, fx - 1f, fy);
+        float d10 = Field.dot(seed, row + 1, col,     fx,      fy - 1f);
+        float d11 = Field.dot(seed, row + 1, col + 1, fx - 1f, fy - 1f);
+
+        float wx = Noise.fade(fx);
+        float upper = Algebra.average(d00, d01, wx);
+        float lower = Algebra.average(d10, d11, wx);
+        return Algebra.average(upper, lower, Noise.fade(fy));
+    }
+
+    /**
+     * Returns the dot product between the hashed gradient at the given lattice
+     * point and the given offset from that lattice point.
+     *
+     * @param seed The seed of the lattice.
+     * @param row  The row of the lattice point.
+     * @param col  The column of the lattice point.
+     * @param dx   The horizontal offset from the lattice point.
+     * @param dy   The vertical offset from the lattice point.
+     *
+     * @return The dot product.
+     */
+    private static float dot(long seed, int row, int col, float dx, float dy) {
+        int direction = (int) (RNG.hash(seed, row, col, RNG.Stream.GRADIENTS) >>> 56) & (DIRECTIONS - 1);
+        return DIRECTIONS_X[direction]*dx + DIRECTIONS_Y[direction]*dy;
+    }
+}
@@ -0,0 +1,189 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * The Histogram class counts non-negative long values (e.g., durations in
+ * nanoseconds) in log-linear buckets.  Each power of two is split into 32
+ * linear sub-buckets, so every percentile is reported within about 3% of the
+ * recorded value while the entire Histogram fits in a fixed array.  Recording
+ * a value never allocates, which makes a Histogram suitable for per-frame
+ * measurements.  A Histogram is not thread-safe.
+ */
+public class Histogram {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs an empty Histogram.
+     */
+    public Histogram() {
+        this.counts = new long[BUCKETS];
+        this.reset();
+    }
+
+    /**
+     * Records the given value in this Histogram.  Negative values are recorded
+     * as zero and values beyond the range of this Histogram are recorded in
+     * its last bucket (although the maximum value is tracked exactly).
+     *
+     * @param value The value to record.
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        ++this.counts[Histogram.getBucket(Math.min(value, MAX_VALUE))];
+        ++this.count;
+        this.sum += value;
+        this.max = Math.max(this.max, value);
+    }
+
+    /**
+     * Returns the number of values recorded in this Histogram.
+     *
+     * @return The number of values.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the mean of the values recorded in this Histogram.
+     *
+     * @return The mean, or 0 if no values have been recorded.
+     */
+    public double getMean() {
+        return this.count == 0 ? 0 : (double) this.sum/this.count;
+    }
+
+    /**
+     * Returns the largest value recorded in this Histogram.
+     *
+     * @return The largest value, or 0 if no values have been recorded.
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Returns the smallest value that is greater than or equal to the given
+     * percentage of the values recorded in this Histogram, rounded up to the
+     * upper bound of its bucket.
+     *
+     * @param percentile The percentile (in the range [0, 100]).
+     *
+     * @return The value at the percentile, or 0 if no values have been recorded.
+     *
+     * @throws IllegalArgumentException If the percentile is not in [0, 100].
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentiles must fall within the range [0, 100].");
+        }
+        if (this.count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile/100*this.count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+            seen += this.counts[bucket];
+            if (seen >= rank) {
+                return Math.min(this.max, Histogram.getUpperBound(bucket));
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Removes every value from this Histogram.
+     */
+    public void reset() {
+        Arrays.fill(this.counts, 0);
+        this.count = 0;
+        this.sum = 0;
+        this.max = 0;
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of bits that select the linear sub-bucket within a power of two.
+     */
+    private static final int SUB_BITS = 5;
+
+    /**
+     * The number of linear sub-buckets within a power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * The base-2 logarithm of the largest power of two that is counted in its
+     * own buckets (2^40 ns is about 18 minutes).
+     */
+    private static final int MAX_EXPONENT = 40;
+
+    /**
+     * The largest value that is counted in its own bucket.
+     */
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    /**
+     * The number of buckets in a Histogram.
+     */
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) << SUB_BITS;
+
+    /**
+     * The number of values in each bucket.
+     */
+    private long[] counts;
+
+    /**
+     * The number of recorded values.
+     */
+    private long count;
+
+    /**
+     * The sum of the recorded values.
+     */
+    private long sum;
+
+    /**
+     * The largest recorded value.
+     */
+    private long max;
+
+    /**
+     * Returns the bucket that counts the given value.
+     *
+     * @param value The value (in the range [0, MAX_VALUE]).
+     *
+     * @return The bucket.
+     */
+    private static int getBucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Returns the largest value that is counted in the given bucket.
+     *
+     * @param bucket The bucket.
+     *
+     * @return The largest value.
+     */
+    private static long getUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BITS) - 1;
+        long first = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+        return first + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,374 @@
+package util;
+
+/**
+ * The Noise class is a gradient (Perlin) noise engine that is shared by every
+ * noise transformation in Geoscape.  The gradients of each octave are stored
+ * in primitive tables and the noise is evaluated without any allocation in the
+ * inner loop, so entire matrices can be filled row by row in parallel.
+ *
+ * The lattice of the base octave has the given number of rows and columns of
+ * cells and is sampled in lattice units: a coordinate (u, v) must fall within
+ * [0, cols] x [0, rows].  The noise of a single octave falls roughly within
+ * the range [-0.7, 0.7].
+ *
+ * The gradient table of octave k has 4^k times as many entries as the table
+ * of the base octave, so the gradients of octaves whose table would exceed a
+ * million entries are hashed from the lattice coordinates on demand instead
+ * (like a {@link Field}).  Both paths derive each gradient from the same
+ * hash, so the noise does not depend on which path is taken.
+ */
+public class Noise {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The Fractal enum represents the methods that can be used to combine the
+     * octaves of a Noise.
+     */
+    public static enum Fractal {
+        /**
+         * Fractional Brownian motion: the octaves are summed with geometrically
+         * decreasing amplitudes.
+         */
+        FBM {
+            @Override
+            public float shape(float value) {
+                return value;
+            }
+        },
+        /**
+         * Ridged multifractal: each octave is folded about zero before it is
+         * summed, producing sharp crests where the noise crosses zero.
+         */
+        RIDGED {
+            @Override
+            public float shape(float value) {
+                // Fold the octave about zero and map the crest back to [-1, 1].
+                float ridge = Math.max(0, 1 - SQRT2*Math.abs(value));
+                return 2*ridge*ridge - 1;
+            }
+        };
+
+        /**
+         * Shapes the value of a single octave before it is summed.
+         *
+         * @param value The gradient noise value of the octave.
+         *
+         * @return The shaped value.
+         */
+        public abstract float shape(float value);
+    };
+
+    /**
+     * Constructs a single-octave Noise with the given number of lattice rows
+     * and columns.
+     *
+     * @param rows The number of rows of cells in the lattice.
+     * @param cols The number of columns of cells in the lattice.
+     * @param seed The seed of the lattice gradients.
+     */
+    public Noise(int rows, int cols, long seed) {
+        this(rows, cols, seed, Fractal.FBM, 1);
+    }
+
+    /**
+     * Constructs a Noise with the given number of lattice rows and columns that
+     * combines the specified number of octaves using the given Fractal method.
+     * Each octave doubles the frequency and halves the amplitude of the last.
+     *
+     * @param rows    The number of rows of cells in the base lattice.
+     * @param cols    The number of columns of cells in the base lattice.
+     * @param seed    The seed of the lattice gradients.
+     * @param fractal The method used to combine the octaves.
+     * @param octaves The number of octaves.
+     *
+     * @throws IllegalArgumentException If the lattice or number of octaves is
+     *                                  empty, or if the lattice of the last
+     *                                  octave has too many rows or columns.
+     */
+    public Noise(int rows, int cols, long seed, Fractal fractal, int octaves) {
+        if (rows < 1 || cols < 1) {
+            throw new IllegalArgumentException("A Noise lattice must have at least one row and column.");
+        } else if (octaves < 1) {
+            throw new IllegalArgumentException("A Noise must have at least one octave.");
+        } else if (octaves > 31 || ((long) Math.max(rows, cols) << (octaves - 1)) >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The lattice of the last octave of a Noise is too large.");
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        this.fractal = fractal;
+        this.octaves = octaves;
+
+        this.seeds = new long[octaves];
+        this.gradientsX = new float[octaves][];
+        this.gradientsY = new float[octaves][];
+
+        float amplitude = 1;
+        float amplitudes = 0;
+        for (int octave = 0; octave < octaves; ++octave) {
+            // The base octave draws its gradients from the given seed so that
+            // single-octave Noise is independent of the number of octaves.
+            long octaveSeed = octave == 0 ? seed : RNG.hash(seed, octave, 0, RNG.Stream.GRADIENTS);
+            this.seeds[octave] = octaveSeed;
+
+            // The gradients of octaves with oversized tables are hashed in gradient().
+            long stride = ((long) cols << octave) + 1;
+            long size = (((long) rows << octave) + 1)*stride;
+            if (octave == 0 || size <= TABLE_LIMIT) {
+                float[] xs = new float[(int) size];
+                float[] ys = new float[(int) size];
+                for (int index = 0; index < size; ++index) {
+                    double angle = Noise.angle(octaveSeed, (int) (index/stride), (int) (index % stride));
+                    xs[index] = (float) Math.cos(angle);
+                    ys[index] = (float) Math.sin(angle);
+                }
+                this.gradientsX[octave] = xs;
+                this.gradientsY[octave] = ys;
+            }
+
+            amplitudes += amplitude;
+            amplitude *= GAIN;
+        }
+        this.normalizer = 1/amplitudes;
+    }
+
+    /**
+     * Returns the noise at the given lattice coordinate.
+     *
+     * @param u The horizontal lattice coordinate (in the range [0, cols]).
+     * @param v The vertical lattice coordinate (in the range [0, rows]).
+     *
+     * @return The noise value.
+     */
+    public float sample(float u, float v) {
+        float sum = 0;
+        float amplitude = 1;
+        for (int octave = 0; octave < this.octaves; ++octave) {
+            float frequency = 1 << octave;
+            sum += amplitude*this.fractal.shape(this.gradient(octave, u*frequency, v*frequency));
+            amplitude *= GAIN;
+        }
+        return sum*this.normalizer;
+    }
+
+    /**
+     * Fills the given row-major matrix with noise.  The lattice coordinate of
+     * the matrix cell at (row, col) is (u0 + col*du, v0 + row*dv).  Large
+     * matrices are evaluated in parallel bands of rows.
+     *
+     * @param matrix The matrix to fill.
+     * @param rows   The number of rows in the matrix.
+     * @param cols   The number of columns in the matrix.
+     * @param u0     The horizontal lattice coordinate of the first column.
+     * @param v0     The vertical lattice coordinate of the first row.
+     * @param du     The horizontal lattice distance between adjacent columns.
+     * @param dv     The vertical lattice distance between adjacent rows.
+     */
+    public void fill(float[] matrix, int rows, int cols, float u0, float v0, float du, float dv) {
+        if (matrix.length < rows*cols) {
+            throw new IllegalArgumentException("The matrix is too small to hold the requested rows and columns.");
+        }
+
+        Parallel.forEachBand(rows, cols, (first, last) -> {
+            for (int row = first; row < last; ++row) {
+                this.fillRow(matrix, row*cols, cols, u0, v0 + row*dv, du);
+            }
+        });
+    }
+
+    /**
+     * Returns a String representation of this Noise.
+     *
+     * @return The String representation.
+     */
+    public String toString() {
+        return String.format("Noise (%d x %d cells, %d %s octaves)", this.rows, this.cols, this.octaves, this.fractal);
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The ratio between the amplitudes of consecutive octaves.
+     */
+    private static final float GAIN = 0.5f;
+
+    /**
+     * The square root of 2, the reciprocal of the maximum single-octave noise.
+     */
+    private static final float SQRT2 = (float) Math.sqrt(2);
+
+    /**
+     * The largest number of entries in the gradient table of an octave above
+     * the base octave.  Each entry costs 8 bytes.
+     */
+    private static final long TABLE_LIMIT = 1 << 20;
+
+    /**
+     * The number of rows of cells in the base lattice.
+     */
+    private int rows;
+
+    /**
+     * The number of columns of cells in the base lattice.
+     */
+    private int cols;
+
+    /**
+     * The method used to combine the octaves of this Noise.
+     */
+    private Fractal fractal;
+
+    /**
+     * The number of octaves in this Noise.
+     */
+    private int octaves;
+
+    /**
+     * The seed of the lattice gradients of each octave.
+     */
+    private long[] seeds;
+
+    /**
+     * The X-components of the lattice gradients of each octave (row-major), or
+     * null if the gradients of the octave are hashed.
+     */
+    private float[][] gradientsX;
+
+    /**
+     * The Y-components of the lattice gradients of each octave (row-major), or
+     * null if the gradients of the octave are hashed.
+     */
+    private float[][] gradientsY;
+
+    /**
+     * The reciprocal of the sum of the octave amplitudes.
+     */
+    private float normalizer;
+
+    /**
+     * Fills a single row of a matrix with noise.  Every octave is accumulated
+     * into the row before moving on to the next row so that the row stays in
+     * cache and each thread writes to a disjoint slice of the matrix.
+     *
+     * @param matrix The matrix to fill.
+     * @param offset The index of the first cell of the row in the matrix.
+     * @param cols   The number of columns in the matrix.
+     * @param u0     The horizontal lattice coordinate of the first column.
+     * @param v      The vertical lattice coordinate of the row.
+     * @param du     The horizontal lattice distance between adjacent columns.
+     */
+    private void fillRow(float[] matrix, int offset, int cols, float u0, float v, float du) {
+        float amplitude = 1;
+        for (int octave = 0; octave < this.octaves; ++octave) {
+            float frequency = 1 << octave;
+            float vk = v*frequency;
+            for (int col = 0; col < cols; ++col) {
+                float value = this.fractal.shape(this.gradient(octave, (u0 + col*du)*frequency, vk));
+                if (octave == 0) {
+                    matrix[offset + col] = value;
+                } else {
+                    matrix[offset + col] += amplitude*value;
+                }
+            }
+            amplitude *= GAIN;
+        }
+
+        if (this.octaves > 1) {
+            for (int col = 0; col < cols; ++col) {
+                matrix[offset + col] *= this.normalizer;
+            }
+        }
+    }
+
+    /**
+     * Returns the gradient noise of the given octave at the given coordinate
+     * of the lattice of that octave.
+     *
+     * @param octave The octave.
+     * @param u      The horizontal lattice coordinate.
+     * @param v      The vertical lattice coordinate.
+     *
+     * @return The gradient noise value.
+     */
+    private float gradient(int octave, float u, float v) {
+        float[] xs = this.gradientsX[octave];
+        float[] ys = this.gradientsY[octave];
+        int latticeRows = this.rows << octave;
+        int latticeCols = this.cols << octave;
+
+        int cellRow = Math.max(0, Math.min(latticeRows - 1, (int) v));
+        int cellCol = Math.max(0, Math.min(latticeCols - 1, (int) u));
+        float fx = u - cellCol;
+        float fy = v - cellRow;
+
+        float d00, d01, d10, d11;
+        if (xs == null) {
+            long seed = this.seeds[octave];
+            d00 = Noise.dot(seed, cellRow,     cellCol,     fx,      fy);
+            d01 = Noise.dot(seed, cellRow,     cellCol + 1, fx - 1f, fy);
+            d10 = Noise.dot(seed, cellRow + 1, cellCol,     fx,      fy - 1f);
+            d11 = Noise.dot(seed, cellRow + 1, cellCol + 1, fx - 1f, fy - 1f);
+        } else {
+            int stride = latticeCols + 1;
+            int i00 = cellRow*stride + cellCol;
+            int i10 = i00 + stride;
+            d00 = xs[i00    ]*fx        + ys[i00    ]*fy;
+            d01 = xs[i00 + 1]*(fx - 1f) + ys[i00 + 1]*fy;
+            d10 = xs[i10    ]*fx        + ys[i10    ]*(fy - 1f);
+            d11 = xs[i10 + 1]*(fx - 1f) + ys[i10 + 1]*(fy - 1f);
+        }
+
+        float wx = Noise.fade(fx);
+        float upper = Algebra.average(d00, d01, wx);
+        float lower = Algebra.average(d10, d11, wx);
+        return Algebra.average(upper, lower, Noise.fade(fy));
+    }
+
+    /**
+     * Returns the angle of the gradient at the given lattice point.
+     *
+     * @param seed The seed of the lattice.
+     * @param row  The row of the lattice point.
+     * @param col  The column of the lattice point.
+     *
+     * @return The angle (in radians).
+     */
+    private static double angle(long seed, int row, int col) {
+        return 2*Math.PI*RNG.random(seed, row, col, RNG.Stream.GRADIENTS);
+    }
+
+    /**
+     * Returns the dot product between the hashed gradient at the given lattice
+     * point and the given offset from that lattice point.  The gradient is
+     * rounded exactly like an entry of a gradient table.
+     *
+     * @param seed The seed of the lattice.
+     * @param row  The row of the lattice point.
+     * @param col  The column of the lattice point.
+     * @param dx   The horizontal offset from the lattice point.
+     * @param dy   The vertical offset from the lattice point.
+     *
+     * @return The dot product.
+     */
+    private static float dot(long seed, int row, int col, float dx, float dy) {
+        double angle = Noise.angle(seed, row, col);
+        return (float) Math.cos(angle)*dx + (float) Math.sin(angle)*dy;
+    }
+
+    /**
+     * Maps the given offset within a lattice cell to a smooth interpolation
+     * weight using the quintic curve 6t^5 - 15t^4 + 10t^3.  Unlike a cosine
+     * curve, this polynomial is cheap enough to evaluate in an inner loop.
+     *
+     * @param t The offset (in the range [0, 1]).
+     *
+     * @return The interpolation weight.
+     */
+    static float fade(float t) {
+        return t*t*t*(t*(6*t - 15) + 10);
+    }
+}
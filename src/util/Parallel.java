@@ -0,0 +1,209 @@
+package util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The Parallel class runs the stages of the generation pipeline on a shared,
+ * configurable ForkJoinPool.  A stage partitions the rows of a row-major
+ * matrix into contiguous bands and processes the bands concurrently; the call
+ * returns once every band is complete, which acts as the barrier between a
+ * stage and the stages that depend on its output.
+ *
+ * Bands never change the results of a stage: every stage writes each cell
+ * independently of the other cells written by the stage (reading neighbours,
+ * if at all, from a copy taken before the stage), and all randomness is keyed
+ * on coordinates rather than on thread scheduling.
+ */
+public class Parallel {
+
+    // Public members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The Band interface represents the work of a stage over a range of rows.
+     */
+    @FunctionalInterface
+    public static interface Band {
+        /**
+         * Processes the rows in the range [first, last).
+         *
+         * @param first The first row of the band.
+         * @param last  The row after the last row of the band.
+         */
+        void apply(int first, int last);
+    }
+
+    /**
+     * Sets the number of threads that run the stages of the generation
+     * pipeline.  This should be called before the World is generated.
+     *
+     * @param threads The number of threads.
+     *
+     * @throws IllegalArgumentException If the number of threads is not positive.
+     */
+    public static synchronized void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The generation pipeline requires at least one thread.");
+        }
+        if (threads == Parallel.pool.getParallelism()) {
+            return;
+        }
+
+        ForkJoinPool previous = Parallel.pool;
+        Parallel.pool = new ForkJoinPool(threads);
+        if (previous != ForkJoinPool.commonPool()) {
+            previous.shutdown();
+        }
+    }
+
+    /**
+     * Returns the number of threads that run the stages of the generation
+     * pipeline.
+     *
+     * @return The number of threads.
+     */
+    public static int getThreads() {
+        return Parallel.pool.getParallelism();
+    }
+
+    /**
+     * Runs the given Band over the rows of a matrix with the given dimensions.
+     * The band height is chosen to balance the load across the pool, so the
+     * Band must write each row independently of the other rows.
+     *
+     * @param rows The number of rows in the matrix.
+     * @param cols The number of columns in the matrix.
+     * @param band The work to perform on each band.
+     */
+    public static void forEachBand(int rows, int cols, Band band) {
+        // Aim for a few bands per thread so that uneven bands even out, but
+        // keep each band large enough to amortize the cost of a task.
+        int threads = Parallel.getThreads();
+        int height = (rows + BANDS_PER_THREAD*threads - 1)/(BANDS_PER_THREAD*threads);
+        height = Math.max(height, MIN_BAND_CELLS/Math.max(1, cols));
+        Parallel.forEachBand(rows, cols, Math.max(1, height), band);
+    }
+
+    /**
+     * Runs the given Band over the rows of a matrix with the given dimensions
+     * using bands of the given height.  Small matrices are processed on the
+     * calling thread, one band at a time.
+     *
+     * @param rows   The number of rows in the matrix.
+     * @param cols   The number of columns in the matrix.
+     * @param height The number of rows in each band (the last band may be shorter).
+     * @param band   The work to perform on each band.
+     *
+     * @throws IllegalArgumentException If the band height is not positive.
+     */
+    public static void forEachBand(int rows, int cols, int height, Band band) {
+        if (height < 1) {
+            throw new IllegalArgumentException("The height of a band must be positive.");
+        }
+
+        int bands = (rows + height - 1)/height;
+        if ((long) rows*cols < PARALLEL_THRESHOLD || bands < 2 || Parallel.getThreads() == 1) {
+            for (int first = 0; first < rows; first += height) {
+                band.apply(first, Math.min(rows, first + height));
+            }
+        } else {
+            Parallel.pool.invoke(new Task(band, rows, height, 0, bands));
+        }
+    }
+
+
+    // Private members
+    // -------------------------------------------------------------------------
+
+    /**
+     * The minimum number of matrix cells that are processed in parallel.
+     */
+    private static final long PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * The number of bands assigned to each thread (when the bands are large
+     * enough).
+     */
+    private static final int BANDS_PER_THREAD = 4;
+
+    /**
+     * The minimum number of matrix cells in a band of automatic height.
+     */
+    private static final int MIN_BAND_CELLS = 1 << 10;
+
+    /**
+     * The ForkJoinPool that runs the bands.
+     */
+    private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * The Task class runs a range of bands by recursively splitting the range
+     * in half until a single band remains.
+     */
+    private static class Task extends RecursiveAction {
+
+        /**
+         * Constructs a Task that runs the given range of bands.
+         *
+         * @param band   The work to perform on each band.
+         * @param rows   The number of rows in the matrix.
+         * @param height The number of rows in each band.
+         * @param first  The first band of the range.
+         * @param last   The band after the last band of the range.
+         */
+        private Task(Band band, int rows, int height, int first, int last) {
+            this.band = band;
+            this.rows = rows;
+            this.height = height;
+            this.first = first;
+            this.last = last;
+        }
+
+        /**
+         * Runs the bands of this Task.
+         */
+        @Override
+        protected void compute() {
+            if (this.last - this.first > 1) {
+                int middle = (this.first + this.last) >>> 1;
+                ForkJoinTask.invokeAll(new Task(this.band, this.rows, this.height, this.first, middle),
+                                       new Task(this.band, this.rows, this.height, middle, this.last));
+                return;
+            }
+            int start = this.first*this.height;
+            this.band.apply(start, Math.min(this.rows, start + this.height));
+        }
+
+        /**
+         * The serialization version of a Task (which is never serialized).
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The work to perform on each band.
+         */
+        private Band band;
+
+        /**
+         * The number of rows in the matrix.
+         */
+        private int rows;
+
+        /**
+         * The number of rows in each band.
+         */
+        private int height;
+
+        /**
+         * The first band of this Task.
+         */
+        private int first;
+
+        /**
+         * The band after the last band of this Task.
+         */
+        private int last;
+    }
+}
@@ -1,19 +1,67 @@
 package util;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
 import core.Logger;
 
 /**
  * The Progress class tracks the progress of a process in a thread-safe way.
+ *
+ * The workers of the process only add to a striped counter, so they never
+ * contend over a lock.  While a Progress is running (see {@link #start}), a
+ * background sampler periodically reads the counter, logs a message for each
+ * new milestone, and notifies the subscribed Listeners; {@link #finish}
+ * reports the remaining milestones once the process is complete.
  */
 public class Progress {
 
     // Public members
     // -------------------------------------------------------------------------
 
+    /**
+     * The Listener interface receives the milestones of every Progress.
+     */
+    @FunctionalInterface
+    public static interface Listener {
+        /**
+         * Called when the given Progress reaches a new milestone.  This function
+         * is called from the sampler thread (or the thread that finishes the
+         * Progress), never from the workers of the tracked process.
+         *
+         * @param progress  The Progress that reached the milestone.
+         * @param milestone The milestone (as a percentage).
+         */
+        void update(Progress progress, int milestone);
+    }
+
+    /**
+     * Subscribes the given Listener to the milestones of every Progress.
+     *
+     * @param listener The Listener.
+     */
+    public static void subscribe(Listener listener) {
+        Progress.listeners.add(listener);
+    }
+
+    /**
+     * Unsubscribes the given Listener from the milestones of every Progress.
+     *
+     * @param listener The Listener.
+     */
+    public static void unsubscribe(Listener listener) {
+        Progress.listeners.remove(listener);
+    }
+
     /**
      * Constructs a new Progress with the given message format, milestone interval,
      * and capacity.
-     * 
+     *
      * @param format   The format of the logged messages.
      *                 This format must only contain one integer substitution.
      * @param interval The difference in progress between consecutive progress messages.
@@ -23,31 +71,107 @@ public class Progress {
         this.format = format;
         this.interval = interval;
         this.capacity = capacity;
-        
-        this.counter = 0;
+
+        this.counter = new LongAdder();
         this.milestone = interval;
+        this.sampler = null;
+    }
+
+    /**
+     * Returns the format of the messages logged by this Progress.
+     *
+     * @return The format.
+     */
+    public String getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Returns the percentage of the tracked process that has been completed.
+     *
+     * @return The percentage (in the range [0, 100]).
+     */
+    public int getPercentage() {
+        if (this.capacity <= 0) {
+            return 100;
+        }
+        return (int) Math.min(100, 100*this.counter.sum()/this.capacity);
+    }
+
+    /**
+     * Starts sampling the progress of the tracked process in the background.
+     */
+    public synchronized void start() {
+        if (this.sampler == null) {
+            this.sampler = SAMPLER.scheduleAtFixedRate(this::display, SAMPLE_PERIOD, SAMPLE_PERIOD, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops sampling the progress of the tracked process and reports every
+     * milestone that has not been reported yet.
+     */
+    public synchronized void finish() {
+        if (this.sampler != null) {
+            this.sampler.cancel(false);
+            this.sampler = null;
+        }
+        this.display();
     }
 
     /**
      * Increments the number of iterations performed by the tracked process.
      */
-    public synchronized void increment() {
-        ++this.counter;
+    public void increment() {
+        this.counter.increment();
     }
 
     /**
-     * Logs a message if a new progress milestone has been reached.
+     * Adds the given number of iterations to the tracked process.
+     *
+     * @param iterations The number of iterations performed.
+     */
+    public void increment(int iterations) {
+        this.counter.add(iterations);
+    }
+
+    /**
+     * Logs a message and notifies the Listeners for each progress milestone
+     * that has been reached since the last call.
      */
     public synchronized void display() {
-        int done = 100*this.counter/this.capacity;
-        if (done >= this.milestone) {
+        int done = this.getPercentage();
+        while (this.milestone <= 100 && done >= this.milestone) {
             Logger.info(1, this.format, this.milestone);
-            this.milestone = Math.min(100, this.milestone + this.interval);
+            for (Listener listener : Progress.listeners) {
+                listener.update(this, this.milestone);
+            }
+            // Every milestone is reported exactly once, ending with 100%.
+            this.milestone = this.milestone == 100 ? 101 : Math.min(100, this.milestone + this.interval);
         }
     }
 
     // Private members
-    // -------------------------------------------------------------------------    
+    // -------------------------------------------------------------------------
+
+    /**
+     * The number of milliseconds between consecutive samples of a Progress.
+     */
+    private static final long SAMPLE_PERIOD = 50;
+
+    /**
+     * The executor that samples every running Progress.
+     */
+    private static final ScheduledExecutorService SAMPLER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The Listeners subscribed to the milestones of every Progress.
+     */
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
 
     /**
      * The maximum value of the process counter.
@@ -57,8 +181,8 @@ public class Progress {
     /**
      * The number of iterations into the tracked process.
      */
-    int counter;
-    
+    LongAdder counter;
+
     /**
      * The format of the displayed INFO message.
      */
@@ -68,9 +192,14 @@ public class Progress {
      * The minimum difference in progress between two consecutive display messages.
      */
     int interval;
-    
+
     /**
-     * The current progress milestone.
+     * The next progress milestone.
      */
     int milestone;
+
+    /**
+     * The scheduled sampling of this Progress, or null if it is not running.
+     */
+    ScheduledFuture<?> sampler;
 }
\ No newline at end of file
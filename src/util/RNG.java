@@ -1,20 +1,39 @@
 package util;
 
-import java.util.Random;
-
 import core.Build;
 
 /**
  * The RNG class represents a Random Number Generator (RNG).
+ *
+ * Each thread draws from its own SplitMix64 generator, so parallel callers never
+ * contend over a shared seed.  Code that must be reproducible regardless of
+ * thread scheduling should either use the stateless {@link #random(long, int, int, Stream)}
+ * function or {@link #reseed} the generator of the current thread before each
+ * unit of work (e.g., each BioVertex).
  */
 public class RNG {
 
     // Public members
     // -------------------------------------------------------------------------
 
+    /**
+     * The Stream enum identifies independent sequences of random numbers that
+     * are derived from the same seed and coordinates.
+     */
+    public static enum Stream {
+        BIOMAP,
+        MOISTURE,
+        ELEVATION,
+        REGIONS,
+        GRID,
+        GRADIENTS,
+        TEXTURES,
+        LIGHTS
+    };
+
     /**
      * Returns a random number in the range [0, 1].
-     * 
+     *
      * @return The random number.
      */
     public static float random() {
@@ -23,9 +42,9 @@ public class RNG {
 
     /**
      * Returns a random number in the range [-magnitude, magnitude).
-     * 
+     *
      * @param magnitude The maximum magnitude of the returned number.
-     * 
+     *
      * @return The random number.
      */
     public static float random(float magnitude) {
@@ -41,46 +60,156 @@ public class RNG {
 
     /**
      * Returns a random number in the range [low, high).
-     * 
+     *
      * @param low  The lower bound of the random number range.
      * @param high The upper bound of the random number range.
-     * 
+     *
      * @return The random number.
      */
     public static float random(float low, float high) {
         float range = high - low;
-        return low + range*random.nextFloat();
+        return low + range*RNG.toFloat(RNG.next());
     }
 
     /**
      * This function is an integer version of {@link RNG#random(float, float)}.
      */
     public static int random(int low, int high) {
-        int range = high - low;
-        return low + random.nextInt(range + 1);
+        long range = (long) high - low + 1;
+        return (int) (low + (((RNG.next() >>> 32)*range) >>> 32));
+    }
+
+    /**
+     * Returns a random number in the range [0, 1) that is a pure function of
+     * the given seed, coordinates, and Stream.
+     *
+     * @param seed   The seed.
+     * @param row    The row coordinate.
+     * @param col    The column coordinate.
+     * @param stream The Stream.
+     *
+     * @return The random number.
+     */
+    public static float random(long seed, int row, int col, Stream stream) {
+        return RNG.toFloat(RNG.hash(seed, row, col, stream));
+    }
+
+    /**
+     * Returns a 64-bit hash of the given seed, coordinates, and Stream.  The
+     * hash is suitable as the seed of a derived generator.
+     *
+     * @param seed   The seed.
+     * @param row    The row coordinate.
+     * @param col    The column coordinate.
+     * @param stream The Stream.
+     *
+     * @return The hash.
+     */
+    public static long hash(long seed, int row, int col, Stream stream) {
+        long hash = RNG.mix(seed + GOLDEN_GAMMA*(stream.ordinal() + 1));
+        hash = RNG.mix(hash + GOLDEN_GAMMA + (row & 0xFFFFFFFFL));
+        hash = RNG.mix(hash + GOLDEN_GAMMA + (col & 0xFFFFFFFFL));
+        return hash;
+    }
+
+    /**
+     * Reseeds the generator of the current thread so that its subsequent output
+     * is a pure function of the given seed, coordinates, and Stream.
+     *
+     * @param seed   The seed.
+     * @param row    The row coordinate.
+     * @param col    The column coordinate.
+     * @param stream The Stream.
+     */
+    public static void reseed(long seed, int row, int col, Stream stream) {
+        RNG.state.get()[0] = RNG.hash(seed, row, col, stream);
     }
 
     /**
      * Returns the seed that was used to initialize this random number generator.
-     * 
+     *
      * @return The seed.
      */
     public static long getSeed() {
-        return RNG.SEED;
+        return RNG.seed;
+    }
+
+    /**
+     * Sets the seed of this random number generator and reinitializes the
+     * generator of the current thread.  Threads that have already drawn from
+     * their generators are unaffected, so the seed should be set before any
+     * random numbers are generated.
+     *
+     * @param seed The new seed.
+     */
+    public static void setSeed(long seed) {
+        RNG.seed = seed;
+        RNG.state.set(RNG.initialState());
     }
 
 
     // Private members
-    // -------------------------------------------------------------------------    
+    // -------------------------------------------------------------------------
 
     /**
      * The seed that is used to initialize the random number generator.
      */
-    private static final long SEED = (long) (123456789*Math.random());
+    private static volatile long seed = (long) (123456789*Math.random());
+
+    /**
+     * The SplitMix64 increment (the odd integer closest to 2^64 divided by the
+     * golden ratio).
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The state of the generator of each thread.  Each thread starts from a
+     * state derived from the seed and its ID.
+     */
+    private static final ThreadLocal<long[]> state = ThreadLocal.withInitial(RNG::initialState);
+
+    /**
+     * Returns the initial generator state of the current thread.
+     *
+     * @return The state.
+     */
+    private static long[] initialState() {
+        long base = Build.getMajorVersion() ^ Build.getMinorVersion() ^ RNG.seed;
+        return new long[] {RNG.mix(base + GOLDEN_GAMMA*Thread.currentThread().getId())};
+    }
+
+    /**
+     * Advances the generator of the current thread and returns its next output.
+     *
+     * @return The next 64 random bits.
+     */
+    private static long next() {
+        long[] state = RNG.state.get();
+        state[0] += GOLDEN_GAMMA;
+        return RNG.mix(state[0]);
+    }
 
     /**
-     * The Random instance that is seeded and used to perform the random number
-     * calculations.
+     * Returns the SplitMix64 finalizer of the given value.
+     *
+     * @param z The value to mix.
+     *
+     * @return The mixed value.
      */
-    private static Random random = new Random(Build.getMajorVersion() ^ Build.getMinorVersion() ^ RNG.SEED);
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30))*0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27))*0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Converts the upper 24 bits of the given value into a float in [0, 1).
+     *
+     * @param bits The random bits.
+     *
+     * @return The float.
+     */
+    private static float toFloat(long bits) {
+        return (bits >>> 40)*0x1.0p-24f;
+    }
 }
\ No newline at end of file
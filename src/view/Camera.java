@@ -2,8 +2,17 @@ package view;
 
 import static org.lwjgl.opengl.GL11.*;
 
+import geo.Frustum;
+import geo.Quaternion;
+import geo.Vertex;
+import util.Algebra;
+
 /**
- * The Camera class manipulates the view perspective.
+ * The Camera class manipulates the view perspective.  The position and angle
+ * of the Camera are kept on the CPU (as a point and a Quaternion); the view and
+ * projection matrices are derived from them and uploaded to OpenGL once per
+ * frame by {@link #capture()}.  Apart from capture(), a Camera never makes an
+ * OpenGL call, so its maths can be exercised without an OpenGL context.
  */
 public class Camera {
 
@@ -32,14 +41,75 @@ public class Camera {
     }
 
     /**
-     * Apply the translation and rotation matrices of this Camera to the ModelView
-     * matrix.  All subsequent glVertex() calls will be translated by the position
-     * of this Camera and then rotated according to the angle of this Camera. 
+     * Uploads the projection and view matrices of this Camera to OpenGL and
+     * leaves the ModelView matrix mode selected.  All subsequent glVertex()
+     * calls will be translated by the position of this Camera and then rotated
+     * according to the angle of this Camera.
      */
     public void capture() {
-        glLoadIdentity();
-        glMultMatrixf(rotationMatrix);
-        glMultMatrixf(translationMatrix);
+        this.updateViewMatrix();
+
+        glMatrixMode(GL_PROJECTION);
+        glLoadMatrixf(this.projectionMatrix);
+        glMatrixMode(GL_MODELVIEW);
+        glLoadMatrixf(this.viewMatrix);
+    }
+
+    /**
+     * Returns the position of this Camera.
+     *
+     * @return The position.
+     */
+    public Vertex getPosition() {
+        return new Vertex(this.x, this.y, this.z);
+    }
+
+    /**
+     * Returns the viewing Frustum of this Camera.
+     *
+     * @return The Frustum.
+     */
+    public Frustum getFrustum() {
+        this.updateViewMatrix();
+        return new Frustum(this.projectionMatrix, this.viewMatrix);
+    }
+
+    /**
+     * Returns the view (ModelView) matrix of this Camera in column-major order.
+     *
+     * @return The view matrix.
+     */
+    public float[] getViewMatrix() {
+        this.updateViewMatrix();
+        return this.viewMatrix.clone();
+    }
+
+    /**
+     * Returns the projection matrix of this Camera in column-major order.
+     *
+     * @return The projection matrix.
+     */
+    public float[] getProjectionMatrix() {
+        return this.projectionMatrix.clone();
+    }
+
+    /**
+     * Sets the projection matrix of this Camera to a perspective projection
+     * with the given vertical field of view, aspect ratio, and clipping planes.
+     * The horizontal axis is mirrored, as the World is drawn in a right-handed
+     * coordinate system with the Z-axis pointing up.
+     *
+     * @param fov   The vertical field of view (in degrees).
+     * @param ratio The aspect ratio (width over height).
+     * @param near  The distance to the near clipping plane.
+     * @param far   The distance to the far clipping plane.
+     */
+    public void setPerspective(float fov, float ratio, float near, float far) {
+        // Calculate the bounding box of the near plane in terms of the FOV and
+        // aspect ratio.
+        float y = (float) Math.tan(Math.toRadians(fov/2))*near;
+        float x = ratio*y;
+        this.projectionMatrix = Algebra.frustum(x, -x, -y, y, near, far);
     }
 
     /**
@@ -51,11 +121,8 @@ public class Camera {
      * @param z        The Z-component of the line.
      */
     public void rotate(float rotation, float x, float y, float z) {
-        glPushMatrix();
-            glLoadMatrixf(rotationMatrix);
-            glRotatef(rotation, x, y, z);
-            glGetFloatv(GL_MODELVIEW_MATRIX, rotationMatrix);
-        glPopMatrix();
+        Quaternion turn = Quaternion.fromAxisAngle(rotation, x, y, z);
+        this.orientation = this.orientation.multiply(turn).normalize();
     }
 
     /**
@@ -66,11 +133,9 @@ public class Camera {
      * @param dz The amount to translate the Z-coordinate of this Camera.
      */
     public void translate(float dx, float dy, float dz) {
-        glPushMatrix();
-            glLoadMatrixf(translationMatrix);
-            glTranslatef(-dx, -dy, -dz);
-            glGetFloatv(GL_MODELVIEW_MATRIX, translationMatrix);
-        glPopMatrix();
+        this.x += dx;
+        this.y += dy;
+        this.z += dz;
     }
 
     /**
@@ -81,27 +146,21 @@ public class Camera {
      * @param z The new Z-coordinate of this Camera.
      */
     public void setPosition(float x, float y, float z) {
-        glPushMatrix();
-            glLoadIdentity();
-            glTranslatef(-x, -y, -z);
-            glGetFloatv(GL_MODELVIEW_MATRIX, translationMatrix);
-        glPopMatrix();
+        this.x = x;
+        this.y = y;
+        this.z = z;
     }
 
     /**
      * Sets the rotation angle of this Camera to the specified values.
-     * 
+     *
      * @param rotation The degree of CCW rotation about the given axis.
      * @param x        The X-component of the rotation axis.
      * @param y        The Y-component of the rotation axis.
      * @param z        The Z-component of the rotation axis.
      */
     public void setRotation(float rotation, float x, float y, float z) {
-        glPushMatrix();
-            glLoadIdentity();
-            glRotatef(rotation, x, y, z);
-            glGetFloatv(GL_MODELVIEW_MATRIX, rotationMatrix);
-        glPopMatrix();
+        this.orientation = Quaternion.fromAxisAngle(rotation, x, y, z);
     }
 
     // Private members
@@ -113,25 +172,64 @@ public class Camera {
     private static Camera singleton = null;
 
     /**
-     * The translation matrix representing the position of this Camera.
+     * The X-coordinate of this Camera.
+     */
+    private float x;
+
+    /**
+     * The Y-coordinate of this Camera.
+     */
+    private float y;
+
+    /**
+     * The Z-coordinate of this Camera.
      */
-    private float[] translationMatrix;
+    private float z;
 
     /**
-     * The rotation matrix representing the angle of this Camera.
+     * The rotation representing the angle of this Camera.
      */
-    private float[] rotationMatrix;
+    private Quaternion orientation;
+
+    /**
+     * The view matrix derived from the position and angle of this Camera.
+     */
+    private float[] viewMatrix;
+
+    /**
+     * The projection matrix of this Camera.
+     */
+    private float[] projectionMatrix;
 
     /**
      * Constructs a new Camera at the origin facing down the positive Z-axis.
+     * The projection matrix is the identity until a perspective is set.
      */
     private Camera() {
-        glLoadIdentity();
+        this.x = 0;
+        this.y = 0;
+        this.z = 0;
+        this.orientation = Quaternion.IDENTITY;
 
-        translationMatrix = new float[16];
-        glGetFloatv(GL_MODELVIEW_MATRIX, translationMatrix);
+        this.viewMatrix = new float[16];
+        this.viewMatrix[15] = 1;
 
-        rotationMatrix = new float[16];
-        glGetFloatv(GL_MODELVIEW_MATRIX, rotationMatrix);
+        this.projectionMatrix = new float[16];
+        for (int i = 0; i < 4; ++i) {
+            this.projectionMatrix[5*i] = 1;
+        }
+    }
+
+    /**
+     * Derives the view matrix of this Camera from its position and angle.  The
+     * view matrix rotates the World after translating it by the negated
+     * position of this Camera.
+     */
+    private void updateViewMatrix() {
+        float[] m = this.viewMatrix;
+        this.orientation.toMatrix(m);
+        m[12] = -(m[0]*this.x + m[4]*this.y + m[8]*this.z);
+        m[13] = -(m[1]*this.x + m[5]*this.y + m[9]*this.z);
+        m[14] = -(m[2]*this.x + m[6]*this.y + m[10]*this.z);
     }
-}
\ No newline at end of file
+}
@@ -106,7 +106,8 @@ public class Control {
         nameMap.put(GLFW_KEY_UNKNOWN,       "");
         nameMap.put(GLFW_KEY_ESCAPE,        "Esc");
         nameMap.put(GLFW_KEY_P,             "P");
-        nameMap.put(GLFW_KEY_V,             "V");
+        nameMap.put(GLFW_KEY_V,             "V");
+        nameMap.put(GLFW_KEY_F,             "F");
         nameMap.put(GLFW_KEY_KP_ADD,        "+");
         nameMap.put(GLFW_KEY_KP_SUBTRACT,   "-");
         nameMap.put(GLFW_KEY_W,             "W");
@@ -2,17 +2,68 @@ package view;
 
 import static org.lwjgl.glfw.GLFW.*;
 
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+import core.Logger;
+import geo.Frustum;
+import util.Histogram;
+
 /**
- * The FrameTracker class tracks the FPS of a Window.
+ * The FrameTracker class tracks the FPS of a Window along with the number of
+ * bounding volumes that were culled by the viewing Frustum of the last frame.
+ *
+ * A FrameTracker also profiles each Stage of the render loop: the loop calls
+ * {@link #lap} at the end of every Stage, and the time since the previous lap
+ * is recorded in the Histogram of that Stage.  Averaged FPS values hide the
+ * occasional slow frame, so the Histograms report percentiles of the frame
+ * times instead (see {@link #report} and {@link #write}).
  */
 public class FrameTracker {
 
     // Public members
     // -------------------------------------------------------------------------
 
+    /**
+     * Stage represents a phase of the render loop.
+     */
+    public enum Stage {
+        POLL("Poll"),      // Polling input events
+        VIEWER("Viewer"),  // Updating the Viewer and Camera
+        UPDATE("Update"),  // Updating the World
+        DRAW("Draw"),      // Drawing the World
+        SWAP("Swap"),      // Swapping the Window buffers
+        FRAME("Frame");    // The entire frame
+
+        /**
+         * Constructs a Stage with the given name.
+         *
+         * @param name The name of this Stage.
+         */
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name of this Stage.
+         *
+         * @return The name.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * The name of this Stage.
+         */
+        private String name;
+    };
+
     /**
      * Constructs a FrameTracker with the given Window and update interval.
-     * 
+     *
      * @param window   The window to be associated this FrameTracker.
      * @param interval The number of seconds to wait between Window title updates.
      */
@@ -20,14 +71,28 @@ public class FrameTracker {
         this.window = window;
         this.interval = interval;
         this.frames = 0;
+        this.tested = 0;
+        this.culled = 0;
 
         this.prevTime = 0;
         this.nextTime = interval;
+
+        this.histograms = new Histogram[Stage.values().length];
+        for (int i = 0; i < this.histograms.length; ++i) {
+            this.histograms[i] = new Histogram();
+        }
+        this.frameStart = 0;
+        this.lapStart = 0;
+
+        this.recent = new double[RECENT_FRAMES];
+        this.recentSum = 0;
+        this.recentCount = 0;
+        this.recentIndex = 0;
     }
 
     /**
      * Returns the current FPS of the Window associated with the FrameTracker.
-     * 
+     *
      * @return The FPS.
      */
     public int getFPS() {
@@ -36,14 +101,80 @@ public class FrameTracker {
         return (int) (this.frames/period);
     }
 
+    /**
+     * Returns the mean duration of the last few frames.  The mean smooths out
+     * the jitter of individual frames when it is used to scale movement.
+     *
+     * @return The mean frame time (in seconds), or 0 if no frame has finished.
+     */
+    public double getFrameTime() {
+        return this.recentCount == 0 ? 0 : this.recentSum/this.recentCount;
+    }
+
+    /**
+     * Returns the Histogram of the durations of the given Stage.
+     *
+     * @param stage The Stage.
+     *
+     * @return The Histogram (in nanoseconds).
+     */
+    public Histogram getHistogram(Stage stage) {
+        return this.histograms[stage.ordinal()];
+    }
+
+    /**
+     * Records the culling statistics of the viewing Frustum of the current
+     * frame.  This function should be called once the frame has been drawn.
+     *
+     * @param frustum The viewing Frustum of the current frame.
+     */
+    public void record(Frustum frustum) {
+        this.tested = frustum.getTested();
+        this.culled = frustum.getCulled();
+    }
+
+    /**
+     * Records the time since the previous lap (or the start of the frame) as
+     * the duration of the given Stage.  Laps before the first frame has been
+     * started are ignored.
+     *
+     * @param stage The Stage that just finished.
+     */
+    public void lap(Stage stage) {
+        long now = System.nanoTime();
+        if (this.frameStart != 0) {
+            this.histograms[stage.ordinal()].record(now - this.lapStart);
+        }
+        this.lapStart = now;
+    }
+
     /**
      * Increments the number of frames that have transpired and potentially
-     * updates the title of the Window associated with this FrameTracker.
-     * 
-     * This function should be called every time a new frame is displayed on the
-     * Window.
+     * updates the title of the Window associated with this FrameTracker.  The
+     * duration of the previous frame is recorded in the FRAME Histogram.
+     *
+     * This function should be called every time a new frame is started.
      */
     public void update() {
+        long start = System.nanoTime();
+        if (this.frameStart != 0) {
+            long duration = start - this.frameStart;
+            this.histograms[Stage.FRAME.ordinal()].record(duration);
+
+            // Replace the oldest frame time in the ring of recent frames.
+            double seconds = duration/1e9;
+            if (this.recentCount == RECENT_FRAMES) {
+                this.recentSum -= this.recent[this.recentIndex];
+            } else {
+                ++this.recentCount;
+            }
+            this.recent[this.recentIndex] = seconds;
+            this.recentSum += seconds;
+            this.recentIndex = (this.recentIndex + 1) % RECENT_FRAMES;
+        }
+        this.frameStart = start;
+        this.lapStart = start;
+
         ++this.frames;
 
         double now = glfwGetTime();
@@ -55,10 +186,61 @@ public class FrameTracker {
         }
     }
 
+    /**
+     * Logs the frame time percentiles of each Stage.
+     */
+    public void report() {
+        Logger.info("Frame times over %d frames (ms):", this.getHistogram(Stage.FRAME).getCount());
+        Logger.info(1, "%-8s %8s %8s %8s %8s %8s", "Stage", "Mean", "P50", "P95", "P99", "Max");
+        for (Stage stage : Stage.values()) {
+            Histogram histogram = this.getHistogram(stage);
+            Logger.info(1, "%-8s %8.3f %8.3f %8.3f %8.3f %8.3f",
+                        stage.getName(),
+                        histogram.getMean()/1e6,
+                        histogram.getPercentile(50)/1e6,
+                        histogram.getPercentile(95)/1e6,
+                        histogram.getPercentile(99)/1e6,
+                        histogram.getMax()/1e6);
+        }
+    }
+
+    /**
+     * Writes the frame time percentiles of each Stage to a CSV file at the
+     * given path.
+     *
+     * @param path The path of the CSV file.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(String path) throws IOException {
+        // The CSV file should not depend on the decimal separator of the
+        // default Locale.
+        try (PrintWriter writer = new PrintWriter(new FileWriter(path))) {
+            writer.println("stage,count,mean_ms,p50_ms,p95_ms,p99_ms,max_ms");
+            for (Stage stage : Stage.values()) {
+                Histogram histogram = this.getHistogram(stage);
+                writer.printf(Locale.ROOT, "%s,%d,%.4f,%.4f,%.4f,%.4f,%.4f%n",
+                              stage.getName(),
+                              histogram.getCount(),
+                              histogram.getMean()/1e6,
+                              histogram.getPercentile(50)/1e6,
+                              histogram.getPercentile(95)/1e6,
+                              histogram.getPercentile(99)/1e6,
+                              histogram.getMax()/1e6);
+            }
+        }
+        Logger.info("Wrote frame times to \"%s\".", path);
+    }
+
 
     // Private members
     // -------------------------------------------------------------------------
 
+    /**
+     * The number of recent frames that are averaged by getFrameTime().
+     */
+    private static final int RECENT_FRAMES = 10;
+
     /**
      * The Window object associated with this FrameTracker.
      */
@@ -70,6 +252,16 @@ public class FrameTracker {
      */
     private int frames;
 
+    /**
+     * The number of bounding volumes tested during the last recorded frame.
+     */
+    private int tested;
+
+    /**
+     * The number of bounding volumes culled during the last recorded frame.
+     */
+    private int culled;
+
     /**
      * The last time this FrameTracker has updated the Window title.
      */
@@ -85,11 +277,47 @@ public class FrameTracker {
      */
     private double interval;
 
+    /**
+     * The Histogram of the durations of each Stage (in nanoseconds).
+     */
+    private Histogram[] histograms;
+
+    /**
+     * The time at which the current frame started (in nanoseconds), or 0 if
+     * no frame has started.
+     */
+    private long frameStart;
+
+    /**
+     * The time at which the current Stage started (in nanoseconds).
+     */
+    private long lapStart;
+
+    /**
+     * The ring of the most recent frame times (in seconds).
+     */
+    private double[] recent;
+
+    /**
+     * The sum of the frame times in the ring of recent frames.
+     */
+    private double recentSum;
+
+    /**
+     * The number of frame times in the ring of recent frames.
+     */
+    private int recentCount;
+
+    /**
+     * The position in the ring of recent frames that receives the next frame time.
+     */
+    private int recentIndex;
+
     /**
      * Updates the title of the Window associated with this FrameTracker.
      */
     private void updateWindowTitle() {
-        String title = String.format("%s (%d FPS)", this.window.getBaseTitle(), this.getFPS());
+        String title = String.format("%s (%d FPS, %d/%d culled)", this.window.getBaseTitle(), this.getFPS(), this.culled, this.tested);
         this.window.setTitle(title);
     }
 }
\ No newline at end of file
@@ -2,10 +2,8 @@ package view;
 
 import static org.lwjgl.glfw.GLFW.*;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
 
 import core.Logger;
 import geo.Vector;
@@ -31,7 +29,6 @@ public class Viewer {
         this.velocity = new Vector(0, 0, 0);
         this.cursor = null;
         this.paused = false;
-        this.fpsQueue = new ArrayDeque<>();
 
         this.controls = new ArrayList<>();
         this.controls.add(new Control(GLFW_KEY_ESCAPE,       GLFW_KEY_P,             "Pause",         this::pauseCallback));
@@ -45,6 +42,7 @@ public class Viewer {
         this.controls.add(new Control(GLFW_KEY_KP_SUBTRACT,  GLFW_KEY_UNKNOWN,       "Slow down",     this::speedCallback));
         this.controls.add(new Control(GLFW_MOUSE_BUTTON_1,   GLFW_KEY_UNKNOWN,       "Look around",   null));
         this.controls.add(new Control(GLFW_KEY_V,            GLFW_KEY_UNKNOWN,       "Toggle Vsync",  this::vsyncCallback)); 
+        this.controls.add(new Control(GLFW_KEY_F,            GLFW_KEY_UNKNOWN,       "Frame times",   this::profileCallback));
 
         // Set the initial rotation of the Viewer.
         this.pitch = 30f;
@@ -165,27 +163,13 @@ public class Viewer {
         float dz = this.velocity.getZ();
         Vector displacement = new Vector(dx, dy, dz);
 
-        // Add the current FPS to the tail of the FPS queue.
+        // The mean time of the recent frames is capped at 1 second so that a
+        // stalled frame does not launch the Camera across the World.
         FrameTracker fpsTracker = this.window.getFrameTracker();
-        int currentFPS = fpsTracker.getFPS();
-        this.fpsQueue.add(currentFPS);
-
-        // Remove an element from the head of the FPS queue if necessary.
-        int capacity = 10;
-        if (this.fpsQueue.size() > capacity) {
-            this.fpsQueue.remove();
-        }
-
-        // The average FPS in the queue is rounded up to 1 to simplify the
-        // calculation of the velocity for this frame.
-        int averageFPS = (int) this.fpsQueue.stream()
-                                            .mapToInt(fps -> fps)
-                                            .average()
-                                            .orElse(1);
-        averageFPS = Math.max(averageFPS, 1);
+        double frameTime = Math.min(fpsTracker.getFrameTime(), 1);
 
         // Determine the speed that applies to the current frame.
-        float speed = this.speed/averageFPS;
+        float speed = (float) (this.speed*frameTime);
 
         // Normalize the displacement Vector according to the current frame velocity.
         if (!displacement.isZero()) {
@@ -238,11 +222,6 @@ public class Viewer {
      */
     private boolean paused;
 
-    /**
-     * The queue holding previous FPS query results. 
-     */
-    private Queue<Integer> fpsQueue;
-
     /**
      * The list of Controls that apply to this Viewer.
      */
@@ -283,6 +262,18 @@ public class Viewer {
         }
     }
 
+    /**
+     * Logs the frame time percentiles of the Window in response to a key event.
+     *
+     * @param key    The key associated with the key event.
+     * @param action The action associated with the key event.
+     */
+    private void profileCallback(int key, int action) {
+        if (action == GLFW_RELEASE) {
+            this.window.getFrameTracker().report();
+        }
+    }
+
     /**
      * Accelerates this Viewer in response to a key event.
      * 
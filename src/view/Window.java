@@ -352,10 +352,6 @@ public class Window {
         // Specify the canonical blending function.
         glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
 
-        // Load the OpenGL projection matrix to set the viewing frustrum.
-        glMatrixMode(GL_PROJECTION);
-        glLoadIdentity();
-
         // The vertical FOV of the viewing frustrum.
         float fov = 40f;
         // The aspect ratio of the viewing frustrum.
@@ -365,13 +361,10 @@ public class Window {
         // The distance to the far Z-plane of the viewing frustrum.
         float far = 100f;
 
-        // Calculate the bounding box of the near plane in terms of the FOV and
-        // aspect ratio.
-        float y = (float) Math.tan(Math.toRadians(fov/2))*near;
-        float x = ratio*y;
-        glFrustum(x, -x, -y, y, near, far);
-
-        Logger.debug("Viewing frustum has dimensions (%.3f, %.3f) to (%.3f, %.3f) over [%.3f, %.3f].", -x, -y, x, y, near, far);
+        // The Camera computes the projection matrix on the CPU and uploads it
+        // along with the view matrix at the start of every frame.
+        Camera.getInstance().setPerspective(fov, ratio, near, far);
+        Logger.debug("Viewing frustum has a %.1f degree FOV and a %.3f aspect ratio over [%.3f, %.3f].", fov, ratio, near, far);
 
         // Load the OpenGL ModelView matrix to manipulate vertex coordinates.
         glMatrixMode(GL_MODELVIEW);